@@ -0,0 +1,57 @@
+package com.demo.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.demo.annotation.Audited;
+import com.demo.dto.CalibrationRequest;
+import com.demo.dto.CalibrationResult;
+import com.demo.service.CalibrationService;
+
+@RestController
+@RequestMapping("/api/transfer/calibrations")
+public class CalibrationController {
+
+    @Autowired
+    private CalibrationService calibrationService;
+
+    // Starts the trial grid into the scratch collection; poll GET /{calibrationId} for the trials and the recommended one
+    @PostMapping
+    @Audited("CALIBRATION")
+    public ResponseEntity<?> calibrate(@RequestBody CalibrationRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(calibrationService.calibrate(request));
+    }
+
+    // Stored results and recent runs, newest first
+    @GetMapping
+    public ResponseEntity<?> list() {
+        return ResponseEntity.ok(calibrationService.list());
+    }
+
+    @GetMapping("/{calibrationId}")
+    public ResponseEntity<?> get(@PathVariable String calibrationId) {
+        CalibrationResult result = calibrationService.get(calibrationId);
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "error", "Unknown calibration: " + calibrationId
+            ));
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    // Applies the stored best settings for the job's source and target to the job
+    @PostMapping("/apply/{jobId}")
+    @Audited("APPLY_CALIBRATION")
+    public ResponseEntity<?> apply(@PathVariable String jobId) {
+        return ResponseEntity.ok(calibrationService.apply(jobId).toView());
+    }
+}
@@ -48,6 +48,9 @@ public class DataTransferController {
     
     @Autowired
     private DataTransferService dataTransferService;
+
+    @Autowired
+    private MigrationJobManager migrationJobManager;
     
     @Autowired
     private JwtDecoder jwtDecoder;
@@ -317,16 +320,21 @@ public class DataTransferController {
     
     @PostMapping("/transfer")
     @Audited("DATA_TRANSFER")
-    public ResponseEntity<String> transferData(
+    public ResponseEntity<?> transferData(
             @RequestHeader("Authorization") String authHeader,
             @RequestBody DataTransferService.TransferRequest request) {
         try {
             String userId = extractUserIdFromToken(authHeader);
             logger.info("Starting data transfer for user: {}", userId);
             
-            dataTransferService.transferCollection(request);
+            MigrationJob job = migrationJobManager.submit(request, userId);
             
-            return ResponseEntity.ok("Transfer initiated successfully");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "message", "Transfer initiated successfully",
+                "jobId", job.getJobId()
+            ));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Transfer failed: {}", e.getMessage());
             return ResponseEntity.internalServerError()
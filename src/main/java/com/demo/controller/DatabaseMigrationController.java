@@ -0,0 +1,79 @@
+package com.demo.controller;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.demo.annotation.Audited;
+import com.demo.dto.DatabaseMigrationRequest;
+import com.demo.service.DatabaseMigration;
+import com.demo.service.DatabaseMigrationService;
+
+@RestController
+@RequestMapping("/api/transfer/databases")
+public class DatabaseMigrationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseMigrationController.class);
+
+    @Autowired
+    private DatabaseMigrationService databaseMigrationService;
+
+    @Autowired
+    private JwtDecoder jwtDecoder;
+
+    // Aggregated progress is published on /topic/database-progress
+    @PostMapping
+    @Audited("DATA_TRANSFER")
+    public ResponseEntity<?> submitMigration(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody DatabaseMigrationRequest request) {
+        String userId = extractUserIdFromToken(authHeader);
+        DatabaseMigration migration = databaseMigrationService.submit(request, userId);
+        logger.info("Database migration {} submitted by user: {}", migration.getMigrationId(), userId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(migration.toView(true));
+    }
+
+    @GetMapping
+    public ResponseEntity<?> listMigrations() {
+        return ResponseEntity.ok(databaseMigrationService.listMigrations().stream()
+                .map(migration -> migration.toView(false)).toList());
+    }
+
+    @GetMapping("/{migrationId}")
+    public ResponseEntity<?> getMigration(@PathVariable String migrationId) {
+        DatabaseMigration migration = databaseMigrationService.getMigration(migrationId);
+        if (migration == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "error", "Unknown database migration: " + migrationId
+            ));
+        }
+        return ResponseEntity.ok(migration.toView(true));
+    }
+
+    @PostMapping("/{migrationId}/cancel")
+    @Audited("STOP_MIGRATION")
+    public ResponseEntity<?> cancelMigration(@PathVariable String migrationId) {
+        return ResponseEntity.ok(databaseMigrationService.cancel(migrationId).toView(true));
+    }
+
+    private String extractUserIdFromToken(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new SecurityException("Invalid authorization header");
+        }
+        Jwt jwt = jwtDecoder.decode(authHeader.substring(7));
+        return jwt.getClaim("sub");
+    }
+}
@@ -0,0 +1,55 @@
+package com.demo.controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.demo.annotation.Audited;
+import com.demo.dto.DeadLetter;
+import com.demo.service.DataTransferService;
+import com.demo.service.DeadLetterService;
+
+@RestController
+@RequestMapping("/api/transfer/dlq")
+public class DeadLetterController {
+
+    @Autowired
+    private DeadLetterService deadLetterService;
+
+    @Autowired
+    private DataTransferService dataTransferService;
+
+    // Dead letter counts per migration and the state of the backing log
+    @GetMapping
+    public ResponseEntity<?> getStats() {
+        return ResponseEntity.ok(deadLetterService.getStats());
+    }
+
+    // Oldest entries of one migration first; migrationKey is database.collection
+    @GetMapping("/{migrationKey}")
+    public ResponseEntity<?> list(@PathVariable String migrationKey,
+                                  @RequestParam(defaultValue = "100") int limit) {
+        List<DeadLetter> letters = deadLetterService.list(migrationKey);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("migrationKey", migrationKey);
+        body.put("count", letters.size());
+        body.put("entries", letters.subList(0, Math.min(Math.max(limit, 0), letters.size())));
+        return ResponseEntity.ok(body);
+    }
+
+    // Runs until every entry has been tried once and returns what became of them
+    @PostMapping("/{migrationKey}/replay")
+    @Audited("REPLAY_DEAD_LETTERS")
+    public ResponseEntity<?> replay(@PathVariable String migrationKey) {
+        return ResponseEntity.ok(dataTransferService.replayDeadLetters(migrationKey));
+    }
+}
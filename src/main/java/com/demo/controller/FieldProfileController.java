@@ -0,0 +1,49 @@
+package com.demo.controller;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.demo.service.FieldProfilerService;
+
+@RestController
+@RequestMapping("/api/transfer/profiles")
+public class FieldProfileController {
+
+    private static final Logger logger = LoggerFactory.getLogger(FieldProfileController.class);
+
+    @Autowired
+    private FieldProfilerService fieldProfilerService;
+
+    @GetMapping
+    public ResponseEntity<?> listProfiles() {
+        return ResponseEntity.ok(Map.of("collections", fieldProfilerService.listProfiledCollections()));
+    }
+
+    // Per-field cardinality, null/missing ratios, type mix and size quantiles for index design
+    @GetMapping("/{database}/{collection}")
+    public ResponseEntity<?> getProfile(@PathVariable String database, @PathVariable String collection) {
+        try {
+            Map<String, Object> profile = fieldProfilerService.getProfile(database, collection);
+            if (profile == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "error", "No field profile for " + database + "." + collection
+                ));
+            }
+            return ResponseEntity.ok(profile);
+        } catch (Exception e) {
+            logger.error("Failed to read field profile: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of(
+                "error", "Failed to read field profile"
+            ));
+        }
+    }
+}
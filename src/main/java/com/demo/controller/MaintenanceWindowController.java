@@ -0,0 +1,37 @@
+package com.demo.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.demo.annotation.Audited;
+import com.demo.dto.MaintenanceWindow;
+import com.demo.service.MaintenanceWindowService;
+
+@RestController
+@RequestMapping("/api/transfer/windows")
+public class MaintenanceWindowController {
+
+    @Autowired
+    private MaintenanceWindowService maintenanceWindowService;
+
+    // Active window, its mode and the resulting budget percentage
+    @GetMapping
+    public ResponseEntity<?> getWindows() {
+        return ResponseEntity.ok(maintenanceWindowService.getState());
+    }
+
+    // Replaces all windows; the new mode applies immediately
+    @PutMapping
+    @Audited("UPDATE_WINDOWS")
+    public ResponseEntity<?> setWindows(@RequestBody List<MaintenanceWindow> windows) {
+        maintenanceWindowService.setWindows(windows);
+        return ResponseEntity.ok(maintenanceWindowService.getState());
+    }
+}
@@ -0,0 +1,131 @@
+package com.demo.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.demo.annotation.Audited;
+import com.demo.dto.JobTuning;
+import com.demo.dto.ThrottleSettings;
+import com.demo.service.DataTransferService;
+import com.demo.service.MigrationJob;
+import com.demo.service.MigrationJobManager;
+
+@RestController
+@RequestMapping("/api/transfer/jobs")
+public class MigrationJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigrationJobController.class);
+
+    @Autowired
+    private MigrationJobManager jobManager;
+
+    @Autowired
+    private JwtDecoder jwtDecoder;
+
+    @PostMapping
+    @Audited("DATA_TRANSFER")
+    public ResponseEntity<?> submitJob(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody DataTransferService.TransferRequest request) {
+        String userId = extractUserIdFromToken(authHeader);
+        MigrationJob job = jobManager.submit(request, userId);
+        logger.info("Migration job {} submitted by user: {}", job.getJobId(), userId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toView());
+    }
+
+    // Queues several collections at once; they start largest first and share one concurrency budget
+    @PostMapping("/batch")
+    @Audited("DATA_TRANSFER")
+    public ResponseEntity<?> submitBatch(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody List<DataTransferService.TransferRequest> requests) {
+        String userId = extractUserIdFromToken(authHeader);
+        List<MigrationJob> jobs = jobManager.submitAll(requests, userId);
+        logger.info("{} migration jobs submitted by user: {}", jobs.size(), userId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobs.stream().map(MigrationJob::toView).toList());
+    }
+
+    @GetMapping
+    public ResponseEntity<?> listJobs() {
+        return ResponseEntity.ok(jobManager.listJobs().stream().map(MigrationJob::toView).toList());
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) {
+        MigrationJob job = jobManager.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "error", "Unknown migration job: " + jobId
+            ));
+        }
+        return ResponseEntity.ok(job.toView());
+    }
+
+    @PostMapping("/{jobId}/pause")
+    @Audited("PAUSE_MIGRATION")
+    public ResponseEntity<?> pauseJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(jobManager.pause(jobId).toView());
+    }
+
+    @PostMapping("/{jobId}/resume")
+    @Audited("RESUME_MIGRATION")
+    public ResponseEntity<?> resumeJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(jobManager.resume(jobId).toView());
+    }
+
+    @PostMapping("/{jobId}/cancel")
+    @Audited("STOP_MIGRATION")
+    public ResponseEntity<?> cancelJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(jobManager.cancel(jobId).toView());
+    }
+
+    @GetMapping("/{jobId}/throttle")
+    public ResponseEntity<?> getThrottle(@PathVariable String jobId) {
+        MigrationJob job = jobManager.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "error", "Unknown migration job: " + jobId
+            ));
+        }
+        return ResponseEntity.ok(job.getContext().getThrottle().getStats());
+    }
+
+    // Replaces the job's docs/s and bytes/s limits or finish-by deadline while it runs
+    @PutMapping("/{jobId}/throttle")
+    @Audited("UPDATE_THROTTLE")
+    public ResponseEntity<?> updateThrottle(@PathVariable String jobId, @RequestBody ThrottleSettings settings) {
+        return ResponseEntity.ok(jobManager.updateThrottle(jobId, settings).getContext().getThrottle().getStats());
+    }
+
+    // Batch size, read parallelism, write concurrency and rate limits; applied from the job's next batch
+    @PatchMapping("/{jobId}/config")
+    @Audited("RECONFIGURE_MIGRATION")
+    public ResponseEntity<?> reconfigure(@PathVariable String jobId, @RequestBody JobTuning tuning) {
+        return ResponseEntity.ok(jobManager.reconfigure(jobId, tuning).toView());
+    }
+
+    private String extractUserIdFromToken(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new SecurityException("Invalid authorization header");
+        }
+        Jwt jwt = jwtDecoder.decode(authHeader.substring(7));
+        return jwt.getClaim("sub");
+    }
+}
@@ -0,0 +1,36 @@
+package com.demo.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.stereotype.Controller;
+
+import com.demo.annotation.Audited;
+import com.demo.dto.JobTuning;
+import com.demo.service.MigrationJobManager;
+
+@Controller
+public class MigrationJobMessageController {
+
+    @Autowired
+    private MigrationJobManager jobManager;
+
+    // STOMP counterpart of PATCH /api/transfer/jobs/{jobId}/config; the updated job goes to /topic/job-config
+    @MessageMapping("/jobs/{jobId}/config")
+    @SendTo("/topic/job-config")
+    @Audited("RECONFIGURE_MIGRATION")
+    public Map<String, Object> reconfigure(@DestinationVariable String jobId, @Payload JobTuning tuning) {
+        return jobManager.reconfigure(jobId, tuning).toView();
+    }
+
+    @MessageExceptionHandler({IllegalArgumentException.class, IllegalStateException.class})
+    @SendTo("/topic/job-config")
+    public Map<String, Object> handleRejected(RuntimeException e) {
+        return Map.of("error", e.getMessage());
+    }
+}
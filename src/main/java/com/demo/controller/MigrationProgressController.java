@@ -25,6 +25,7 @@ public class MigrationProgressController {
     private static final String PROGRESS_TOPIC = "migration-progress";
     private static final String WEBSOCKET_TOPIC = "/topic/migration-progress";
     private static final String CDC_TOPIC = "/topic/cdc-events";
+    private static final String DATABASE_TOPIC = "/topic/database-progress";
 
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final SimpMessagingTemplate messagingTemplate;
@@ -261,6 +262,17 @@ public class MigrationProgressController {
         sendCdcEvent(database, collection, "DELETE", documentId, documentData);
     }
 
+    /**
+     * Send aggregated progress of a whole-database migration
+     */
+    public void sendDatabaseProgress(Map<String, Object> progress) {
+        try {
+            messagingTemplate.convertAndSend(DATABASE_TOPIC, progress);
+        } catch (Exception e) {
+            logger.error("[ERROR] Failed to send database progress via WebSocket: {}", e.getMessage());
+        }
+    }
+
     /**
      * Send drop event notification
      */
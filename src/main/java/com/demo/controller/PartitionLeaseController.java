@@ -0,0 +1,45 @@
+package com.demo.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.demo.dto.PartitionManifest;
+import com.demo.service.PartitionLeaseService;
+
+@RestController
+@RequestMapping("/api/transfer/partitions")
+public class PartitionLeaseController {
+
+    @Autowired
+    private PartitionLeaseService partitionLeases;
+
+    // Distributed jobs in the lease store, and which worker this instance is
+    @GetMapping
+    public ResponseEntity<?> listJobs() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("enabled", partitionLeases.isEnabled());
+        body.put("workerId", partitionLeases.getWorkerId());
+        body.put("jobs", partitionLeases.listManifests());
+        return ResponseEntity.ok(body);
+    }
+
+    // Lease state, owner and expiry of each partition; jobKey is database.collection
+    @GetMapping("/{jobKey}")
+    public ResponseEntity<?> getPartitions(@PathVariable String jobKey) {
+        PartitionManifest manifest = partitionLeases.listManifests().stream()
+                .filter(m -> m.getJobKey().equals(jobKey))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown distributed job: " + jobKey));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("job", manifest);
+        body.put("partitions", partitionLeases.getPartitions(jobKey));
+        return ResponseEntity.ok(body);
+    }
+}
@@ -0,0 +1,27 @@
+package com.demo.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.demo.annotation.Audited;
+import com.demo.dto.RecoveryDrillRequest;
+import com.demo.service.RecoveryDrillService;
+
+@RestController
+@RequestMapping("/api/transfer/drills")
+public class RecoveryDrillController {
+
+    @Autowired
+    private RecoveryDrillService recoveryDrillService;
+
+    // Runs a fault-injection drill against in-process stand-ins and returns its recovery report
+    @PostMapping
+    @Audited("RECOVERY_DRILL")
+    public ResponseEntity<?> run(@RequestBody RecoveryDrillRequest request) {
+        return ResponseEntity.ok(recoveryDrillService.run(request));
+    }
+}
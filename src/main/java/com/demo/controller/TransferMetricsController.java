@@ -0,0 +1,138 @@
+package com.demo.controller;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.demo.service.BinaryDedupService;
+import com.demo.service.CheckpointService;
+import com.demo.service.ConnectionCircuitBreakers;
+import com.demo.service.DataTransferService;
+import com.demo.service.ReferenceResolverService;
+import com.demo.service.TransferConcurrencyBudget;
+import com.demo.util.JsonDocumentWriter;
+
+@RestController
+@RequestMapping("/api/transfer/metrics")
+public class TransferMetricsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferMetricsController.class);
+
+    @Autowired
+    private JsonDocumentWriter jsonWriter;
+
+    @Autowired
+    private DataTransferService dataTransferService;
+
+    @Autowired
+    private ReferenceResolverService referenceResolver;
+
+    @Autowired
+    private BinaryDedupService binaryDedupService;
+
+    @Autowired
+    private TransferConcurrencyBudget concurrencyBudget;
+
+    @Autowired
+    private ConnectionCircuitBreakers circuitBreakers;
+
+    @Autowired
+    private CheckpointService checkpointService;
+
+    // Per-stage queue depth, busy time and throughput; the bottleneck is the busiest stage
+    @GetMapping("/pipelines")
+    public ResponseEntity<?> getPipelineMetrics() {
+        try {
+            return ResponseEntity.ok(dataTransferService.getPipelineMetrics());
+        } catch (Exception e) {
+            logger.error("Failed to read pipeline metrics: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of(
+                "error", "Failed to read pipeline metrics"
+            ));
+        }
+    }
+
+    // Global read/write permits in use and time jobs spent waiting for them
+    @GetMapping("/budget")
+    public ResponseEntity<?> getBudgetStats() {
+        try {
+            return ResponseEntity.ok(concurrencyBudget.getStats());
+        } catch (Exception e) {
+            logger.error("Failed to read concurrency budget: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of(
+                "error", "Failed to read concurrency budget"
+            ));
+        }
+    }
+
+    // Mongo and Couchbase circuit state, failure rate and time stages spent blocked on them
+    @GetMapping("/circuits")
+    public ResponseEntity<?> getCircuitStats() {
+        try {
+            return ResponseEntity.ok(circuitBreakers.getStats());
+        } catch (Exception e) {
+            logger.error("Failed to read circuit stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of(
+                "error", "Failed to read circuit stats"
+            ));
+        }
+    }
+
+    // Checkpoint log size, pending group commit and compactions
+    @GetMapping("/checkpoints")
+    public ResponseEntity<?> getCheckpointStats() {
+        try {
+            return ResponseEntity.ok(checkpointService.getStats());
+        } catch (Exception e) {
+            logger.error("Failed to read checkpoint stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of(
+                "error", "Failed to read checkpoint stats"
+            ));
+        }
+    }
+
+    // Encoded documents and bytes still waiting on their KV write
+    @GetMapping("/buffers")
+    public ResponseEntity<?> getBufferStats() {
+        try {
+            return ResponseEntity.ok(jsonWriter.getStats());
+        } catch (Exception e) {
+            logger.error("Failed to read buffer stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of(
+                "error", "Failed to read buffer stats"
+            ));
+        }
+    }
+
+    // Reference lookup cache hit ratio and $in lookup latency
+    @GetMapping("/references")
+    public ResponseEntity<?> getReferenceStats() {
+        try {
+            return ResponseEntity.ok(referenceResolver.getStats());
+        } catch (Exception e) {
+            logger.error("Failed to read reference stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of(
+                "error", "Failed to read reference stats"
+            ));
+        }
+    }
+
+    // Binary blob writes avoided by the digest set, and bytes saved
+    @GetMapping("/binaries")
+    public ResponseEntity<?> getBinaryDedupStats() {
+        try {
+            return ResponseEntity.ok(binaryDedupService.getStats());
+        } catch (Exception e) {
+            logger.error("Failed to read binary dedup stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of(
+                "error", "Failed to read binary dedup stats"
+            ));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.demo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A calibration run: one short trial transfer into a scratch collection of
+ * the target bucket and scope for every combination of the three grids.
+ * Every trial reads the same first trialDocuments documents of the source
+ * in _id order and stops when they are written or at trialDurationMs,
+ * whichever comes first. The best trial with an error rate at or below
+ * maxErrorRate is recommended, and applied to applyToJobId when given; that
+ * job must still be queued, and waits for the calibration.
+ */
+public class CalibrationRequest {
+    private String mongoDatabase;
+    private String mongoCollection;
+    private String bucketName;
+    private String scopeName;
+    private List<Integer> batchSizes = new ArrayList<>(List.of(1000, 4000, 10000));
+    private List<Integer> readParallelisms = new ArrayList<>(List.of(2, 4));
+    private List<Integer> writeConcurrencies = new ArrayList<>(List.of(250, 750, 1500));
+    private int trialDocuments = 20000;
+    private long trialDurationMs = 15000;
+    private double maxErrorRate = 0.01;
+    private String applyToJobId;
+
+    public CalibrationRequest() {}
+
+    public String getMongoDatabase() { return mongoDatabase; }
+    public void setMongoDatabase(String mongoDatabase) { this.mongoDatabase = mongoDatabase; }
+
+    public String getMongoCollection() { return mongoCollection; }
+    public void setMongoCollection(String mongoCollection) { this.mongoCollection = mongoCollection; }
+
+    public String getBucketName() { return bucketName; }
+    public void setBucketName(String bucketName) { this.bucketName = bucketName; }
+
+    public String getScopeName() { return scopeName; }
+    public void setScopeName(String scopeName) { this.scopeName = scopeName; }
+
+    public List<Integer> getBatchSizes() { return batchSizes; }
+    public void setBatchSizes(List<Integer> batchSizes) { this.batchSizes = batchSizes; }
+
+    public List<Integer> getReadParallelisms() { return readParallelisms; }
+    public void setReadParallelisms(List<Integer> readParallelisms) { this.readParallelisms = readParallelisms; }
+
+    public List<Integer> getWriteConcurrencies() { return writeConcurrencies; }
+    public void setWriteConcurrencies(List<Integer> writeConcurrencies) { this.writeConcurrencies = writeConcurrencies; }
+
+    public int getTrialDocuments() { return trialDocuments; }
+    public void setTrialDocuments(int trialDocuments) { this.trialDocuments = trialDocuments; }
+
+    public long getTrialDurationMs() { return trialDurationMs; }
+    public void setTrialDurationMs(long trialDurationMs) { this.trialDurationMs = trialDurationMs; }
+
+    public double getMaxErrorRate() { return maxErrorRate; }
+    public void setMaxErrorRate(double maxErrorRate) { this.maxErrorRate = maxErrorRate; }
+
+    public String getApplyToJobId() { return applyToJobId; }
+    public void setApplyToJobId(String applyToJobId) { this.applyToJobId = applyToJobId; }
+
+    @Override
+    public String toString() {
+        return "CalibrationRequest{" +
+                "source=" + mongoDatabase + "." + mongoCollection +
+                ", target=" + bucketName + "." + scopeName +
+                ", batchSizes=" + batchSizes +
+                ", readParallelisms=" + readParallelisms +
+                ", writeConcurrencies=" + writeConcurrencies +
+                ", trialDocuments=" + trialDocuments +
+                ", trialDurationMs=" + trialDurationMs +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.demo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A calibration run, RUNNING until its last trial. A completed one is kept
+ * per source collection and target bucket and scope so a later job between
+ * the same pair can reuse it. best is null when no trial stayed within the
+ * error rate.
+ */
+public class CalibrationResult {
+
+    public enum Status { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private String calibrationId;
+    private String mongoDatabase;
+    private String mongoCollection;
+    private String bucketName;
+    private String scopeName;
+    private String applyToJobId;
+    private long startedAt;
+    private double maxErrorRate;
+    // Updated by the calibration thread while it runs
+    private volatile Status status;
+    private volatile long calibratedAt;
+    private volatile List<CalibrationTrial> trials = new ArrayList<>();
+    private volatile CalibrationTrial best;
+    private volatile String error;
+
+    public CalibrationResult() {}
+
+    public String getCalibrationId() { return calibrationId; }
+    public void setCalibrationId(String calibrationId) { this.calibrationId = calibrationId; }
+
+    public String getMongoDatabase() { return mongoDatabase; }
+    public void setMongoDatabase(String mongoDatabase) { this.mongoDatabase = mongoDatabase; }
+
+    public String getMongoCollection() { return mongoCollection; }
+    public void setMongoCollection(String mongoCollection) { this.mongoCollection = mongoCollection; }
+
+    public String getBucketName() { return bucketName; }
+    public void setBucketName(String bucketName) { this.bucketName = bucketName; }
+
+    public String getScopeName() { return scopeName; }
+    public void setScopeName(String scopeName) { this.scopeName = scopeName; }
+
+    public String getApplyToJobId() { return applyToJobId; }
+    public void setApplyToJobId(String applyToJobId) { this.applyToJobId = applyToJobId; }
+
+    public long getStartedAt() { return startedAt; }
+    public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public long getCalibratedAt() { return calibratedAt; }
+    public void setCalibratedAt(long calibratedAt) { this.calibratedAt = calibratedAt; }
+
+    public double getMaxErrorRate() { return maxErrorRate; }
+    public void setMaxErrorRate(double maxErrorRate) { this.maxErrorRate = maxErrorRate; }
+
+    public List<CalibrationTrial> getTrials() { return trials; }
+    public void setTrials(List<CalibrationTrial> trials) { this.trials = trials; }
+
+    public CalibrationTrial getBest() { return best; }
+    public void setBest(CalibrationTrial best) { this.best = best; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    @Override
+    public String toString() {
+        return "CalibrationResult{" +
+                "calibrationId=" + calibrationId +
+                ", source=" + mongoDatabase + "." + mongoCollection +
+                ", target=" + bucketName + "." + scopeName +
+                ", status=" + status +
+                ", trials=" + trials.size() +
+                ", best=" + best +
+                '}';
+    }
+}
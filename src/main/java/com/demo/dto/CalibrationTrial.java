@@ -0,0 +1,69 @@
+package com.demo.dto;
+
+/**
+ * Outcome of one calibration trial. Throughput is documents written per
+ * second of the trial; errorRate is the share of source reads and target
+ * upserts that failed, retried ones included.
+ */
+public class CalibrationTrial {
+    private int batchSize;
+    private int readParallelism;
+    private int writeConcurrency;
+    private long documents;
+    private long durationMs;
+    private long throughput;
+    private long calls;
+    private long errors;
+    private double errorRate;
+    private String error;
+
+    public CalibrationTrial() {}
+
+    public CalibrationTrial(int batchSize, int readParallelism, int writeConcurrency) {
+        this.batchSize = batchSize;
+        this.readParallelism = readParallelism;
+        this.writeConcurrency = writeConcurrency;
+    }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public int getReadParallelism() { return readParallelism; }
+    public void setReadParallelism(int readParallelism) { this.readParallelism = readParallelism; }
+
+    public int getWriteConcurrency() { return writeConcurrency; }
+    public void setWriteConcurrency(int writeConcurrency) { this.writeConcurrency = writeConcurrency; }
+
+    public long getDocuments() { return documents; }
+    public void setDocuments(long documents) { this.documents = documents; }
+
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+
+    public long getThroughput() { return throughput; }
+    public void setThroughput(long throughput) { this.throughput = throughput; }
+
+    public long getCalls() { return calls; }
+    public void setCalls(long calls) { this.calls = calls; }
+
+    public long getErrors() { return errors; }
+    public void setErrors(long errors) { this.errors = errors; }
+
+    public double getErrorRate() { return errorRate; }
+    public void setErrorRate(double errorRate) { this.errorRate = errorRate; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    @Override
+    public String toString() {
+        return "CalibrationTrial{" +
+                "batchSize=" + batchSize +
+                ", readParallelism=" + readParallelism +
+                ", writeConcurrency=" + writeConcurrency +
+                ", throughput=" + throughput +
+                ", errorRate=" + errorRate +
+                (error != null ? ", error=" + error : "") +
+                '}';
+    }
+}
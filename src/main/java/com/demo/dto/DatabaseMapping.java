@@ -0,0 +1,44 @@
+package com.demo.dto;
+
+import java.util.List;
+
+/**
+ * One Mongo database and the Couchbase bucket/scope it migrates into. Each
+ * source collection becomes a target collection of the same name, with
+ * characters Couchbase does not allow replaced.
+ */
+public class DatabaseMapping {
+    private String mongoDatabase;
+    private String bucketName;
+    private String scopeName; // defaults to the database name
+    private List<String> includeCollections; // all user collections when empty
+    private List<String> excludeCollections;
+
+    public DatabaseMapping() {}
+
+    public String getMongoDatabase() { return mongoDatabase; }
+    public void setMongoDatabase(String mongoDatabase) { this.mongoDatabase = mongoDatabase; }
+
+    public String getBucketName() { return bucketName; }
+    public void setBucketName(String bucketName) { this.bucketName = bucketName; }
+
+    public String getScopeName() { return scopeName; }
+    public void setScopeName(String scopeName) { this.scopeName = scopeName; }
+
+    public List<String> getIncludeCollections() { return includeCollections; }
+    public void setIncludeCollections(List<String> includeCollections) { this.includeCollections = includeCollections; }
+
+    public List<String> getExcludeCollections() { return excludeCollections; }
+    public void setExcludeCollections(List<String> excludeCollections) { this.excludeCollections = excludeCollections; }
+
+    @Override
+    public String toString() {
+        return "DatabaseMapping{" +
+                "mongoDatabase='" + mongoDatabase + '\'' +
+                ", bucketName='" + bucketName + '\'' +
+                ", scopeName='" + scopeName + '\'' +
+                ", includeCollections=" + includeCollections +
+                ", excludeCollections=" + excludeCollections +
+                '}';
+    }
+}
@@ -0,0 +1,27 @@
+package com.demo.dto;
+
+import java.util.List;
+
+/**
+ * Migrates whole databases. Options apply to every collection job.
+ */
+public class DatabaseMigrationRequest {
+    private List<DatabaseMapping> databases;
+    private TransferOptions options;
+
+    public DatabaseMigrationRequest() {}
+
+    public List<DatabaseMapping> getDatabases() { return databases; }
+    public void setDatabases(List<DatabaseMapping> databases) { this.databases = databases; }
+
+    public TransferOptions getOptions() { return options; }
+    public void setOptions(TransferOptions options) { this.options = options; }
+
+    @Override
+    public String toString() {
+        return "DatabaseMigrationRequest{" +
+                "databases=" + databases +
+                ", options=" + options +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+package com.demo.dto;
+
+/**
+ * A document a transfer gave up on. documentId is the Couchbase key and
+ * sourceKey the extended JSON of the raw Mongo _id, which replay reads the
+ * document back by. attempts adds up across the runs and replays that
+ * failed it; payload is the encoded document (or the source document when
+ * it failed before encoding), left out when payloads are disabled or too
+ * large.
+ */
+public class DeadLetter {
+    private String migrationKey;
+    private String documentId;
+    private String sourceKey;
+    private String stage;
+    private String errorClass;
+    private String errorMessage;
+    private int attempts;
+    private long failedAt;
+    private String payload;
+
+    public DeadLetter() {}
+
+    public DeadLetter(String migrationKey, String documentId, String sourceKey, String stage,
+                      String errorClass, String errorMessage, int attempts, String payload) {
+        this.migrationKey = migrationKey;
+        this.documentId = documentId;
+        this.sourceKey = sourceKey;
+        this.stage = stage;
+        this.errorClass = errorClass;
+        this.errorMessage = errorMessage;
+        this.attempts = attempts;
+        this.failedAt = System.currentTimeMillis();
+        this.payload = payload;
+    }
+
+    public String getMigrationKey() { return migrationKey; }
+    public void setMigrationKey(String migrationKey) { this.migrationKey = migrationKey; }
+
+    public String getDocumentId() { return documentId; }
+    public void setDocumentId(String documentId) { this.documentId = documentId; }
+
+    public String getSourceKey() { return sourceKey; }
+    public void setSourceKey(String sourceKey) { this.sourceKey = sourceKey; }
+
+    public String getStage() { return stage; }
+    public void setStage(String stage) { this.stage = stage; }
+
+    public String getErrorClass() { return errorClass; }
+    public void setErrorClass(String errorClass) { this.errorClass = errorClass; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public long getFailedAt() { return failedAt; }
+    public void setFailedAt(long failedAt) { this.failedAt = failedAt; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    @Override
+    public String toString() {
+        return "DeadLetter{" +
+                "migrationKey='" + migrationKey + '\'' +
+                ", documentId='" + documentId + '\'' +
+                ", stage='" + stage + '\'' +
+                ", errorClass='" + errorClass + '\'' +
+                ", attempts=" + attempts +
+                ", failedAt=" + failedAt +
+                '}';
+    }
+}
@@ -0,0 +1,62 @@
+package com.demo.dto;
+
+/**
+ * One fault a recovery drill injects, active from startMs to
+ * startMs + durationMs after the drill starts, on the SOURCE or TARGET.
+ *
+ * Types: TIMEOUT (each call hangs for latencyMs, then times out; target
+ * writes are applied before the timeout, like an ambiguous one), DISCONNECT
+ * (each call fails at once), SLOW (each call takes latencyMs longer) and
+ * PARTIAL (a failureRate share of calls time out, the rest succeed).
+ */
+public class FaultSpec {
+    private String type;
+    private String endpoint = "TARGET";
+    private long startMs;
+    private long durationMs;
+    private long latencyMs = 1000;
+    private double failureRate = 0.1;
+
+    public FaultSpec() {}
+
+    public FaultSpec(String type, String endpoint, long startMs, long durationMs, long latencyMs, double failureRate) {
+        this.type = type;
+        this.endpoint = endpoint;
+        this.startMs = startMs;
+        this.durationMs = durationMs;
+        this.latencyMs = latencyMs;
+        this.failureRate = failureRate;
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getEndpoint() { return endpoint; }
+    public void setEndpoint(String endpoint) { this.endpoint = endpoint; }
+
+    public long getStartMs() { return startMs; }
+    public void setStartMs(long startMs) { this.startMs = startMs; }
+
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+
+    public long getLatencyMs() { return latencyMs; }
+    public void setLatencyMs(long latencyMs) { this.latencyMs = latencyMs; }
+
+    public double getFailureRate() { return failureRate; }
+    public void setFailureRate(double failureRate) { this.failureRate = failureRate; }
+
+    public long getEndMs() { return startMs + durationMs; }
+
+    @Override
+    public String toString() {
+        return "FaultSpec{" +
+                "type='" + type + '\'' +
+                ", endpoint='" + endpoint + '\'' +
+                ", startMs=" + startMs +
+                ", durationMs=" + durationMs +
+                ", latencyMs=" + latencyMs +
+                ", failureRate=" + failureRate +
+                '}';
+    }
+}
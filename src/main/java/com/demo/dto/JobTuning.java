@@ -0,0 +1,37 @@
+package com.demo.dto;
+
+/**
+ * Settings of a running job that can change between batches. A null field
+ * leaves that setting as it is; throttle replaces all rate limits, as the
+ * throttle endpoint does.
+ */
+public class JobTuning {
+    private Integer batchSize;
+    private Integer readParallelism;
+    private Integer writeConcurrency;
+    private ThrottleSettings throttle;
+
+    public JobTuning() {}
+
+    public Integer getBatchSize() { return batchSize; }
+    public void setBatchSize(Integer batchSize) { this.batchSize = batchSize; }
+
+    public Integer getReadParallelism() { return readParallelism; }
+    public void setReadParallelism(Integer readParallelism) { this.readParallelism = readParallelism; }
+
+    public Integer getWriteConcurrency() { return writeConcurrency; }
+    public void setWriteConcurrency(Integer writeConcurrency) { this.writeConcurrency = writeConcurrency; }
+
+    public ThrottleSettings getThrottle() { return throttle; }
+    public void setThrottle(ThrottleSettings throttle) { this.throttle = throttle; }
+
+    @Override
+    public String toString() {
+        return "JobTuning{" +
+                "batchSize=" + batchSize +
+                ", readParallelism=" + readParallelism +
+                ", writeConcurrency=" + writeConcurrency +
+                ", throttle=" + throttle +
+                '}';
+    }
+}
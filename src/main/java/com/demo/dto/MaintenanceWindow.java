@@ -0,0 +1,53 @@
+package com.demo.dto;
+
+/**
+ * A recurring window in which migrations run in a given mode. The window
+ * opens at each time matched by the Spring cron expression (six fields,
+ * seconds first) and stays open for durationMinutes.
+ *
+ * Modes: RUN (full speed), THROTTLE (percent of the global concurrency
+ * budget) and PAUSE (jobs hold at the next batch boundary).
+ */
+public class MaintenanceWindow {
+    private String name;
+    private String cron;
+    private long durationMinutes;
+    private String mode = "RUN";
+    private int percent = 100;
+
+    public MaintenanceWindow() {}
+
+    public MaintenanceWindow(String name, String cron, long durationMinutes, String mode, int percent) {
+        this.name = name;
+        this.cron = cron;
+        this.durationMinutes = durationMinutes;
+        this.mode = mode;
+        this.percent = percent;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getCron() { return cron; }
+    public void setCron(String cron) { this.cron = cron; }
+
+    public long getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(long durationMinutes) { this.durationMinutes = durationMinutes; }
+
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+
+    public int getPercent() { return percent; }
+    public void setPercent(int percent) { this.percent = percent; }
+
+    @Override
+    public String toString() {
+        return "MaintenanceWindow{" +
+                "name='" + name + '\'' +
+                ", cron='" + cron + '\'' +
+                ", durationMinutes=" + durationMinutes +
+                ", mode='" + mode + '\'' +
+                ", percent=" + percent +
+                '}';
+    }
+}
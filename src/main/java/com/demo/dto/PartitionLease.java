@@ -0,0 +1,93 @@
+package com.demo.dto;
+
+/**
+ * One _id range of a distributed job and the worker currently holding it.
+ * Bounds are extended JSON of the boundary _id (lower inclusive, upper
+ * exclusive); null means unbounded. version is the store's compare-and-set
+ * token (the document CAS for Couchbase).
+ */
+public class PartitionLease {
+
+    public enum State { PENDING, LEASED, DONE }
+
+    private String jobKey;
+    private int partitionId;
+    private String lowerBound;
+    private String upperBound;
+    private State state = State.PENDING;
+    private String owner;
+    private long leaseExpiresAt;
+    private long transferred;
+    private int attempts;
+    private long version;
+
+    public PartitionLease() {}
+
+    public PartitionLease(String jobKey, int partitionId, String lowerBound, String upperBound) {
+        this.jobKey = jobKey;
+        this.partitionId = partitionId;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+    }
+
+    // Free, or held by a worker that stopped renewing
+    public boolean isClaimable(long now) {
+        return state == State.PENDING || (state == State.LEASED && leaseExpiresAt < now);
+    }
+
+    public PartitionLease copy() {
+        PartitionLease copy = new PartitionLease(jobKey, partitionId, lowerBound, upperBound);
+        copy.state = state;
+        copy.owner = owner;
+        copy.leaseExpiresAt = leaseExpiresAt;
+        copy.transferred = transferred;
+        copy.attempts = attempts;
+        copy.version = version;
+        return copy;
+    }
+
+    public String getJobKey() { return jobKey; }
+    public void setJobKey(String jobKey) { this.jobKey = jobKey; }
+
+    public int getPartitionId() { return partitionId; }
+    public void setPartitionId(int partitionId) { this.partitionId = partitionId; }
+
+    public String getLowerBound() { return lowerBound; }
+    public void setLowerBound(String lowerBound) { this.lowerBound = lowerBound; }
+
+    public String getUpperBound() { return upperBound; }
+    public void setUpperBound(String upperBound) { this.upperBound = upperBound; }
+
+    public State getState() { return state; }
+    public void setState(State state) { this.state = state; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public long getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(long leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
+
+    public long getTransferred() { return transferred; }
+    public void setTransferred(long transferred) { this.transferred = transferred; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    @Override
+    public String toString() {
+        return "PartitionLease{" +
+                "jobKey='" + jobKey + '\'' +
+                ", partitionId=" + partitionId +
+                ", lowerBound='" + lowerBound + '\'' +
+                ", upperBound='" + upperBound + '\'' +
+                ", state=" + state +
+                ", owner='" + owner + '\'' +
+                ", leaseExpiresAt=" + leaseExpiresAt +
+                ", transferred=" + transferred +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+package com.demo.dto;
+
+/**
+ * A distributed job in the lease store: the transfer request (as JSON) that
+ * every worker runs, and how many partitions it was split into. The
+ * coordinator marks it complete once every partition is done.
+ */
+public class PartitionManifest {
+    private String jobKey;
+    private String request;
+    private int partitionCount;
+    private String coordinator;
+    private long publishedAt;
+    private boolean complete;
+    private long version;
+
+    public PartitionManifest() {}
+
+    public PartitionManifest(String jobKey, String request, int partitionCount, String coordinator) {
+        this.jobKey = jobKey;
+        this.request = request;
+        this.partitionCount = partitionCount;
+        this.coordinator = coordinator;
+        this.publishedAt = System.currentTimeMillis();
+    }
+
+    public String getJobKey() { return jobKey; }
+    public void setJobKey(String jobKey) { this.jobKey = jobKey; }
+
+    public String getRequest() { return request; }
+    public void setRequest(String request) { this.request = request; }
+
+    public int getPartitionCount() { return partitionCount; }
+    public void setPartitionCount(int partitionCount) { this.partitionCount = partitionCount; }
+
+    public String getCoordinator() { return coordinator; }
+    public void setCoordinator(String coordinator) { this.coordinator = coordinator; }
+
+    public long getPublishedAt() { return publishedAt; }
+    public void setPublishedAt(long publishedAt) { this.publishedAt = publishedAt; }
+
+    public boolean isComplete() { return complete; }
+    public void setComplete(boolean complete) { this.complete = complete; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    @Override
+    public String toString() {
+        return "PartitionManifest{" +
+                "jobKey='" + jobKey + '\'' +
+                ", partitionCount=" + partitionCount +
+                ", coordinator='" + coordinator + '\'' +
+                ", publishedAt=" + publishedAt +
+                ", complete=" + complete +
+                '}';
+    }
+}
@@ -0,0 +1,55 @@
+package com.demo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A recovery drill: a transfer of synthetic documents between in-process
+ * stand-ins, with the faults to inject on a schedule. Latencies are the
+ * stand-ins' normal cost per source page and per target upsert.
+ */
+public class RecoveryDrillRequest {
+    private int documents = 50000;
+    private int documentBytes = 512;
+    private int batchSize;
+    private long sourceLatencyMs = 5;
+    private long targetLatencyMs = 1;
+    private long maxDurationMs = 120000;
+    private long seed = 42;
+    private List<FaultSpec> faults = new ArrayList<>();
+
+    public RecoveryDrillRequest() {}
+
+    public int getDocuments() { return documents; }
+    public void setDocuments(int documents) { this.documents = documents; }
+
+    public int getDocumentBytes() { return documentBytes; }
+    public void setDocumentBytes(int documentBytes) { this.documentBytes = documentBytes; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public long getSourceLatencyMs() { return sourceLatencyMs; }
+    public void setSourceLatencyMs(long sourceLatencyMs) { this.sourceLatencyMs = sourceLatencyMs; }
+
+    public long getTargetLatencyMs() { return targetLatencyMs; }
+    public void setTargetLatencyMs(long targetLatencyMs) { this.targetLatencyMs = targetLatencyMs; }
+
+    public long getMaxDurationMs() { return maxDurationMs; }
+    public void setMaxDurationMs(long maxDurationMs) { this.maxDurationMs = maxDurationMs; }
+
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public List<FaultSpec> getFaults() { return faults; }
+    public void setFaults(List<FaultSpec> faults) { this.faults = faults; }
+
+    @Override
+    public String toString() {
+        return "RecoveryDrillRequest{" +
+                "documents=" + documents +
+                ", batchSize=" + batchSize +
+                ", faults=" + faults +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package com.demo.dto;
+
+import java.util.List;
+
+/**
+ * Replaces a reference field with the document it points to. The field may
+ * hold a DBRef, a {$ref, $id} map, a plain id (manual reference, needs
+ * collection) or an array of any of these.
+ */
+public class ReferenceEmbedding {
+    private String field;
+    private String collection; // referenced collection for manual references
+    private String database; // defaults to the source database
+    private String targetField; // defaults to field, replacing the reference
+    private List<String> fields; // projection; null embeds the whole document
+
+    public ReferenceEmbedding() {}
+
+    public String getField() { return field; }
+    public void setField(String field) { this.field = field; }
+
+    public String getCollection() { return collection; }
+    public void setCollection(String collection) { this.collection = collection; }
+
+    public String getDatabase() { return database; }
+    public void setDatabase(String database) { this.database = database; }
+
+    public String getTargetField() { return targetField; }
+    public void setTargetField(String targetField) { this.targetField = targetField; }
+
+    public List<String> getFields() { return fields; }
+    public void setFields(List<String> fields) { this.fields = fields; }
+
+    public String effectiveTargetField() {
+        return targetField != null && !targetField.isBlank() ? targetField : field;
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceEmbedding{" +
+                "field='" + field + '\'' +
+                ", collection='" + collection + '\'' +
+                ", database='" + database + '\'' +
+                ", targetField='" + targetField + '\'' +
+                ", fields=" + fields +
+                '}';
+    }
+}
@@ -0,0 +1,42 @@
+package com.demo.dto;
+
+/**
+ * Rate limits for one job. Zero means unlimited. With finishBy (an ISO-8601
+ * instant) set, document rates are paced so the remaining documents are
+ * spread evenly up to that time; explicit limits still cap the paced rate.
+ */
+public class ThrottleSettings {
+    private long readDocsPerSecond = 0;
+    private long readBytesPerSecond = 0;
+    private long writeDocsPerSecond = 0;
+    private long writeBytesPerSecond = 0;
+    private String finishBy;
+
+    public ThrottleSettings() {}
+
+    public long getReadDocsPerSecond() { return readDocsPerSecond; }
+    public void setReadDocsPerSecond(long readDocsPerSecond) { this.readDocsPerSecond = readDocsPerSecond; }
+
+    public long getReadBytesPerSecond() { return readBytesPerSecond; }
+    public void setReadBytesPerSecond(long readBytesPerSecond) { this.readBytesPerSecond = readBytesPerSecond; }
+
+    public long getWriteDocsPerSecond() { return writeDocsPerSecond; }
+    public void setWriteDocsPerSecond(long writeDocsPerSecond) { this.writeDocsPerSecond = writeDocsPerSecond; }
+
+    public long getWriteBytesPerSecond() { return writeBytesPerSecond; }
+    public void setWriteBytesPerSecond(long writeBytesPerSecond) { this.writeBytesPerSecond = writeBytesPerSecond; }
+
+    public String getFinishBy() { return finishBy; }
+    public void setFinishBy(String finishBy) { this.finishBy = finishBy; }
+
+    @Override
+    public String toString() {
+        return "ThrottleSettings{" +
+                "readDocsPerSecond=" + readDocsPerSecond +
+                ", readBytesPerSecond=" + readBytesPerSecond +
+                ", writeDocsPerSecond=" + writeDocsPerSecond +
+                ", writeBytesPerSecond=" + writeBytesPerSecond +
+                ", finishBy='" + finishBy + '\'' +
+                '}';
+    }
+}
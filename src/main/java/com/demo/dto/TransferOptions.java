@@ -0,0 +1,48 @@
+package com.demo.dto;
+
+import java.util.List;
+
+/**
+ * Optional per-job switches for a collection transfer. Every field has a
+ * default, so a request without options behaves as before.
+ */
+public class TransferOptions {
+    private boolean profileFields = false;
+    private double profileSampleRate = 1.0;
+    private List<ReferenceEmbedding> embedReferences;
+    private boolean binaryDedup = false;
+    private int binaryDedupThreshold = 4096; // bytes; smaller payloads stay inline
+    private ThrottleSettings throttle;
+
+    public TransferOptions() {}
+
+    public boolean isProfileFields() { return profileFields; }
+    public void setProfileFields(boolean profileFields) { this.profileFields = profileFields; }
+
+    public double getProfileSampleRate() { return profileSampleRate; }
+    public void setProfileSampleRate(double profileSampleRate) { this.profileSampleRate = profileSampleRate; }
+
+    public List<ReferenceEmbedding> getEmbedReferences() { return embedReferences; }
+    public void setEmbedReferences(List<ReferenceEmbedding> embedReferences) { this.embedReferences = embedReferences; }
+
+    public boolean isBinaryDedup() { return binaryDedup; }
+    public void setBinaryDedup(boolean binaryDedup) { this.binaryDedup = binaryDedup; }
+
+    public int getBinaryDedupThreshold() { return binaryDedupThreshold; }
+    public void setBinaryDedupThreshold(int binaryDedupThreshold) { this.binaryDedupThreshold = binaryDedupThreshold; }
+
+    public ThrottleSettings getThrottle() { return throttle; }
+    public void setThrottle(ThrottleSettings throttle) { this.throttle = throttle; }
+
+    @Override
+    public String toString() {
+        return "TransferOptions{" +
+                "profileFields=" + profileFields +
+                ", profileSampleRate=" + profileSampleRate +
+                ", embedReferences=" + embedReferences +
+                ", binaryDedup=" + binaryDedup +
+                ", binaryDedupThreshold=" + binaryDedupThreshold +
+                ", throttle=" + throttle +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package com.demo.dto;
+
+import java.util.Map;
+
+/**
+ * One field-level transformation applied to every migrated document.
+ * Rules run in list order; the planner pushes as many as it can into the
+ * Mongo aggregation pipeline and leaves the rest to the Java converter.
+ */
+public class TransformationRule {
+    private String type; // FILTER, SET, UNSET, RENAME, CAST
+    private String field;
+    private String target; // new field name for RENAME
+    private String targetType; // string, int, long, double, decimal, bool, date, objectId for CAST
+    private Map<String, Object> expression; // query for FILTER, aggregation expression for SET
+    private Object value; // literal for SET
+    private Boolean pushdown; // false forces the rule to run in Java
+
+    public TransformationRule() {}
+
+    public TransformationRule(String type, String field) {
+        this.type = type;
+        this.field = field;
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getField() { return field; }
+    public void setField(String field) { this.field = field; }
+
+    public String getTarget() { return target; }
+    public void setTarget(String target) { this.target = target; }
+
+    public String getTargetType() { return targetType; }
+    public void setTargetType(String targetType) { this.targetType = targetType; }
+
+    public Map<String, Object> getExpression() { return expression; }
+    public void setExpression(Map<String, Object> expression) { this.expression = expression; }
+
+    public Object getValue() { return value; }
+    public void setValue(Object value) { this.value = value; }
+
+    public Boolean getPushdown() { return pushdown; }
+    public void setPushdown(Boolean pushdown) { this.pushdown = pushdown; }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder(String.valueOf(type));
+        if (field != null) sb.append(' ').append(field);
+        if (target != null) sb.append(" -> ").append(target);
+        if (targetType != null) sb.append(" as ").append(targetType);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "TransformationRule{" +
+                "type='" + type + '\'' +
+                ", field='" + field + '\'' +
+                ", target='" + target + '\'' +
+                ", targetType='" + targetType + '\'' +
+                ", expression=" + expression +
+                ", value=" + value +
+                ", pushdown=" + pushdown +
+                '}';
+    }
+}
@@ -0,0 +1,173 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.demo.dto.TransformationRule;
+import com.demo.util.TransformationRuleApplier;
+
+/**
+ * Splits a job's transformation rules into an aggregation pipeline that runs
+ * inside Mongo and a residual list the Java converter applies afterwards.
+ * Rules keep their order: once one rule cannot be pushed down, it and every
+ * rule after it run in Java.
+ */
+@Service
+public class AggregationPushdownPlanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AggregationPushdownPlanner.class);
+
+    // Targets understood by $convert
+    private static final Set<String> MONGO_CAST_TYPES =
+            Set.of("string", "int", "long", "double", "decimal", "bool", "date", "objectId");
+
+    public record PushdownPlan(List<Document> pipeline,
+                               List<TransformationRule> pushedRules,
+                               List<TransformationRule> residualRules) {
+
+        public static PushdownPlan empty() {
+            return new PushdownPlan(List.of(), List.of(), List.of());
+        }
+
+        public boolean hasPipeline() {
+            return !pipeline.isEmpty();
+        }
+
+        public boolean filters() {
+            return pipeline.stream().anyMatch(stage -> stage.containsKey("$match"));
+        }
+
+        public Map<String, Object> summary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("event", "pushdown_plan");
+            summary.put("pushedDown", pushedRules.stream().map(TransformationRule::describe).toList());
+            summary.put("javaSide", residualRules.stream().map(TransformationRule::describe).toList());
+            summary.put("pipeline", pipeline.stream().map(Document::toJson).toList());
+            return summary;
+        }
+    }
+
+    public PushdownPlan plan(List<TransformationRule> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return PushdownPlan.empty();
+        }
+
+        List<Document> pipeline = new ArrayList<>();
+        List<TransformationRule> pushed = new ArrayList<>();
+        List<TransformationRule> residual = new ArrayList<>();
+
+        for (TransformationRule rule : rules) {
+            validate(rule);
+            if (residual.isEmpty() && canPushDown(rule)) {
+                pipeline.addAll(toStages(rule));
+                pushed.add(rule);
+            } else {
+                if (!canApplyInJava(rule)) {
+                    throw new IllegalArgumentException("Rule '" + rule.describe()
+                            + "' can only run inside MongoDB and must come before any Java-side rule");
+                }
+                residual.add(rule);
+            }
+        }
+
+        logger.info("[INFO] Pushdown plan: {} rule(s) in Mongo, {} rule(s) in Java", pushed.size(), residual.size());
+        return new PushdownPlan(List.copyOf(pipeline), List.copyOf(pushed), List.copyOf(residual));
+    }
+
+    private void validate(TransformationRule rule) {
+        if (rule.getType() == null) {
+            throw new IllegalArgumentException("Transformation rule type is required");
+        }
+        String type = rule.getType().toUpperCase(Locale.ROOT);
+        if (!"FILTER".equals(type) && (rule.getField() == null || rule.getField().isBlank()
+                || rule.getField().startsWith("$") || isIdPath(rule.getField()))) {
+            throw new IllegalArgumentException("Invalid field for rule " + rule.describe());
+        }
+        switch (type) {
+            case "FILTER" -> {
+                if (rule.getExpression() == null || rule.getExpression().isEmpty()) {
+                    throw new IllegalArgumentException("FILTER rule needs a query expression");
+                }
+            }
+            case "SET" -> {
+                if (rule.getExpression() == null && rule.getValue() == null) {
+                    throw new IllegalArgumentException("SET rule needs an expression or a value: " + rule.describe());
+                }
+            }
+            case "RENAME" -> {
+                // Pages are sorted and resumed by _id, so no rule may rewrite it
+                if (rule.getTarget() == null || rule.getTarget().isBlank() || rule.getTarget().startsWith("$")
+                        || isIdPath(rule.getTarget())) {
+                    throw new IllegalArgumentException("RENAME rule needs a valid target: " + rule.describe());
+                }
+            }
+            case "CAST" -> {
+                if (rule.getTargetType() == null) {
+                    throw new IllegalArgumentException("CAST rule needs a targetType: " + rule.describe());
+                }
+            }
+            case "UNSET" -> { }
+            default -> throw new IllegalArgumentException("Unsupported transformation rule type: " + rule.getType());
+        }
+    }
+
+    private static boolean isIdPath(String path) {
+        return "_id".equals(path) || path.startsWith("_id.");
+    }
+
+    private boolean canPushDown(TransformationRule rule) {
+        if (Boolean.FALSE.equals(rule.getPushdown())) {
+            return false;
+        }
+        if ("CAST".equalsIgnoreCase(rule.getType())) {
+            return MONGO_CAST_TYPES.contains(rule.getTargetType());
+        }
+        return true;
+    }
+
+    private boolean canApplyInJava(TransformationRule rule) {
+        String type = rule.getType().toUpperCase(Locale.ROOT);
+        return switch (type) {
+            case "FILTER" -> false;
+            case "SET" -> rule.getExpression() == null;
+            case "CAST" -> TransformationRuleApplier.supportsCast(rule.getTargetType());
+            default -> true;
+        };
+    }
+
+    private List<Document> toStages(TransformationRule rule) {
+        String field = rule.getField();
+        return switch (rule.getType().toUpperCase(Locale.ROOT)) {
+            case "FILTER" -> List.of(new Document("$match", new Document(rule.getExpression())));
+            case "SET" -> {
+                Object expression = rule.getExpression() != null
+                        ? new Document(rule.getExpression())
+                        : new Document("$literal", rule.getValue());
+                yield List.of(new Document("$addFields", new Document(field, expression)));
+            }
+            case "UNSET" -> List.of(new Document("$unset", field));
+            case "RENAME" -> List.of(
+                    new Document("$addFields", new Document(rule.getTarget(), "$" + field)),
+                    new Document("$unset", field));
+            // A missing field stays missing, as in the Java CAST; an explicit null stays null
+            case "CAST" -> List.of(new Document("$addFields", new Document(field,
+                    new Document("$cond", List.of(
+                            new Document("$eq", List.of(new Document("$type", "$" + field), "missing")),
+                            "$$REMOVE",
+                            new Document("$convert", new Document("input", "$" + field)
+                                    .append("to", rule.getTargetType())
+                                    .append("onError", "$" + field)
+                                    .append("onNull", null)))))));
+            default -> throw new IllegalArgumentException("Unsupported transformation rule type: " + rule.getType());
+        };
+    }
+}
@@ -0,0 +1,149 @@
+package com.demo.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.bson.types.Binary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.codec.RawBinaryTranscoder;
+import com.couchbase.client.java.kv.InsertOptions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Content-addressed storage for large Binary values. Each payload above the
+ * threshold is written once as a raw binary document keyed by its source
+ * collection and SHA-256 digest, and the parent document keeps a small
+ * reference instead of inline base64. A bounded set of digests already stored
+ * per keyspace lets repeats skip the write entirely. Raw binary documents
+ * carry no mongoCollection field, so the key prefix is what lets a drop or
+ * re-migration of the source collection delete its blobs with it. With
+ * checkpoints kept in the target, blobs are inserted at the checkpoint
+ * durability like their parents, so a checkpoint never covers a parent whose
+ * blob a failover lost.
+ */
+@Service
+public class BinaryDedupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryDedupService.class);
+
+    public static final String BLOB_KEY_PREFIX = "blob::";
+
+    private static final InsertOptions RAW_BINARY_INSERT = InsertOptions.insertOptions().transcoder(RawBinaryTranscoder.INSTANCE);
+
+    private final Cache<String, Boolean> storedDigests;
+    private final InsertOptions insertOptions;
+
+    private final LongAdder binariesSeen = new LongAdder();
+    private final LongAdder digestSetHits = new LongAdder();
+    private final LongAdder blobsWritten = new LongAdder();
+    private final LongAdder blobsAlreadyPresent = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder bytesDeduplicated = new LongAdder();
+
+    public BinaryDedupService(TargetCheckpointStore targetCheckpoints,
+                              @Value("${migration.binary-dedup.digest-set-size:200000}") long digestSetSize) {
+        this.storedDigests = CacheBuilder.newBuilder()
+                .maximumSize(digestSetSize)
+                .build();
+        this.insertOptions = targetCheckpoints.isEnabled()
+                ? InsertOptions.insertOptions().transcoder(RawBinaryTranscoder.INSTANCE).durability(targetCheckpoints.getDurability())
+                : RAW_BINARY_INSERT;
+    }
+
+    /**
+     * Handler for DataTransformationUtil.convertMongoTypes. Returns null for payloads
+     * under the threshold so they stay inline. Blocks until the blob is stored, so
+     * the parent is never written before what it references.
+     */
+    public Function<Binary, Object> handlerFor(ReactiveCollection target, String mongoCollection, int thresholdBytes) {
+        String prefix = blobKeyPrefix(mongoCollection);
+        String keyspace = target.bucketName() + "." + target.scopeName() + "." + target.name();
+        return binary -> {
+            byte[] data = binary.getData();
+            if (data.length < thresholdBytes) {
+                return null;
+            }
+            binariesSeen.increment();
+            String key = prefix + sha256(data);
+            store(target, keyspace, key, data);
+
+            Map<String, Object> reference = new LinkedHashMap<>();
+            reference.put("$blob", key);
+            reference.put("size", data.length);
+            reference.put("subtype", binary.getType());
+            return reference;
+        };
+    }
+
+    // Prefix of every blob key stored for documents of mongoCollection
+    public static String blobKeyPrefix(String mongoCollection) {
+        return BLOB_KEY_PREFIX + mongoCollection + "::";
+    }
+
+    private void store(ReactiveCollection target, String keyspace, String key, byte[] data) {
+        String digestKey = keyspace + "|" + key;
+        if (storedDigests.getIfPresent(digestKey) != null) {
+            digestSetHits.increment();
+            bytesDeduplicated.add(data.length);
+            return;
+        }
+        boolean inserted = Boolean.TRUE.equals(target.insert(key, data, insertOptions)
+                .map(result -> true)
+                .onErrorResume(DocumentExistsException.class, e -> Mono.just(false))
+                .retryWhen(Retry.backoff(3, Duration.ofMillis(200))
+                        .filter(e -> !(e instanceof DocumentExistsException)))
+                .block());
+        if (inserted) {
+            blobsWritten.increment();
+            bytesWritten.add(data.length);
+        } else {
+            // Stored by an earlier run or a concurrent writer
+            blobsAlreadyPresent.increment();
+            bytesDeduplicated.add(data.length);
+        }
+        storedDigests.put(digestKey, Boolean.TRUE);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long seen = binariesSeen.sum();
+        long skipped = digestSetHits.sum() + blobsAlreadyPresent.sum();
+        stats.put("binariesSeen", seen);
+        stats.put("blobsWritten", blobsWritten.sum());
+        stats.put("digestSetHits", digestSetHits.sum());
+        stats.put("blobsAlreadyPresent", blobsAlreadyPresent.sum());
+        stats.put("dedupRatio", seen == 0 ? 0.0 : (double) skipped / seen);
+        stats.put("bytesWritten", bytesWritten.sum());
+        stats.put("bytesDeduplicated", bytesDeduplicated.sum());
+        stats.put("digestSetSize", storedDigests.size());
+        return stats;
+    }
+
+    public void logSummary(String migrationKey) {
+        logger.info("[INFO] Binary dedup for {}: {}", migrationKey, getStats());
+    }
+}
@@ -0,0 +1,593 @@
+package com.demo.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.codec.RawJsonTranscoder;
+import com.couchbase.client.java.kv.MutationResult;
+import com.couchbase.client.java.kv.UpsertOptions;
+import com.demo.dto.CalibrationRequest;
+import com.demo.dto.CalibrationResult;
+import com.demo.dto.CalibrationTrial;
+import com.demo.dto.JobTuning;
+import com.demo.util.AppendOnlyLog;
+import com.demo.util.BsonKeys;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+
+/**
+ * Pre-flight calibration of batch size, read parallelism and write
+ * concurrency for one source collection and target bucket and scope. Each
+ * trial copies the first trialDocuments documents of the collection in _id
+ * order through the production pipeline (DataTransferService.runDrill, so
+ * nothing is checkpointed, dead-lettered or published as progress) into a
+ * scratch collection whose documents expire on their own. The _id range and
+ * its read partitions are worked out once per calibration, so trials only
+ * time reading and writing. Trials get their own circuit breakers, so a
+ * trial overloading an endpoint never opens the circuit of real jobs.
+ *
+ * A calibration runs on its own thread, like a job, and holds the
+ * collection's migration slot until it ends, so no transfer of the
+ * collection overlaps it.
+ *
+ * Results are kept per source and target in an append-only log under
+ * migration.calibration.dir, so a later job between the same pair can have
+ * the stored best settings applied without calibrating again.
+ */
+@Service
+public class CalibrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalibrationService.class);
+
+    private static final long POLL_MS = 20;
+    private static final int RETAINED_RUNS = 20;
+
+    private final DataTransferService dataTransferService;
+    private final MongoDataFetchService mongoDataFetchService;
+    private final CouchbaseConnectionService couchbaseConnectionService;
+    private final ConnectionCircuitBreakers circuitBreakers;
+    private final MigrationThreads migrationThreads;
+    private final MigrationJobManager jobManager;
+    private final ObjectMapper objectMapper;
+    private final AppendOnlyLog log;
+    private final Map<String, CalibrationResult> results = new ConcurrentHashMap<>();
+    private final AtomicReference<CalibrationResult> running = new AtomicReference<>();
+    // Latest runs by calibrationId, whatever their outcome
+    private final Map<String, CalibrationResult> recent = new LinkedHashMap<>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CalibrationResult> eldest) {
+            return size() > RETAINED_RUNS;
+        }
+    };
+
+    private final String scratchCollection;
+    private final long scratchExpirySeconds;
+    private final int maxTrials;
+    private final int maxTrialDocuments;
+    private final long maxTrialDurationMs;
+    private final int maxBatchSize;
+    private final int maxReadParallelism;
+
+    public CalibrationService(DataTransferService dataTransferService,
+                              MongoDataFetchService mongoDataFetchService,
+                              CouchbaseConnectionService couchbaseConnectionService,
+                              ConnectionCircuitBreakers circuitBreakers,
+                              MigrationThreads migrationThreads,
+                              MigrationJobManager jobManager,
+                              ObjectMapper objectMapper,
+                              @Value("${migration.calibration.dir:data/calibration}") String directory,
+                              @Value("${migration.calibration.scratch-collection:migration_calibration}") String scratchCollection,
+                              @Value("${migration.calibration.scratch-expiry-seconds:3600}") long scratchExpirySeconds,
+                              @Value("${migration.calibration.max-trials:36}") int maxTrials,
+                              @Value("${migration.calibration.max-trial-documents:200000}") int maxTrialDocuments,
+                              @Value("${migration.calibration.max-trial-duration-ms:60000}") long maxTrialDurationMs,
+                              @Value("${migration.pipeline.max-batch-size:20000}") int maxBatchSize,
+                              @Value("${migration.pipeline.max-read-parallelism:8}") int maxReadParallelism) throws IOException {
+        this.dataTransferService = dataTransferService;
+        this.mongoDataFetchService = mongoDataFetchService;
+        this.couchbaseConnectionService = couchbaseConnectionService;
+        this.circuitBreakers = circuitBreakers;
+        this.migrationThreads = migrationThreads;
+        this.jobManager = jobManager;
+        this.objectMapper = objectMapper;
+        this.scratchCollection = scratchCollection;
+        this.scratchExpirySeconds = scratchExpirySeconds;
+        this.maxTrials = maxTrials;
+        this.maxTrialDocuments = maxTrialDocuments;
+        this.maxTrialDurationMs = maxTrialDurationMs;
+        this.maxBatchSize = maxBatchSize;
+        this.maxReadParallelism = maxReadParallelism;
+        if (directory == null || directory.isBlank()) {
+            this.log = null;
+            logger.warn("[WARN] migration.calibration.dir is blank; calibration results are lost on restart");
+            return;
+        }
+        this.log = new AppendOnlyLog(Path.of(directory, "calibrations.log"), 1 << 20, 1000, 600000);
+        for (Map.Entry<String, byte[]> entry : log.snapshot().entrySet()) {
+            try {
+                CalibrationResult result = objectMapper.readValue(entry.getValue(), CalibrationResult.class);
+                // Only completed runs are stored
+                result.setStatus(CalibrationResult.Status.COMPLETED);
+                results.put(entry.getKey(), result);
+            } catch (IOException e) {
+                logger.warn("[WARN] Skipping unreadable calibration {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        logger.info("[INFO] Recovered {} calibration results", results.size());
+    }
+
+    /**
+     * Starts a calibration on its own thread and returns it as RUNNING; poll
+     * get(calibrationId) for its trials and outcome. The trials run one
+     * after the other, and a completed run replaces any earlier one for the
+     * same source and target. One calibration at a time, and never on a
+     * collection being migrated, whose load would skew the measurements: the
+     * collection's migration slot is held until the calibration ends.
+     */
+    public CalibrationResult calibrate(CalibrationRequest request) {
+        validate(request);
+        MigrationJob job = null;
+        if (request.getApplyToJobId() != null) {
+            job = requireJob(request.getApplyToJobId());
+            DataTransferService.TransferRequest jobRequest = job.getRequest();
+            if (!key(jobRequest.mongoDatabase(), jobRequest.mongoCollection(), jobRequest.bucketName(), jobRequest.scopeName())
+                    .equals(key(request))) {
+                throw new IllegalArgumentException("Job " + request.getApplyToJobId() + " migrates another source or target");
+            }
+            if (job.getStatus() != MigrationJob.Status.QUEUED) {
+                throw new IllegalStateException("Job " + request.getApplyToJobId() + " is " + job.getStatus()
+                        + "; only a queued job can wait for a calibration");
+            }
+        }
+
+        CalibrationResult result = new CalibrationResult();
+        result.setCalibrationId(UUID.randomUUID().toString().substring(0, 8));
+        result.setMongoDatabase(request.getMongoDatabase());
+        result.setMongoCollection(request.getMongoCollection());
+        result.setBucketName(request.getBucketName());
+        result.setScopeName(request.getScopeName());
+        result.setApplyToJobId(request.getApplyToJobId());
+        result.setMaxErrorRate(request.getMaxErrorRate());
+        result.setStartedAt(System.currentTimeMillis());
+        result.setStatus(CalibrationResult.Status.RUNNING);
+        if (!running.compareAndSet(null, result)) {
+            throw new IllegalStateException("Calibration " + running.get().getCalibrationId() + " is already running");
+        }
+        // Keeps the job from starting, and failing on the held slot, before the calibration ends
+        if (job != null) job.getContext().pause();
+        MigrationJobContext slot;
+        try {
+            // Fails while a transfer or dead-letter replay of the collection holds it
+            slot = dataTransferService.reserveSlot("calibration-" + result.getCalibrationId(),
+                    request.getMongoDatabase(), request.getMongoCollection());
+        } catch (RuntimeException e) {
+            if (job != null) job.getContext().resume();
+            running.set(null);
+            throw e;
+        }
+        synchronized (recent) {
+            recent.put(result.getCalibrationId(), result);
+        }
+        MigrationJob waitingJob = job;
+        migrationThreads.start("Calibration-" + result.getCalibrationId(), () -> run(request, result, slot, waitingJob));
+        return result;
+    }
+
+    private void run(CalibrationRequest request, CalibrationResult result, MigrationJobContext slot, MigrationJob job) {
+        try {
+            execute(request, result, slot);
+            if (slot.isCancelled() || slot.isDraining()) {
+                result.setStatus(CalibrationResult.Status.CANCELLED);
+                logger.warn("[WARN] Calibration {} stopped by shutdown after {} trials", result.getCalibrationId(),
+                        result.getTrials().size());
+            } else {
+                String key = key(request);
+                result.setStatus(CalibrationResult.Status.COMPLETED);
+                results.put(key, result);
+                persist(key, result);
+                if (job != null && result.getBest() != null) {
+                    try {
+                        apply(job.getJobId(), result);
+                    } catch (RuntimeException e) {
+                        // e.g. the job was cancelled meanwhile; the result stays stored for apply(jobId)
+                        result.setError("Not applied to job " + job.getJobId() + ": " + e.getMessage());
+                        logger.warn("[WARN] Calibration {} not applied to job {}: {}", result.getCalibrationId(),
+                                job.getJobId(), e.getMessage());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            if (result.getStatus() == CalibrationResult.Status.RUNNING) {
+                result.setStatus(CalibrationResult.Status.FAILED);
+            }
+            result.setError(e.getMessage());
+            logger.error("[ERROR] Calibration {} failed: {}", result.getCalibrationId(), e.getMessage());
+        } finally {
+            result.setCalibratedAt(System.currentTimeMillis());
+            // Free the slot before the waiting job may take it
+            dataTransferService.releaseSlot(slot);
+            if (job != null) job.getContext().resume();
+            running.set(null);
+        }
+    }
+
+    // Stored results and recent runs, newest first
+    public List<CalibrationResult> list() {
+        Map<String, CalibrationResult> all = new LinkedHashMap<>();
+        results.values().forEach(result -> all.put(result.getCalibrationId(), result));
+        synchronized (recent) {
+            all.putAll(recent);
+        }
+        return all.values().stream()
+                .sorted(Comparator.comparingLong(CalibrationResult::getStartedAt)
+                        .thenComparingLong(CalibrationResult::getCalibratedAt).reversed())
+                .toList();
+    }
+
+    // A running or recent calibration, or a stored one; null when unknown
+    public CalibrationResult get(String calibrationId) {
+        synchronized (recent) {
+            CalibrationResult result = recent.get(calibrationId);
+            if (result != null) return result;
+        }
+        return results.values().stream()
+                .filter(result -> calibrationId.equals(result.getCalibrationId()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    public CalibrationResult get(String mongoDatabase, String mongoCollection, String bucketName, String scopeName) {
+        return results.get(key(mongoDatabase, mongoCollection, bucketName, scopeName));
+    }
+
+    /**
+     * Applies the stored best settings for the job's source and target to
+     * the job, queued or running, as a live reconfiguration.
+     */
+    public MigrationJob apply(String jobId) {
+        MigrationJob job = requireJob(jobId);
+        DataTransferService.TransferRequest request = job.getRequest();
+        CalibrationResult result = get(request.mongoDatabase(), request.mongoCollection(), request.bucketName(), request.scopeName());
+        if (result == null) {
+            throw new IllegalArgumentException("No calibration stored for " + request.mongoDatabase() + "." + request.mongoCollection()
+                    + " into " + request.bucketName() + "." + request.scopeName());
+        }
+        return apply(jobId, result);
+    }
+
+    private MigrationJob apply(String jobId, CalibrationResult result) {
+        CalibrationTrial best = result.getBest();
+        if (best == null) {
+            throw new IllegalStateException("Calibration " + result.getCalibrationId() + " found no trial within error rate "
+                    + result.getMaxErrorRate());
+        }
+        JobTuning tuning = new JobTuning();
+        tuning.setBatchSize(best.getBatchSize());
+        tuning.setReadParallelism(best.getReadParallelism());
+        tuning.setWriteConcurrency(best.getWriteConcurrency());
+        logger.info("[INFO] Applying calibration {} to job {}: {}", result.getCalibrationId(), jobId, best);
+        return jobManager.reconfigure(jobId, tuning);
+    }
+
+    private void validate(CalibrationRequest request) {
+        if (isBlank(request.getMongoDatabase()) || isBlank(request.getMongoCollection())
+                || isBlank(request.getBucketName()) || isBlank(request.getScopeName())) {
+            throw new IllegalArgumentException("mongoDatabase, mongoCollection, bucketName and scopeName are required");
+        }
+        requireValues("batchSizes", request.getBatchSizes(), maxBatchSize);
+        requireValues("readParallelisms", request.getReadParallelisms(), maxReadParallelism);
+        requireValues("writeConcurrencies", request.getWriteConcurrencies(), Integer.MAX_VALUE);
+        long trials = (long) request.getBatchSizes().size() * request.getReadParallelisms().size()
+                * request.getWriteConcurrencies().size();
+        if (trials > maxTrials) {
+            throw new IllegalArgumentException("The grid has " + trials + " trials; at most " + maxTrials + " are allowed");
+        }
+        if (request.getTrialDocuments() < 1 || request.getTrialDocuments() > maxTrialDocuments) {
+            throw new IllegalArgumentException("trialDocuments must be between 1 and " + maxTrialDocuments);
+        }
+        if (request.getTrialDurationMs() < 1 || request.getTrialDurationMs() > maxTrialDurationMs) {
+            throw new IllegalArgumentException("trialDurationMs must be between 1 and " + maxTrialDurationMs);
+        }
+        if (request.getMaxErrorRate() < 0 || request.getMaxErrorRate() > 1) {
+            throw new IllegalArgumentException("maxErrorRate must be between 0 and 1");
+        }
+    }
+
+    private static void requireValues(String name, List<Integer> values, int max) {
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException(name + " must not be empty");
+        }
+        for (Integer value : values) {
+            if (value == null || value < 1 || value > max) {
+                throw new IllegalArgumentException(name + " values must be between 1 and " + max + ", got " + value);
+            }
+        }
+    }
+
+    private void execute(CalibrationRequest request, CalibrationResult result, MigrationJobContext slot) {
+        String calibrationId = result.getCalibrationId();
+        logger.info("[INFO] Calibration {} started: {}", calibrationId, request);
+        couchbaseConnectionService.ensureCollections(request.getBucketName(), request.getScopeName(), List.of(scratchCollection));
+        Collection scratch = couchbaseConnectionService.getTargetCollection(request.getBucketName(), request.getScopeName(),
+                scratchCollection);
+        Sample sample = sample(request);
+
+        List<CalibrationTrial> trials = new ArrayList<>();
+        for (int batchSize : request.getBatchSizes()) {
+            for (int readParallelism : request.getReadParallelisms()) {
+                for (int writeConcurrency : request.getWriteConcurrencies()) {
+                    if (slot.isCancelled() || slot.isDraining()) return;
+                    CalibrationTrial trial = new CalibrationTrial(batchSize, readParallelism, writeConcurrency);
+                    runTrial(calibrationId + "-" + trials.size(), request, sample, scratch, slot, trial);
+                    logger.info("[INFO] Calibration {} trial {}: {}", calibrationId, trials.size(), trial);
+                    trials.add(trial);
+                    result.setTrials(List.copyOf(trials));
+                }
+            }
+        }
+        result.setBest(best(trials, request.getMaxErrorRate()));
+        logger.info("[INFO] Calibration {} finished: {}", calibrationId, result);
+    }
+
+    /**
+     * The range every trial reads: up to the _id of the document after the
+     * first trialDocuments, found by skipping along the _id index. Checked
+     * for mixed _id types once; a plain range query would only match one.
+     */
+    private Sample sample(CalibrationRequest request) {
+        String database = request.getMongoDatabase();
+        String collection = request.getMongoCollection();
+        boolean mixedIds = mongoDataFetchService.hasMixedIdTypes(database, collection);
+        Object upper = mongoDataFetchService.idAt(database, collection, request.getTrialDocuments());
+        return new Sample(BsonKeys.encode(upper), mixedIds);
+    }
+
+    // Highest throughput within the error rate; on a tie the lighter settings win
+    private static CalibrationTrial best(List<CalibrationTrial> trials, double maxErrorRate) {
+        return trials.stream()
+                .filter(trial -> trial.getError() == null && trial.getDocuments() > 0 && trial.getErrorRate() <= maxErrorRate)
+                .max(Comparator.comparingLong(CalibrationTrial::getThroughput)
+                        .thenComparing(Comparator.comparingInt(CalibrationTrial::getWriteConcurrency).reversed())
+                        .thenComparing(Comparator.comparingInt(CalibrationTrial::getReadParallelism).reversed())
+                        .thenComparing(Comparator.comparingInt(CalibrationTrial::getBatchSize).reversed()))
+                .orElse(null);
+    }
+
+    private void runTrial(String trialId, CalibrationRequest request, Sample sample, Collection scratch,
+                          MigrationJobContext slot, CalibrationTrial trial) {
+        MigrationJobContext context = new MigrationJobContext("calibration-" + trialId, "calibration." + trialId);
+        context.setBatchSize(trial.getBatchSize());
+        context.setReadParallelism(trial.getReadParallelism());
+        context.setWriteConcurrency(trial.getWriteConcurrency());
+        TrialSource source = new TrialSource(mongoDataFetchService, request.getMongoDatabase(), request.getMongoCollection(),
+                sample);
+        TrialTarget target = new TrialTarget(scratch.reactive(), UpsertOptions.upsertOptions()
+                .transcoder(RawJsonTranscoder.INSTANCE).expiry(Duration.ofSeconds(scratchExpirySeconds)));
+
+        Limiter limiter = new Limiter(context, slot, source, request.getTrialDocuments(), request.getTrialDurationMs());
+        Thread limiterThread = migrationThreads.start("Calibration-" + trialId, limiter);
+        try {
+            dataTransferService.runDrill(context, source, circuitBreakers.create("calibration-source"),
+                    target, circuitBreakers.create("calibration-target"), request.getTrialDocuments(),
+                    null, sample.upperBound());
+        } catch (RuntimeException e) {
+            trial.setError(e.getMessage());
+            logger.warn("[WARN] Calibration trial {} aborted: {}", trialId, e.getMessage());
+        } finally {
+            limiter.stop();
+            try {
+                limiterThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (trial.getError() == null && limiter.noBatch) {
+            trial.setError("No batch read within " + request.getTrialDurationMs() + " ms");
+        }
+        long calls = source.calls.sum() + target.calls.sum();
+        long errors = source.errors.sum() + target.errors.sum();
+        trial.setDocuments(limiter.documents);
+        trial.setDurationMs(limiter.durationMs);
+        trial.setThroughput(limiter.documents * 1000 / Math.max(limiter.durationMs, 1));
+        trial.setCalls(calls);
+        trial.setErrors(errors);
+        trial.setErrorRate(calls > 0 ? (double) errors / calls : 0.0);
+    }
+
+    /**
+     * Ends a trial at its document or time limit by cancelling its context,
+     * and takes the measurement at that moment, so writes still draining
+     * after the cancel do not count towards the trial. The clock starts at
+     * the first batch read, so pipeline setup is not timed; a trial that
+     * reads nothing within the time limit is cancelled too. Shutdown ends
+     * the trial at once.
+     */
+    private static final class Limiter implements Runnable {
+        private final MigrationJobContext context;
+        private final MigrationJobContext slot;
+        private final TrialSource source;
+        private final long maxDocuments;
+        private final long maxDurationMs;
+        private final long createdAt = System.nanoTime();
+        private volatile boolean stopped;
+        private volatile boolean noBatch;
+        private volatile long documents;
+        private volatile long durationMs;
+
+        Limiter(MigrationJobContext context, MigrationJobContext slot, TrialSource source, long maxDocuments, long maxDurationMs) {
+            this.context = context;
+            this.slot = slot;
+            this.source = source;
+            this.maxDocuments = maxDocuments;
+            this.maxDurationMs = maxDurationMs;
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                measure();
+                if (source.firstBatchAt == 0 && (System.nanoTime() - createdAt) / 1_000_000 >= maxDurationMs) {
+                    noBatch = true;
+                    context.cancel();
+                    return;
+                }
+                if (documents >= maxDocuments || durationMs >= maxDurationMs || slot.isCancelled() || slot.isDraining()) {
+                    context.cancel();
+                    return;
+                }
+                try {
+                    Thread.sleep(POLL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        // The trial ended on its own: the sample was written within the limits
+        void stop() {
+            if (!context.isCancelled()) measure();
+            stopped = true;
+        }
+
+        private void measure() {
+            long started = source.firstBatchAt;
+            documents = context.getTransferred();
+            durationMs = started == 0 ? 0 : (System.nanoTime() - started) / 1_000_000;
+        }
+    }
+
+    // What every trial of a calibration reads, worked out once: upperBound is null when the sample is the whole collection
+    private record Sample(String upperBound, boolean mixedIds, Map<String, List<Object>> boundaries) {
+        Sample(String upperBound, boolean mixedIds) {
+            this(upperBound, mixedIds, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * The job's source collection, whatever names the trial's request
+     * carries; counts calls and failures and notes when the first batch
+     * arrived. Partition boundaries and the mixed _id check come from the
+     * calibration's sample, so only the first trial computes them.
+     */
+    private static final class TrialSource implements TransferSource {
+        private final TransferSource delegate;
+        private final String databaseName;
+        private final String collectionName;
+        private final Sample sample;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private volatile long firstBatchAt;
+
+        TrialSource(TransferSource delegate, String databaseName, String collectionName, Sample sample) {
+            this.delegate = delegate;
+            this.databaseName = databaseName;
+            this.collectionName = collectionName;
+            this.sample = sample;
+        }
+
+        @Override
+        public List<Map<String, Object>> fetchBatchMatching(String dbName, String collection, Document idFilter,
+                                                            List<Document> pipeline, int limit) {
+            calls.increment();
+            try {
+                List<Map<String, Object>> batch = delegate.fetchBatchMatching(databaseName, collectionName, idFilter, pipeline, limit);
+                if (firstBatchAt == 0) firstBatchAt = System.nanoTime();
+                return batch;
+            } catch (RuntimeException e) {
+                errors.increment();
+                throw e;
+            }
+        }
+
+        @Override
+        public List<Object> idBoundaries(String dbName, String collection, Document idFilter, int partitions) {
+            String key = partitions + ":" + (idFilter != null ? idFilter.toJson() : "");
+            return sample.boundaries().computeIfAbsent(key,
+                    k -> delegate.idBoundaries(databaseName, collectionName, idFilter, partitions));
+        }
+
+        @Override
+        public boolean hasMixedIdTypes(String dbName, String collection) {
+            return sample.mixedIds();
+        }
+    }
+
+    // Upserts into the scratch collection with an expiry; counts calls and failures
+    private static final class TrialTarget implements TransferTarget {
+        private final ReactiveCollection collection;
+        private final UpsertOptions options;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        TrialTarget(ReactiveCollection collection, UpsertOptions options) {
+            this.collection = collection;
+            this.options = options;
+        }
+
+        @Override
+        public Mono<Long> upsert(String id, byte[] content) {
+            calls.increment();
+            return collection.upsert(id, content, options)
+                    .map(MutationResult::cas)
+                    .doOnError(e -> errors.increment());
+        }
+    }
+
+    private MigrationJob requireJob(String jobId) {
+        MigrationJob job = jobManager.getJob(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown migration job: " + jobId);
+        }
+        return job;
+    }
+
+    private void persist(String key, CalibrationResult result) {
+        if (log == null) return;
+        try {
+            log.put(key, objectMapper.writeValueAsBytes(result));
+        } catch (IOException e) {
+            // The in-memory result still serves this run
+            logger.error("[ERROR] Failed to persist calibration {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static String key(CalibrationRequest request) {
+        return key(request.getMongoDatabase(), request.getMongoCollection(), request.getBucketName(), request.getScopeName());
+    }
+
+    private static String key(String mongoDatabase, String mongoCollection, String bucketName, String scopeName) {
+        return mongoDatabase + "." + mongoCollection + "::" + bucketName + "." + scopeName;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (log != null) log.close();
+    }
+}
@@ -13,11 +13,20 @@ public class Checkpoint {
     private final Set<String> processedFunctionNames;
     private final Set<String> attemptedFunctionNames;
     private final String lastProcessedId;
+    private final String lastProcessedKey; // raw _id as extended JSON, for resuming with an _id seek
  
     public Checkpoint(String checkpointId, String stage, int totalSucceeded, int totalFailed, 
                      int autoTransferred, int manualRequired, 
                      Set<String> processedFunctionNames, Set<String> attemptedFunctionNames,
                      String lastProcessedId) {
+        this(checkpointId, stage, totalSucceeded, totalFailed, autoTransferred, manualRequired,
+                processedFunctionNames, attemptedFunctionNames, lastProcessedId, null);
+    }
+ 
+    public Checkpoint(String checkpointId, String stage, int totalSucceeded, int totalFailed, 
+                     int autoTransferred, int manualRequired, 
+                     Set<String> processedFunctionNames, Set<String> attemptedFunctionNames,
+                     String lastProcessedId, String lastProcessedKey) {
         this.checkpointId = checkpointId;
         this.stage = stage;
         this.totalSucceeded = totalSucceeded;
@@ -27,6 +36,7 @@ public class Checkpoint {
         this.processedFunctionNames = processedFunctionNames;
         this.attemptedFunctionNames = attemptedFunctionNames;
         this.lastProcessedId = lastProcessedId;
+        this.lastProcessedKey = lastProcessedKey;
     }
  
     public String getCheckpointId() { return checkpointId; }
@@ -38,6 +48,7 @@ public class Checkpoint {
     public Set<String> getProcessedFunctionNames() { return processedFunctionNames; }
     public Set<String> getAttemptedFunctionNames() { return attemptedFunctionNames; }
     public String getLastProcessedId() { return lastProcessedId; }
+    public String getLastProcessedKey() { return lastProcessedKey; }
  
     @Override
     public String toString() {
@@ -51,6 +62,7 @@ public class Checkpoint {
                 ", processedFunctionNames=" + processedFunctionNames +
                 ", attemptedFunctionNames=" + attemptedFunctionNames +
                 ", lastProcessedId='" + lastProcessedId + '\'' +
+                ", lastProcessedKey='" + lastProcessedKey + '\'' +
                 '}';
     }
 }
\ No newline at end of file
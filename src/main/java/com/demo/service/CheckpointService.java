@@ -1,25 +1,286 @@
 package com.demo.service;
- 
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
- 
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
- 
+
+import com.demo.service.WatermarkCheckpoint.KeyRange;
+import com.demo.service.WatermarkCheckpoint.PartitionState;
+import com.demo.util.AppendOnlyLog;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Checkpoints are served from memory and written through to an append-only
+ * log under migration.checkpoint.dir, so resume points survive a restart.
+ * A save is a copy into the memory-mapped log; with migration.checkpoint.sync
+ * it also waits for the next group commit. A blank directory keeps
+ * checkpoints in memory only.
+ *
+ * Watermark checkpoints of parallel transfers and change stream resume
+ * tokens share the log under their own key prefixes.
+ */
 @Service
 public class CheckpointService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointService.class);
+
+    private static final String WATERMARK_PREFIX = "watermarks::";
+    private static final String RESUME_TOKEN_PREFIX = "resume-token::";
+
     private final Map<String, Checkpoint> checkpointStore = new ConcurrentHashMap<>();
- 
+    private final Map<String, WatermarkCheckpoint> watermarkStore = new ConcurrentHashMap<>();
+    private final Map<String, String> resumeTokens = new ConcurrentHashMap<>();
+    private final AppendOnlyLog log;
+    private final boolean sync;
+
+    public CheckpointService(@Value("${migration.checkpoint.dir:data/checkpoints}") String directory,
+                             @Value("${migration.checkpoint.log-capacity-bytes:16777216}") int capacity,
+                             @Value("${migration.checkpoint.flush-interval-ms:20}") long flushIntervalMs,
+                             @Value("${migration.checkpoint.compact-interval-ms:60000}") long compactIntervalMs,
+                             @Value("${migration.checkpoint.sync:false}") boolean sync) throws IOException {
+        this.sync = sync;
+        if (directory == null || directory.isBlank()) {
+            this.log = null;
+            logger.warn("[WARN] migration.checkpoint.dir is blank; checkpoints are lost on restart");
+            return;
+        }
+        this.log = new AppendOnlyLog(Path.of(directory, "checkpoints.log"), capacity, flushIntervalMs, compactIntervalMs);
+        for (Map.Entry<String, byte[]> entry : log.snapshot().entrySet()) {
+            try {
+                if (entry.getKey().startsWith(WATERMARK_PREFIX)) {
+                    String checkpointId = entry.getKey().substring(WATERMARK_PREFIX.length());
+                    watermarkStore.put(checkpointId, decodeWatermarks(checkpointId, entry.getValue()));
+                } else if (entry.getKey().startsWith(RESUME_TOKEN_PREFIX)) {
+                    resumeTokens.put(entry.getKey().substring(RESUME_TOKEN_PREFIX.length()),
+                            new String(entry.getValue(), StandardCharsets.UTF_8));
+                } else {
+                    checkpointStore.put(entry.getKey(), decode(entry.getKey(), entry.getValue()));
+                }
+            } catch (IOException e) {
+                logger.warn("[WARN] Skipping unreadable checkpoint {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        logger.info("[INFO] Recovered {} checkpoints, {} watermark checkpoints and {} change stream resume tokens",
+                checkpointStore.size(), watermarkStore.size(), resumeTokens.size());
+    }
+
     public void saveCheckpoint(Checkpoint checkpoint) {
         checkpointStore.put(checkpoint.getCheckpointId(), checkpoint);
-        System.out.println("Saved checkpoint: " + checkpoint.getCheckpointId());
+        if (log == null) return;
+        try {
+            long seq = log.put(checkpoint.getCheckpointId(), encode(checkpoint));
+            if (sync) log.awaitDurable(seq);
+        } catch (IOException e) {
+            // The in-memory checkpoint still serves this run
+            logger.error("[ERROR] Failed to persist checkpoint {}: {}", checkpoint.getCheckpointId(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.debug("Saved checkpoint: {}", checkpoint.getCheckpointId());
     }
- 
+
     public Checkpoint loadCheckpoint(String checkpointId) {
         return checkpointStore.get(checkpointId);
     }
- 
+
     public void deleteCheckpoint(String checkpointId) {
         checkpointStore.remove(checkpointId);
-        System.out.println("Deleted checkpoint: " + checkpointId);
+        if (log != null) {
+            try {
+                log.delete(checkpointId);
+            } catch (IOException e) {
+                logger.error("[ERROR] Failed to delete persisted checkpoint {}: {}", checkpointId, e.getMessage());
+            }
+        }
+        logger.info("Deleted checkpoint: {}", checkpointId);
+    }
+
+    public void saveWatermarks(WatermarkCheckpoint checkpoint) {
+        watermarkStore.put(checkpoint.getCheckpointId(), checkpoint);
+        if (log == null) return;
+        try {
+            long seq = log.put(WATERMARK_PREFIX + checkpoint.getCheckpointId(), encodeWatermarks(checkpoint));
+            if (sync) log.awaitDurable(seq);
+        } catch (IOException e) {
+            logger.error("[ERROR] Failed to persist watermarks {}: {}", checkpoint.getCheckpointId(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public WatermarkCheckpoint loadWatermarks(String checkpointId) {
+        return watermarkStore.get(checkpointId);
+    }
+
+    public void deleteWatermarks(String checkpointId) {
+        if (watermarkStore.remove(checkpointId) == null) return;
+        if (log != null) {
+            try {
+                log.delete(WATERMARK_PREFIX + checkpointId);
+            } catch (IOException e) {
+                logger.error("[ERROR] Failed to delete persisted watermarks {}: {}", checkpointId, e.getMessage());
+            }
+        }
+        logger.info("Deleted watermarks: {}", checkpointId);
+    }
+
+    // Resume token of a change stream (extended JSON), so a restart continues after the last applied event
+    public void saveResumeToken(String streamKey, String token) {
+        resumeTokens.put(streamKey, token);
+        if (log == null) return;
+        try {
+            log.put(RESUME_TOKEN_PREFIX + streamKey, token.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.error("[ERROR] Failed to persist resume token of {}: {}", streamKey, e.getMessage());
+        }
+    }
+
+    public String loadResumeToken(String streamKey) {
+        return resumeTokens.get(streamKey);
+    }
+
+    public void deleteResumeToken(String streamKey) {
+        if (resumeTokens.remove(streamKey) == null) return;
+        if (log != null) {
+            try {
+                log.delete(RESUME_TOKEN_PREFIX + streamKey);
+            } catch (IOException e) {
+                logger.error("[ERROR] Failed to delete persisted resume token of {}: {}", streamKey, e.getMessage());
+            }
+        }
+    }
+
+    // Makes every save so far durable without waiting for the next group commit
+    public void flush() {
+        if (log != null) log.force();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("checkpoints", checkpointStore.size());
+        stats.put("watermarkCheckpoints", watermarkStore.size());
+        stats.put("resumeTokens", resumeTokens.size());
+        stats.put("persistent", log != null);
+        stats.put("sync", sync);
+        if (log != null) {
+            stats.put("log", log.getStats());
+        }
+        return stats;
+    }
+
+    private static byte[] encode(Checkpoint checkpoint) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeNullable(out, checkpoint.getStage());
+        out.writeInt(checkpoint.getTotalSucceeded());
+        out.writeInt(checkpoint.getTotalFailed());
+        out.writeInt(checkpoint.getAutoTransferred());
+        out.writeInt(checkpoint.getManualRequired());
+        writeSet(out, checkpoint.getProcessedFunctionNames());
+        writeSet(out, checkpoint.getAttemptedFunctionNames());
+        writeNullable(out, checkpoint.getLastProcessedId());
+        writeNullable(out, checkpoint.getLastProcessedKey());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Checkpoint decode(String checkpointId, byte[] value) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+        String stage = readNullable(in);
+        int totalSucceeded = in.readInt();
+        int totalFailed = in.readInt();
+        int autoTransferred = in.readInt();
+        int manualRequired = in.readInt();
+        Set<String> processed = readSet(in);
+        Set<String> attempted = readSet(in);
+        String lastProcessedId = readNullable(in);
+        // Records written before the typed key existed end here
+        String lastProcessedKey = in.available() > 0 ? readNullable(in) : null;
+        return new Checkpoint(checkpointId, stage, totalSucceeded, totalFailed, autoTransferred, manualRequired,
+                processed, attempted, lastProcessedId, lastProcessedKey);
+    }
+
+    private static byte[] encodeWatermarks(WatermarkCheckpoint checkpoint) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(checkpoint.getTransferred());
+        out.writeInt(checkpoint.getPartitions().size());
+        for (PartitionState partition : checkpoint.getPartitions()) {
+            out.writeInt(partition.partitionId());
+            writeNullable(out, partition.lowerBound());
+            writeNullable(out, partition.upperBound());
+            writeNullable(out, partition.watermark());
+            out.writeInt(partition.completedAhead().size());
+            for (KeyRange range : partition.completedAhead()) {
+                writeNullable(out, range.after());
+                writeNullable(out, range.last());
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static WatermarkCheckpoint decodeWatermarks(String checkpointId, byte[] value) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+        long transferred = in.readLong();
+        int partitionCount = in.readInt();
+        List<PartitionState> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            int partitionId = in.readInt();
+            String lowerBound = readNullable(in);
+            String upperBound = readNullable(in);
+            String watermark = readNullable(in);
+            int rangeCount = in.readInt();
+            List<KeyRange> completedAhead = new ArrayList<>(rangeCount);
+            for (int r = 0; r < rangeCount; r++) {
+                completedAhead.add(new KeyRange(readNullable(in), readNullable(in)));
+            }
+            partitions.add(new PartitionState(partitionId, lowerBound, upperBound, watermark, completedAhead));
+        }
+        return new WatermarkCheckpoint(checkpointId, transferred, partitions);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeSet(DataOutputStream out, Set<String> values) throws IOException {
+        out.writeInt(values != null ? values.size() : 0);
+        if (values == null) return;
+        for (String value : values) out.writeUTF(value);
+    }
+
+    private static Set<String> readSet(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Set<String> values = new HashSet<>(size);
+        for (int i = 0; i < size; i++) values.add(in.readUTF());
+        return values;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (log != null) log.close();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.demo.util.CircuitBreaker;
+
+/**
+ * One circuit breaker per endpoint. Mongo readers wait on the mongo breaker
+ * and Couchbase writers on the couchbase breaker, so an outage only stalls the
+ * stages that use the failing endpoint. Failures are recorded per operation
+ * and by the connection listeners registered when the clients are created.
+ */
+@Service
+public class ConnectionCircuitBreakers {
+
+    private final CircuitBreaker mongo;
+    private final CircuitBreaker couchbase;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+
+    public ConnectionCircuitBreakers(@Value("${migration.circuit.window-size:100}") int windowSize,
+                                     @Value("${migration.circuit.minimum-calls:20}") int minimumCalls,
+                                     @Value("${migration.circuit.failure-rate-threshold:50}") double failureRateThreshold,
+                                     @Value("${migration.circuit.open-ms:5000}") long openMillis) {
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.mongo = create("mongo");
+        this.couchbase = create("couchbase");
+    }
+
+    // A breaker with the configured settings that no connection listener reports to, e.g. for a recovery drill
+    public CircuitBreaker create(String name) {
+        return new CircuitBreaker(name, windowSize, minimumCalls, failureRateThreshold, openMillis);
+    }
+
+    public CircuitBreaker mongo() {
+        return mongo;
+    }
+
+    public CircuitBreaker couchbase() {
+        return couchbase;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mongo", mongo.getStats());
+        stats.put("couchbase", couchbase.getStats());
+        return stats;
+    }
+}
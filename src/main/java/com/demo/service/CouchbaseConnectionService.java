@@ -1,6 +1,11 @@
 package com.demo.service;
 
+import com.couchbase.client.core.cnc.events.endpoint.EndpointConnectedEvent;
+import com.couchbase.client.core.cnc.events.endpoint.EndpointConnectionFailedEvent;
+import com.couchbase.client.core.cnc.events.endpoint.UnexpectedEndpointDisconnectedEvent;
 import com.couchbase.client.core.env.IoConfig;
+import com.couchbase.client.core.error.CollectionExistsException;
+import com.couchbase.client.core.error.ScopeExistsException;
 import com.couchbase.client.core.env.SecurityConfig;
 import com.couchbase.client.core.env.TimeoutConfig;
 import com.couchbase.client.java.Bucket;
@@ -9,6 +14,7 @@ import com.couchbase.client.java.ClusterOptions;
 import com.couchbase.client.java.Collection;
 import com.couchbase.client.java.env.ClusterEnvironment;
 import com.couchbase.client.java.manager.bucket.BucketSettings;
+import com.couchbase.client.java.manager.collection.CollectionManager;
 import com.couchbase.client.java.manager.collection.CollectionSpec;
 import com.couchbase.client.java.manager.collection.ScopeSpec;
 import com.demo.dto.CouchbaseConnectionDetails;
@@ -25,10 +31,13 @@ import java.security.KeyStore;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.net.ssl.TrustManagerFactory;
 
@@ -39,6 +48,9 @@ public class CouchbaseConnectionService {
     
     @Autowired
     private EncryptionService encryptionService;
+
+    @Autowired
+    private ConnectionCircuitBreakers circuitBreakers;
     
     private Cluster cluster;
     private Bucket bucket;
@@ -105,6 +117,7 @@ public class CouchbaseConnectionService {
                 .disconnectTimeout(Duration.ofSeconds(10)))
             .ioConfig(IoConfig.enableDnsSrv(true)) // Enable DNS SRV for cloud
             .build();
+        subscribeCircuitEvents(env);
 
         String username = decryptIfEncrypted(details.getUsername());
         String password = decryptIfEncrypted(details.getPassword());
@@ -140,6 +153,7 @@ public class CouchbaseConnectionService {
                 .disconnectTimeout(Duration.ofSeconds(10)))
             .ioConfig(IoConfig.enableDnsSrv(false)) // Disable DNS SRV for on-prem
             .build();
+        subscribeCircuitEvents(env);
 
         String username = decryptIfEncrypted(details.getUsername());
         String password = decryptIfEncrypted(details.getPassword());
@@ -158,6 +172,17 @@ public class CouchbaseConnectionService {
         logger.info("Successfully connected to on-prem Couchbase: {}", details.getConnectionString());
     }
 
+    // SDK endpoint events count as failures, and a reconnect lets the couchbase breaker probe at once
+    private void subscribeCircuitEvents(ClusterEnvironment env) {
+        env.eventBus().subscribe(event -> {
+            if (event instanceof UnexpectedEndpointDisconnectedEvent || event instanceof EndpointConnectionFailedEvent) {
+                circuitBreakers.couchbase().recordFailure();
+            } else if (event instanceof EndpointConnectedEvent) {
+                circuitBreakers.couchbase().signalRecovery("SDK endpoint connected");
+            }
+        });
+    }
+
     public void initializeBucket(String bucketName) {
         if (cluster == null) {
             throw new IllegalStateException("Cluster not initialized");
@@ -234,6 +259,50 @@ public class CouchbaseConnectionService {
         return collection;
     }
 
+    /**
+     * Creates the scope and any of the given collections that do not exist yet,
+     * reading the manifest once. Returns the names that were created.
+     */
+    public List<String> ensureCollections(String bucketName, String scopeName, List<String> collectionNames) {
+        if (cluster == null) {
+            throw new IllegalStateException("Cluster not initialized");
+        }
+
+        Bucket targetBucket = cluster.bucket(bucketName);
+        targetBucket.waitUntilReady(Duration.ofSeconds(10));
+        CollectionManager manager = targetBucket.collections();
+
+        Set<String> existing = new HashSet<>();
+        boolean scopeExists = false;
+        for (ScopeSpec scope : manager.getAllScopes()) {
+            if (scope.name().equals(scopeName)) {
+                scopeExists = true;
+                scope.collections().forEach(spec -> existing.add(spec.name()));
+            }
+        }
+        if (!scopeExists) {
+            try {
+                manager.createScope(scopeName);
+                logger.info("Created scope {}.{}", bucketName, scopeName);
+            } catch (ScopeExistsException e) {
+                // Created concurrently
+            }
+        }
+
+        List<String> created = new ArrayList<>();
+        for (String name : collectionNames) {
+            if (existing.contains(name)) continue;
+            try {
+                manager.createCollection(CollectionSpec.create(name, scopeName));
+                created.add(name);
+            } catch (CollectionExistsException e) {
+                // Created concurrently
+            }
+        }
+        logger.info("Created {} of {} collections in {}.{}", created.size(), collectionNames.size(), bucketName, scopeName);
+        return created;
+    }
+
     // Connection status and info
     
     public Bucket getBucket() {
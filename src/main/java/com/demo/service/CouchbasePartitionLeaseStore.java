@@ -0,0 +1,252 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.couchbase.client.core.error.CasMismatchException;
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.kv.GetResult;
+import com.couchbase.client.java.kv.MutationResult;
+import com.couchbase.client.java.kv.ReplaceOptions;
+import com.demo.dto.PartitionLease;
+import com.demo.dto.PartitionManifest;
+
+/**
+ * Lease table kept as documents in a metadata collection of the target
+ * cluster, so every instance connected to it shares the same leases. Each
+ * partition is its own document and every change is a CAS replace, so two
+ * workers can never both win a claim. Documents:
+ *   leases::jobs                  keys of all published jobs
+ *   leases::{jobKey}              manifest
+ *   leases::{jobKey}::{partition} lease
+ */
+@Service
+@ConditionalOnProperty(name = "migration.distributed.store", havingValue = "couchbase")
+public class CouchbasePartitionLeaseStore implements PartitionLeaseStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouchbasePartitionLeaseStore.class);
+
+    private static final String REGISTRY_ID = "leases::jobs";
+
+    private final CouchbaseConnectionService couchbaseConnectionService;
+    private final String bucketName;
+    private final String scopeName;
+    private final String collectionName;
+    private volatile Collection collection;
+
+    public CouchbasePartitionLeaseStore(CouchbaseConnectionService couchbaseConnectionService,
+                                        @Value("${migration.distributed.bucket:}") String bucketName,
+                                        @Value("${migration.distributed.scope:_default}") String scopeName,
+                                        @Value("${migration.distributed.collection:migration_leases}") String collectionName) {
+        if (bucketName == null || bucketName.isBlank()) {
+            throw new IllegalArgumentException("migration.distributed.bucket is required for the couchbase lease store");
+        }
+        this.couchbaseConnectionService = couchbaseConnectionService;
+        this.bucketName = bucketName;
+        this.scopeName = scopeName;
+        this.collectionName = collectionName;
+    }
+
+    // Resolved on first use because the cluster connects after startup
+    private Collection collection() {
+        Collection current = collection;
+        if (current == null) {
+            synchronized (this) {
+                if (collection == null) {
+                    couchbaseConnectionService.ensureCollections(bucketName, scopeName, List.of(collectionName));
+                    collection = couchbaseConnectionService.getTargetCollection(bucketName, scopeName, collectionName);
+                    logger.info("[INFO] Partition leases stored in {}.{}.{}", bucketName, scopeName, collectionName);
+                }
+                current = collection;
+            }
+        }
+        return current;
+    }
+
+    private static String manifestId(String jobKey) {
+        return "leases::" + jobKey;
+    }
+
+    private static String leaseId(String jobKey, int partitionId) {
+        return "leases::" + jobKey + "::" + partitionId;
+    }
+
+    @Override
+    public boolean publish(PartitionManifest manifest, List<PartitionLease> partitions) {
+        Collection target = collection();
+        String id = manifestId(manifest.getJobKey());
+        try {
+            GetResult existing = target.get(id);
+            if (!existing.contentAsObject().getBoolean("complete")) {
+                return false;
+            }
+            // A finished run of the same collection is replaced by the new one
+            target.replace(id, toJson(manifest), ReplaceOptions.replaceOptions().cas(existing.cas()));
+        } catch (DocumentNotFoundException e) {
+            try {
+                target.insert(id, toJson(manifest));
+            } catch (DocumentExistsException raced) {
+                return false;
+            }
+        } catch (CasMismatchException raced) {
+            return false;
+        }
+        // Partitions appear after the manifest; workers treat a missing one as not claimable yet
+        for (PartitionLease lease : partitions) {
+            target.upsert(leaseId(lease.getJobKey(), lease.getPartitionId()), toJson(lease));
+        }
+        register(manifest.getJobKey());
+        return true;
+    }
+
+    private void register(String jobKey) {
+        Collection target = collection();
+        while (true) {
+            try {
+                GetResult registry = target.get(REGISTRY_ID);
+                JsonArray keys = registry.contentAsObject().getArray("jobs");
+                if (keys.toList().contains(jobKey)) return;
+                keys.add(jobKey);
+                target.replace(REGISTRY_ID, JsonObject.create().put("jobs", keys),
+                        ReplaceOptions.replaceOptions().cas(registry.cas()));
+                return;
+            } catch (DocumentNotFoundException e) {
+                try {
+                    target.insert(REGISTRY_ID, JsonObject.create().put("jobs", JsonArray.from(jobKey)));
+                    return;
+                } catch (DocumentExistsException raced) {
+                    // Retry against the registry the other instance created
+                }
+            } catch (CasMismatchException raced) {
+                // Retry with the new registry
+            }
+        }
+    }
+
+    @Override
+    public PartitionManifest getManifest(String jobKey) {
+        try {
+            GetResult result = collection().get(manifestId(jobKey));
+            PartitionManifest manifest = toManifest(result.contentAsObject());
+            manifest.setVersion(result.cas());
+            return manifest;
+        } catch (DocumentNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public List<PartitionManifest> listManifests() {
+        List<PartitionManifest> manifests = new ArrayList<>();
+        try {
+            JsonArray keys = collection().get(REGISTRY_ID).contentAsObject().getArray("jobs");
+            for (Object key : keys) {
+                PartitionManifest manifest = getManifest(String.valueOf(key));
+                if (manifest != null) manifests.add(manifest);
+            }
+        } catch (DocumentNotFoundException e) {
+            // Nothing published yet
+        }
+        return manifests;
+    }
+
+    @Override
+    public List<PartitionLease> getPartitions(String jobKey) {
+        PartitionManifest manifest = getManifest(jobKey);
+        if (manifest == null) return List.of();
+        List<PartitionLease> leases = new ArrayList<>();
+        for (int partitionId = 0; partitionId < manifest.getPartitionCount(); partitionId++) {
+            try {
+                GetResult result = collection().get(leaseId(jobKey, partitionId));
+                PartitionLease lease = toLease(result.contentAsObject());
+                lease.setVersion(result.cas());
+                leases.add(lease);
+            } catch (DocumentNotFoundException e) {
+                // Still being published
+            }
+        }
+        return leases;
+    }
+
+    @Override
+    public PartitionLease compareAndSet(PartitionLease expected, PartitionLease updated) {
+        try {
+            MutationResult result = collection().replace(leaseId(expected.getJobKey(), expected.getPartitionId()),
+                    toJson(updated), ReplaceOptions.replaceOptions().cas(expected.getVersion()));
+            PartitionLease stored = updated.copy();
+            stored.setVersion(result.cas());
+            return stored;
+        } catch (CasMismatchException | DocumentNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void markComplete(String jobKey) {
+        Collection target = collection();
+        while (true) {
+            try {
+                GetResult result = target.get(manifestId(jobKey));
+                JsonObject content = result.contentAsObject().put("complete", true);
+                target.replace(manifestId(jobKey), content, ReplaceOptions.replaceOptions().cas(result.cas()));
+                return;
+            } catch (DocumentNotFoundException e) {
+                return;
+            } catch (CasMismatchException raced) {
+                // Retry with the new manifest
+            }
+        }
+    }
+
+    private static JsonObject toJson(PartitionManifest manifest) {
+        return JsonObject.create()
+                .put("jobKey", manifest.getJobKey())
+                .put("request", manifest.getRequest())
+                .put("partitionCount", manifest.getPartitionCount())
+                .put("coordinator", manifest.getCoordinator())
+                .put("publishedAt", manifest.getPublishedAt())
+                .put("complete", manifest.isComplete());
+    }
+
+    private static PartitionManifest toManifest(JsonObject json) {
+        PartitionManifest manifest = new PartitionManifest(json.getString("jobKey"), json.getString("request"),
+                json.getInt("partitionCount"), json.getString("coordinator"));
+        manifest.setPublishedAt(json.getLong("publishedAt"));
+        manifest.setComplete(json.getBoolean("complete"));
+        return manifest;
+    }
+
+    private static JsonObject toJson(PartitionLease lease) {
+        return JsonObject.create()
+                .put("jobKey", lease.getJobKey())
+                .put("partitionId", lease.getPartitionId())
+                .put("lowerBound", lease.getLowerBound())
+                .put("upperBound", lease.getUpperBound())
+                .put("state", lease.getState().name())
+                .put("owner", lease.getOwner())
+                .put("leaseExpiresAt", lease.getLeaseExpiresAt())
+                .put("transferred", lease.getTransferred())
+                .put("attempts", lease.getAttempts());
+    }
+
+    private static PartitionLease toLease(JsonObject json) {
+        PartitionLease lease = new PartitionLease(json.getString("jobKey"), json.getInt("partitionId"),
+                json.getString("lowerBound"), json.getString("upperBound"));
+        lease.setState(PartitionLease.State.valueOf(json.getString("state")));
+        lease.setOwner(json.getString("owner"));
+        lease.setLeaseExpiresAt(json.getLong("leaseExpiresAt"));
+        lease.setTransferred(json.getLong("transferred"));
+        lease.setAttempts(json.getInt("attempts"));
+        return lease;
+    }
+}
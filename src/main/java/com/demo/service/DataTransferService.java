@@ -1,21 +1,34 @@
 package com.demo.service;
 
+import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import org.bson.BsonDocument;
 import org.bson.Document;
+import org.bson.types.Binary;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
@@ -24,26 +37,45 @@ import com.couchbase.client.core.error.TimeoutException;
 import com.couchbase.client.java.Cluster;
 import com.couchbase.client.java.Collection;
 import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.codec.RawJsonTranscoder;
 import com.couchbase.client.java.json.JsonObject;
 import com.couchbase.client.java.kv.ExistsResult;
 import com.couchbase.client.java.kv.MutationResult;
+import com.couchbase.client.java.kv.UpsertOptions;
 import com.couchbase.client.java.query.QueryOptions;
 import com.demo.controller.MigrationProgressController;
+import com.demo.dto.DeadLetter;
 import com.demo.dto.MigrationProgress;
+import com.demo.dto.PartitionLease;
+import com.demo.dto.ReferenceEmbedding;
+import com.demo.dto.TransferOptions;
+import com.demo.dto.TransformationRule;
+import com.demo.service.AggregationPushdownPlanner.PushdownPlan;
+import com.demo.util.BsonKeys;
+import com.demo.util.CircuitBreaker;
 import com.demo.util.DataTransformationUtil;
+import com.demo.util.JsonDocumentWriter;
+import com.demo.util.RetryBudget;
+import com.demo.util.StagedPipeline;
+import com.demo.util.TransformationRuleApplier;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoCommandException;
 import com.mongodb.MongoInterruptedException;
+import com.mongodb.MongoSocketException;
 import com.mongodb.MongoTimeoutException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
 import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.changestream.ChangeStreamDocument;
 import com.mongodb.client.model.changestream.FullDocument;
 
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 @Service
@@ -52,57 +84,122 @@ public class DataTransferService {
     private static final Logger logger = LoggerFactory.getLogger(DataTransferService.class);
 
     private static final int BATCH_SIZE = 4000;        
-    private static final int CONCURRENCY_LEVEL = 3000;  
 
     private static final String PROGRESS_TOPIC = "migration-progress";
 
+    private static final UpsertOptions RAW_JSON_UPSERT = UpsertOptions.upsertOptions().transcoder(RawJsonTranscoder.INSTANCE);
+
     private final MongoDataFetchService mongoDataFetchService;
     private final CouchbaseConnectionService couchbaseConnectionService;
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
     private final MigrationProgressController progressController;
     private final CheckpointService checkpointService;
+    private final JsonDocumentWriter jsonWriter;
+    private final AggregationPushdownPlanner pushdownPlanner;
+    private final FieldProfilerService fieldProfilerService;
+    private final ReferenceResolverService referenceResolver;
+    private final BinaryDedupService binaryDedupService;
+    private final TransferConcurrencyBudget concurrencyBudget;
+    private final ConnectionCircuitBreakers circuitBreakers;
+    private final MigrationThreads migrationThreads;
+    private final PartitionLeaseService partitionLeases;
+    private final DeadLetterService deadLetterService;
+    private final TargetCheckpointStore targetCheckpoints;
+    private final UpsertOptions upsertOptions;
 
     private final ConcurrentHashMap<String, Thread> changeStreams = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, Boolean> cdcEnabled = new ConcurrentHashMap<>();
-
-    // CDC tracking variables
-    private final ConcurrentHashMap<String, AtomicInteger> insertedDuringMigration = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, AtomicInteger> deletedDuringMigration = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Integer> initialDocumentCounts = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, AtomicInteger> currentTransferredCounts = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, AtomicInteger> migrationCurrentTotals = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Long> migrationStartTimes = new ConcurrentHashMap<>();
+    private volatile boolean draining; // shutdown in progress: transfers stop reading, streams keep their position
+
+    // Runtime state of each running bulk copy, also read by CDC to adjust its totals
+    private final ConcurrentHashMap<String, MigrationJobContext> activeContexts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PushdownPlan> transformationPlans = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<ReferenceEmbedding>> referenceRules = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Function<Binary, Object>> binaryHandlers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TransferRequest> transferRequests = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, StagedPipeline<?>> activePipelines = new ConcurrentHashMap<>();
+    // Migration keys of running recovery drills, which leave no checkpoints, dead letters or progress behind
+    private final Set<String> drills = ConcurrentHashMap.newKeySet();
+
+    @Value("${migration.pipeline.queue-capacity:4}")
+    private int pipelineQueueCapacity;
+    @Value("${migration.pipeline.read-parallelism:2}")
+    private int readParallelism;
+    @Value("${migration.pipeline.max-read-parallelism:8}")
+    private int maxReadParallelism; // read workers started per pipeline, so read parallelism can be raised live
+    @Value("${migration.pipeline.transform-parallelism:4}")
+    private int transformParallelism;
+    @Value("${migration.pipeline.encode-parallelism:2}")
+    private int encodeParallelism;
+    @Value("${migration.pipeline.write-parallelism:4}")
+    private int writeParallelism;
+    @Value("${migration.pipeline.write-concurrency:750}")
+    private int writeConcurrency; // in-flight upserts per write worker, capped by the global budget
+    @Value("${migration.retry.budget-ratio:0.1}")
+    private double retryBudgetRatio; // retries a job may add, as a fraction of its write requests
+    @Value("${migration.retry.budget-reserve:1000}")
+    private int retryBudgetReserve;
+    @Value("${migration.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+    @Value("${migration.hedge.percentile:95}")
+    private double hedgePercentile; // write latency after which a hedged upsert is sent
+    @Value("${migration.hedge.min-delay-ms:2}")
+    private long hedgeMinDelayMs;
+    @Value("${migration.cdc.poll-ms:1000}")
+    private long changeStreamPollMs; // longest a stream waits for an event before it checks for a stop
+    @Value("${migration.cdc.resume-token-interval-ms:1000}")
+    private long resumeTokenIntervalMs;
 
     private final Object deleteLock = new Object();
 
-    private volatile boolean paused = false;
-    private volatile boolean connectionLost = false;
-
-    // New flag to stop migration on request
-    private volatile boolean stopRequested = false;
-
     @Autowired
     public DataTransferService(MongoDataFetchService mongoDataFetchService,
                                CouchbaseConnectionService couchbaseConnectionService,
                                KafkaTemplate<String, String> kafkaTemplate,
                                ObjectMapper objectMapper,
                                MigrationProgressController progressController,
-                               CheckpointService checkpointService) {
+                               CheckpointService checkpointService,
+                               JsonDocumentWriter jsonWriter,
+                               AggregationPushdownPlanner pushdownPlanner,
+                               FieldProfilerService fieldProfilerService,
+                               ReferenceResolverService referenceResolver,
+                               BinaryDedupService binaryDedupService,
+                               TransferConcurrencyBudget concurrencyBudget,
+                               ConnectionCircuitBreakers circuitBreakers,
+                               MigrationThreads migrationThreads,
+                               PartitionLeaseService partitionLeases,
+                               DeadLetterService deadLetterService,
+                               TargetCheckpointStore targetCheckpoints) {
         this.mongoDataFetchService = mongoDataFetchService;
         this.couchbaseConnectionService = couchbaseConnectionService;
         this.kafkaTemplate = kafkaTemplate;
         this.objectMapper = objectMapper;
         this.progressController = progressController;
         this.checkpointService = checkpointService;
+        this.jsonWriter = jsonWriter;
+        this.pushdownPlanner = pushdownPlanner;
+        this.fieldProfilerService = fieldProfilerService;
+        this.referenceResolver = referenceResolver;
+        this.binaryDedupService = binaryDedupService;
+        this.concurrencyBudget = concurrencyBudget;
+        this.circuitBreakers = circuitBreakers;
+        this.migrationThreads = migrationThreads;
+        this.partitionLeases = partitionLeases;
+        this.deadLetterService = deadLetterService;
+        this.targetCheckpoints = targetCheckpoints;
+        // With checkpoints in the target, data must be as durable as the checkpoint that covers it
+        this.upsertOptions = targetCheckpoints.isEnabled()
+                ? UpsertOptions.upsertOptions().transcoder(RawJsonTranscoder.INSTANCE).durability(targetCheckpoints.getDurability())
+                : RAW_JSON_UPSERT;
     }
 
     // API to stop full migration and CDC
     public void stopMigration() {
-        stopRequested = true;
-        paused = true;
+        activeContexts.values().forEach(MigrationJobContext::cancel);
         for (String key : changeStreams.keySet()) {
             cdcEnabled.put(key, false);
+            checkpointService.deleteResumeToken(key);
             Thread t = changeStreams.remove(key);
             if (t != null && t.isAlive()) {
                 t.interrupt();
@@ -111,14 +208,87 @@ public class DataTransferService {
         logger.warn("[WARN] Migration and CDC stop requested by user.");
     }
 
-    private boolean checkStopRequested() {
-        if (stopRequested) {
-            logger.info("[INFO] Migration stopped by user request.");
+    // Stops one collection's bulk copy and its CDC stream; other migrations keep running
+    public void stopMigration(MigrationJobContext context, String databaseName, String collectionName) {
+        context.cancel();
+        stopChangeStream(databaseName, collectionName);
+        logger.warn("[WARN] Migration stop requested for {}.{}", databaseName, collectionName);
+    }
+
+    public MigrationJobContext getActiveContext(String databaseName, String collectionName) {
+        return activeContexts.get(databaseName + "." + collectionName);
+    }
+
+    /**
+     * Holds a collection's migration slot for work that must not overlap a
+     * transfer of it, such as a calibration. The returned context is drained
+     * and cancelled on shutdown like a transfer's; pass it to releaseSlot
+     * when done.
+     */
+    public MigrationJobContext reserveSlot(String holder, String databaseName, String collectionName) {
+        MigrationJobContext context = new MigrationJobContext(holder, databaseName + "." + collectionName);
+        registerContext(context);
+        return context;
+    }
+
+    public void releaseSlot(MigrationJobContext context) {
+        activeContexts.remove(context.getMigrationKey(), context);
+    }
+
+    private boolean checkStopRequested(MigrationJobContext context) {
+        if (context.isCancelled()) {
+            logger.info("[INFO] Migration {} stopped by user request.", context.getMigrationKey());
             return true;
         }
         return false;
     }
 
+    // One bulk copy per source collection at a time
+    private void registerContext(MigrationJobContext context) {
+        if (activeContexts.putIfAbsent(context.getMigrationKey(), context) != null) {
+            throw new IllegalStateException("A migration for " + context.getMigrationKey() + " is already running");
+        }
+        context.getRetryBudget().update(retryBudgetRatio, retryBudgetReserve);
+        // Started while shutting down: returns before its first read
+        if (draining) context.drain();
+    }
+
+    /**
+     * Shutdown: stops every running transfer from reading further and waits
+     * until the batches already read are written and checkpointed, or the
+     * deadline passes. Transfers still running then are cancelled; their
+     * checkpoints stay at the last batch written. Returns whether all of them
+     * drained in time.
+     */
+    public boolean drainTransfers(long deadlineMillis) throws InterruptedException {
+        draining = true;
+        activeContexts.values().forEach(MigrationJobContext::drain);
+        while (!activeContexts.isEmpty() && System.currentTimeMillis() < deadlineMillis) {
+            Thread.sleep(50);
+        }
+        if (activeContexts.isEmpty()) return true;
+        logger.warn("[WARN] Drain deadline passed, cancelling {}", activeContexts.keySet());
+        activeContexts.values().forEach(MigrationJobContext::cancel);
+        return false;
+    }
+
+    /**
+     * Shutdown: stops every change stream after the event it is applying,
+     * saving its resume token so the next start continues from there, and
+     * waits for the stream threads until the deadline. A thread still busy
+     * then is interrupted; its position is at most one token interval old.
+     */
+    public void suspendChangeStreams(long deadlineMillis) throws InterruptedException {
+        draining = true;
+        List<Thread> threads = new ArrayList<>(changeStreams.values());
+        changeStreams.keySet().forEach(key -> cdcEnabled.put(key, false));
+        for (Thread thread : threads) {
+            long remaining = deadlineMillis - System.currentTimeMillis();
+            if (remaining > 0) thread.join(remaining);
+            if (thread.isAlive()) thread.interrupt();
+        }
+    }
+
     private String normalizeMongoId(Object rawId) {
         if (rawId == null) return null;
         if (rawId instanceof ObjectId) {
@@ -169,7 +339,7 @@ public class DataTransferService {
         }
         cdcEnabled.put(streamKey, true);
 
-        Thread changeStreamThread = new Thread(() -> {
+        Thread changeStreamThread = migrationThreads.start("ChangeStream-" + databaseName + "-" + collectionName, () -> {
             MongoClient mongoClient = mongoDataFetchService.getMongoClient();
             if (!isReplicaSet(mongoClient)) {
                 logger.warn("[WARN] Change stream not supported. MongoDB is not a replica set.");
@@ -179,14 +349,15 @@ public class DataTransferService {
             }
             try {
                 MongoDatabase database = mongoClient.getDatabase(databaseName);
-                var collection = database.getCollection(collectionName);
+                MongoCollection<Document> collection = database.getCollection(collectionName);
                 logger.info("[INFO] Starting change stream for {}.{}", databaseName, collectionName);
 
-                try (MongoCursor<ChangeStreamDocument<Document>> cursor =
-                        collection.watch().fullDocument(FullDocument.UPDATE_LOOKUP).iterator()) {
-                    while (Boolean.TRUE.equals(cdcEnabled.get(streamKey)) && cursor.hasNext()) {
-                        if (checkStopRequested()) break;
-                        ChangeStreamDocument<Document> change = cursor.next();
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openChangeStream(collection, streamKey)) {
+                    long tokenSavedAt = System.currentTimeMillis();
+                    while (Boolean.TRUE.equals(cdcEnabled.get(streamKey))) {
+                        // Returns null after the poll interval, so a stop is noticed between events
+                        ChangeStreamDocument<Document> change = cursor.tryNext();
+                        if (change == null) continue;
                         String opType = change.getOperationType().getValue();
 
                         if ("drop".equals(opType) || "dropDatabase".equals(opType)) {
@@ -198,11 +369,22 @@ public class DataTransferService {
                             }
                             cdcEnabled.put(streamKey, false);
                             changeStreams.remove(streamKey);
+                            checkpointService.deleteResumeToken(streamKey);
                             logger.info("[INFO] Change stream stopped due to drop event for {}.{}", databaseName, collectionName);
                             return;
                         } else {
                             processChangeEvent(change, bucketName, scopeName, targetCollectionName, collectionName);
                         }
+                        // Events are applied one at a time, so the cursor's token never passes an unapplied one
+                        if (System.currentTimeMillis() - tokenSavedAt >= resumeTokenIntervalMs
+                                && Boolean.TRUE.equals(cdcEnabled.get(streamKey))) {
+                            saveResumeToken(streamKey, cursor);
+                            tokenSavedAt = System.currentTimeMillis();
+                        }
+                    }
+                    if (draining) {
+                        saveResumeToken(streamKey, cursor);
+                        logger.info("[INFO] Change stream for {}.{} suspended at its resume token", databaseName, collectionName);
                     }
                 }
             } catch (MongoInterruptedException mie) {
@@ -214,9 +396,6 @@ public class DataTransferService {
                 cdcEnabled.remove(streamKey);
             }
         });
-        changeStreamThread.setName("ChangeStream-" + databaseName + "-" + collectionName);
-        changeStreamThread.setDaemon(true);
-        changeStreamThread.start();
         changeStreams.put(streamKey, changeStreamThread);
         logger.info("[INFO] Change stream started for {}.{}", databaseName, collectionName);
 
@@ -232,13 +411,14 @@ public class DataTransferService {
             return;
         }
         cdcEnabled.put(streamKey, true);
-        Thread dropThread = new Thread(() -> {
+        Thread dropThread = migrationThreads.start("DropListener-" + databaseName, () -> {
             try {
                 MongoDatabase database = mongoClient.getDatabase(databaseName);
-                try (MongoCursor<ChangeStreamDocument<Document>> cursor = database.watch().iterator()) {
-                    while (Boolean.TRUE.equals(cdcEnabled.get(streamKey)) && cursor.hasNext()) {
-                        if (checkStopRequested()) break;
-                        ChangeStreamDocument<Document> event = cursor.next();
+                try (MongoCursor<ChangeStreamDocument<Document>> cursor =
+                        database.watch().maxAwaitTime(changeStreamPollMs, TimeUnit.MILLISECONDS).iterator()) {
+                    while (Boolean.TRUE.equals(cdcEnabled.get(streamKey))) {
+                        ChangeStreamDocument<Document> event = cursor.tryNext();
+                        if (event == null) continue;
                         String opType = event.getOperationType().getValue();
                         if ("drop".equals(opType) || "dropDatabase".equals(opType)) {
                             String droppedCollection = event.getNamespace().getCollectionName();
@@ -264,16 +444,54 @@ public class DataTransferService {
                 cdcEnabled.remove(streamKey);
             }
         });
-        dropThread.setName("DropListener-" + databaseName);
-        dropThread.setDaemon(true);
-        dropThread.start();
         changeStreams.put(streamKey, dropThread);
     }
 
+    /**
+     * Opens the collection's change stream after its saved resume token, if
+     * any. A token the oplog no longer covers is dropped and the stream starts
+     * from now, since changes in between cannot be replayed anyway.
+     */
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openChangeStream(MongoCollection<Document> collection,
+                                                                                   String streamKey) {
+        String token = checkpointService.loadResumeToken(streamKey);
+        if (token != null) {
+            try {
+                MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor =
+                        watch(collection).resumeAfter(BsonDocument.parse(token)).cursor();
+                logger.info("[INFO] Change stream for {} resuming after its saved position", streamKey);
+                return cursor;
+            } catch (MongoCommandException e) {
+                logger.warn("[WARN] Resume token of {} is no longer usable, starting from now: {}", streamKey, e.getErrorMessage());
+                checkpointService.deleteResumeToken(streamKey);
+            }
+        }
+        return watch(collection).cursor();
+    }
+
+    private ChangeStreamIterable<Document> watch(MongoCollection<Document> collection) {
+        return collection.watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(changeStreamPollMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void saveResumeToken(String streamKey, MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor) {
+        BsonDocument token = cursor.getResumeToken();
+        if (token != null) {
+            checkpointService.saveResumeToken(streamKey, token.toJson());
+        }
+    }
+
     public void stopChangeStream(String databaseName, String collectionName) {
         String streamKey = databaseName + "." + collectionName;
         cdcEnabled.put(streamKey, false);
         changeStreams.remove(streamKey);
+        // Stopped on purpose, so a later migration of the collection starts its stream fresh
+        checkpointService.deleteResumeToken(streamKey);
+        transformationPlans.remove(streamKey);
+        referenceRules.remove(streamKey);
+        binaryHandlers.remove(streamKey);
+        transferRequests.remove(streamKey);
 
         String dropStreamKey = databaseName + ".dropEvents";
         cdcEnabled.put(dropStreamKey, false);
@@ -291,15 +509,18 @@ public class DataTransferService {
             String fqCollection = "`" + bucketName + "`.`" + scopeName + "`.`" + couchbaseCollectionName + "`";
 
             QueryOptions options = QueryOptions.queryOptions()
-                    .parameters(JsonObject.create().put("mongoCollection", mongoCollectionName));
+                    .parameters(JsonObject.create().put("mongoCollection", mongoCollectionName)
+                            .put("blobPrefix", BinaryDedupService.blobKeyPrefix(mongoCollectionName)));
+            // Blob documents are raw binary without a mongoCollection field; their key names the source collection
+            String matches = " WHERE (mongoCollection IS NOT MISSING AND mongoCollection = $mongoCollection)"
+                    + " OR SUBSTR(META().id, 0, LENGTH($blobPrefix)) = $blobPrefix";
 
             int maxRetries = 5;
             int attempt = 0;
             while (true) {
-                if (checkStopRequested()) return;
+                if (Thread.currentThread().isInterrupted()) return;
                 try {
-                    String countStatement = "SELECT COUNT(*) AS count FROM " + fqCollection +
-                            " WHERE mongoCollection IS NOT MISSING AND mongoCollection = $mongoCollection";
+                    String countStatement = "SELECT COUNT(*) AS count FROM " + fqCollection + matches;
                     var countResult = cluster.query(countStatement, options);
                     long count = countResult.rowsAsObject().get(0).getLong("count");
                     logger.info("[INFO] Documents found to delete for MongoDB collection '{}': {}", mongoCollectionName, count);
@@ -309,8 +530,7 @@ public class DataTransferService {
                         return;
                     }
 
-                    String deleteStatement = "DELETE FROM " + fqCollection +
-                            " WHERE mongoCollection IS NOT MISSING AND mongoCollection = $mongoCollection";
+                    String deleteStatement = "DELETE FROM " + fqCollection + matches;
                     var deleteResult = cluster.query(deleteStatement, options);
                     int deletedCount = -1;
                     if (deleteResult.metaData().metrics().isPresent()) {
@@ -351,27 +571,103 @@ public class DataTransferService {
         }
     }
 
-    public record TransferRequest(String mongoDatabase, String mongoCollection, String bucketName, String scopeName, String collectionName) {
+    public record TransferRequest(String mongoDatabase, String mongoCollection, String bucketName, String scopeName, String collectionName,
+                                  List<TransformationRule> transformations, TransferOptions options) {
+
+        public TransferOptions effectiveOptions() {
+            return options != null ? options : new TransferOptions();
+        }
+    }
+
+    private FieldProfilerService.CollectionProfiler startProfiler(TransferRequest request) {
+        TransferOptions options = request.effectiveOptions();
+        if (!options.isProfileFields()) {
+            return null;
+        }
+        return fieldProfilerService.start(request.mongoDatabase(), request.mongoCollection(), options.getProfileSampleRate());
+    }
+
+    // Kept per migration so change events are embedded the same way as the bulk copy
+    private List<ReferenceEmbedding> planReferences(TransferRequest request) {
+        String migrationKey = request.mongoDatabase() + "." + request.mongoCollection();
+        List<ReferenceEmbedding> rules = request.effectiveOptions().getEmbedReferences();
+        referenceResolver.validate(rules);
+        if (rules == null || rules.isEmpty()) {
+            referenceRules.remove(migrationKey);
+            return List.of();
+        }
+        referenceRules.put(migrationKey, List.copyOf(rules));
+        return rules;
+    }
+
+    // Null unless the job stores large binaries as content-addressed blob documents
+    private Function<Binary, Object> planBinaryDedup(TransferRequest request, Collection targetCollection) {
+        String migrationKey = request.mongoDatabase() + "." + request.mongoCollection();
+        TransferOptions options = request.effectiveOptions();
+        if (!options.isBinaryDedup()) {
+            binaryHandlers.remove(migrationKey);
+            return null;
+        }
+        Function<Binary, Object> handler = binaryDedupService.handlerFor(targetCollection.reactive(), request.mongoCollection(), options.getBinaryDedupThreshold());
+        binaryHandlers.put(migrationKey, handler);
+        return handler;
+    }
+
+    // Plans the rule split and reports it before any document is read
+    private PushdownPlan planTransformations(TransferRequest request) {
+        String migrationKey = request.mongoDatabase() + "." + request.mongoCollection();
+        PushdownPlan plan = pushdownPlanner.plan(request.transformations());
+        // Change events that fail for good are dead-lettered against the request they were planned for
+        transferRequests.put(migrationKey, request);
+        if (plan.hasPipeline()) {
+            transformationPlans.put(migrationKey, plan);
+        } else {
+            transformationPlans.remove(migrationKey);
+        }
+        if (request.transformations() != null && !request.transformations().isEmpty()) {
+            progressController.sendProgressUpdate(request.mongoDatabase(), request.mongoCollection(),
+                    0, 0, -1, "PLANNED", "MIGRATION", 0, plan.summary(), 0L, 0L);
+        }
+        return plan;
+    }
+
+    // Copy of a source document as it is written to Couchbase
+    private Map<String, Object> prepareDocument(Map<String, Object> document, String mongoCollection,
+                                                List<TransformationRule> residualRules, Function<Binary, Object> binaryHandler) {
+        Map<String, Object> copy = new HashMap<>(document);
+        copy.remove("_id");
+        TransformationRuleApplier.apply(copy, residualRules);
+        copy.put("mongoCollection", mongoCollection);
+        DataTransformationUtil.convertMongoTypes(copy, binaryHandler);
+        return copy;
     }
 
     public void transferCollectionWithDocumentCheckpoints(TransferRequest request, String checkpointId) {
-        paused = false;
-        connectionLost = false;
-        stopRequested = false;
+        MigrationJobContext context = new MigrationJobContext(null, request.mongoDatabase() + "." + request.mongoCollection());
+        registerContext(context);
+        try {
+            runCheckpointedTransfer(request, checkpointId, context);
+        } finally {
+            activeContexts.remove(context.getMigrationKey(), context);
+        }
+    }
 
+    private void runCheckpointedTransfer(TransferRequest request, String checkpointId, MigrationJobContext context) {
         Checkpoint lastCheckpoint = checkpointService.loadCheckpoint(checkpointId);
-        String lastProcessedId = lastCheckpoint != null ? lastCheckpoint.getLastProcessedId() : null;
         int alreadySucceeded = lastCheckpoint != null ? lastCheckpoint.getTotalSucceeded() : 0;
 
+        PushdownPlan plan = planTransformations(request);
+        List<ReferenceEmbedding> references = planReferences(request);
+
         long totalDocs;
         try {
-            totalDocs = executeMongoOperationWithRetry(() ->
-                    mongoDataFetchService.countDocuments(request.mongoDatabase(), request.mongoCollection()), 5);
+            totalDocs = executeMongoOperationWithRetry(context, () ->
+                    mongoDataFetchService.countDocuments(request.mongoDatabase(), request.mongoCollection(), plan.pipeline()), 5);
         } catch (Exception e) {
             handleConnectionLost(request, alreadySucceeded, 0, "[ERROR] MongoDB connection lost at start.");
-            waitUntilConnectionsRestored();
-            totalDocs = executeMongoOperationWithRetry(() ->
-                    mongoDataFetchService.countDocuments(request.mongoDatabase(), request.mongoCollection()), 5);
+            awaitEndpoint(circuitBreakers.mongo(), request, context, 0);
+            totalDocs = executeMongoOperationWithRetry(context, () ->
+                    mongoDataFetchService.countDocuments(request.mongoDatabase(), request.mongoCollection(), plan.pipeline()), 5);
         }
 
         Collection targetCollection;
@@ -379,250 +675,841 @@ public class DataTransferService {
             targetCollection = couchbaseConnectionService.getTargetCollection(request.bucketName(), request.scopeName(), request.collectionName());
         } catch (Exception e) {
             handleConnectionLost(request, alreadySucceeded, 0, "[ERROR] Couchbase connection lost at start.");
-            waitUntilConnectionsRestored();
+            awaitEndpoint(circuitBreakers.couchbase(), request, context, 0);
             targetCollection = couchbaseConnectionService.getTargetCollection(request.bucketName(), request.scopeName(), request.collectionName());
         }
 
+        Function<Binary, Object> binaryHandler = planBinaryDedup(request, targetCollection);
         sendProgressUpdate(request, alreadySucceeded, (int) totalDocs, "STARTED");
         startChangeStream(request.mongoDatabase(), request.mongoCollection(), request.bucketName(), request.scopeName(), request.collectionName());
 
-        long numBatches = (totalDocs / BATCH_SIZE) + 1;
-        AtomicInteger successCounter = new AtomicInteger(alreadySucceeded);
+        context.setExpectedTotal(totalDocs);
+        context.recordTransferred(alreadySucceeded);
 
-        boolean resumeMode = lastProcessedId != null;
-        boolean foundLastId = !resumeMode;
+        // Resume seeks straight past the last checkpointed _id instead of re-reading the collection up to it
+        Object lastKey = resumeKey(lastCheckpoint);
+        boolean mixedIds = executeMongoOperationWithRetry(context, () ->
+                mongoDataFetchService.hasMixedIdTypes(request.mongoDatabase(), request.mongoCollection()), 5);
+        if (lastKey != null) {
+            logger.info("[INFO] Resuming {} after _id {}", context.getMigrationKey(), lastKey);
+        }
 
-        for (int batchIndex = 0; batchIndex < numBatches; batchIndex++) {
-            if (checkStopRequested()) return;
-            List<Map<String, Object>> batch = null;
-            while (batch == null) {
-                if (checkStopRequested()) return;
-                try {
-                    batch = mongoDataFetchService.fetchBatch(request.mongoDatabase(), request.mongoCollection(),
-                            batchIndex * BATCH_SIZE, BATCH_SIZE);
-                    if (connectionLost) {
-                        sendProgressUpdate(request, successCounter.get(), (int) totalDocs, "RESUMED");
-                        connectionLost = false;
-                        paused = false;
+        FieldProfilerService.CollectionProfiler profiler = startProfiler(request);
+        try {
+            while (true) {
+                context.awaitResume();
+                // Draining stops here, after the previous batch was written and checkpointed
+                if (checkStopRequested(context) || context.isDraining()) return;
+                List<Map<String, Object>> batch = null;
+                while (batch == null) {
+                    if (checkStopRequested(context)) return;
+                    awaitEndpoint(circuitBreakers.mongo(), request, context, totalDocs);
+                    try {
+                        List<Map<String, Object>> fetched = mongoDataFetchService.fetchBatchMatching(request.mongoDatabase(), request.mongoCollection(),
+                                BsonKeys.after(lastKey, mixedIds), plan.pipeline(), batchSize(context));
+                        referenceResolver.embed(request.mongoDatabase(), fetched, references);
+                        circuitBreakers.mongo().recordSuccess();
+                        batch = fetched;
+                        if (context.markConnectionRestored()) {
+                            sendProgressUpdate(request, (int) context.getTransferred(), (int) totalDocs, "RESUMED");
+                        }
+                    } catch (Exception ex) {
+                        circuitBreakers.mongo().recordFailure();
+                        handleConnectionLost(request, (int) context.getTransferred(), (int) totalDocs, "[ERROR] MongoDB connection lost during batch fetch.");
                     }
-                } catch (Exception ex) {
-                    handleConnectionLost(request, successCounter.get(), (int) totalDocs, "[ERROR] MongoDB connection lost during batch fetch.");
-                    waitUntilConnectionsRestored();
                 }
-            }
+                if (batch.isEmpty()) break;
+                Object batchLastKey = batch.get(batch.size() - 1).get("_id");
 
-            if (resumeMode && !foundLastId) {
-                int idx = 0;
-                for (; idx < batch.size(); idx++) {
-                    if (normalizeMongoId(batch.get(idx).get("_id")).equals(lastProcessedId)) {
-                        idx++;
-                        foundLastId = true;
-                        break;
-                    }
+                if (profiler != null) {
+                    profiler.observeAll(batch);
                 }
-                if (!foundLastId) continue;
-                batch = batch.subList(idx, batch.size());
-            }
-
-            String newLastId = null;
-            ReactiveCollection reactiveCollection = targetCollection.reactive();
-            for (Map<String, Object> document : batch) {
-                if (checkStopRequested()) return;
-                boolean upsertSuccess = false;
-                int retryCount = 0;
-                while (!upsertSuccess && retryCount <= 5) {
-                    if (paused || connectionLost) {
-                        handleConnectionLost(request, successCounter.get(), (int) totalDocs, "[WARN] Conn lost during upsert doc");
-                        waitUntilConnectionsRestored();
-                    }
-                    try {
-                        String id = normalizeMongoId(document.get("_id"));
-                        Map<String, Object> copy = new HashMap<>(document);
-                        copy.remove("_id");
-                        copy.put("mongoCollection", request.mongoCollection());
-                        DataTransformationUtil.convertMongoTypes(copy);
-                        JsonObject jsonDoc = JsonObject.from(copy);
-                        upsertWithRetry(reactiveCollection, id, jsonDoc, 3).block();
-                        newLastId = id;
-
-                        // FIX: Only increment when actual upsert success!
-                        int done = successCounter.incrementAndGet();
-                        if (done % 1000 == 0 || done == totalDocs) {
-                            sendProgressUpdate(request, done, (int) totalDocs, "IN_PROGRESS");
-                        }
-                        upsertSuccess = true;
-                    } catch (Exception e) {
-                        retryCount++;
-                        if (e instanceof MongoTimeoutException || isRetryable(e)) {
-                            paused = true;
-                            connectionLost = true;
-                            handleConnectionLost(request, successCounter.get(), (int) totalDocs, "[WARN] Conn lost doc upsert.");
-                            waitUntilConnectionsRestored();
-                        } else {
-                            logger.error("[ERROR] Non-retryable error for {}, skipping", document.get("_id"));
+
+                String newLastId = null;
+                TransferTarget target = couchbaseTarget(targetCollection);
+                for (Map<String, Object> document : batch) {
+                    if (checkStopRequested(context)) return;
+                    boolean upsertSuccess = false;
+                    int retryCount = 0;
+                    while (!upsertSuccess && retryCount <= 5) {
+                        awaitEndpoint(circuitBreakers.couchbase(), request, context, totalDocs);
+                        try {
+                            String id = normalizeMongoId(document.get("_id"));
+                            Map<String, Object> copy = prepareDocument(document, request.mongoCollection(), plan.residualRules(), binaryHandler);
+                            try {
+                                upsertWithRetry(target, circuitBreakers.couchbase(), context, id, jsonWriter.encode(copy), 3).block();
+                            } catch (UpsertFailedException e) {
+                                // Retries exhausted; the couchbase circuit decides whether the next document waits
+                                deadLetter(request, context, "write", document.get("_id"), e);
+                                context.recordFailed(1);
+                                newLastId = id;
+                                upsertSuccess = true;
+                                continue;
+                            }
+                            newLastId = id;
                             upsertSuccess = true;
-                            // Do NOT increment counter for skipped docs!
+                            if (context.markConnectionRestored()) {
+                                sendProgressUpdate(request, (int) context.getTransferred(), (int) totalDocs, "RESUMED");
+                            }
+
+                            // FIX: Only increment when actual upsert success!
+                            context.recordTransferred(1);
+                            int done = (int) context.getTransferred();
+                            if (done % 1000 == 0 || done == totalDocs) {
+                                sendProgressUpdate(request, done, (int) totalDocs, "IN_PROGRESS");
+                            }
+                        } catch (Exception e) {
+                            retryCount++;
+                            if (isRetryable(e)) {
+                                // Binary blobs are the only remote call while preparing a document
+                                circuitBreakers.couchbase().recordFailure();
+                                handleConnectionLost(request, (int) context.getTransferred(), (int) totalDocs, "[WARN] Conn lost doc upsert.");
+                                if (retryCount > 5) {
+                                    deadLetter(request, context, "transform", document.get("_id"), e, retryCount, sourcePayload(document));
+                                }
+                            } else {
+                                logger.error("[ERROR] Non-retryable error for {}, dead-lettering", document.get("_id"));
+                                deadLetter(request, context, "transform", document.get("_id"), e, retryCount, sourcePayload(document));
+                                upsertSuccess = true;
+                                // Do NOT increment counter for skipped docs!
+                            }
                         }
                     }
                 }
-            }
 
-            if (newLastId != null) {
-                Checkpoint cp = new Checkpoint(checkpointId, "DOCUMENT_TRANSFER", successCounter.get(), 0, successCounter.get(), 0, new HashSet<>(), new HashSet<>(), newLastId);
-                checkpointService.saveCheckpoint(cp);
+                lastKey = batchLastKey;
+                if (newLastId != null) {
+                    Checkpoint cp = new Checkpoint(checkpointId, "DOCUMENT_TRANSFER", (int) context.getTransferred(), 0, (int) context.getTransferred(), 0,
+                            new HashSet<>(), new HashSet<>(), newLastId, BsonKeys.encode(lastKey));
+                    checkpointService.saveCheckpoint(cp);
+                }
+            }
+        } finally {
+            if (profiler != null) {
+                fieldProfilerService.complete(request.mongoDatabase(), request.mongoCollection());
+            }
+            if (!references.isEmpty()) {
+                referenceResolver.logSummary(request.mongoDatabase() + "." + request.mongoCollection());
+            }
+            if (binaryHandler != null) {
+                binaryDedupService.logSummary(request.mongoDatabase() + "." + request.mongoCollection());
             }
         }
-        sendProgressUpdate(request, successCounter.get(), (int) totalDocs, "COMPLETED");
+        sendProgressUpdate(request, (int) context.getTransferred(), (int) totalDocs, "COMPLETED");
         checkpointService.deleteCheckpoint(checkpointId);
     }
 
+    private static Object resumeKey(Checkpoint checkpoint) {
+        if (checkpoint == null) return null;
+        if (checkpoint.getLastProcessedKey() != null) {
+            return BsonKeys.decode(checkpoint.getLastProcessedKey());
+        }
+        return BsonKeys.fromNormalizedId(checkpoint.getLastProcessedId());
+    }
+
     public void transferCollection(TransferRequest request) {
-        long startTime = System.currentTimeMillis();
-        AtomicInteger counter = new AtomicInteger(0);
-        stopRequested = false;
+        MigrationJobContext context = new MigrationJobContext(null, request.mongoDatabase() + "." + request.mongoCollection());
+        context.getThrottle().update(request.effectiveOptions().getThrottle());
+        transferCollection(request, context);
+    }
+
+    public void transferCollection(TransferRequest request, MigrationJobContext context) {
+        registerContext(context);
+        try {
+            runTransfer(request, context);
+        } finally {
+            activeContexts.remove(context.getMigrationKey(), context);
+        }
+    }
+
+    private void runTransfer(TransferRequest request, MigrationJobContext context) {
+        long startTime = context.getStartedAt();
         long totalDocs;
 
-        String migrationKey = request.mongoDatabase() + "." + request.mongoCollection();
-        insertedDuringMigration.put(migrationKey, new AtomicInteger(0));
-        deletedDuringMigration.put(migrationKey, new AtomicInteger(0));
-        currentTransferredCounts.put(migrationKey, counter);
-        migrationStartTimes.put(migrationKey, startTime);
+        String migrationKey = context.getMigrationKey();
+
+        PushdownPlan plan = planTransformations(request);
+        List<ReferenceEmbedding> references = planReferences(request);
 
         try {
-            totalDocs = executeMongoOperationWithRetry(() ->
-                    mongoDataFetchService.countDocuments(request.mongoDatabase(), request.mongoCollection()), 5);
+            totalDocs = executeMongoOperationWithRetry(context, () ->
+                    mongoDataFetchService.countDocuments(request.mongoDatabase(), request.mongoCollection(), plan.pipeline()), 5);
 
-            initialDocumentCounts.put(migrationKey, (int) totalDocs);
-            migrationCurrentTotals.put(migrationKey, new AtomicInteger((int) totalDocs));
+            context.setExpectedTotal(totalDocs);
             progressController.sendInitialCount(request.mongoDatabase(), request.mongoCollection(), (int) totalDocs);
 
         } catch (Exception e) {
-            handleConnectionLost(request, counter.get(), 0, "[ERROR] Mongo conn lost at start");
-            waitUntilConnectionsRestored();
-            totalDocs = executeMongoOperationWithRetry(() ->
-                    mongoDataFetchService.countDocuments(request.mongoDatabase(), request.mongoCollection()), 5);
+            handleConnectionLost(request, 0, 0, "[ERROR] Mongo conn lost at start");
+            awaitEndpoint(circuitBreakers.mongo(), request, context, 0);
+            totalDocs = executeMongoOperationWithRetry(context, () ->
+                    mongoDataFetchService.countDocuments(request.mongoDatabase(), request.mongoCollection(), plan.pipeline()), 5);
+            context.setExpectedTotal(totalDocs);
         }
 
         Collection targetCollection;
         try {
             targetCollection = couchbaseConnectionService.getTargetCollection(request.bucketName(), request.scopeName(), request.collectionName());
         } catch (Exception e) {
-            handleConnectionLost(request, counter.get(), 0, "[ERROR] Couch conn lost at start");
-            waitUntilConnectionsRestored();
+            handleConnectionLost(request, (int) context.getTransferred(), 0, "[ERROR] Couch conn lost at start");
+            awaitEndpoint(circuitBreakers.couchbase(), request, context, 0);
             targetCollection = couchbaseConnectionService.getTargetCollection(request.bucketName(), request.scopeName(), request.collectionName());
         }
 
+        Function<Binary, Object> binaryHandler = planBinaryDedup(request, targetCollection);
         sendProgressUpdate(request, 0, (int) totalDocs, "STARTED");
-        startChangeStream(request.mongoDatabase(), request.mongoCollection(), request.bucketName(), request.scopeName(), request.collectionName());
 
-        long numBatches = (totalDocs / BATCH_SIZE) + 1;
-        for (int batchIndex = 0; batchIndex < numBatches; batchIndex++) {
-            if (checkStopRequested()) return;
-            List<Map<String, Object>> batch = null;
-            while (batch == null) {
-                if (checkStopRequested()) return;
-                try {
-                    batch = mongoDataFetchService.fetchBatch(request.mongoDatabase(), request.mongoCollection(),
-                            batchIndex * BATCH_SIZE, BATCH_SIZE);
-                    if (connectionLost) {
-                        sendProgressUpdate(request, counter.get(), (int) totalDocs, "RESUMED");
-                        connectionLost = false;
-                        paused = false;
+        FieldProfilerService.CollectionProfiler profiler = startProfiler(request);
+        long averageDocumentSize = context.getThrottle().limitsReadBytes()
+                ? mongoDataFetchService.averageDocumentSize(request.mongoDatabase(), request.mongoCollection())
+                : 0;
+        if (context.getThrottle().limitsReadBytes() && averageDocumentSize == 0) {
+            logger.warn("[WARN] No average document size for {}, read bytes are not throttled", migrationKey);
+        }
+        TransferSetup setup = new TransferSetup(request, context, plan, references, profiler, binaryHandler,
+                mongoDataFetchService, circuitBreakers.mongo(), couchbaseTarget(targetCollection), circuitBreakers.couchbase(),
+                averageDocumentSize, totalDocs);
+
+        try {
+            if (partitionLeases.isEnabled()) {
+                runLeasedPartitions(setup);
+            } else {
+                startChangeStream(request.mongoDatabase(), request.mongoCollection(), request.bucketName(), request.scopeName(), request.collectionName());
+                runPipeline(setup, "transfer::" + migrationKey, null, null, () -> false);
+            }
+        } finally {
+            if (profiler != null) {
+                fieldProfilerService.complete(request.mongoDatabase(), request.mongoCollection());
+            }
+            if (!references.isEmpty()) {
+                referenceResolver.logSummary(request.mongoDatabase() + "." + request.mongoCollection());
+            }
+            if (binaryHandler != null) {
+                binaryDedupService.logSummary(request.mongoDatabase() + "." + request.mongoCollection());
+            }
+        }
+
+        long transferred = context.getTransferred();
+        long durationMs = System.currentTimeMillis() - startTime;
+        long speed = (transferred * 1000) / Math.max(durationMs, 1);
+        if (context.isDraining()) {
+            // Stopped by shutdown; the watermarks stay for the next run to resume from
+            sendProgressUpdate(request, (int) transferred, (int) totalDocs, "SUSPENDED");
+        } else if (!context.isCancelled()) {
+            if (!partitionLeases.isEnabled()) {
+                deleteWatermarks(request, "transfer::" + migrationKey);
+            }
+            sendCompletionUpdate(request, (int) transferred, durationMs, speed);
+        }
+    }
+
+    /**
+     * Recovery drill or calibration trial: one pipeline run over the given
+     * endpoints (in-process stand-ins with injected faults, or the real
+     * source into a scratch collection) through the same read, retry and
+     * circuit breaker handling as a real transfer. Nothing is checkpointed,
+     * dead-lettered or published as progress; failures only count on the
+     * context.
+     */
+    public void runDrill(MigrationJobContext context, TransferSource source, CircuitBreaker sourceBreaker,
+                         TransferTarget target, CircuitBreaker targetBreaker, long expectedDocs) {
+        runDrill(context, source, sourceBreaker, target, targetBreaker, expectedDocs, null, null);
+    }
+
+    // Same over the _id range [lowerBound, upperBound) only (extended JSON, null for unbounded)
+    public void runDrill(MigrationJobContext context, TransferSource source, CircuitBreaker sourceBreaker,
+                         TransferTarget target, CircuitBreaker targetBreaker, long expectedDocs,
+                         String lowerBound, String upperBound) {
+        String drillKey = context.getMigrationKey();
+        int dot = drillKey.indexOf('.');
+        TransferRequest request = new TransferRequest(drillKey.substring(0, dot), drillKey.substring(dot + 1),
+                null, null, null, List.of(), null);
+        context.setExpectedTotal(expectedDocs);
+        context.getRetryBudget().update(retryBudgetRatio, retryBudgetReserve);
+        TransferSetup setup = new TransferSetup(request, context, PushdownPlan.empty(), List.of(), null, null,
+                source, sourceBreaker, target, targetBreaker, 0, expectedDocs);
+        drills.add(drillKey);
+        try {
+            runPipeline(setup, "drill::" + drillKey, lowerBound, upperBound, () -> false);
+        } finally {
+            drills.remove(drillKey);
+            activePipelines.remove(drillKey);
+        }
+    }
+
+    // Everything a pipeline run needs that is fixed for the whole job; each endpoint with the breaker its stages wait on
+    private record TransferSetup(TransferRequest request, MigrationJobContext context, PushdownPlan plan,
+                                 List<ReferenceEmbedding> references, FieldProfilerService.CollectionProfiler profiler,
+                                 Function<Binary, Object> binaryHandler, TransferSource source, CircuitBreaker sourceBreaker,
+                                 TransferTarget target, CircuitBreaker targetBreaker,
+                                 long averageDocumentSize, long expectedDocs) {}
+
+    private TransferTarget couchbaseTarget(Collection collection) {
+        ReactiveCollection reactive = collection.reactive();
+        return (id, content) -> reactive.upsert(id, content, upsertOptions).map(MutationResult::cas);
+    }
+
+    /**
+     * Transfers the _id range [lowerBound, upperBound) (extended JSON, null
+     * for unbounded) through the staged pipeline until every read partition
+     * is exhausted, the job stops or abandon turns true. The range is split
+     * into up to max-read-parallelism partitions, each read with a keyset cursor,
+     * and a watermark checkpoint after every written batch lets a restart
+     * continue where each partition got to.
+     */
+    private void runPipeline(TransferSetup setup, String checkpointId, String lowerBound, String upperBound,
+                             BooleanSupplier abandon) {
+        TransferRequest request = setup.request();
+        MigrationJobContext context = setup.context();
+        String migrationKey = context.getMigrationKey();
+        long expectedDocs = setup.expectedDocs();
+
+        boolean mixedIds = executeMongoOperationWithRetry(context, setup.sourceBreaker(), () ->
+                setup.source().hasMixedIdTypes(request.mongoDatabase(), request.mongoCollection()), 5);
+        WatermarkCheckpoint saved = loadWatermarks(request, checkpointId);
+        List<ReadPartition> partitions;
+        long transferredBefore = 0;
+        if (saved != null) {
+            partitions = saved.getPartitions().stream().map(state -> ReadPartition.resume(state, mixedIds)).toList();
+            transferredBefore = saved.getTransferred();
+            context.recordTransferred(transferredBefore);
+            logger.info("[INFO] Resuming {} from {} partition watermarks, {} documents already written",
+                    checkpointId, partitions.size(), transferredBefore);
+        } else {
+            // Mixed _id types cannot be range-split, so they are read by a single cursor
+            List<Object> boundaries = mixedIds ? List.of() : executeMongoOperationWithRetry(context, setup.sourceBreaker(), () ->
+                    setup.source().idBoundaries(request.mongoDatabase(), request.mongoCollection(),
+                            ReadPartition.idRange(lowerBound, upperBound), readWorkers()), 5);
+            partitions = ReadPartition.split(lowerBound, upperBound, boundaries, mixedIds);
+        }
+        RunWatermarks watermarks = new RunWatermarks(checkpointId, partitions, transferredBefore);
+        if (context.getReadParallelism() == 0) {
+            context.setReadParallelism(readParallelism);
+        }
+
+        StagedPipeline<ReadTask> pipeline = StagedPipeline.<ReadTask>builder(migrationKey, pipelineQueueCapacity, migrationThreads::factory)
+                .stage("read", readWorkers(), task -> readBatch(setup, task))
+                .stage("transform", transformParallelism, batch -> {
+                    // Profiled here rather than in readBatch, so it never holds a partition lock or read slot
+                    if (setup.profiler() != null) {
+                        setup.profiler().observeAll(batch.documents());
                     }
-                } catch (Exception ex) {
-                    handleConnectionLost(request, counter.get(), (int) totalDocs, "[WARN] Mongo lost batch fetch");
-                    waitUntilConnectionsRestored();
+                    return transformBatch(request, batch, setup.plan().residualRules(), setup.binaryHandler(), context, expectedDocs);
+                })
+                .stage("encode", encodeParallelism, this::encodeBatch)
+                .stage("write", writeParallelism,
+                        batch -> writeBatch(setup.target(), setup.targetBreaker(), batch, request, context, expectedDocs))
+                .sink("checkpoint", 1,
+                        batch -> checkpointBatch(request, batch, watermarks, context, expectedDocs));
+        activePipelines.put(migrationKey, pipeline);
+
+        try {
+            // Round-robin over the partitions; a task for a partition that ran out meanwhile reads nothing
+            int turn = 0;
+            while (partitions.stream().anyMatch(partition -> !partition.isExhausted())) {
+                context.awaitResume();
+                if (checkStopRequested(context) || abandon.getAsBoolean()) {
+                    pipeline.cancel();
+                    break;
                 }
+                // Shutdown: no more reads, but what was read still drains through write and checkpoint
+                if (context.isDraining()) break;
+                ReadPartition partition = partitions.get(turn++ % partitions.size());
+                if (partition.isExhausted()) continue;
+                if (!pipeline.submit(new ReadTask(partition))) break;
             }
-            writeBatchReactiveWithPause(batch, targetCollection, counter, request, totalDocs);
+            pipeline.finish();
+            pipeline.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pipeline.cancel();
+            throw new IllegalStateException("Interrupted while transferring " + migrationKey, e);
+        } finally {
+            logger.info("[INFO] Pipeline metrics for {}: {}, retries {}, hedging {}", checkpointId, pipeline.metrics(),
+                    context.getRetryBudget().getStats(), context.hedgeStats());
         }
+    }
 
-        long durationMs = System.currentTimeMillis() - startTime;
-        long speed = (counter.get() * 1000) / Math.max(durationMs, 1);
-        if (!stopRequested) {
-            sendCompletionUpdate(request, counter.get(), durationMs, speed);
+    /**
+     * Distributed mode: publishes the job's _id partitions unless another
+     * instance already did, then claims and transfers partitions until all
+     * are done. While other workers hold the remaining ones it keeps polling,
+     * so it takes over any partition whose lease expires. Only the publishing
+     * instance runs the change stream.
+     */
+    private void runLeasedPartitions(TransferSetup setup) {
+        TransferRequest request = setup.request();
+        MigrationJobContext context = setup.context();
+        String jobKey = context.getMigrationKey();
+
+        boolean coordinator = false;
+        if (!context.isJoinOnly() && !partitionLeases.isActive(jobKey)) {
+            List<Object> boundaries = executeMongoOperationWithRetry(context, () -> mongoDataFetchService.idBoundaries(
+                    request.mongoDatabase(), request.mongoCollection(), partitionLeases.getPartitionCount()), 5);
+            coordinator = partitionLeases.publish(jobKey, request, boundaries);
+        }
+        if (coordinator) {
+            startChangeStream(request.mongoDatabase(), request.mongoCollection(), request.bucketName(), request.scopeName(), request.collectionName());
         }
 
-        insertedDuringMigration.remove(migrationKey);
-        deletedDuringMigration.remove(migrationKey);
-        initialDocumentCounts.remove(migrationKey);
-        currentTransferredCounts.remove(migrationKey);
-        migrationCurrentTotals.remove(migrationKey);
-        migrationStartTimes.remove(migrationKey);
+        while (!checkStopRequested(context) && !context.isDraining()) {
+            context.awaitResume();
+            PartitionLeaseService.Lease lease = partitionLeases.claim(jobKey);
+            if (lease != null) {
+                runPartition(setup, lease);
+                continue;
+            }
+            if (partitionLeases.isFinished(jobKey)) {
+                partitionLeases.markComplete(jobKey);
+                break;
+            }
+            try {
+                Thread.sleep(partitionLeases.getPollMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for partitions of " + jobKey, e);
+            }
+        }
     }
 
-    // FIX: Counting logic - increment the counter ONLY after actual upsert succeeded!
-    private void writeBatchReactiveWithPause(List<Map<String, Object>> docs, Collection targetCollection,
-                                             AtomicInteger counter, TransferRequest request, long totalDocs) {
-        if (checkStopRequested()) return;
-        ReactiveCollection reactiveCollection = targetCollection.reactive();
-        Function<Map<String, Object>, Mono<MutationResult>> mapper = document -> Mono.defer(() -> {
-            while (true) {
-                if (paused || connectionLost || checkStopRequested()) {
-                    handleConnectionLost(request, counter.get(), (int) totalDocs, "[WARN] Conn lost upsert");
-                    waitUntilConnectionsRestored();
-                    if (checkStopRequested()) return Mono.empty();
+    private void runPartition(TransferSetup setup, PartitionLeaseService.Lease lease) {
+        TransferRequest request = setup.request();
+        MigrationJobContext context = setup.context();
+        PartitionLease partition = lease.getPartition();
+
+        String checkpointId = "transfer::" + partition.getJobKey() + "::" + partition.getPartitionId();
+        long transferredBefore = context.getTransferred();
+        boolean finished = false;
+        try {
+            logger.info("[INFO] Worker {} transferring partition {} of {}", partitionLeases.getWorkerId(),
+                    partition.getPartitionId(), partition.getJobKey());
+            runPipeline(setup, checkpointId, partition.getLowerBound(), partition.getUpperBound(), lease::isLost);
+            finished = !context.isCancelled() && !context.isDraining() && !lease.isLost();
+        } finally {
+            if (finished && lease.complete(context.getTransferred() - transferredBefore)) {
+                deleteWatermarks(setup.request(), checkpointId);
+            } else {
+                // Stopped, drained, failed or lost: the partition goes to whichever worker claims it next
+                lease.release();
+            }
+        }
+    }
+
+    // Units of work handed between pipeline stages; one keyset page of up to BATCH_SIZE documents each
+    private record ReadTask(ReadPartition partition) {}
+
+    private record SourceBatch(ReadPartition.Page page, List<Map<String, Object>> documents) implements StagedPipeline.Sized {
+        public int size() { return documents.size(); }
+    }
+
+    private record PreparedBatch(ReadPartition.Page page, List<String> ids, List<Object> sourceIds, List<Map<String, Object>> documents)
+            implements StagedPipeline.Sized {
+        public int size() { return documents.size(); }
+    }
+
+    private record EncodedBatch(ReadPartition.Page page, List<String> ids, List<Object> sourceIds,
+                                List<JsonDocumentWriter.EncodedDocument> documents)
+            implements StagedPipeline.Sized, AutoCloseable {
+        public int size() { return documents.size(); }
+
+        @Override
+        public void close() {
+            documents.forEach(JsonDocumentWriter.EncodedDocument::close);
+        }
+    }
+
+    private record WrittenBatch(ReadPartition.Page page, List<String> writtenIds, int attempted) implements StagedPipeline.Sized {
+        public int size() { return attempted; }
+        public int written() { return writtenIds.size(); }
+    }
+
+    // Checkpoint-stage state of one pipeline run; the checkpoint sink is single-threaded
+    private static final class RunWatermarks {
+        private final String checkpointId;
+        private final List<ReadPartition> partitions;
+        private long transferred;
+
+        RunWatermarks(String checkpointId, List<ReadPartition> partitions, long transferred) {
+            this.checkpointId = checkpointId;
+            this.partitions = partitions;
+            this.transferred = transferred;
+        }
+
+        WatermarkCheckpoint complete(WrittenBatch batch) {
+            batch.page().partition().complete(batch.page());
+            transferred += batch.written();
+            return new WatermarkCheckpoint(checkpointId, transferred,
+                    partitions.stream().map(ReadPartition::snapshot).toList());
+        }
+    }
+
+    private SourceBatch readBatch(TransferSetup setup, ReadTask task) throws InterruptedException {
+        MigrationJobContext context = setup.context();
+        ReadPartition partition = task.partition();
+        // The job's live read parallelism; the stage itself runs maxReadParallelism workers
+        context.getReadSlots().acquire();
+        // One reader per partition at a time: each page starts where the previous one ended
+        try {
+            partition.readLock().lockInterruptibly();
+        } catch (InterruptedException e) {
+            context.getReadSlots().release();
+            throw e;
+        }
+        try {
+            if (partition.isExhausted()) return null;
+            List<Map<String, Object>> batch = fetchPage(setup, partition);
+            if (batch == null) return null;
+            if (batch.isEmpty()) {
+                partition.markExhausted();
+                return null;
+            }
+            return new SourceBatch(partition.advance(batch.get(batch.size() - 1).get("_id")), batch);
+        } finally {
+            partition.readLock().unlock();
+            context.getReadSlots().release();
+        }
+    }
+
+    private List<Map<String, Object>> fetchPage(TransferSetup setup, ReadPartition partition) throws InterruptedException {
+        TransferRequest request = setup.request();
+        MigrationJobContext context = setup.context();
+        CircuitBreaker breaker = setup.sourceBreaker();
+        long averageDocumentSize = setup.averageDocumentSize();
+        long totalDocs = setup.expectedDocs();
+        List<Map<String, Object>> batch = null;
+        while (batch == null) {
+            if (checkStopRequested(context) || context.isDraining()) return null;
+            int size = batchSize(context);
+            // Read bytes are estimated from the collection's average document size
+            context.getThrottle().acquireRead(size, size * averageDocumentSize);
+            // Only the read stage waits on the source circuit; downstream stages drain what they hold
+            awaitEndpoint(breaker, request, context, totalDocs);
+            concurrencyBudget.acquireRead();
+            try {
+                List<Map<String, Object>> fetched = setup.source().fetchBatchMatching(request.mongoDatabase(),
+                        request.mongoCollection(), partition.nextPageFilter(), setup.plan().pipeline(), size);
+                int unused = size - fetched.size();
+                context.getThrottle().refundRead(unused, unused * averageDocumentSize);
+                referenceResolver.embed(request.mongoDatabase(), fetched, setup.references());
+                breaker.recordSuccess();
+                batch = fetched;
+                if (context.markConnectionRestored()) {
+                    sendProgressUpdate(request, (int) context.getTransferred(), (int) totalDocs, "RESUMED");
+                }
+            } catch (Exception ex) {
+                context.getThrottle().refundRead(size, size * averageDocumentSize);
+                concurrencyBudget.releaseRead();
+                if (!isRetryable(ex)) {
+                    // e.g. a bad pushdown stage or reference lookup: it fails the same way every time, and is no outage
+                    logger.error("[ERROR] Mongo batch fetch failed for {}, not retrying: {}", context.getMigrationKey(), ex.getMessage());
+                    throw ex;
                 }
+                breaker.recordFailure();
+                logger.warn("[WARN] Mongo batch fetch failed for {}: {}", context.getMigrationKey(), ex.getMessage());
+                continue;
+            }
+            concurrencyBudget.releaseRead();
+        }
+        return batch;
+    }
+
+    private PreparedBatch transformBatch(TransferRequest request, SourceBatch batch, List<TransformationRule> residualRules,
+                                         Function<Binary, Object> binaryHandler, MigrationJobContext context, long totalDocs) {
+        List<String> ids = new ArrayList<>(batch.size());
+        List<Object> sourceIds = new ArrayList<>(batch.size());
+        List<Map<String, Object>> documents = new ArrayList<>(batch.size());
+        for (Map<String, Object> document : batch.documents()) {
+            while (true) {
+                if (checkStopRequested(context)) return null;
                 try {
-                    String id = normalizeMongoId(document.get("_id"));
-                    Map<String, Object> copy = new HashMap<>(document);
-                    copy.remove("_id");
-                    copy.put("mongoCollection", request.mongoCollection());
-                    DataTransformationUtil.convertMongoTypes(copy);
-                    JsonObject jsonDoc = JsonObject.from(copy);
-                    return upsertWithRetry(reactiveCollection, id, jsonDoc, 3)
-                        .doOnSuccess(r -> {
-                            // FIX: only increment after success!!
-                            int count = counter.incrementAndGet();
-                            if (count % 1000 == 0 || count == totalDocs) {
-                                sendProgressUpdate(request, count, (int) totalDocs, "IN_PROGRESS");
-                            }
-                        });
+                    Map<String, Object> copy = prepareDocument(document, request.mongoCollection(), residualRules, binaryHandler);
+                    ids.add(normalizeMongoId(document.get("_id")));
+                    sourceIds.add(document.get("_id"));
+                    documents.add(copy);
+                    break;
                 } catch (Exception e) {
-                    if (e instanceof MongoTimeoutException || isRetryable(e)) {
-                        paused = true;
-                        connectionLost = true;
-                        handleConnectionLost(request, counter.get(), (int) totalDocs, "[WARN] Conn lost upsert");
-                        waitUntilConnectionsRestored();
-                        if (checkStopRequested()) return Mono.empty();
+                    if (isRetryable(e)) {
+                        // Blob writes are the transform stage's only remote calls
+                        circuitBreakers.couchbase().recordFailure();
+                        logger.warn("[WARN] Couchbase call failed during transform of {}: {}", document.get("_id"), e.getMessage());
+                        awaitEndpoint(circuitBreakers.couchbase(), request, context, totalDocs);
                     } else {
-                        return Mono.empty();
+                        logger.error("[ERROR] Non-retryable error for {}, dead-lettering: {}", document.get("_id"), e.getMessage());
+                        deadLetter(request, context, "transform", document.get("_id"), e, 1, sourcePayload(document));
+                        break;
                     }
                 }
             }
-        });
-        Flux.fromIterable(docs).parallel(CONCURRENCY_LEVEL).runOn(Schedulers.boundedElastic())
-                .flatMap(mapper).sequential().blockLast();
+        }
+        return new PreparedBatch(batch.page(), ids, sourceIds, documents);
+    }
+
+    private EncodedBatch encodeBatch(PreparedBatch batch) throws IOException {
+        List<JsonDocumentWriter.EncodedDocument> encoded = new ArrayList<>(batch.size());
+        try {
+            for (Map<String, Object> document : batch.documents()) {
+                encoded.add(jsonWriter.encode(document));
+            }
+        } catch (IOException | RuntimeException e) {
+            encoded.forEach(JsonDocumentWriter.EncodedDocument::close);
+            throw e;
+        }
+        return new EncodedBatch(batch.page(), batch.ids(), batch.sourceIds(), encoded);
+    }
+
+    // Only upserts that actually succeeded are counted as written
+    private WrittenBatch writeBatch(TransferTarget target, CircuitBreaker breaker, EncodedBatch batch,
+                                    TransferRequest request, MigrationJobContext context, long totalDocs) throws InterruptedException {
+        context.awaitResume();
+        awaitEndpoint(breaker, request, context, totalDocs);
+        if (checkStopRequested(context)) {
+            batch.close();
+            return null;
+        }
+        List<String> ids = batch.ids();
+        List<JsonDocumentWriter.EncodedDocument> documents = batch.documents();
+        List<String> writtenIds = Collections.synchronizedList(new ArrayList<>(documents.size()));
+        int permits;
+        try {
+            long bytes = 0;
+            for (JsonDocumentWriter.EncodedDocument document : documents) {
+                bytes += document.size();
+            }
+            // Throttle first so a throttled job does not hold budget permits others could use
+            context.getThrottle().acquireWrite(documents.size(), bytes);
+            int concurrency = context.getWriteConcurrency() > 0 ? context.getWriteConcurrency() : writeConcurrency;
+            permits = concurrencyBudget.acquireWrite(Math.min(documents.size(), concurrency));
+        } catch (InterruptedException e) {
+            batch.close();
+            throw e;
+        }
+        try {
+            Flux.range(0, documents.size())
+                    .flatMap(i -> upsertWithRetry(target, breaker, context, ids.get(i), documents.get(i), 3)
+                                    .doOnNext(result -> writtenIds.add(ids.get(i)))
+                                    .onErrorResume(UpsertFailedException.class, e -> {
+                                        deadLetter(request, context, "write", batch.sourceIds().get(i), e);
+                                        return Mono.empty();
+                                    }),
+                            permits)
+                    .blockLast();
+        } finally {
+            concurrencyBudget.releaseWrite(permits);
+        }
+        int succeeded = writtenIds.size();
+        if (succeeded < documents.size()) {
+            // Retries exhausted for some documents; each attempt already counted on the couchbase circuit
+            context.recordFailed(documents.size() - succeeded);
+        } else if (context.markConnectionRestored()) {
+            sendProgressUpdate(request, (int) context.getTransferred(), (int) totalDocs, "RESUMED");
+        }
+        return new WrittenBatch(batch.page(), List.copyOf(writtenIds), documents.size());
+    }
+
+    private void checkpointBatch(TransferRequest request, WrittenBatch batch, RunWatermarks watermarks,
+                                 MigrationJobContext context, long totalDocs) {
+        context.recordTransferred(batch.written());
+        int done = (int) context.getTransferred();
+        int before = done - batch.written();
+        if (done / 1000 != before / 1000 || done == totalDocs) {
+            sendProgressUpdate(request, done, (int) totalDocs, "IN_PROGRESS");
+        }
+        // The watermark only passes a batch once every earlier batch of its partition is written
+        saveWatermarks(request, watermarks.complete(batch));
+    }
+
+    // Watermarks go to the target bucket or the local checkpoint log, see TargetCheckpointStore
+    private WatermarkCheckpoint loadWatermarks(TransferRequest request, String checkpointId) {
+        if (isDrill(request)) return null;
+        if (!targetCheckpoints.isEnabled()) {
+            return checkpointService.loadWatermarks(checkpointId);
+        }
+        // Fails the job rather than guess: without the checkpoint the resume point is unknown
+        return targetCheckpoints.load(request.bucketName(), request.scopeName(), checkpointId);
+    }
+
+    private void saveWatermarks(TransferRequest request, WatermarkCheckpoint checkpoint) {
+        if (isDrill(request)) return;
+        if (!targetCheckpoints.isEnabled()) {
+            checkpointService.saveWatermarks(checkpoint);
+            return;
+        }
+        try {
+            targetCheckpoints.save(request.bucketName(), request.scopeName(), checkpoint);
+        } catch (RuntimeException e) {
+            // The next batch writes a newer checkpoint; until then a resume redoes a little more
+            circuitBreakers.couchbase().recordFailure();
+            logger.warn("[WARN] Failed to write target checkpoint {}: {}", checkpoint.getCheckpointId(), e.getMessage());
+        }
+    }
+
+    private boolean isDrill(TransferRequest request) {
+        return drills.contains(request.mongoDatabase() + "." + request.mongoCollection());
+    }
+
+    private void deleteWatermarks(TransferRequest request, String checkpointId) {
+        if (isDrill(request)) return;
+        if (!targetCheckpoints.isEnabled()) {
+            checkpointService.deleteWatermarks(checkpointId);
+            return;
+        }
+        try {
+            targetCheckpoints.delete(request.bucketName(), request.scopeName(), checkpointId);
+        } catch (RuntimeException e) {
+            logger.warn("[WARN] Failed to delete target checkpoint {}: {}", checkpointId, e.getMessage());
+        }
+    }
+
+    /**
+     * Re-drives the dead letters of one migration through the read,
+     * transform, encode and write stages in parallel batches. Each document
+     * is read back from the source by its _id and prepared with the request
+     * its transfer ran with. Written documents leave the queue, documents no
+     * longer in the source (or now filtered out) are dropped, and ones that
+     * fail again stay with their attempts raised. Holds the migration's slot,
+     * so it cannot overlap a transfer of the same collection.
+     */
+    public Map<String, Object> replayDeadLetters(String migrationKey) {
+        TransferRequest request = deadLetterService.getRequest(migrationKey);
+        if (request == null) {
+            throw new IllegalArgumentException("No dead letters recorded for " + migrationKey);
+        }
+        MigrationJobContext context = new MigrationJobContext("dlq-replay", migrationKey);
+        registerContext(context);
+        String pipelineKey = "dlq::" + migrationKey;
+        List<DeadLetter> letters = deadLetterService.list(migrationKey);
+        AtomicLong written = new AtomicLong();
+        AtomicLong missing = new AtomicLong();
+        try {
+            PushdownPlan plan = pushdownPlanner.plan(request.transformations());
+            TransferOptions options = request.effectiveOptions();
+            List<ReferenceEmbedding> references = options.getEmbedReferences() != null ? options.getEmbedReferences() : List.of();
+            Collection targetCollection = couchbaseConnectionService
+                    .getTargetCollection(request.bucketName(), request.scopeName(), request.collectionName());
+            TransferTarget target = couchbaseTarget(targetCollection);
+            Function<Binary, Object> binaryHandler = options.isBinaryDedup()
+                    ? binaryDedupService.handlerFor(targetCollection.reactive(), request.mongoCollection(), options.getBinaryDedupThreshold())
+                    : null;
+
+            StagedPipeline<List<DeadLetter>> pipeline = StagedPipeline.<List<DeadLetter>>builder(pipelineKey, pipelineQueueCapacity, migrationThreads::factory)
+                    .stage("read", readParallelism,
+                            batch -> readDeadLetters(request, plan.pipeline(), references, batch, context, missing))
+                    .stage("transform", transformParallelism,
+                            batch -> transformBatch(request, batch, plan.residualRules(), binaryHandler, context, letters.size()))
+                    .stage("encode", encodeParallelism, this::encodeBatch)
+                    .stage("write", writeParallelism,
+                            batch -> writeBatch(target, circuitBreakers.couchbase(), batch, request, context, letters.size()))
+                    .sink("acknowledge", 1, batch -> {
+                        batch.writtenIds().forEach(id -> deadLetterService.remove(migrationKey, id));
+                        written.addAndGet(batch.written());
+                    });
+            activePipelines.put(pipelineKey, pipeline);
+            for (int from = 0; from < letters.size(); from += BATCH_SIZE) {
+                if (!pipeline.submit(List.copyOf(letters.subList(from, Math.min(from + BATCH_SIZE, letters.size()))))) break;
+            }
+            pipeline.finish();
+            pipeline.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying dead letters of " + migrationKey, e);
+        } finally {
+            activeContexts.remove(migrationKey, context);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("migrationKey", migrationKey);
+        summary.put("replayed", letters.size());
+        summary.put("written", written.get());
+        summary.put("missingFromSource", missing.get());
+        summary.put("remaining", deadLetterService.count(migrationKey));
+        logger.info("[INFO] Dead letter replay of {}: {}", migrationKey, summary);
+        return summary;
+    }
+
+    // Reads a batch of dead-lettered documents back from the source in one round trip
+    private SourceBatch readDeadLetters(TransferRequest request, List<Document> sourcePipeline, List<ReferenceEmbedding> references,
+                                        List<DeadLetter> letters, MigrationJobContext context, AtomicLong missing) {
+        List<Object> sourceIds = new ArrayList<>(letters.size());
+        for (DeadLetter letter : letters) {
+            sourceIds.add(letter.getSourceKey() != null
+                    ? BsonKeys.decode(letter.getSourceKey())
+                    : BsonKeys.fromNormalizedId(letter.getDocumentId()));
+        }
+        List<Document> found = executeMongoOperationWithRetry(context, () -> mongoDataFetchService.fetchDocumentsByIds(
+                request.mongoDatabase(), request.mongoCollection(), sourceIds, sourcePipeline), 5);
+        Set<String> foundIds = new HashSet<>();
+        for (Document document : found) {
+            foundIds.add(normalizeMongoId(document.get("_id")));
+        }
+        for (DeadLetter letter : letters) {
+            if (!foundIds.contains(letter.getDocumentId())) {
+                deadLetterService.remove(letter.getMigrationKey(), letter.getDocumentId());
+                missing.incrementAndGet();
+            }
+        }
+        List<Map<String, Object>> documents = new ArrayList<>(found);
+        referenceResolver.embed(request.mongoDatabase(), documents, references);
+        return new SourceBatch(null, documents);
+    }
+
+    // Batch size of the job's next read
+    private static int batchSize(MigrationJobContext context) {
+        return context.getBatchSize() > 0 ? context.getBatchSize() : BATCH_SIZE;
+    }
+
+    private int readWorkers() {
+        return Math.max(readParallelism, maxReadParallelism);
+    }
+
+    // Stage queue depth, busy time and throughput of running and last finished transfers
+    public Map<String, Object> getPipelineMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        activePipelines.forEach((key, pipeline) -> metrics.put(key, pipeline.metrics()));
+        return metrics;
     }
 
     private void processChangeEvent(ChangeStreamDocument<Document> change,
                                     String bucketName, String scopeName, String couchbaseCollectionName, String mongoCollectionName) {
-        if (checkStopRequested()) return;
         try {
             String databaseName = change.getNamespace().getDatabaseName();
             String migrationKey = databaseName + "." + mongoCollectionName;
 
             Collection target = couchbaseConnectionService.getTargetCollection(bucketName, scopeName, couchbaseCollectionName);
-            ReactiveCollection reactive = target.reactive();
 
             switch (change.getOperationType().getValue()) {
                 case "insert":
                 case "update":
                 case "replace":
                     if (change.getFullDocument() != null) {
-                        Document doc = change.getFullDocument();
+                        Map<String, Object> doc = change.getFullDocument();
+                        PushdownPlan plan = transformationPlans.getOrDefault(migrationKey, PushdownPlan.empty());
+                        if (plan.hasPipeline()) {
+                            // Run the event through the same pipeline the bulk reader used
+                            doc = mongoDataFetchService.fetchDocumentThroughPipeline(
+                                    databaseName, mongoCollectionName, doc.get("_id"), plan.pipeline());
+                            if (doc == null) {
+                                logger.info("[INFO] Change event for {} filtered out by transformation pipeline", migrationKey);
+                                break;
+                            }
+                        }
+                        List<ReferenceEmbedding> references = referenceRules.get(migrationKey);
+                        if (references != null) {
+                            referenceResolver.embedLatest(databaseName, List.of(doc), references);
+                        }
                         String id = normalizeMongoId(doc.get("_id"));
-                        Map<String, Object> map = new HashMap<>(doc);
-                        map.remove("_id");
-                        map.put("mongoCollection", mongoCollectionName);
-                        DataTransformationUtil.convertMongoTypes(map);
-                        JsonObject jsonDoc = JsonObject.from(map);
-                        upsertWithRetry(reactive, id, jsonDoc, 3).block();
-
-                        if (insertedDuringMigration.containsKey(migrationKey)) {
-                            insertedDuringMigration.get(migrationKey).incrementAndGet();
-                            int currentTransferred = currentTransferredCounts.get(migrationKey).get();
-                            int newTotal = migrationCurrentTotals.get(migrationKey).addAndGet(1);
+                        Map<String, Object> map = prepareDocument(doc, mongoCollectionName, plan.residualRules(), binaryHandlers.get(migrationKey));
+                        try {
+                            upsertWithRetry(couchbaseTarget(target), circuitBreakers.couchbase(), null, id, jsonWriter.encode(map), 3).block();
+                        } catch (UpsertFailedException e) {
+                            deadLetter(changeStreamRequest(migrationKey, bucketName, scopeName, couchbaseCollectionName),
+                                    activeContexts.get(migrationKey), "change-stream", doc.get("_id"), e);
+                            break;
+                        }
+
+                        MigrationJobContext context = activeContexts.get(migrationKey);
+                        if (context != null) {
+                            context.recordInserted();
+                            int currentTransferred = (int) context.getTransferred();
+                            int newTotal = (int) context.currentTotal();
                             progressController.updateCurrentTotal(databaseName, mongoCollectionName, newTotal);
                             progressController.sendInsertEvent(
                                     databaseName, mongoCollectionName,
@@ -639,12 +1526,26 @@ public class DataTransferService {
             }
         } catch (Exception e) {
             logger.error("[ERROR] Error processing change event: {}", e.getMessage());
+            // Failed before or outside the upsert, e.g. in a transformation; keep the event's document for replay
+            Document fullDocument = change.getFullDocument();
+            if (fullDocument != null) {
+                String migrationKey = change.getNamespace().getDatabaseName() + "." + mongoCollectionName;
+                deadLetter(changeStreamRequest(migrationKey, bucketName, scopeName, couchbaseCollectionName),
+                        activeContexts.get(migrationKey), "change-stream", fullDocument.get("_id"), e, 1, sourcePayload(fullDocument));
+            }
         }
     }
 
+    // The migration's transfer request, or one naming just the source and target when the stream runs on its own
+    private TransferRequest changeStreamRequest(String migrationKey, String bucketName, String scopeName,
+                                                String couchbaseCollectionName) {
+        int dot = migrationKey.indexOf('.');
+        return transferRequests.getOrDefault(migrationKey, new TransferRequest(migrationKey.substring(0, dot),
+                migrationKey.substring(dot + 1), bucketName, scopeName, couchbaseCollectionName, null, null));
+    }
+
     private void processDeleteEvent(ChangeStreamDocument<Document> change,
                                     String bucketName, String scopeName, String collectionName) {
-        if (checkStopRequested()) return;
         try {
             if (change.getDocumentKey() != null && change.getDocumentKey().containsKey("_id")) {
                 Object rawId = change.getDocumentKey().get("_id");
@@ -664,10 +1565,11 @@ public class DataTransferService {
                     String collection = change.getNamespace().getCollectionName();
                     String migrationKey = databaseName + "." + collection;
 
-                    if (deletedDuringMigration.containsKey(migrationKey)) {
-                        deletedDuringMigration.get(migrationKey).incrementAndGet();
-                        int currentTransferred = currentTransferredCounts.get(migrationKey).get();
-                        int newTotal = migrationCurrentTotals.get(migrationKey).addAndGet(-1);
+                    MigrationJobContext context = activeContexts.get(migrationKey);
+                    if (context != null) {
+                        context.recordDeleted();
+                        int currentTransferred = (int) context.getTransferred();
+                        int newTotal = (int) context.currentTotal();
                         progressController.updateCurrentTotal(databaseName, collection, newTotal);
                         progressController.sendDeleteEvent(
                                 databaseName, collection,
@@ -685,55 +1587,49 @@ public class DataTransferService {
         }
     }
 
-    private boolean isMongoConnected() {
-        try {
-            mongoDataFetchService.ping();
-            return true;
-        } catch (Exception e) {
-            return false;
+    /**
+     * Blocks the calling stage while the endpoint's circuit is open and wakes
+     * as soon as it closes. The job reports CONNECTION_LOST once per outage;
+     * the next successful call reports RESUMED.
+     */
+    private void awaitEndpoint(CircuitBreaker breaker, TransferRequest request, MigrationJobContext context, long totalDocs) {
+        if (breaker.getState() == CircuitBreaker.State.CLOSED) return;
+        if (!context.isConnectionLost()) {
+            context.markConnectionLost();
+            handleConnectionLost(request, (int) context.getTransferred(), (int) totalDocs,
+                    "[WARN] " + breaker.getName() + " circuit " + breaker.getState() + " for " + context.getMigrationKey());
         }
-    }
-
-    private boolean isCouchbaseConnected() {
         try {
-            couchbaseConnectionService.ping();
-            return true;
-        } catch (Exception e) {
-            return false;
+            breaker.awaitPermission(() -> checkStopRequested(context));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
-    private void waitUntilConnectionsRestored() {
-        while (!isMongoConnected() || !isCouchbaseConnected()) {
-            paused = true;
-            connectionLost = true;
-            try {
-                Thread.sleep(5000);
-            } catch (InterruptedException ignored) {
-            }
-            if (checkStopRequested()) return;
-        }
-        paused = false;
-        connectionLost = false;
-    }
-
     private void handleConnectionLost(TransferRequest req, int count, int total, String msg) {
         sendProgressUpdate(req, count, total, "CONNECTION_LOST");
         logger.warn(msg);
     }
 
-    private <T> T executeMongoOperationWithRetry(Supplier<T> op, int maxRetries) {
+    private <T> T executeMongoOperationWithRetry(MigrationJobContext context, Supplier<T> op, int maxRetries) {
+        return executeMongoOperationWithRetry(context, circuitBreakers.mongo(), op, maxRetries);
+    }
+
+    private <T> T executeMongoOperationWithRetry(MigrationJobContext context, CircuitBreaker breaker, Supplier<T> op,
+                                                 int maxRetries) {
         int attempts = 0;
         while (true) {
-            if (checkStopRequested()) throw new IllegalStateException("Stopped by user request!");
+            if (checkStopRequested(context)) throw new IllegalStateException("Stopped by user request!");
             try {
-                return op.get();
+                T result = op.get();
+                breaker.recordSuccess();
+                return result;
             } catch (MongoTimeoutException ex) {
-                paused = true;
-                connectionLost = true;
+                breaker.recordFailure();
                 throw ex;
             } catch (Exception ex) {
                 if (isRetryable(ex)) {
+                    breaker.recordFailure();
                     attempts++;
                     if (attempts > maxRetries) throw ex;
                     try {
@@ -741,42 +1637,158 @@ public class DataTransferService {
                     } catch (InterruptedException ie) {
                         Thread.currentThread().interrupt();
                     }
-                    if (checkStopRequested()) throw new IllegalStateException("Stopped by user request!");
+                    if (checkStopRequested(context)) throw new IllegalStateException("Stopped by user request!");
                 } else throw new RuntimeException(ex);
             }
         }
     }
 
-    private Mono<MutationResult> upsertWithRetry(ReactiveCollection collection, String id, JsonObject doc, int maxRetries) {
-        return Mono.defer(() -> collection.upsert(id, doc))
-                .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(500)))
-                .onErrorResume(e -> {
-                    paused = true;
-                    connectionLost = true;
-                    logger.error("[ERROR] Upsert failed for {}: {}", id, e.getMessage());
-                    return Mono.empty();
+    /**
+     * Retries transient failures with backoff. A failure that is not
+     * transient, or outlasts the retries, errors with UpsertFailedException,
+     * which carries the payload for the dead letter since the encoded
+     * document is released once this completes.
+     *
+     * With a job context, each retry is paid from the job's retry budget and
+     * a write is failed at once when the budget is spent, and attempts may be
+     * hedged. Change events pass none: they are written in order, and a slow
+     * hedged or retried upsert landing late could overwrite a newer event.
+     */
+    private Mono<Long> upsertWithRetry(TransferTarget target, CircuitBreaker breaker, MigrationJobContext context,
+                                       String id, JsonDocumentWriter.EncodedDocument doc, int maxRetries) {
+        AtomicInteger attempts = new AtomicInteger();
+        RetryBudget budget = context != null ? context.getRetryBudget() : null;
+        AtomicBoolean budgetSpent = new AtomicBoolean();
+        return Mono.defer(() -> {
+                    if (attempts.incrementAndGet() == 1 && budget != null) budget.recordRequest();
+                    return context != null ? hedgedUpsert(target, context, id, doc.content()) : target.upsert(id, doc.content());
+                })
+                .doOnSuccess(result -> breaker.recordSuccess())
+                .doOnError(e -> {
+                    if (isRetryable(e)) breaker.recordFailure();
+                })
+                .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(500)).filter(e -> {
+                    if (!isRetryable(e)) return false;
+                    if (budget == null || budget.tryAcquire()) return true;
+                    budgetSpent.set(true);
+                    return false;
+                }))
+                .onErrorMap(e -> {
+                    Throwable cause = Exceptions.isRetryExhausted(e) && e.getCause() != null ? e.getCause() : e;
+                    logger.error("[ERROR] Upsert failed for {} after {} attempts{}: {}", id, attempts.get(),
+                            budgetSpent.get() ? " (job retry budget spent)" : "", cause.getMessage());
+                    return new UpsertFailedException(id, attempts.get(), cause, deadLetterService.payloadOf(doc.content()));
+                })
+                .doFinally(signal -> doc.close());
+    }
+
+    /**
+     * One attempt of a job's upsert. A whole-document upsert is idempotent,
+     * so with hedging on, an attempt that has not answered within the job's
+     * hedge-percentile write latency gets an identical second upsert, and
+     * the first to succeed is the result. Hedges are paid from the retry
+     * budget like retries, so they stop when the target is failing rather
+     * than slow. The slower upsert is left to finish; it writes the same
+     * content.
+     */
+    private Mono<Long> hedgedUpsert(TransferTarget target, MigrationJobContext context, String id, byte[] content) {
+        Mono<Long> primary = timedUpsert(target, context, id, content);
+        long hedgeAfterNanos = hedgeEnabled ? context.getWriteLatency().percentileNanos(hedgePercentile) : -1;
+        if (hedgeAfterNanos < 0) return primary;
+        Duration hedgeAfter = Duration.ofNanos(Math.max(hedgeAfterNanos, TimeUnit.MILLISECONDS.toNanos(hedgeMinDelayMs)));
+        Mono<Long> first = primary.cache(); // keeps the first upsert running when the race below drops it
+        return Mono.firstWithSignal(first.map(Optional::of), Mono.delay(hedgeAfter).map(tick -> Optional.<Long>empty()))
+                .flatMap(answered -> {
+                    if (answered.isPresent()) return Mono.just(answered.get());
+                    if (!context.getRetryBudget().tryAcquire()) return first;
+                    context.recordHedged();
+                    Mono<Long> hedge = timedUpsert(target, context, id, content).doOnNext(cas -> context.recordHedgeWin());
+                    return Mono.firstWithValue(first, hedge)
+                            .onErrorMap(NoSuchElementException.class, e -> firstError(e));
                 });
     }
 
+    private static Mono<Long> timedUpsert(TransferTarget target, MigrationJobContext context, String id, byte[] content) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            return target.upsert(id, content)
+                    .doOnNext(cas -> context.getWriteLatency().record(System.nanoTime() - startedAt));
+        });
+    }
+
+    // Both hedged upserts failed: surface the first failure, so retry and breaker handling see a real cause
+    private static Throwable firstError(NoSuchElementException allFailed) {
+        List<Throwable> errors = allFailed.getCause() != null ? Exceptions.unwrapMultiple(allFailed.getCause()) : List.of();
+        return errors.isEmpty() ? allFailed : errors.get(0);
+    }
+
+    // An upsert given up on, with what its dead letter needs
+    private static final class UpsertFailedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int attempts;
+        private final String payload;
+
+        UpsertFailedException(String id, int attempts, Throwable cause, String payload) {
+            super("Upsert of " + id + " failed after " + attempts + " attempts", cause);
+            this.attempts = attempts;
+            this.payload = payload;
+        }
+    }
+
+    private void deadLetter(TransferRequest request, MigrationJobContext context, String stage, Object sourceId,
+                            UpsertFailedException failure) {
+        deadLetter(request, context, stage, sourceId, failure.getCause(), failure.attempts, failure.payload);
+    }
+
+    private void deadLetter(TransferRequest request, MigrationJobContext context, String stage, Object sourceId,
+                            Throwable error, int attempts, String payload) {
+        String migrationKey = request.mongoDatabase() + "." + request.mongoCollection();
+        if (drills.contains(migrationKey)) {
+            context.recordDeadLettered(1);
+            return;
+        }
+        deadLetterService.record(request, new DeadLetter(migrationKey, normalizeMongoId(sourceId), BsonKeys.encode(sourceId),
+                stage, error.getClass().getName(), error.getMessage(), attempts, payload));
+        if (context != null) {
+            context.recordDeadLettered(1);
+        }
+    }
+
+    private String sourcePayload(Map<String, Object> document) {
+        try {
+            return deadLetterService.payloadOf(new Document(document).toJson());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
     private boolean isRetryable(Throwable e) {
         return e instanceof com.couchbase.client.core.error.TimeoutException
                 || e instanceof com.couchbase.client.core.error.AmbiguousTimeoutException
                 || e instanceof com.couchbase.client.core.error.RequestCanceledException
                 || e instanceof MongoTimeoutException
+                || e instanceof MongoSocketException
                 || (e.getCause() != null && isRetryable(e.getCause()));
     }
 
     private void sendProgressUpdate(TransferRequest req, int transferred, int total, String status) {
         String migrationKey = req.mongoDatabase() + "." + req.mongoCollection();
-        int currentTotal = migrationCurrentTotals.containsKey(migrationKey) ?
-                migrationCurrentTotals.get(migrationKey).get() : total;
-        Long startTime = migrationStartTimes.get(migrationKey);
+        if (drills.contains(migrationKey)) return;
+        MigrationJobContext context = activeContexts.get(migrationKey);
+        int currentTotal = context != null ? (int) context.currentTotal() : total;
         long durationMs = 0L;
         long speed = 0L;
-        if (startTime != null && transferred > 0) {
-            durationMs = System.currentTimeMillis() - startTime;
+        if (context != null && transferred > 0) {
+            durationMs = System.currentTimeMillis() - context.getStartedAt();
             speed = (transferred * 1000) / Math.max(durationMs, 1);
         }
+        Map<String, Object> details = null;
+        if (context != null) {
+            details = new LinkedHashMap<>();
+            details.put("failed", context.getFailed());
+            details.put("deadLettered", context.getDeadLettered());
+        }
         progressController.sendProgressUpdate(
                 req.mongoDatabase(),
                 req.mongoCollection(),
@@ -786,7 +1798,7 @@ public class DataTransferService {
                 status,
                 "MIGRATION",
                 0,
-                null,
+                details,
                 durationMs,
                 speed
         );
@@ -800,7 +1812,7 @@ public class DataTransferService {
                     status,
                     "MIGRATION",
                     0,
-                    null,
+                    details,
                     durationMs,
                     null, speed
             );
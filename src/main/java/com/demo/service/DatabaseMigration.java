@@ -0,0 +1,83 @@
+package com.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A whole-database migration: the collection jobs it queued plus progress
+ * summed over all of them, so one stream covers the database instead of one
+ * per collection.
+ */
+public class DatabaseMigration {
+
+    private final String migrationId;
+    private final List<String> databases;
+    private final List<MigrationJob> jobs;
+    private final String submittedBy;
+    private final long submittedAt = System.currentTimeMillis();
+
+    public DatabaseMigration(String migrationId, List<String> databases, List<MigrationJob> jobs, String submittedBy) {
+        this.migrationId = migrationId;
+        this.databases = databases;
+        this.jobs = jobs;
+        this.submittedBy = submittedBy;
+    }
+
+    public String getMigrationId() { return migrationId; }
+    public List<String> getDatabases() { return databases; }
+    public List<MigrationJob> getJobs() { return jobs; }
+    public String getSubmittedBy() { return submittedBy; }
+    public long getSubmittedAt() { return submittedAt; }
+
+    public boolean isFinished() {
+        return jobs.stream().allMatch(job -> job.getStatus().isFinished());
+    }
+
+    // Derived from the collection jobs: active while any runs, FAILED if any failed
+    public String getStatus() {
+        if (!isFinished()) {
+            return jobs.stream().anyMatch(job -> job.getStatus() == MigrationJob.Status.RUNNING) ? "RUNNING" : "QUEUED";
+        }
+        if (jobs.stream().anyMatch(job -> job.getStatus() == MigrationJob.Status.FAILED)) return "FAILED";
+        if (jobs.stream().anyMatch(job -> job.getStatus() == MigrationJob.Status.CANCELLED)) return "CANCELLED";
+        return "COMPLETED";
+    }
+
+    public Map<String, Object> toView(boolean includeJobs) {
+        long expected = 0;
+        long transferred = 0;
+        long failed = 0;
+        long sourceBytes = 0;
+        Map<String, Integer> jobsByStatus = new LinkedHashMap<>();
+        for (MigrationJob job : jobs) {
+            MigrationJobContext context = job.getContext();
+            expected += context.currentTotal();
+            transferred += context.getTransferred();
+            failed += context.getFailed();
+            sourceBytes += Math.max(job.getSourceSizeBytes(), 0);
+            jobsByStatus.merge(job.getStatus().name(), 1, Integer::sum);
+        }
+
+        long elapsedMs = System.currentTimeMillis() - submittedAt;
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("migrationId", migrationId);
+        view.put("status", getStatus());
+        view.put("databases", databases);
+        view.put("collections", jobs.size());
+        view.put("jobsByStatus", jobsByStatus);
+        view.put("sourceSizeBytes", sourceBytes);
+        view.put("expectedTotal", expected);
+        view.put("transferred", transferred);
+        view.put("failed", failed);
+        view.put("percent", expected == 0 ? 0.0 : Math.min(100.0, transferred * 100.0 / expected));
+        view.put("elapsedMs", elapsedMs);
+        view.put("speed", transferred * 1000 / Math.max(elapsedMs, 1));
+        view.put("submittedBy", submittedBy);
+        view.put("submittedAt", submittedAt);
+        if (includeJobs) {
+            view.put("jobs", jobs.stream().map(MigrationJob::toView).toList());
+        }
+        return view;
+    }
+}
@@ -0,0 +1,193 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.demo.controller.MigrationProgressController;
+import com.demo.dto.DatabaseMapping;
+import com.demo.dto.DatabaseMigrationRequest;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Migrates entire databases as one job. Collections are discovered from the
+ * source, their target collections are created in bulk per scope, and one
+ * collection job per source collection is queued on MigrationJobManager, so
+ * they run largest-first within the shared concurrency budget. A single
+ * aggregated progress message per database migration is published on a fixed
+ * interval instead of the UI orchestrating collections one by one.
+ */
+@Service
+public class DatabaseMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseMigrationService.class);
+
+    private final MigrationJobManager jobManager;
+    private final MongoConnectionService mongoConnectionService;
+    private final CouchbaseConnectionService couchbaseConnectionService;
+    private final MigrationProgressController progressController;
+    private final ConcurrentHashMap<String, DatabaseMigration> migrations = new ConcurrentHashMap<>();
+    private final Set<String> publishing = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService publisher;
+
+    public DatabaseMigrationService(MigrationJobManager jobManager,
+                                    MongoConnectionService mongoConnectionService,
+                                    CouchbaseConnectionService couchbaseConnectionService,
+                                    MigrationProgressController progressController,
+                                    @Value("${migration.database.progress-interval-ms:2000}") long progressIntervalMs) {
+        this.jobManager = jobManager;
+        this.mongoConnectionService = mongoConnectionService;
+        this.couchbaseConnectionService = couchbaseConnectionService;
+        this.progressController = progressController;
+        this.publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "database-migration-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(100, progressIntervalMs);
+        publisher.scheduleWithFixedDelay(this::publishProgress, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public DatabaseMigration submit(DatabaseMigrationRequest request, String submittedBy) {
+        if (request == null || request.getDatabases() == null || request.getDatabases().isEmpty()) {
+            throw new IllegalArgumentException("At least one database is required");
+        }
+
+        Map<DatabaseMapping, Map<String, String>> plans = new HashMap<>();
+        for (DatabaseMapping mapping : request.getDatabases()) {
+            if (mapping.getMongoDatabase() == null || mapping.getBucketName() == null) {
+                throw new IllegalArgumentException("mongoDatabase and bucketName are required: " + mapping);
+            }
+            plans.put(mapping, planCollections(mapping));
+        }
+
+        List<DataTransferService.TransferRequest> requests = new ArrayList<>();
+        List<String> databases = new ArrayList<>();
+        for (DatabaseMapping mapping : request.getDatabases()) {
+            Map<String, String> collections = plans.get(mapping);
+            String scope = targetScope(mapping);
+            couchbaseConnectionService.ensureCollections(mapping.getBucketName(), scope, new ArrayList<>(collections.values()));
+            collections.forEach((source, target) -> requests.add(new DataTransferService.TransferRequest(
+                    mapping.getMongoDatabase(), source, mapping.getBucketName(), scope, target, null, request.getOptions())));
+            databases.add(mapping.getMongoDatabase());
+        }
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("No collections to migrate in " + databases);
+        }
+
+        List<MigrationJob> jobs = jobManager.submitAll(requests, submittedBy);
+        DatabaseMigration migration = new DatabaseMigration(UUID.randomUUID().toString(), databases, jobs, submittedBy);
+        migrations.put(migration.getMigrationId(), migration);
+        publishing.add(migration.getMigrationId());
+        logger.info("[INFO] Database migration {} queued {} collections from {}", migration.getMigrationId(), jobs.size(), databases);
+        return migration;
+    }
+
+    // Source collection -> target collection name, in source order
+    private Map<String, String> planCollections(DatabaseMapping mapping) {
+        List<String> sources = mongoConnectionService.listCollectionsInDatabase(mapping.getMongoDatabase()).stream()
+                .filter(name -> !name.startsWith("system."))
+                .filter(name -> mapping.getIncludeCollections() == null || mapping.getIncludeCollections().isEmpty()
+                        || mapping.getIncludeCollections().contains(name))
+                .filter(name -> mapping.getExcludeCollections() == null || !mapping.getExcludeCollections().contains(name))
+                .sorted()
+                .toList();
+
+        Map<String, String> plan = new LinkedHashMap<>();
+        Set<String> targets = new HashSet<>();
+        for (String source : sources) {
+            String target = toCouchbaseName(source);
+            if (!targets.add(target)) {
+                throw new IllegalArgumentException("Collections in " + mapping.getMongoDatabase()
+                        + " map to the same target collection: " + target);
+            }
+            plan.put(source, target);
+        }
+        return plan;
+    }
+
+    private String targetScope(DatabaseMapping mapping) {
+        return mapping.getScopeName() != null && !mapping.getScopeName().isBlank()
+                ? mapping.getScopeName()
+                : toCouchbaseName(mapping.getMongoDatabase());
+    }
+
+    // Couchbase names allow [A-Za-z0-9_-%], may not start with _ or %, and are at most 251 characters
+    static String toCouchbaseName(String name) {
+        String sanitized = name.replaceAll("[^A-Za-z0-9_\\-%]", "_");
+        if (sanitized.startsWith("_") || sanitized.startsWith("%")) {
+            sanitized = "c" + sanitized;
+        }
+        return sanitized.length() > 251 ? sanitized.substring(0, 251) : sanitized;
+    }
+
+    public List<DatabaseMigration> listMigrations() {
+        List<DatabaseMigration> list = new ArrayList<>(migrations.values());
+        list.sort(Comparator.comparingLong(DatabaseMigration::getSubmittedAt).reversed());
+        return list;
+    }
+
+    public DatabaseMigration getMigration(String migrationId) {
+        return migrations.get(migrationId);
+    }
+
+    public DatabaseMigration cancel(String migrationId) {
+        DatabaseMigration migration = migrations.get(migrationId);
+        if (migration == null) {
+            throw new IllegalArgumentException("Unknown database migration: " + migrationId);
+        }
+        if (migration.isFinished()) {
+            throw new IllegalStateException("Database migration " + migrationId + " already finished with status " + migration.getStatus());
+        }
+        for (MigrationJob job : migration.getJobs()) {
+            if (job.getStatus().isFinished()) continue;
+            try {
+                jobManager.cancel(job.getJobId());
+            } catch (IllegalStateException e) {
+                // Finished in the meantime
+            }
+        }
+        logger.info("[INFO] Database migration {} cancel requested", migrationId);
+        return migration;
+    }
+
+    // Publishes each active migration, and once more when it has finished
+    private void publishProgress() {
+        for (String migrationId : publishing) {
+            DatabaseMigration migration = migrations.get(migrationId);
+            if (migration == null) {
+                publishing.remove(migrationId);
+                continue;
+            }
+            try {
+                progressController.sendDatabaseProgress(migration.toView(false));
+            } catch (Exception e) {
+                logger.warn("[WARN] Failed to publish progress of database migration {}: {}", migrationId, e.getMessage());
+            }
+            if (migration.isFinished()) {
+                publishing.remove(migrationId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdownNow();
+    }
+}
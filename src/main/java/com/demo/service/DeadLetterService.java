@@ -0,0 +1,253 @@
+package com.demo.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.demo.dto.DeadLetter;
+import com.demo.util.AppendOnlyLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Documents that failed for good, kept per migration until a replay writes
+ * them or finds them gone from the source. Entries are written through to an
+ * append-only log under migration.dlq.dir, keyed by migration and document,
+ * so a document failing again replaces its entry instead of piling up. The
+ * transfer request of each migration is kept alongside, so a replay after a
+ * restart applies the same transformations. A blank directory keeps the
+ * queue in memory only.
+ *
+ * Each migration keeps at most max-entries-per-migration entries and
+ * max-payload-bytes-per-migration of payloads, so a run where most writes
+ * fail cannot fill the heap or the log. Failures beyond the entry cap are
+ * only counted; beyond the payload cap, entries are kept without payload,
+ * which a replay does not need since it reads the source again.
+ */
+@Service
+public class DeadLetterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterService.class);
+
+    private static final String ENTRY_PREFIX = "entry::";
+    private static final String REQUEST_PREFIX = "request::";
+
+    private final Map<String, DeadLetter> entries = new ConcurrentHashMap<>();
+    private final Map<String, DataTransferService.TransferRequest> requests = new ConcurrentHashMap<>();
+    private final Map<String, Usage> usage = new ConcurrentHashMap<>();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder removed = new LongAdder();
+    private final ObjectMapper objectMapper;
+    private final AppendOnlyLog log;
+    private final boolean storePayload;
+    private final int maxPayloadBytes;
+    private final int maxEntriesPerMigration;
+    private final long maxPayloadBytesPerMigration;
+
+    // What one migration holds, and the failures its caps turned away
+    private static final class Usage {
+        private final AtomicInteger entries = new AtomicInteger();
+        private final AtomicLong payloadBytes = new AtomicLong();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder payloadsDropped = new LongAdder();
+    }
+
+    public DeadLetterService(ObjectMapper objectMapper,
+                             @Value("${migration.dlq.dir:data/dlq}") String directory,
+                             @Value("${migration.dlq.log-capacity-bytes:16777216}") int capacity,
+                             @Value("${migration.dlq.flush-interval-ms:100}") long flushIntervalMs,
+                             @Value("${migration.dlq.compact-interval-ms:60000}") long compactIntervalMs,
+                             @Value("${migration.dlq.store-payload:true}") boolean storePayload,
+                             @Value("${migration.dlq.max-payload-bytes:65536}") int maxPayloadBytes,
+                             @Value("${migration.dlq.max-entries-per-migration:100000}") int maxEntriesPerMigration,
+                             @Value("${migration.dlq.max-payload-bytes-per-migration:67108864}") long maxPayloadBytesPerMigration) throws IOException {
+        this.objectMapper = objectMapper;
+        this.storePayload = storePayload;
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.maxEntriesPerMigration = maxEntriesPerMigration;
+        this.maxPayloadBytesPerMigration = maxPayloadBytesPerMigration;
+        if (directory == null || directory.isBlank()) {
+            this.log = null;
+            logger.warn("[WARN] migration.dlq.dir is blank; dead letters are lost on restart");
+            return;
+        }
+        this.log = new AppendOnlyLog(Path.of(directory, "dead-letters.log"), capacity, flushIntervalMs, compactIntervalMs);
+        for (Map.Entry<String, byte[]> entry : log.snapshot().entrySet()) {
+            try {
+                if (entry.getKey().startsWith(REQUEST_PREFIX)) {
+                    requests.put(entry.getKey().substring(REQUEST_PREFIX.length()),
+                            objectMapper.readValue(entry.getValue(), DataTransferService.TransferRequest.class));
+                } else if (entry.getKey().startsWith(ENTRY_PREFIX)) {
+                    DeadLetter letter = objectMapper.readValue(entry.getValue(), DeadLetter.class);
+                    entries.put(entry.getKey().substring(ENTRY_PREFIX.length()), letter);
+                    Usage held = usageOf(letter.getMigrationKey());
+                    held.entries.incrementAndGet();
+                    held.payloadBytes.addAndGet(payloadBytes(letter));
+                }
+            } catch (IOException e) {
+                logger.warn("[WARN] Skipping unreadable dead letter {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        logger.info("[INFO] Recovered {} dead letters", entries.size());
+    }
+
+    /**
+     * Adds or replaces the entry for the letter's document; attempts add up
+     * with the entry it replaces. request, when given, is kept as the
+     * migration's replay request. A new entry past the migration's cap is
+     * only counted.
+     */
+    public void record(DataTransferService.TransferRequest request, DeadLetter letter) {
+        String key = key(letter.getMigrationKey(), letter.getDocumentId());
+        Usage held = usageOf(letter.getMigrationKey());
+        boolean[] kept = {true};
+        entries.compute(key, (k, previous) -> {
+            if (previous != null) {
+                letter.setAttempts(previous.getAttempts() + letter.getAttempts());
+                held.payloadBytes.addAndGet(-payloadBytes(previous));
+            } else if (held.entries.incrementAndGet() > maxEntriesPerMigration) {
+                held.entries.decrementAndGet();
+                kept[0] = false;
+                return null;
+            }
+            long bytes = payloadBytes(letter);
+            if (bytes > 0 && held.payloadBytes.addAndGet(bytes) > maxPayloadBytesPerMigration) {
+                held.payloadBytes.addAndGet(-bytes);
+                held.payloadsDropped.increment();
+                letter.setPayload(null);
+            }
+            return letter;
+        });
+        if (!kept[0]) {
+            held.dropped.increment();
+            if (held.dropped.sum() == 1) {
+                logger.warn("[WARN] Dead letters of {} reached {} entries; further failures are only counted",
+                        letter.getMigrationKey(), maxEntriesPerMigration);
+            }
+            return;
+        }
+        recorded.increment();
+        // The same request object for a whole run, so this persists it once per run
+        if (request != null && requests.get(letter.getMigrationKey()) != request) {
+            requests.put(letter.getMigrationKey(), request);
+            persist(REQUEST_PREFIX + letter.getMigrationKey(), request);
+        }
+        persist(ENTRY_PREFIX + key, letter);
+        logger.warn("[WARN] Dead-lettered {} of {} at {} after {} attempts: {}", letter.getDocumentId(),
+                letter.getMigrationKey(), letter.getStage(), letter.getAttempts(), letter.getErrorMessage());
+    }
+
+    public void remove(String migrationKey, String documentId) {
+        String key = key(migrationKey, documentId);
+        DeadLetter letter = entries.remove(key);
+        if (letter == null) return;
+        Usage held = usageOf(migrationKey);
+        held.entries.decrementAndGet();
+        held.payloadBytes.addAndGet(-payloadBytes(letter));
+        removed.increment();
+        if (log == null) return;
+        try {
+            log.delete(ENTRY_PREFIX + key);
+        } catch (IOException e) {
+            logger.error("[ERROR] Failed to delete persisted dead letter {}: {}", key, e.getMessage());
+        }
+    }
+
+    // Oldest failure first
+    public List<DeadLetter> list(String migrationKey) {
+        return entries.values().stream()
+                .filter(letter -> letter.getMigrationKey().equals(migrationKey))
+                .sorted(Comparator.comparingLong(DeadLetter::getFailedAt))
+                .toList();
+    }
+
+    public long count(String migrationKey) {
+        return entries.values().stream().filter(letter -> letter.getMigrationKey().equals(migrationKey)).count();
+    }
+
+    public Map<String, Long> counts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (DeadLetter letter : entries.values()) {
+            counts.merge(letter.getMigrationKey(), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    public DataTransferService.TransferRequest getRequest(String migrationKey) {
+        return requests.get(migrationKey);
+    }
+
+    // The payload to keep for a document, or null when payloads are disabled or it is too large
+    public String payloadOf(byte[] content) {
+        if (!storePayload || content == null || content.length > maxPayloadBytes) return null;
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    public String payloadOf(String content) {
+        if (!storePayload || content == null || content.length() > maxPayloadBytes) return null;
+        return content;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("byMigration", counts());
+        stats.put("recorded", recorded.sum());
+        stats.put("removed", removed.sum());
+        Map<String, Object> overflow = new TreeMap<>();
+        usage.forEach((migrationKey, held) -> {
+            if (held.dropped.sum() > 0 || held.payloadsDropped.sum() > 0) {
+                overflow.put(migrationKey, Map.of("dropped", held.dropped.sum(), "payloadsDropped", held.payloadsDropped.sum(),
+                        "payloadBytes", held.payloadBytes.get()));
+            }
+        });
+        stats.put("overflowByMigration", overflow);
+        stats.put("persistent", log != null);
+        if (log != null) {
+            stats.put("log", log.getStats());
+        }
+        return stats;
+    }
+
+    private void persist(String key, Object value) {
+        if (log == null) return;
+        try {
+            log.put(key, objectMapper.writeValueAsBytes(value));
+        } catch (IOException e) {
+            // The in-memory entry still serves this run
+            logger.error("[ERROR] Failed to persist dead letter {}: {}", key, e.getMessage());
+        }
+    }
+
+    private Usage usageOf(String migrationKey) {
+        return usage.computeIfAbsent(migrationKey, k -> new Usage());
+    }
+
+    private static long payloadBytes(DeadLetter letter) {
+        return letter.getPayload() != null ? letter.getPayload().length() : 0;
+    }
+
+    private static String key(String migrationKey, String documentId) {
+        return migrationKey + "::" + documentId;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (log != null) log.close();
+    }
+}
@@ -0,0 +1,68 @@
+package com.demo.service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.demo.dto.PartitionManifest;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Worker side of distributed mode. Polls the lease store for jobs other
+ * instances published and queues a local job for each, which then claims
+ * partitions alongside the other workers. Joined jobs go through the local
+ * job manager, so maintenance windows, the concurrency budget and job slots
+ * apply to them as to any other job.
+ */
+@Service
+public class DistributedWorkerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedWorkerService.class);
+
+    private final PartitionLeaseService partitionLeases;
+    private final MigrationJobManager jobManager;
+    private final ScheduledExecutorService poller;
+
+    public DistributedWorkerService(PartitionLeaseService partitionLeases,
+                                    MigrationJobManager jobManager,
+                                    @Value("${migration.distributed.auto-join:true}") boolean autoJoin) {
+        this.partitionLeases = partitionLeases;
+        this.jobManager = jobManager;
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "distributed-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (partitionLeases.isEnabled() && autoJoin) {
+            long interval = partitionLeases.getPollMillis();
+            poller.scheduleWithFixedDelay(this::joinOpenJobs, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void joinOpenJobs() {
+        try {
+            for (PartitionManifest manifest : partitionLeases.listManifests()) {
+                if (manifest.isComplete() || partitionLeases.isFinished(manifest.getJobKey())) continue;
+                MigrationJob job = jobManager.join(partitionLeases.readRequest(manifest), "worker:" + partitionLeases.getWorkerId());
+                if (job != null) {
+                    logger.info("[INFO] Joined distributed job {} published by {} as local job {}",
+                            manifest.getJobKey(), manifest.getCoordinator(), job.getJobId());
+                }
+            }
+        } catch (Exception e) {
+            // The store or cluster may not be reachable yet; try again on the next poll
+            logger.warn("[WARN] Could not poll distributed jobs: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+}
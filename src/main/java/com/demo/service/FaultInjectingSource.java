@@ -0,0 +1,62 @@
+package com.demo.service;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+
+import com.demo.util.FaultSchedule;
+import com.demo.util.FaultSchedule.Fault;
+import com.mongodb.MongoSocketReadException;
+import com.mongodb.MongoSocketReadTimeoutException;
+import com.mongodb.ServerAddress;
+
+/**
+ * Puts a drill's scheduled source faults in front of a TransferSource,
+ * raising the exceptions the Mongo driver raises for them: a socket read
+ * timeout for TIMEOUT and PARTIAL, a closed socket for DISCONNECT.
+ */
+public class FaultInjectingSource implements TransferSource {
+
+    private static final ServerAddress ADDRESS = new ServerAddress("drill-source");
+
+    private final TransferSource delegate;
+    private final FaultSchedule schedule;
+
+    public FaultInjectingSource(TransferSource delegate, FaultSchedule schedule) {
+        this.delegate = delegate;
+        this.schedule = schedule;
+    }
+
+    @Override
+    public List<Map<String, Object>> fetchBatchMatching(String dbName, String collectionName,
+                                                        Document idFilter, List<Document> pipeline, int limit) {
+        inject();
+        return delegate.fetchBatchMatching(dbName, collectionName, idFilter, pipeline, limit);
+    }
+
+    @Override
+    public List<Object> idBoundaries(String dbName, String collectionName, Document idFilter, int partitions) {
+        inject();
+        return delegate.idBoundaries(dbName, collectionName, idFilter, partitions);
+    }
+
+    @Override
+    public boolean hasMixedIdTypes(String dbName, String collectionName) {
+        inject();
+        return delegate.hasMixedIdTypes(dbName, collectionName);
+    }
+
+    private void inject() {
+        Fault fault = schedule.next(FaultSchedule.Endpoint.SOURCE);
+        if (fault == null) return;
+        switch (fault.getType()) {
+            case TIMEOUT, PARTIAL -> {
+                InMemoryTransferSource.pause(fault.getLatencyMs());
+                throw new MongoSocketReadTimeoutException("Injected read timeout", ADDRESS, null);
+            }
+            case DISCONNECT -> throw new MongoSocketReadException("Injected disconnect", ADDRESS);
+            case SLOW -> InMemoryTransferSource.pause(fault.getLatencyMs());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.demo.service;
+
+import java.time.Duration;
+
+import com.couchbase.client.core.error.AmbiguousTimeoutException;
+import com.couchbase.client.core.error.RequestCanceledException;
+import com.couchbase.client.core.error.UnambiguousTimeoutException;
+import com.couchbase.client.core.msg.CancellationReason;
+import com.demo.util.FaultSchedule;
+import com.demo.util.FaultSchedule.Fault;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Puts a drill's scheduled target faults in front of a TransferTarget,
+ * failing with the exceptions the Couchbase SDK raises for them. A TIMEOUT
+ * applies the write before timing out, as an ambiguous timeout may, so the
+ * retry writes the document a second time; a PARTIAL failure times out
+ * before writing.
+ */
+public class FaultInjectingTarget implements TransferTarget {
+
+    private final TransferTarget delegate;
+    private final FaultSchedule schedule;
+
+    public FaultInjectingTarget(TransferTarget delegate, FaultSchedule schedule) {
+        this.delegate = delegate;
+        this.schedule = schedule;
+    }
+
+    @Override
+    public Mono<Long> upsert(String id, byte[] content) {
+        return Mono.defer(() -> {
+            Fault fault = schedule.next(FaultSchedule.Endpoint.TARGET);
+            if (fault == null) return delegate.upsert(id, content);
+            Duration latency = Duration.ofMillis(fault.getLatencyMs());
+            return switch (fault.getType()) {
+                case TIMEOUT -> delegate.upsert(id, content)
+                        .then(Mono.delay(latency))
+                        .then(Mono.error(new AmbiguousTimeoutException("Injected upsert timeout", null)));
+                case PARTIAL -> Mono.delay(latency)
+                        .then(Mono.error(new UnambiguousTimeoutException("Injected upsert timeout", null)));
+                case DISCONNECT -> Mono.error(new RequestCanceledException("Injected disconnect",
+                        CancellationReason.TARGET_NODE_REMOVED, null));
+                case SLOW -> Mono.delay(latency).then(delegate.upsert(id, content));
+            };
+        });
+    }
+}
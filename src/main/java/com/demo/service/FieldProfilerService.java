@@ -0,0 +1,383 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.types.Binary;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.demo.util.HyperLogLog;
+
+/**
+ * Optional in-stream profiler for the migration document path. Keeps
+ * bounded-memory sketches per field path (cardinality, null/missing ratio,
+ * type histogram, value size quantiles) so GSI indexes can be designed from
+ * real data. Reports are kept per collection once the job finishes.
+ */
+@Service
+public class FieldProfilerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FieldProfilerService.class);
+
+    private static final String DOCUMENT_PATH = "$document";
+
+    private final int maxFields;
+    private final int maxDepth;
+    private final int hllPrecision;
+    private final int shardCount;
+
+    private final ConcurrentHashMap<String, CollectionProfiler> activeProfilers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Map<String, Object>> completedProfiles = new ConcurrentHashMap<>();
+
+    public FieldProfilerService(@Value("${migration.profiler.max-fields:500}") int maxFields,
+                                @Value("${migration.profiler.max-depth:8}") int maxDepth,
+                                @Value("${migration.profiler.hll-precision:12}") int hllPrecision,
+                                @Value("${migration.profiler.shards:4}") int shardCount) {
+        this.maxFields = maxFields;
+        this.maxDepth = maxDepth;
+        this.hllPrecision = hllPrecision;
+        this.shardCount = Math.max(1, shardCount);
+    }
+
+    public CollectionProfiler start(String database, String collection, double sampleRate) {
+        String key = database + "." + collection;
+        CollectionProfiler profiler = new CollectionProfiler(database, collection, sampleRate);
+        activeProfilers.put(key, profiler);
+        completedProfiles.remove(key);
+        logger.info("[INFO] Field profiling enabled for {} (sample rate {})", key, sampleRate);
+        return profiler;
+    }
+
+    public void complete(String database, String collection) {
+        String key = database + "." + collection;
+        CollectionProfiler profiler = activeProfilers.remove(key);
+        if (profiler != null) {
+            Map<String, Object> report = profiler.report("COMPLETED");
+            completedProfiles.put(key, report);
+            logger.info("[INFO] Field profile ready for {}: {} field paths over {} sampled documents",
+                    key, ((Map<?, ?>) report.get("fields")).size(), report.get("sampledDocuments"));
+        }
+    }
+
+    /**
+     * Completed report for a collection, or a partial snapshot marked RUNNING while the job is in flight.
+     */
+    public Map<String, Object> getProfile(String database, String collection) {
+        String key = database + "." + collection;
+        Map<String, Object> completed = completedProfiles.get(key);
+        if (completed != null) {
+            return completed;
+        }
+        CollectionProfiler active = activeProfilers.get(key);
+        return active != null ? active.report("RUNNING") : null;
+    }
+
+    public List<String> listProfiledCollections() {
+        List<String> keys = new ArrayList<>(completedProfiles.keySet());
+        keys.addAll(activeProfilers.keySet());
+        return keys;
+    }
+
+    /**
+     * Sketches are sharded by worker thread, so transform workers profiling
+     * batches at the same time rarely wait on each other; report() merges the
+     * shards.
+     */
+    public class CollectionProfiler {
+        private final String database;
+        private final String collection;
+        private final long sampleEvery;
+        private final Shard[] shards;
+        private final long startedAt = System.currentTimeMillis();
+
+        private CollectionProfiler(String database, String collection, double sampleRate) {
+            this.database = database;
+            this.collection = collection;
+            double rate = sampleRate <= 0 || sampleRate > 1 ? 1.0 : sampleRate;
+            this.sampleEvery = Math.max(1, Math.round(1.0 / rate));
+            this.shards = new Shard[shardCount];
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new Shard();
+            }
+        }
+
+        public void observe(Map<String, Object> document) {
+            Shard shard = shard();
+            synchronized (shard) {
+                shard.observe(document);
+            }
+        }
+
+        public void observeAll(List<Map<String, Object>> documents) {
+            Shard shard = shard();
+            synchronized (shard) {
+                for (Map<String, Object> document : documents) {
+                    shard.observe(document);
+                }
+            }
+        }
+
+        private Shard shard() {
+            return shards[(int) (Thread.currentThread().getId() % shards.length)];
+        }
+
+        public Map<String, Object> report(String status) {
+            long seenDocuments = 0;
+            long sampledDocuments = 0;
+            long droppedFieldPaths = 0;
+            long profilingNanos = 0;
+            Map<String, FieldStats> fields = new TreeMap<>();
+            for (Shard shard : shards) {
+                synchronized (shard) {
+                    seenDocuments += shard.seenDocuments;
+                    sampledDocuments += shard.sampledDocuments;
+                    droppedFieldPaths += shard.droppedFieldPaths;
+                    profilingNanos += shard.profilingNanos;
+                    for (Map.Entry<String, FieldStats> entry : shard.fields.entrySet()) {
+                        FieldStats merged = fields.get(entry.getKey());
+                        if (merged == null) {
+                            // Each shard kept within the budget, but their union may not
+                            if (fields.size() >= maxFields) {
+                                droppedFieldPaths += entry.getValue().present;
+                                continue;
+                            }
+                            merged = new FieldStats(hllPrecision);
+                            fields.put(entry.getKey(), merged);
+                        }
+                        merged.merge(entry.getValue());
+                    }
+                }
+            }
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("database", database);
+            report.put("collection", collection);
+            report.put("status", status);
+            report.put("seenDocuments", seenDocuments);
+            report.put("sampledDocuments", sampledDocuments);
+            report.put("sampleEvery", sampleEvery);
+            report.put("droppedFieldPaths", droppedFieldPaths);
+            report.put("profilingMs", profilingNanos / 1_000_000);
+            report.put("elapsedMs", System.currentTimeMillis() - startedAt);
+
+            Map<String, Object> fieldReports = new TreeMap<>();
+            for (Map.Entry<String, FieldStats> entry : fields.entrySet()) {
+                fieldReports.put(entry.getKey(), entry.getValue().report(sampledDocuments));
+            }
+            report.put("fields", fieldReports);
+            return report;
+        }
+
+        // Guarded by its own monitor
+        private final class Shard {
+            private final Map<String, FieldStats> fields = new HashMap<>();
+            private long seenDocuments;
+            private long sampledDocuments;
+            private long droppedFieldPaths;
+            private long profilingNanos;
+
+            private void observe(Map<String, Object> document) {
+                if (document == null || seenDocuments++ % sampleEvery != 0) {
+                    return;
+                }
+                long start = System.nanoTime();
+                sampledDocuments++;
+                long size = observeFields(document, "", 0);
+                FieldStats documentStats = stats(DOCUMENT_PATH);
+                if (documentStats != null) {
+                    documentStats.record("object", size, 0L);
+                }
+                profilingNanos += System.nanoTime() - start;
+            }
+
+            // Returns the approximate encoded size of the container so parents can record it
+            private long observeFields(Map<?, ?> document, String prefix, int depth) {
+                long total = 0;
+                for (Map.Entry<?, ?> entry : document.entrySet()) {
+                    String path = prefix.isEmpty() ? String.valueOf(entry.getKey()) : prefix + "." + entry.getKey();
+                    total += observeValue(path, entry.getValue(), depth) + path.length();
+                }
+                return total;
+            }
+
+            private long observeValue(String path, Object value, int depth) {
+                FieldStats stats = stats(path);
+                long size;
+                long hash;
+                String type;
+
+                if (value == null) {
+                    if (stats != null) stats.recordNull();
+                    return 1;
+                } else if (value instanceof Map) {
+                    type = "object";
+                    size = depth < maxDepth ? observeFields((Map<?, ?>) value, path, depth + 1) : 0;
+                    hash = 0;
+                } else if (value instanceof List) {
+                    type = "array";
+                    size = 0;
+                    String elementPath = path + "[]";
+                    for (Object element : (List<?>) value) {
+                        size += depth < maxDepth ? observeValue(elementPath, element, depth + 1) : 0;
+                    }
+                    hash = HyperLogLog.hash(((List<?>) value).size());
+                } else if (value instanceof String) {
+                    type = "string";
+                    size = ((String) value).length();
+                    hash = HyperLogLog.hash((String) value);
+                } else if (value instanceof Integer || value instanceof Long) {
+                    type = value instanceof Integer ? "int" : "long";
+                    size = value instanceof Integer ? 4 : 8;
+                    hash = HyperLogLog.hash(((Number) value).longValue());
+                } else if (value instanceof Double) {
+                    type = "double";
+                    size = 8;
+                    hash = HyperLogLog.hash(Double.doubleToLongBits((Double) value));
+                } else if (value instanceof Boolean) {
+                    type = "bool";
+                    size = 1;
+                    hash = HyperLogLog.hash((Boolean) value ? 1L : 2L);
+                } else if (value instanceof Date) {
+                    type = "date";
+                    size = 8;
+                    hash = HyperLogLog.hash(((Date) value).getTime());
+                } else if (value instanceof ObjectId) {
+                    type = "objectId";
+                    size = 12;
+                    hash = HyperLogLog.hash(((ObjectId) value).toHexString());
+                } else if (value instanceof Binary) {
+                    type = "binData";
+                    size = ((Binary) value).length();
+                    hash = HyperLogLog.hash(Arrays.hashCode(((Binary) value).getData()));
+                } else if (value instanceof Decimal128) {
+                    type = "decimal";
+                    size = 16;
+                    hash = HyperLogLog.hash(value.toString());
+                } else {
+                    type = value.getClass().getSimpleName();
+                    String text = value.toString();
+                    size = text.length();
+                    hash = HyperLogLog.hash(text);
+                }
+
+                if (stats != null) {
+                    stats.record(type, size, hash);
+                }
+                return size;
+            }
+
+            // Null once the field budget is spent; the path is then only counted as dropped
+            private FieldStats stats(String path) {
+                FieldStats stats = fields.get(path);
+                if (stats == null) {
+                    if (fields.size() >= maxFields) {
+                        droppedFieldPaths++;
+                        return null;
+                    }
+                    stats = new FieldStats(hllPrecision);
+                    fields.put(path, stats);
+                }
+                return stats;
+            }
+        }
+    }
+
+    private static class FieldStats {
+        private static final int SIZE_BUCKETS = 4 * 64;
+
+        private final HyperLogLog cardinality;
+        private final Map<String, Long> types = new HashMap<>(4);
+        private final long[] sizeHistogram = new long[SIZE_BUCKETS];
+        private long present;
+        private long nulls;
+        private long maxSize;
+
+        FieldStats(int hllPrecision) {
+            this.cardinality = new HyperLogLog(hllPrecision);
+        }
+
+        void recordNull() {
+            present++;
+            nulls++;
+            types.merge("null", 1L, Long::sum);
+        }
+
+        void merge(FieldStats other) {
+            cardinality.merge(other.cardinality);
+            other.types.forEach((type, count) -> types.merge(type, count, Long::sum));
+            for (int i = 0; i < SIZE_BUCKETS; i++) {
+                sizeHistogram[i] += other.sizeHistogram[i];
+            }
+            present += other.present;
+            nulls += other.nulls;
+            if (other.maxSize > maxSize) maxSize = other.maxSize;
+        }
+
+        void record(String type, long size, long hash) {
+            present++;
+            types.merge(type, 1L, Long::sum);
+            if (hash != 0) {
+                cardinality.addHash(hash);
+            }
+            sizeHistogram[bucket(size)]++;
+            if (size > maxSize) maxSize = size;
+        }
+
+        Map<String, Object> report(long sampledDocuments) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            long nonNull = present - nulls;
+            report.put("present", present);
+            report.put("nullRatio", present == 0 ? 0.0 : (double) nulls / present);
+            report.put("missingRatio", sampledDocuments == 0 ? 0.0
+                    : Math.max(0.0, (double) (sampledDocuments - present) / sampledDocuments));
+            report.put("cardinality", cardinality.estimate());
+            report.put("types", new TreeMap<>(types));
+            report.put("sizeP50", quantile(nonNull, 0.50));
+            report.put("sizeP90", quantile(nonNull, 0.90));
+            report.put("sizeP99", quantile(nonNull, 0.99));
+            report.put("sizeMax", maxSize);
+            return report;
+        }
+
+        private long quantile(long count, double q) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < SIZE_BUCKETS; i++) {
+                seen += sizeHistogram[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), maxSize);
+                }
+            }
+            return maxSize;
+        }
+
+        // Log-linear buckets: four sub-buckets per power of two, exact below 4
+        private static int bucket(long size) {
+            if (size < 4) return (int) Math.max(0, size);
+            int exponent = 63 - Long.numberOfLeadingZeros(size);
+            int sub = (int) ((size >>> (exponent - 2)) & 3);
+            return Math.min(SIZE_BUCKETS - 1, exponent * 4 + sub);
+        }
+
+        private static long upperBound(int bucket) {
+            if (bucket < 8) return bucket;
+            int exponent = bucket / 4;
+            int sub = bucket % 4;
+            long step = 1L << (exponent - 2);
+            return ((4L + sub) << (exponent - 2)) + step - 1;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.demo.dto.PartitionLease;
+import com.demo.dto.PartitionManifest;
+
+/**
+ * Lease store local to this JVM. Several worker threads of one instance can
+ * share a job through it; it is the default and is used for tests.
+ */
+@Service
+@ConditionalOnProperty(name = "migration.distributed.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryPartitionLeaseStore implements PartitionLeaseStore {
+
+    private final Map<String, PartitionManifest> manifests = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, PartitionLease>> partitions = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized boolean publish(PartitionManifest manifest, List<PartitionLease> newPartitions) {
+        PartitionManifest existing = manifests.get(manifest.getJobKey());
+        if (existing != null && !existing.isComplete()) {
+            return false;
+        }
+        Map<Integer, PartitionLease> leases = new ConcurrentHashMap<>();
+        for (PartitionLease lease : newPartitions) {
+            PartitionLease stored = lease.copy();
+            stored.setVersion(1);
+            leases.put(stored.getPartitionId(), stored);
+        }
+        partitions.put(manifest.getJobKey(), leases);
+        PartitionManifest stored = copy(manifest);
+        stored.setVersion(existing != null ? existing.getVersion() + 1 : 1);
+        manifests.put(manifest.getJobKey(), stored);
+        return true;
+    }
+
+    @Override
+    public PartitionManifest getManifest(String jobKey) {
+        PartitionManifest manifest = manifests.get(jobKey);
+        return manifest != null ? copy(manifest) : null;
+    }
+
+    @Override
+    public List<PartitionManifest> listManifests() {
+        List<PartitionManifest> list = new ArrayList<>();
+        manifests.values().forEach(manifest -> list.add(copy(manifest)));
+        return list;
+    }
+
+    @Override
+    public List<PartitionLease> getPartitions(String jobKey) {
+        Map<Integer, PartitionLease> leases = partitions.get(jobKey);
+        if (leases == null) return List.of();
+        List<PartitionLease> list = new ArrayList<>();
+        synchronized (this) {
+            leases.values().forEach(lease -> list.add(lease.copy()));
+        }
+        list.sort(Comparator.comparingInt(PartitionLease::getPartitionId));
+        return list;
+    }
+
+    @Override
+    public synchronized PartitionLease compareAndSet(PartitionLease expected, PartitionLease updated) {
+        Map<Integer, PartitionLease> leases = partitions.get(expected.getJobKey());
+        PartitionLease current = leases != null ? leases.get(expected.getPartitionId()) : null;
+        if (current == null || current.getVersion() != expected.getVersion()) {
+            return null;
+        }
+        PartitionLease stored = updated.copy();
+        stored.setVersion(current.getVersion() + 1);
+        leases.put(stored.getPartitionId(), stored);
+        return stored.copy();
+    }
+
+    @Override
+    public synchronized void markComplete(String jobKey) {
+        PartitionManifest manifest = manifests.get(jobKey);
+        if (manifest != null) {
+            manifest.setComplete(true);
+            manifest.setVersion(manifest.getVersion() + 1);
+        }
+    }
+
+    private static PartitionManifest copy(PartitionManifest manifest) {
+        PartitionManifest copy = new PartitionManifest(manifest.getJobKey(), manifest.getRequest(),
+                manifest.getPartitionCount(), manifest.getCoordinator());
+        copy.setPublishedAt(manifest.getPublishedAt());
+        copy.setComplete(manifest.isComplete());
+        copy.setVersion(manifest.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,145 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.Document;
+
+/**
+ * Recovery drill stand-in for the Mongo source: documents with integer _id
+ * 0..documents-1, generated on read. Understands the _id range and $nor
+ * filters of non-mixed keyset pages, which is all a drill run sends. Counts
+ * documents served and how many of them were served before, i.e. re-read.
+ */
+public class InMemoryTransferSource implements TransferSource {
+
+    private final int documents;
+    private final String payload;
+    private final long pageLatencyMs;
+    private final LongAdder served = new LongAdder();
+    private final BitSet seen = new BitSet();
+    private long unique; // guarded by seen
+
+    public InMemoryTransferSource(int documents, int documentBytes, long pageLatencyMs) {
+        this.documents = documents;
+        this.payload = "x".repeat(Math.max(documentBytes, 0));
+        this.pageLatencyMs = pageLatencyMs;
+    }
+
+    @Override
+    public List<Map<String, Object>> fetchBatchMatching(String dbName, String collectionName,
+                                                        Document idFilter, List<Document> pipeline, int limit) {
+        pause(pageLatencyMs);
+        long[] range = range(idFilter);
+        List<long[]> skipped = skipped(idFilter);
+        List<Map<String, Object>> page = new ArrayList<>(Math.min(limit, documents));
+        for (long id = range[0]; id < range[1] && page.size() < limit; id++) {
+            if (isSkipped(id, skipped)) continue;
+            page.add(new Document("_id", (int) id)
+                    .append("seq", id)
+                    .append("name", "drill-" + id)
+                    .append("payload", payload));
+        }
+        recordServed(page);
+        return page;
+    }
+
+    @Override
+    public List<Object> idBoundaries(String dbName, String collectionName, Document idFilter, int partitions) {
+        long[] range = range(idFilter);
+        long size = range[1] - range[0];
+        if (partitions < 2 || size < partitions) return List.of();
+        List<Object> boundaries = new ArrayList<>();
+        for (int i = 1; i < partitions; i++) {
+            boundaries.add((int) (range[0] + size * i / partitions));
+        }
+        return boundaries;
+    }
+
+    @Override
+    public boolean hasMixedIdTypes(String dbName, String collectionName) {
+        return false;
+    }
+
+    public long getServed() {
+        return served.sum();
+    }
+
+    public long getUniqueServed() {
+        synchronized (seen) {
+            return unique;
+        }
+    }
+
+    // [from, to) of the _id condition
+    private long[] range(Document filter) {
+        long from = 0;
+        long to = documents;
+        for (String key : filter.keySet()) {
+            if (!key.equals("_id") && !key.equals("$nor")) {
+                throw new IllegalArgumentException("In-memory source does not support filter " + key);
+            }
+        }
+        Document id = filter.get("_id", Document.class);
+        if (id != null) {
+            if (id.containsKey("$gte")) from = Math.max(from, number(id.get("$gte")));
+            if (id.containsKey("$gt")) from = Math.max(from, number(id.get("$gt")) + 1);
+            if (id.containsKey("$lt")) to = Math.min(to, number(id.get("$lt")));
+        }
+        return new long[] {from, to};
+    }
+
+    // (after, last] ranges excluded by $nor; after is -1 when open
+    @SuppressWarnings("unchecked")
+    private static List<long[]> skipped(Document filter) {
+        List<long[]> ranges = new ArrayList<>();
+        List<Document> nor = (List<Document>) filter.get("$nor");
+        if (nor == null) return ranges;
+        for (Document condition : nor) {
+            Document id = condition.get("_id", Document.class);
+            long after = id.containsKey("$gt") ? number(id.get("$gt")) : -1;
+            ranges.add(new long[] {after, number(id.get("$lte"))});
+        }
+        return ranges;
+    }
+
+    private static boolean isSkipped(long id, List<long[]> skipped) {
+        for (long[] range : skipped) {
+            if (id > range[0] && id <= range[1]) return true;
+        }
+        return false;
+    }
+
+    private static long number(Object value) {
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException("In-memory source only has numeric _id values, got " + value);
+        }
+        return ((Number) value).longValue();
+    }
+
+    private void recordServed(List<Map<String, Object>> page) {
+        served.add(page.size());
+        synchronized (seen) {
+            for (Map<String, Object> document : page) {
+                int id = (Integer) document.get("_id");
+                if (!seen.get(id)) {
+                    seen.set(id);
+                    unique++;
+                }
+            }
+        }
+    }
+
+    static void pause(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted in drill stand-in", e);
+        }
+    }
+}
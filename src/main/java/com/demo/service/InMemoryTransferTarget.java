@@ -0,0 +1,44 @@
+package com.demo.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Recovery drill stand-in for the Couchbase collection. Keeps only which
+ * keys were written, not the content, and counts writes applied, so writes
+ * beyond one per key are the documents a recovery wrote twice.
+ */
+public class InMemoryTransferTarget implements TransferTarget {
+
+    private final Duration latency;
+    private final Map<String, Boolean> keys = new ConcurrentHashMap<>();
+    private final LongAdder applied = new LongAdder();
+    private final AtomicLong cas = new AtomicLong();
+
+    public InMemoryTransferTarget(long latencyMs) {
+        this.latency = latencyMs > 0 ? Duration.ofMillis(latencyMs) : null;
+    }
+
+    @Override
+    public Mono<Long> upsert(String id, byte[] content) {
+        Mono<Long> write = Mono.fromCallable(() -> {
+            keys.put(id, Boolean.TRUE);
+            applied.increment();
+            return cas.incrementAndGet();
+        });
+        return latency != null ? Mono.delay(latency).then(write) : write;
+    }
+
+    public long getApplied() {
+        return applied.sum();
+    }
+
+    public long getUniqueWritten() {
+        return keys.size();
+    }
+}
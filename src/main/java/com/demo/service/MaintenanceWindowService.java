@@ -0,0 +1,189 @@
+package com.demo.service;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import com.demo.dto.MaintenanceWindow;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Applies maintenance windows to the job runner. On every tick the most
+ * restrictive open window decides the mode: PAUSE holds all jobs at their
+ * next batch boundary (queued jobs wait to start), THROTTLE scales the global
+ * concurrency budget to the window's percentage, RUN releases everything.
+ * Outside all windows the default mode applies, so a default of PAUSE with
+ * an overnight RUN window only migrates overnight.
+ *
+ * Windows come from migration.windows.schedule, entries separated by '|'
+ * and written as name;cron;durationMinutes;mode;percent, and can be replaced
+ * through the API.
+ */
+@Service
+public class MaintenanceWindowService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MaintenanceWindowService.class);
+
+    public enum Mode { RUN, THROTTLE, PAUSE }
+
+    private record CompiledWindow(MaintenanceWindow window, CronExpression cron, Mode mode) {}
+
+    private final MigrationJobManager jobManager;
+    private final TransferConcurrencyBudget concurrencyBudget;
+    private final ZoneId zone;
+    private final MaintenanceWindow defaultWindow;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile List<CompiledWindow> windows = List.of();
+    private volatile MaintenanceWindow activeWindow;
+
+    public MaintenanceWindowService(MigrationJobManager jobManager,
+                                    TransferConcurrencyBudget concurrencyBudget,
+                                    @Value("${migration.windows.schedule:}") String schedule,
+                                    @Value("${migration.windows.default-mode:RUN}") String defaultMode,
+                                    @Value("${migration.windows.default-percent:100}") int defaultPercent,
+                                    @Value("${migration.windows.zone:}") String zone,
+                                    @Value("${migration.windows.check-interval-ms:30000}") long checkIntervalMs) {
+        this.jobManager = jobManager;
+        this.concurrencyBudget = concurrencyBudget;
+        this.zone = zone == null || zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone);
+        this.defaultWindow = new MaintenanceWindow("default", null, 0, defaultMode, defaultPercent);
+        parseMode(defaultWindow);
+        setWindows(parseSchedule(schedule));
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "maintenance-windows");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000, checkIntervalMs);
+        scheduler.scheduleWithFixedDelay(this::applySafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static List<MaintenanceWindow> parseSchedule(String schedule) {
+        List<MaintenanceWindow> parsed = new ArrayList<>();
+        if (schedule == null || schedule.isBlank()) return parsed;
+        for (String entry : schedule.split("\\|")) {
+            String[] parts = entry.trim().split(";");
+            if (parts.length < 4) {
+                throw new IllegalArgumentException("Window must be name;cron;durationMinutes;mode[;percent]: " + entry);
+            }
+            int percent = parts.length > 4 ? Integer.parseInt(parts[4].trim()) : 100;
+            parsed.add(new MaintenanceWindow(parts[0].trim(), parts[1].trim(), Long.parseLong(parts[2].trim()),
+                    parts[3].trim(), percent));
+        }
+        return parsed;
+    }
+
+    private static Mode parseMode(MaintenanceWindow window) {
+        Mode mode;
+        try {
+            mode = Mode.valueOf(String.valueOf(window.getMode()).trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Window mode must be RUN, THROTTLE or PAUSE: " + window);
+        }
+        if (mode == Mode.THROTTLE && (window.getPercent() < 1 || window.getPercent() > 100)) {
+            throw new IllegalArgumentException("Throttle percent must be between 1 and 100: " + window);
+        }
+        return mode;
+    }
+
+    /**
+     * Validates and replaces all windows, then applies the resulting mode at once.
+     */
+    public synchronized void setWindows(List<MaintenanceWindow> newWindows) {
+        List<CompiledWindow> compiled = new ArrayList<>();
+        if (newWindows != null) {
+            for (MaintenanceWindow window : newWindows) {
+                if (window.getCron() == null || !CronExpression.isValidExpression(window.getCron())) {
+                    throw new IllegalArgumentException("Invalid cron expression in window: " + window);
+                }
+                if (window.getDurationMinutes() <= 0) {
+                    throw new IllegalArgumentException("Window duration must be positive: " + window);
+                }
+                compiled.add(new CompiledWindow(window, CronExpression.parse(window.getCron()), parseMode(window)));
+            }
+        }
+        this.windows = compiled;
+        logger.info("[INFO] {} maintenance windows configured", compiled.size());
+        apply();
+    }
+
+    public List<MaintenanceWindow> getWindows() {
+        return windows.stream().map(CompiledWindow::window).toList();
+    }
+
+    private void applySafely() {
+        try {
+            apply();
+        } catch (Exception e) {
+            logger.error("[ERROR] Failed to apply maintenance windows: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void apply() {
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        MaintenanceWindow selected = defaultWindow;
+        Mode selectedMode = parseMode(defaultWindow);
+        boolean windowOpen = false;
+        for (CompiledWindow window : windows) {
+            if (!isOpen(window, now)) continue;
+            if (!windowOpen || moreRestrictive(window.mode(), window.window().getPercent(), selectedMode, selected.getPercent())) {
+                selected = window.window();
+                selectedMode = window.mode();
+                windowOpen = true;
+            }
+        }
+
+        int percent = selectedMode == Mode.THROTTLE ? selected.getPercent() : 100;
+        boolean hold = selectedMode == Mode.PAUSE;
+        if (selected != activeWindow || concurrencyBudget.getScalePercent() != percent || jobManager.isHeld() != hold) {
+            logger.info("[INFO] Maintenance window '{}' active: mode {}, budget {}%", selected.getName(), selectedMode, percent);
+        }
+        activeWindow = selected;
+        concurrencyBudget.scale(percent);
+        jobManager.setHeld(hold);
+    }
+
+    // Open when a start time falls within the last durationMinutes
+    private static boolean isOpen(CompiledWindow window, ZonedDateTime now) {
+        ZonedDateTime lastPossibleStart = now.minusMinutes(window.window().getDurationMinutes());
+        ZonedDateTime start = window.cron().next(lastPossibleStart);
+        return start != null && !start.isAfter(now);
+    }
+
+    private static boolean moreRestrictive(Mode mode, int percent, Mode than, int thanPercent) {
+        if (mode != than) return mode.ordinal() > than.ordinal();
+        return mode == Mode.THROTTLE && percent < thanPercent;
+    }
+
+    public Map<String, Object> getState() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        MaintenanceWindow active = activeWindow;
+        state.put("activeWindow", active != null ? active.getName() : null);
+        state.put("mode", active != null ? active.getMode() : null);
+        state.put("budgetPercent", concurrencyBudget.getScalePercent());
+        state.put("jobsHeld", jobManager.isHeld());
+        state.put("zone", zone.getId());
+        state.put("windows", getWindows());
+        return state;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
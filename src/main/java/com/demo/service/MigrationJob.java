@@ -0,0 +1,120 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * One submitted collection transfer and its lifecycle. Held by
+ * MigrationJobManager so job state outlives the HTTP request that created it.
+ */
+public class MigrationJob {
+
+    public enum Status {
+        QUEUED, RUNNING, PAUSED, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private static final int MAX_EVENTS = 100;
+
+    private final String jobId;
+    private final DataTransferService.TransferRequest request;
+    private final String submittedBy;
+    private final long submittedAt = System.currentTimeMillis();
+    private volatile Status status = Status.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String error;
+    private final long sourceSizeBytes;
+    private final MigrationJobContext context;
+    private final Deque<Event> events = new ConcurrentLinkedDeque<>();
+
+    // Something that happened to the job, for its history
+    public record Event(long at, String type, String detail) {}
+
+    public MigrationJob(String jobId, DataTransferService.TransferRequest request, String submittedBy, long sourceSizeBytes) {
+        this.jobId = jobId;
+        this.request = request;
+        this.submittedBy = submittedBy;
+        this.sourceSizeBytes = sourceSizeBytes;
+        this.context = new MigrationJobContext(jobId, request.mongoDatabase() + "." + request.mongoCollection());
+        this.context.getThrottle().update(request.effectiveOptions().getThrottle());
+        recordEvent("SUBMITTED", "by " + submittedBy);
+    }
+
+    public String getJobId() { return jobId; }
+    public DataTransferService.TransferRequest getRequest() { return request; }
+    public String getSubmittedBy() { return submittedBy; }
+    public long getSubmittedAt() { return submittedAt; }
+    public Status getStatus() { return status; }
+    public long getStartedAt() { return startedAt; }
+    public long getFinishedAt() { return finishedAt; }
+    public String getError() { return error; }
+    public long getSourceSizeBytes() { return sourceSizeBytes; }
+    public MigrationJobContext getContext() { return context; }
+    public boolean isCancelRequested() { return context.isCancelled(); }
+
+    void setStatus(Status status) { this.status = status; }
+
+    void markStarted() {
+        this.startedAt = System.currentTimeMillis();
+        this.status = Status.RUNNING;
+        recordEvent("STARTED", null);
+    }
+
+    void markFinished(Status status, String error) {
+        this.finishedAt = System.currentTimeMillis();
+        this.error = error;
+        this.status = status;
+        recordEvent(status.name(), error);
+    }
+
+    // Keeps the newest MAX_EVENTS
+    void recordEvent(String type, String detail) {
+        events.addLast(new Event(System.currentTimeMillis(), type, detail));
+        while (events.size() > MAX_EVENTS) {
+            events.pollFirst();
+        }
+    }
+
+    public List<Event> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public Map<String, Object> toView() {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("jobId", jobId);
+        view.put("status", status.name());
+        view.put("mongoDatabase", request.mongoDatabase());
+        view.put("mongoCollection", request.mongoCollection());
+        view.put("bucketName", request.bucketName());
+        view.put("scopeName", request.scopeName());
+        view.put("collectionName", request.collectionName());
+        view.put("sourceSizeBytes", sourceSizeBytes);
+        view.put("submittedBy", submittedBy);
+        view.put("submittedAt", submittedAt);
+        view.put("startedAt", startedAt == 0 ? null : startedAt);
+        view.put("finishedAt", finishedAt == 0 ? null : finishedAt);
+        long end = finishedAt != 0 ? finishedAt : System.currentTimeMillis();
+        view.put("durationMs", startedAt == 0 ? 0 : end - startedAt);
+        view.put("error", error);
+        view.put("progress", context.snapshot());
+        view.put("events", getEvents());
+        return view;
+    }
+
+    @Override
+    public String toString() {
+        return "MigrationJob{" +
+                "jobId='" + jobId + '\'' +
+                ", status=" + status +
+                ", collection='" + request.mongoDatabase() + "." + request.mongoCollection() + '\'' +
+                '}';
+    }
+}
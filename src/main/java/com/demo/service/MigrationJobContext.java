@@ -0,0 +1,184 @@
+package com.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.demo.util.LatencyTracker;
+import com.demo.util.ResizableLimit;
+import com.demo.util.RetryBudget;
+import com.demo.util.TransferThrottle;
+
+/**
+ * Runtime state of one collection migration. Pause, cancel and connection
+ * loss are tracked here instead of service-wide, so one job's outage or
+ * stop request never stalls the others. Counters are LongAdders because
+ * every pipeline worker of the job updates them.
+ */
+public class MigrationJobContext {
+
+    private final String jobId;
+    private final String migrationKey;
+    private final long startedAt = System.currentTimeMillis();
+
+    private volatile boolean paused;
+    private volatile boolean held; // by a maintenance window, independent of user pause
+    private volatile boolean connectionLost;
+    private volatile boolean cancelled;
+    private volatile boolean draining; // shutdown: no new reads, batches already read still finish
+    private volatile long expectedTotal;
+    private volatile boolean joinOnly; // distributed worker joining a job another instance published
+
+    private final LongAdder transferred = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder insertedDuringMigration = new LongAdder();
+    private final LongAdder deletedDuringMigration = new LongAdder();
+    private final TransferThrottle throttle = new TransferThrottle(() -> currentTotal() - getTransferred());
+
+    // Live tuning, read at each batch boundary; 0 means the service default
+    private volatile int batchSize;
+    private volatile int readParallelism;
+    private volatile int writeConcurrency;
+    private final ResizableLimit readSlots = new ResizableLimit(Integer.MAX_VALUE);
+
+    // Write retries and hedges; the service sets the budget's ratio when the job starts
+    private final RetryBudget retryBudget = new RetryBudget(0.1, 1000);
+    private final LatencyTracker writeLatency = new LatencyTracker(2048, 200);
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    public MigrationJobContext(String jobId, String migrationKey) {
+        this.jobId = jobId;
+        this.migrationKey = migrationKey;
+    }
+
+    public String getJobId() { return jobId; }
+    public String getMigrationKey() { return migrationKey; }
+    public long getStartedAt() { return startedAt; }
+    public TransferThrottle getThrottle() { return throttle; }
+
+    public boolean isPaused() { return paused; }
+    public boolean isHeld() { return held; }
+    public boolean isCancelled() { return cancelled; }
+    public boolean isDraining() { return draining; }
+    public boolean isConnectionLost() { return connectionLost; }
+    public boolean isJoinOnly() { return joinOnly; }
+    public void setJoinOnly(boolean joinOnly) { this.joinOnly = joinOnly; }
+
+    public void pause() { this.paused = true; }
+    public void resume() { this.paused = false; }
+    public void setHeld(boolean held) { this.held = held; }
+
+    public void cancel() {
+        this.cancelled = true;
+        this.paused = false;
+    }
+
+    // Unlike cancel, batches already read are still written and checkpointed
+    public void drain() { this.draining = true; }
+
+    public void markConnectionLost() { this.connectionLost = true; }
+
+    // Returns whether the job had been marked as disconnected
+    public boolean markConnectionRestored() {
+        boolean wasLost = connectionLost;
+        connectionLost = false;
+        return wasLost;
+    }
+
+    // Holds the calling worker at a batch boundary while the job is paused or held
+    public void awaitResume() {
+        while ((paused || held) && !cancelled && !draining) {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public long getExpectedTotal() { return expectedTotal; }
+    public void setExpectedTotal(long expectedTotal) { this.expectedTotal = expectedTotal; }
+
+    // Source size as it changes under CDC while the bulk copy runs
+    public long currentTotal() {
+        return expectedTotal + insertedDuringMigration.sum() - deletedDuringMigration.sum();
+    }
+
+    public void recordTransferred(long count) { transferred.add(count); }
+    public long getTransferred() { return transferred.sum(); }
+
+    public void recordFailed(long count) { failed.add(count); }
+    public long getFailed() { return failed.sum(); }
+
+    public void recordDeadLettered(long count) { deadLettered.add(count); }
+    public long getDeadLettered() { return deadLettered.sum(); }
+
+    public void recordInserted() { insertedDuringMigration.increment(); }
+    public void recordDeleted() { deletedDuringMigration.increment(); }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public int getWriteConcurrency() { return writeConcurrency; }
+    public void setWriteConcurrency(int writeConcurrency) { this.writeConcurrency = writeConcurrency; }
+
+    public int getReadParallelism() { return readParallelism; }
+
+    // Readers beyond the new limit finish their current batch before the next one waits
+    public void setReadParallelism(int readParallelism) {
+        this.readParallelism = readParallelism;
+        readSlots.setLimit(readParallelism);
+    }
+
+    public ResizableLimit getReadSlots() { return readSlots; }
+
+    public RetryBudget getRetryBudget() { return retryBudget; }
+    public LatencyTracker getWriteLatency() { return writeLatency; }
+
+    public void recordHedged() { hedged.increment(); }
+    public void recordHedgeWin() { hedgeWins.increment(); }
+    public long getHedged() { return hedged.sum(); }
+    public long getHedgeWins() { return hedgeWins.sum(); }
+
+    // Hedge rate is per write request, win rate per hedge sent
+    public Map<String, Object> hedgeStats() {
+        long requests = retryBudget.getRequests();
+        long hedges = hedged.sum();
+        long wins = hedgeWins.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hedged", hedges);
+        stats.put("wins", wins);
+        stats.put("hedgeRate", requests > 0 ? (double) hedges / requests : 0.0);
+        stats.put("winRate", hedges > 0 ? (double) wins / hedges : 0.0);
+        return stats;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("migrationKey", migrationKey);
+        snapshot.put("transferred", transferred.sum());
+        snapshot.put("failed", failed.sum());
+        snapshot.put("deadLettered", deadLettered.sum());
+        snapshot.put("expectedTotal", expectedTotal);
+        snapshot.put("currentTotal", currentTotal());
+        snapshot.put("insertedDuringMigration", insertedDuringMigration.sum());
+        snapshot.put("deletedDuringMigration", deletedDuringMigration.sum());
+        snapshot.put("paused", paused);
+        snapshot.put("held", held);
+        snapshot.put("connectionLost", connectionLost);
+        snapshot.put("cancelled", cancelled);
+        snapshot.put("draining", draining);
+        snapshot.put("throttle", throttle.getStats());
+        snapshot.put("retryBudget", retryBudget.getStats());
+        snapshot.put("hedging", hedgeStats());
+        Map<String, Object> tuning = new LinkedHashMap<>();
+        tuning.put("batchSize", batchSize);
+        tuning.put("readParallelism", readParallelism);
+        tuning.put("writeConcurrency", writeConcurrency);
+        snapshot.put("tuning", tuning);
+        return snapshot;
+    }
+}
@@ -0,0 +1,350 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.demo.dto.JobTuning;
+import com.demo.dto.ThrottleSettings;
+import com.demo.util.TransferThrottle;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs collection transfers as background jobs on a bounded executor. Submit
+ * returns immediately with a job ID; status, pause, resume and cancel go
+ * through the job held here rather than the HTTP call that started it.
+ *
+ * Queued jobs start largest collection first (by collStats data size), so a
+ * big straggler begins early instead of setting the total wall time at the
+ * end. Running jobs share the read and write permits of TransferConcurrencyBudget.
+ */
+@Service
+public class MigrationJobManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigrationJobManager.class);
+
+    private static final String SUSPENDED_BY_SHUTDOWN = "Stopped by shutdown; resubmit to resume from its checkpoint";
+
+    private final DataTransferService dataTransferService;
+    private final MongoMetadataService mongoMetadataService;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong submissionSequence = new AtomicLong();
+    private volatile boolean held;
+    private volatile boolean shuttingDown;
+    private final int retainedJobs;
+    private final int maxBatchSize;
+    private final int maxReadParallelism;
+    private final ConcurrentHashMap<String, MigrationJob> jobs = new ConcurrentHashMap<>();
+
+    public MigrationJobManager(DataTransferService dataTransferService,
+                               MongoMetadataService mongoMetadataService,
+                               MigrationThreads migrationThreads,
+                               @Value("${migration.jobs.max-concurrent:4}") int maxConcurrentJobs,
+                               @Value("${migration.jobs.retained:200}") int retainedJobs,
+                               @Value("${migration.pipeline.max-batch-size:20000}") int maxBatchSize,
+                               @Value("${migration.pipeline.max-read-parallelism:8}") int maxReadParallelism) {
+        this.dataTransferService = dataTransferService;
+        this.mongoMetadataService = mongoMetadataService;
+        this.retainedJobs = retainedJobs;
+        this.maxBatchSize = maxBatchSize;
+        this.maxReadParallelism = maxReadParallelism;
+        int poolSize = Math.max(1, maxConcurrentJobs);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), migrationThreads.factory("migration-job-"));
+    }
+
+    // Queue entry ordered largest source first, then by submission
+    private final class QueuedJob implements Runnable, Comparable<QueuedJob> {
+        private final MigrationJob job;
+        private final long sequence = submissionSequence.incrementAndGet();
+
+        private QueuedJob(MigrationJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            MigrationJobManager.this.run(job);
+        }
+
+        @Override
+        public int compareTo(QueuedJob other) {
+            int bySize = Long.compare(other.job.getSourceSizeBytes(), job.getSourceSizeBytes());
+            return bySize != 0 ? bySize : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    public MigrationJob submit(DataTransferService.TransferRequest request, String submittedBy) {
+        return submitAll(List.of(request), submittedBy).get(0);
+    }
+
+    /**
+     * Queues one job per collection. The whole set is validated before anything
+     * is queued, so a bad entry rejects the request without partial submission.
+     */
+    public List<MigrationJob> submitAll(List<DataTransferService.TransferRequest> requests, String submittedBy) {
+        return submitAll(requests, submittedBy, false);
+    }
+
+    /**
+     * Queues a job published by another instance in distributed mode. The job
+     * only claims partitions of the existing manifest and never republishes.
+     * Returns null when the collection already has an unfinished job here.
+     */
+    public synchronized MigrationJob join(DataTransferService.TransferRequest request, String submittedBy) {
+        String key = migrationKey(request);
+        boolean alreadyActive = jobs.values().stream().anyMatch(job -> !job.getStatus().isFinished()
+                && key.equals(migrationKey(job.getRequest())));
+        if (alreadyActive) return null;
+        return submitAll(List.of(request), submittedBy, true).get(0);
+    }
+
+    private synchronized List<MigrationJob> submitAll(List<DataTransferService.TransferRequest> requests, String submittedBy,
+                                                      boolean joinOnly) {
+        if (shuttingDown) {
+            throw new IllegalStateException("Shutting down; no new migration jobs are accepted");
+        }
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one collection is required");
+        }
+        Set<String> keys = new HashSet<>();
+        for (DataTransferService.TransferRequest request : requests) {
+            if (request == null || request.mongoDatabase() == null || request.mongoCollection() == null) {
+                throw new IllegalArgumentException("mongoDatabase and mongoCollection are required");
+            }
+            String key = migrationKey(request);
+            if (!keys.add(key)) {
+                throw new IllegalArgumentException("Collection " + key + " is listed more than once");
+            }
+            TransferThrottle.validate(request.effectiveOptions().getThrottle());
+            boolean alreadyActive = jobs.values().stream().anyMatch(job -> !job.getStatus().isFinished()
+                    && key.equals(migrationKey(job.getRequest())));
+            if (alreadyActive) {
+                throw new IllegalStateException("A migration job for " + key + " is already queued or running");
+            }
+        }
+
+        List<MigrationJob> submitted = new ArrayList<>();
+        for (DataTransferService.TransferRequest request : requests) {
+            MigrationJob job = new MigrationJob(UUID.randomUUID().toString(), request, submittedBy, sourceSize(request));
+            job.getContext().setHeld(held);
+            job.getContext().setJoinOnly(joinOnly);
+            jobs.put(job.getJobId(), job);
+            submitted.add(job);
+        }
+        // Enqueue in priority order so idle workers pick the largest collection first
+        submitted.sort(Comparator.comparingLong(MigrationJob::getSourceSizeBytes).reversed());
+        for (MigrationJob job : submitted) {
+            executor.execute(new QueuedJob(job));
+            logger.info("[INFO] Migration job {} queued for {} ({} bytes)", job.getJobId(), migrationKey(job.getRequest()),
+                    job.getSourceSizeBytes());
+        }
+        evictFinishedJobs();
+        return submitted;
+    }
+
+    private long sourceSize(DataTransferService.TransferRequest request) {
+        try {
+            return mongoMetadataService.getCollectionDataSize(request.mongoDatabase(), request.mongoCollection());
+        } catch (Exception e) {
+            // Unknown size only affects ordering
+            logger.warn("[WARN] No size for {}, scheduling it last: {}", migrationKey(request), e.getMessage());
+            return 0L;
+        }
+    }
+
+    private static String migrationKey(DataTransferService.TransferRequest request) {
+        return request.mongoDatabase() + "." + request.mongoCollection();
+    }
+
+    private void run(MigrationJob job) {
+        // A job queued during a pause window starts when the window closes
+        job.getContext().awaitResume();
+        if (job.isCancelRequested() || job.getStatus().isFinished()) return;
+        job.markStarted();
+        logger.info("[INFO] Migration job {} started", job.getJobId());
+        try {
+            dataTransferService.transferCollection(job.getRequest(), job.getContext());
+            if (job.getContext().isDraining() && !job.isCancelRequested()) {
+                job.markFinished(MigrationJob.Status.CANCELLED, SUSPENDED_BY_SHUTDOWN);
+            } else {
+                job.markFinished(job.isCancelRequested() ? MigrationJob.Status.CANCELLED : MigrationJob.Status.COMPLETED, null);
+            }
+        } catch (Exception e) {
+            logger.error("[ERROR] Migration job {} failed: {}", job.getJobId(), e.getMessage());
+            job.markFinished(job.isCancelRequested() ? MigrationJob.Status.CANCELLED : MigrationJob.Status.FAILED, e.getMessage());
+        }
+        logger.info("[INFO] Migration job {} finished with status {}", job.getJobId(), job.getStatus());
+    }
+
+    public List<MigrationJob> listJobs() {
+        List<MigrationJob> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparingLong(MigrationJob::getSubmittedAt).reversed());
+        return list;
+    }
+
+    public MigrationJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public MigrationJob pause(String jobId) {
+        MigrationJob job = requireJob(jobId);
+        if (job.getStatus() != MigrationJob.Status.RUNNING) {
+            throw new IllegalStateException("Only a running job can be paused; job " + jobId + " is " + job.getStatus());
+        }
+        job.getContext().pause();
+        job.setStatus(MigrationJob.Status.PAUSED);
+        job.recordEvent("PAUSED", null);
+        logger.info("[INFO] Migration job {} paused", jobId);
+        return job;
+    }
+
+    public MigrationJob resume(String jobId) {
+        MigrationJob job = requireJob(jobId);
+        if (job.getStatus() != MigrationJob.Status.PAUSED) {
+            throw new IllegalStateException("Only a paused job can be resumed; job " + jobId + " is " + job.getStatus());
+        }
+        job.getContext().resume();
+        job.setStatus(MigrationJob.Status.RUNNING);
+        job.recordEvent("RESUMED", null);
+        logger.info("[INFO] Migration job {} resumed", jobId);
+        return job;
+    }
+
+    public MigrationJob cancel(String jobId) {
+        MigrationJob job = requireJob(jobId);
+        if (job.getStatus().isFinished()) {
+            throw new IllegalStateException("Job " + jobId + " already finished with status " + job.getStatus());
+        }
+        if (job.getStatus() == MigrationJob.Status.QUEUED) {
+            // The queue entry stays but run() skips a cancelled job
+            job.getContext().cancel();
+            job.markFinished(MigrationJob.Status.CANCELLED, null);
+        } else {
+            DataTransferService.TransferRequest request = job.getRequest();
+            dataTransferService.stopMigration(job.getContext(), request.mongoDatabase(), request.mongoCollection());
+        }
+        job.recordEvent("CANCEL_REQUESTED", null);
+        logger.info("[INFO] Migration job {} cancel requested", jobId);
+        return job;
+    }
+
+    /**
+     * Holds or releases every unfinished job at its next batch boundary, and
+     * jobs submitted while held. Separate from user pause, so a window never
+     * resumes a job the user paused.
+     */
+    public synchronized void setHeld(boolean held) {
+        this.held = held;
+        for (MigrationJob job : jobs.values()) {
+            if (!job.getStatus().isFinished()) {
+                job.getContext().setHeld(held);
+            }
+        }
+    }
+
+    public boolean isHeld() {
+        return held;
+    }
+
+    /**
+     * First step of a graceful shutdown: refuses new submissions and closes
+     * jobs still queued, so only the running ones are left to drain. Each
+     * interrupted job is logged, as jobs are not kept across a restart.
+     */
+    public synchronized void beginShutdown() {
+        shuttingDown = true;
+        for (MigrationJob job : jobs.values()) {
+            if (job.getStatus().isFinished()) continue;
+            if (job.getStatus() == MigrationJob.Status.QUEUED) {
+                job.markFinished(MigrationJob.Status.CANCELLED, SUSPENDED_BY_SHUTDOWN);
+            }
+            logger.info("[INFO] Migration job {} for {} interrupted by shutdown", job.getJobId(), migrationKey(job.getRequest()));
+        }
+    }
+
+    // Takes effect on the job's next batch
+    public MigrationJob updateThrottle(String jobId, ThrottleSettings settings) {
+        MigrationJob job = requireJob(jobId);
+        if (job.getStatus().isFinished()) {
+            throw new IllegalStateException("Job " + jobId + " already finished with status " + job.getStatus());
+        }
+        job.getContext().getThrottle().update(settings);
+        job.recordEvent("THROTTLE_UPDATED", settings.toString());
+        logger.info("[INFO] Migration job {} throttle updated: {}", jobId, settings);
+        return job;
+    }
+
+    /**
+     * Changes batch size, read parallelism, write concurrency and rate
+     * limits of a queued or running job. Everything is validated before
+     * anything is applied; readers and writers pick the new values up at
+     * their next batch.
+     */
+    public MigrationJob reconfigure(String jobId, JobTuning tuning) {
+        MigrationJob job = requireJob(jobId);
+        if (job.getStatus().isFinished()) {
+            throw new IllegalStateException("Job " + jobId + " already finished with status " + job.getStatus());
+        }
+        if (tuning.getBatchSize() != null && (tuning.getBatchSize() < 1 || tuning.getBatchSize() > maxBatchSize)) {
+            throw new IllegalArgumentException("batchSize must be between 1 and " + maxBatchSize);
+        }
+        if (tuning.getReadParallelism() != null
+                && (tuning.getReadParallelism() < 1 || tuning.getReadParallelism() > maxReadParallelism)) {
+            throw new IllegalArgumentException("readParallelism must be between 1 and " + maxReadParallelism);
+        }
+        if (tuning.getWriteConcurrency() != null && tuning.getWriteConcurrency() < 1) {
+            throw new IllegalArgumentException("writeConcurrency must be positive");
+        }
+        if (tuning.getThrottle() != null) {
+            TransferThrottle.validate(tuning.getThrottle());
+        }
+
+        MigrationJobContext context = job.getContext();
+        if (tuning.getBatchSize() != null) context.setBatchSize(tuning.getBatchSize());
+        if (tuning.getReadParallelism() != null) context.setReadParallelism(tuning.getReadParallelism());
+        if (tuning.getWriteConcurrency() != null) context.setWriteConcurrency(tuning.getWriteConcurrency());
+        if (tuning.getThrottle() != null) context.getThrottle().update(tuning.getThrottle());
+        job.recordEvent("RECONFIGURED", tuning.toString());
+        logger.info("[INFO] Migration job {} reconfigured: {}", jobId, tuning);
+        return job;
+    }
+
+    private MigrationJob requireJob(String jobId) {
+        MigrationJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown migration job: " + jobId);
+        }
+        return job;
+    }
+
+    // Keeps the newest finished jobs for inspection; active jobs are never evicted
+    private void evictFinishedJobs() {
+        List<MigrationJob> finished = jobs.values().stream()
+                .filter(job -> job.getStatus().isFinished())
+                .sorted(Comparator.comparingLong(MigrationJob::getSubmittedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - retainedJobs; i++) {
+            jobs.remove(finished.get(i).getJobId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,60 @@
+package com.demo.service;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.demo.util.ThreadFactories;
+
+/**
+ * Execution mode of the blocking migration paths: job runners, pipeline stage
+ * workers, change streams and drop listeners. In VIRTUAL mode each of them
+ * runs on a virtual thread, so many collections can stream and write at once
+ * without sizing platform thread pools. Concurrency limits stay where they
+ * are (job slots, stage parallelism, the global budget); only the cost of a
+ * blocked thread changes. VIRTUAL falls back to PLATFORM on runtimes older
+ * than Java 21.
+ */
+@Service
+public class MigrationThreads {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigrationThreads.class);
+
+    public enum Mode { PLATFORM, VIRTUAL }
+
+    private final Mode mode;
+
+    public MigrationThreads(@Value("${migration.threads.mode:PLATFORM}") String mode) {
+        Mode requested;
+        try {
+            requested = Mode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("migration.threads.mode must be PLATFORM or VIRTUAL: " + mode);
+        }
+        if (requested == Mode.VIRTUAL && !ThreadFactories.virtualThreadsSupported()) {
+            logger.warn("[WARN] Virtual threads need Java 21, running on {}; using platform threads", Runtime.version());
+            requested = Mode.PLATFORM;
+        }
+        this.mode = requested;
+        logger.info("[INFO] Migration threads run in {} mode", this.mode);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public ThreadFactory factory(String prefix) {
+        return mode == Mode.VIRTUAL ? ThreadFactories.virtual(prefix) : ThreadFactories.platform(prefix);
+    }
+
+    // Starts a single named thread, e.g. a change stream loop
+    public Thread start(String name, Runnable task) {
+        Thread thread = factory(name).newThread(task);
+        thread.setName(name);
+        thread.start();
+        return thread;
+    }
+}
@@ -5,9 +5,12 @@ import com.demo.security.EncryptionService;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.MongoCredential;
+import com.mongodb.ReadPreference;
 import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.mongodb.event.ClusterDescriptionChangedEvent;
+import com.mongodb.event.ClusterListener;
 
 import org.apache.http.ssl.SSLContexts;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,6 +30,9 @@ public class MongoConnectionService {
     
     @Autowired
     private EncryptionService encryptionService;
+
+    @Autowired
+    private ConnectionCircuitBreakers circuitBreakers;
     
     private MongoClient mongoClient;
     private byte[] storedCertificate;
@@ -49,7 +55,8 @@ public class MongoConnectionService {
             if (encryptionService.isEncrypted(uri)) {
                 uri = encryptionService.decryptSensitive(uri);
             }
-            this.mongoClient = MongoClients.create(uri);
+            this.mongoClient = MongoClients.create(withCircuitListener(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))).build());
         } else {
             String username = details.getUsername();
             String password = details.getPassword();
@@ -74,7 +81,7 @@ public class MongoConnectionService {
                 settingsBuilder.credential(credential);
             }
 
-            MongoClientSettings settings = settingsBuilder.build();
+            MongoClientSettings settings = withCircuitListener(settingsBuilder).build();
             this.mongoClient = MongoClients.create(settings);
         }
     }
@@ -96,16 +103,32 @@ public class MongoConnectionService {
             .build();
 
         this.mongoClient = MongoClients.create(
-            MongoClientSettings.builder()
+            withCircuitListener(MongoClientSettings.builder()
                 .applyConnectionString(new ConnectionString(connectionString))
                 .applyToSslSettings(builder ->
                     builder.enabled(true)
                     .context(sslContext)
-                )
+                ))
                 .build()
         );
     }
 
+    // Opens the mongo breaker when the driver loses the primary and probes as soon as it is back
+    private MongoClientSettings.Builder withCircuitListener(MongoClientSettings.Builder builder) {
+        return builder.applyToClusterSettings(cluster -> cluster.addClusterListener(new ClusterListener() {
+            @Override
+            public void clusterDescriptionChanged(ClusterDescriptionChangedEvent event) {
+                boolean wasReadable = event.getPreviousDescription().hasReadableServer(ReadPreference.primary());
+                boolean readable = event.getNewDescription().hasReadableServer(ReadPreference.primary());
+                if (wasReadable && !readable) {
+                    circuitBreakers.mongo().forceOpen("driver lost the primary");
+                } else if (!wasReadable && readable) {
+                    circuitBreakers.mongo().signalRecovery("driver found a primary");
+                }
+            }
+        }));
+    }
+
     public MongoClient getMongoClient() {
         return mongoClient;
     }
@@ -17,7 +17,7 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 @Service
-public class MongoDataFetchService {
+public class MongoDataFetchService implements TransferSource {
     private final MongoConnectionService mongoConnectionService;
 
     @Autowired
@@ -55,6 +55,189 @@ public class MongoDataFetchService {
                           .countDocuments();
     }
 
+    // Average BSON document size from collStats, 0 when unavailable
+    public long averageDocumentSize(String dbName, String collectionName) {
+        try {
+            Document stats = mongoConnectionService.getMongoClient()
+                    .getDatabase(dbName)
+                    .runCommand(new Document("collStats", collectionName));
+            Object avgObjSize = stats.get("avgObjSize");
+            return avgObjSize instanceof Number ? ((Number) avgObjSize).longValue() : 0L;
+        } catch (MongoException e) {
+            return 0L;
+        }
+    }
+
+    public long countDocuments(String dbName, String collectionName, List<Document> pipeline) {
+        if (pipeline == null || pipeline.stream().noneMatch(stage -> stage.containsKey("$match"))) {
+            return countDocuments(dbName, collectionName);
+        }
+        List<Document> countPipeline = new ArrayList<>(pipeline);
+        countPipeline.add(new Document("$count", "count"));
+        Document result = mongoConnectionService.getMongoClient()
+                .getDatabase(dbName)
+                .getCollection(collectionName)
+                .aggregate(countPipeline)
+                .allowDiskUse(true)
+                .first();
+        return result != null ? ((Number) result.get("count")).longValue() : 0L;
+    }
+
+    /**
+     * Reads one batch through the pushed-down transformation pipeline instead of find().
+     * Falls back to a plain find when nothing was pushed down.
+     */
+    public List<Map<String, Object>> fetchBatch(String dbName, String collectionName,
+                                                List<Document> pipeline, int skip, int limit) {
+        if (pipeline == null || pipeline.isEmpty()) {
+            return fetchBatch(dbName, collectionName, skip, limit);
+        }
+        List<Document> stages = new ArrayList<>(pipeline);
+        stages.add(new Document("$skip", skip));
+        stages.add(new Document("$limit", limit));
+        return mongoConnectionService.getMongoClient()
+                .getDatabase(dbName)
+                .getCollection(collectionName)
+                .aggregate(stages)
+                .allowDiskUse(true)
+                .into(new ArrayList<>())
+                .stream()
+                .map(doc -> (Map<String, Object>) doc)
+                .toList();
+    }
+
+    /**
+     * Keyset page: the first limit documents matching idFilter in _id order,
+     * through the pushed-down pipeline. With an _id range filter each page
+     * starts with an index seek, so its cost does not grow with how far the
+     * scan has got, unlike $skip.
+     */
+    @Override
+    public List<Map<String, Object>> fetchBatchMatching(String dbName, String collectionName,
+                                                        Document idFilter, List<Document> pipeline, int limit) {
+        List<Document> stages = new ArrayList<>();
+        if (idFilter != null && !idFilter.isEmpty()) {
+            stages.add(new Document("$match", idFilter));
+        }
+        stages.add(new Document("$sort", new Document("_id", 1)));
+        if (pipeline != null) stages.addAll(pipeline);
+        stages.add(new Document("$limit", limit));
+        return mongoConnectionService.getMongoClient()
+                .getDatabase(dbName)
+                .getCollection(collectionName)
+                .aggregate(stages)
+                .allowDiskUse(true)
+                .into(new ArrayList<>())
+                .stream()
+                .map(doc -> (Map<String, Object>) doc)
+                .toList();
+    }
+
+    /**
+     * Re-reads a single document through the pushed-down pipeline, e.g. for change events.
+     * Returns null when the document no longer exists or the pipeline filters it out.
+     */
+    public Map<String, Object> fetchDocumentThroughPipeline(String dbName, String collectionName,
+                                                            Object rawId, List<Document> pipeline) {
+        List<Document> stages = new ArrayList<>();
+        stages.add(new Document("$match", new Document("_id", rawId)));
+        stages.addAll(pipeline);
+        return mongoConnectionService.getMongoClient()
+                .getDatabase(dbName)
+                .getCollection(collectionName)
+                .aggregate(stages)
+                .first();
+    }
+
+    public List<Object> idBoundaries(String dbName, String collectionName, int partitions) {
+        return idBoundaries(dbName, collectionName, null, partitions);
+    }
+
+    /**
+     * _id values splitting the collection (or the documents matching
+     * idFilter) into roughly equal ranges, from $bucketAuto over the _id
+     * index. Empty when there is too little to split or _id types are mixed,
+     * since a range query only matches one type.
+     */
+    @Override
+    public List<Object> idBoundaries(String dbName, String collectionName, Document idFilter, int partitions) {
+        if (partitions < 2) return List.of();
+        List<Document> stages = new ArrayList<>();
+        if (idFilter != null && !idFilter.isEmpty()) {
+            stages.add(new Document("$match", idFilter));
+        }
+        stages.add(new Document("$project", new Document("_id", 1)));
+        stages.add(new Document("$bucketAuto", new Document("groupBy", "$_id").append("buckets", partitions)));
+        List<Document> buckets = mongoConnectionService.getMongoClient()
+                .getDatabase(dbName)
+                .getCollection(collectionName)
+                .aggregate(stages)
+                .allowDiskUse(true)
+                .into(new ArrayList<>());
+        if (buckets.size() < 2) return List.of();
+        Object first = ((Document) buckets.get(0).get("_id")).get("min");
+        Object last = ((Document) buckets.get(buckets.size() - 1).get("_id")).get("max");
+        if (first == null || last == null || first.getClass() != last.getClass()) return List.of();
+        List<Object> boundaries = new ArrayList<>();
+        for (int i = 1; i < buckets.size(); i++) {
+            boundaries.add(((Document) buckets.get(i).get("_id")).get("min"));
+        }
+        return boundaries;
+    }
+
+    // The _id of the document at position offset in _id order, or null when the collection is not that large
+    public Object idAt(String dbName, String collectionName, int offset) {
+        Document document = mongoConnectionService.getMongoClient()
+                .getDatabase(dbName)
+                .getCollection(collectionName)
+                .find()
+                .projection(new Document("_id", 1))
+                .sort(new Document("_id", 1))
+                .skip(offset)
+                .first();
+        return document != null ? document.get("_id") : null;
+    }
+
+    // Compares the smallest and largest _id; two index lookups
+    @Override
+    public boolean hasMixedIdTypes(String dbName, String collectionName) {
+        MongoCollection<Document> collection = mongoConnectionService.getMongoClient()
+                .getDatabase(dbName)
+                .getCollection(collectionName);
+        Document projection = new Document("_id", 1);
+        Document first = collection.find().projection(projection).sort(new Document("_id", 1)).first();
+        Document last = collection.find().projection(projection).sort(new Document("_id", -1)).first();
+        if (first == null || last == null) return false;
+        Object min = first.get("_id");
+        Object max = last.get("_id");
+        return min != null && max != null && min.getClass() != max.getClass();
+    }
+
+    // One round trip for a whole set of referenced ids
+    public List<Document> fetchDocumentsByIds(String dbName, String collectionName, List<Object> ids) {
+        return mongoConnectionService.getMongoClient()
+                .getDatabase(dbName)
+                .getCollection(collectionName)
+                .find(new Document("_id", new Document("$in", ids)))
+                .into(new ArrayList<>());
+    }
+
+    // Same, through the pushed-down pipeline; documents the pipeline filters out are missing from the result
+    public List<Document> fetchDocumentsByIds(String dbName, String collectionName, List<Object> ids, List<Document> pipeline) {
+        if (pipeline == null || pipeline.isEmpty()) {
+            return fetchDocumentsByIds(dbName, collectionName, ids);
+        }
+        List<Document> stages = new ArrayList<>();
+        stages.add(new Document("$match", new Document("_id", new Document("$in", ids))));
+        stages.addAll(pipeline);
+        return mongoConnectionService.getMongoClient()
+                .getDatabase(dbName)
+                .getCollection(collectionName)
+                .aggregate(stages)
+                .allowDiskUse(true)
+                .into(new ArrayList<>());
+    }
+
     public List<Map<String, Object>> fetchBatch(String dbName, String collectionName, int skip, int limit) {
         MongoCollection<Document> collection = mongoConnectionService
                 .getMongoClient()
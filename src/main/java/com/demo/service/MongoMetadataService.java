@@ -252,6 +252,34 @@ public class MongoMetadataService {
 
     }
  
+    // Logical data size from collStats; used to schedule the largest collections first
+
+    public long getCollectionDataSize(String databaseName, String collectionName) throws MongoMetadataException {
+
+        try {
+
+            MongoDatabase db = mongoConnectionService.getMongoClient().getDatabase(databaseName);
+
+            Document collStats = db.runCommand(new Document("collStats", collectionName));
+
+            return getSafeLong(collStats, "size");
+
+        } catch (MongoCommandException e) {
+
+            logger.warn("Collection stats failed for {}.{} ({}), size unknown",
+
+                databaseName, collectionName, e.getErrorMessage());
+
+            return 0L;
+
+        } catch (MongoException e) {
+
+            throw new MongoMetadataException("Failed to get stats for collection: " + collectionName, e);
+
+        }
+
+    }
+ 
     private boolean isSystemDatabase(String dbName) {
 
         return dbName.equals("admin") || 
@@ -0,0 +1,246 @@
+package com.demo.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.demo.dto.PartitionLease;
+import com.demo.dto.PartitionManifest;
+import com.demo.util.BsonKeys;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Coordinator/worker mode. The instance that starts a job first publishes
+ * its _id range partitions to the shared lease store and becomes the
+ * coordinator; every instance running the same job (including the
+ * coordinator) claims free partitions, renews its leases while it works and
+ * marks them done. A lease that is not renewed in time expires and is
+ * claimed by another worker, so partitions of a crashed instance are
+ * picked up without a restart.
+ *
+ * Lease expiry compares wall clocks of different hosts; keep them in sync
+ * (NTP) and keep lease-ms well above the expected skew.
+ */
+@Service
+public class PartitionLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionLeaseService.class);
+
+    private final PartitionLeaseStore store;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final String workerId;
+    private final int partitionCount;
+    private final long leaseMillis;
+    private final long pollMillis;
+    private final ScheduledExecutorService renewer;
+
+    public PartitionLeaseService(PartitionLeaseStore store,
+                                 ObjectMapper objectMapper,
+                                 @Value("${migration.distributed.enabled:false}") boolean enabled,
+                                 @Value("${migration.distributed.worker-id:}") String workerId,
+                                 @Value("${migration.distributed.partitions:16}") int partitionCount,
+                                 @Value("${migration.distributed.lease-ms:30000}") long leaseMillis,
+                                 @Value("${migration.distributed.poll-ms:5000}") long pollMillis) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.workerId = workerId == null || workerId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : workerId;
+        this.partitionCount = Math.max(1, partitionCount);
+        this.leaseMillis = Math.max(1000, leaseMillis);
+        this.pollMillis = Math.max(100, pollMillis);
+        this.renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "partition-lease-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            logger.info("[INFO] Distributed mode on as worker {} using {}", this.workerId, store.getClass().getSimpleName());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public long getPollMillis() {
+        return pollMillis;
+    }
+
+    /**
+     * Publishes the job split at the given _id boundaries (n boundaries give
+     * n + 1 partitions). Returns true when this instance is the coordinator.
+     */
+    public boolean publish(String jobKey, DataTransferService.TransferRequest request, List<Object> boundaries) {
+        List<PartitionLease> partitions = new ArrayList<>();
+        String lower = null;
+        for (int i = 0; i <= boundaries.size(); i++) {
+            String upper = i < boundaries.size() ? BsonKeys.encode(boundaries.get(i)) : null;
+            partitions.add(new PartitionLease(jobKey, i, lower, upper));
+            lower = upper;
+        }
+        String requestJson;
+        try {
+            requestJson = objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Transfer request cannot be shared with workers: " + e.getMessage(), e);
+        }
+        boolean published = store.publish(new PartitionManifest(jobKey, requestJson, partitions.size(), workerId), partitions);
+        if (published) {
+            logger.info("[INFO] Published {} partitions of {} as coordinator {}", partitions.size(), jobKey, workerId);
+        }
+        return published;
+    }
+
+    public DataTransferService.TransferRequest readRequest(PartitionManifest manifest) {
+        try {
+            return objectMapper.readValue(manifest.getRequest(), DataTransferService.TransferRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable request in manifest of " + manifest.getJobKey() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Claims a free or expired partition, or returns null when none is
+     * claimable right now. Partitions are tried in random order so workers
+     * starting together do not all race for the first one.
+     */
+    public Lease claim(String jobKey) {
+        List<PartitionLease> partitions = new ArrayList<>(store.getPartitions(jobKey));
+        Collections.shuffle(partitions);
+        long now = System.currentTimeMillis();
+        for (PartitionLease partition : partitions) {
+            if (!partition.isClaimable(now)) continue;
+            PartitionLease claimed = partition.copy();
+            claimed.setState(PartitionLease.State.LEASED);
+            claimed.setOwner(workerId);
+            claimed.setLeaseExpiresAt(now + leaseMillis);
+            claimed.setAttempts(partition.getAttempts() + 1);
+            PartitionLease stored = store.compareAndSet(partition, claimed);
+            if (stored == null) continue;
+            if (partition.getState() == PartitionLease.State.LEASED) {
+                logger.warn("[WARN] Took over partition {} of {} from {} whose lease expired",
+                        partition.getPartitionId(), jobKey, partition.getOwner());
+            }
+            Lease lease = new Lease(stored);
+            lease.renewal = renewer.scheduleWithFixedDelay(lease::renew, leaseMillis / 3, leaseMillis / 3, TimeUnit.MILLISECONDS);
+            return lease;
+        }
+        return null;
+    }
+
+    // Published and not yet complete
+    public boolean isActive(String jobKey) {
+        PartitionManifest manifest = store.getManifest(jobKey);
+        return manifest != null && !manifest.isComplete();
+    }
+
+    // True once every partition of the published job is done
+    public boolean isFinished(String jobKey) {
+        PartitionManifest manifest = store.getManifest(jobKey);
+        if (manifest == null || manifest.isComplete()) return true;
+        List<PartitionLease> partitions = store.getPartitions(jobKey);
+        return partitions.size() == manifest.getPartitionCount()
+                && partitions.stream().allMatch(p -> p.getState() == PartitionLease.State.DONE);
+    }
+
+    public void markComplete(String jobKey) {
+        store.markComplete(jobKey);
+        logger.info("[INFO] Distributed job {} complete", jobKey);
+    }
+
+    public List<PartitionManifest> listManifests() {
+        return store.listManifests();
+    }
+
+    public List<PartitionLease> getPartitions(String jobKey) {
+        return store.getPartitions(jobKey);
+    }
+
+    /**
+     * A partition held by this worker. Renewed in the background until
+     * completed or released; once a renewal fails the lease is lost and the
+     * holder must stop working on it.
+     */
+    public final class Lease {
+        private volatile PartitionLease partition;
+        private volatile boolean lost;
+        private volatile ScheduledFuture<?> renewal;
+
+        private Lease(PartitionLease partition) {
+            this.partition = partition;
+        }
+
+        public PartitionLease getPartition() {
+            return partition;
+        }
+
+        public boolean isLost() {
+            return lost;
+        }
+
+        private synchronized void renew() {
+            if (lost) return;
+            PartitionLease renewed = partition.copy();
+            renewed.setLeaseExpiresAt(System.currentTimeMillis() + leaseMillis);
+            PartitionLease stored = store.compareAndSet(partition, renewed);
+            if (stored == null) {
+                lost = true;
+                renewal.cancel(false);
+                logger.warn("[WARN] Lost lease on partition {} of {}", partition.getPartitionId(), partition.getJobKey());
+            } else {
+                partition = stored;
+            }
+        }
+
+        // Marks the partition done; false when the lease was lost first
+        public synchronized boolean complete(long transferred) {
+            renewal.cancel(false);
+            if (lost) return false;
+            PartitionLease done = partition.copy();
+            done.setState(PartitionLease.State.DONE);
+            done.setTransferred(transferred);
+            done.setLeaseExpiresAt(0);
+            lost = store.compareAndSet(partition, done) == null;
+            return !lost;
+        }
+
+        // Hands the partition back so another worker can claim it at once
+        public synchronized void release() {
+            renewal.cancel(false);
+            if (lost) return;
+            PartitionLease free = partition.copy();
+            free.setState(PartitionLease.State.PENDING);
+            free.setOwner(null);
+            free.setLeaseExpiresAt(0);
+            store.compareAndSet(partition, free);
+            lost = true;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renewer.shutdownNow();
+    }
+}
@@ -0,0 +1,36 @@
+package com.demo.service;
+
+import java.util.List;
+
+import com.demo.dto.PartitionLease;
+import com.demo.dto.PartitionManifest;
+
+/**
+ * Shared table of distributed jobs and their partition leases. Stores only
+ * need compare-and-set on single records; the lease rules (claim, renew,
+ * take over an expired lease) live in PartitionLeaseService.
+ */
+public interface PartitionLeaseStore {
+
+    /**
+     * Publishes a job and its partitions unless an unfinished manifest for the
+     * key already exists. Returns true when this call published the job.
+     */
+    boolean publish(PartitionManifest manifest, List<PartitionLease> partitions);
+
+    // Null when the job was never published
+    PartitionManifest getManifest(String jobKey);
+
+    List<PartitionManifest> listManifests();
+
+    List<PartitionLease> getPartitions(String jobKey);
+
+    /**
+     * Replaces the lease when the stored version still equals
+     * expected.getVersion(). Returns the stored lease with its new version, or
+     * null when another worker changed it first.
+     */
+    PartitionLease compareAndSet(PartitionLease expected, PartitionLease updated);
+
+    void markComplete(String jobKey);
+}
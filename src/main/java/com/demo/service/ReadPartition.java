@@ -0,0 +1,186 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bson.Document;
+
+import com.demo.service.WatermarkCheckpoint.KeyRange;
+import com.demo.service.WatermarkCheckpoint.PartitionState;
+import com.demo.util.BsonKeys;
+
+/**
+ * One _id range of a transfer, read page by page in _id order by whichever
+ * reader holds its lock, while its batches are written in parallel. The
+ * reading side is a keyset cursor; the completion side tracks the low
+ * watermark and the batches written ahead of it.
+ */
+public class ReadPartition {
+
+    // Identifies a batch for the completion side: its sequence within the partition and the keys it covers
+    public record Page(ReadPartition partition, int sequence, KeyRange range) {}
+
+    private final int partitionId;
+    private final String lowerBound;
+    private final String upperBound;
+    private final boolean mixedIds;
+
+    // Reading side, guarded by readLock (a lock rather than synchronized: readers block on Mongo while holding it)
+    private final ReentrantLock readLock = new ReentrantLock();
+    private final List<KeyRange> skipRanges;
+    private Object cursor;
+    private int nextReadSequence;
+    private volatile boolean exhausted;
+
+    // Completion side, only changed by the checkpoint stage
+    private String watermark;
+    private int nextCompleteSequence;
+    private final TreeMap<Integer, KeyRange> completedAhead = new TreeMap<>();
+
+    private ReadPartition(int partitionId, String lowerBound, String upperBound, boolean mixedIds,
+                          String watermark, List<KeyRange> skipRanges) {
+        this.partitionId = partitionId;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.mixedIds = mixedIds;
+        this.watermark = watermark;
+        this.cursor = BsonKeys.decode(watermark);
+        this.skipRanges = skipRanges;
+    }
+
+    /**
+     * Splits [lowerBound, upperBound) at the given _id boundaries; bounds are
+     * extended JSON and null means unbounded. mixedIds is set when the
+     * collection mixes _id types; such a collection is never split.
+     */
+    public static List<ReadPartition> split(String lowerBound, String upperBound, List<Object> boundaries,
+                                            boolean mixedIds) {
+        List<ReadPartition> partitions = new ArrayList<>();
+        String lower = lowerBound;
+        for (int i = 0; i <= boundaries.size(); i++) {
+            String upper = i < boundaries.size() ? BsonKeys.encode(boundaries.get(i)) : upperBound;
+            partitions.add(new ReadPartition(i, lower, upper, mixedIds, null, List.of()));
+            lower = upper;
+        }
+        return partitions;
+    }
+
+    // Resumes after the saved watermark, skipping ranges written ahead of it
+    public static ReadPartition resume(PartitionState state, boolean mixedIds) {
+        return new ReadPartition(state.partitionId(), state.lowerBound(), state.upperBound(), mixedIds,
+                state.watermark(), List.copyOf(state.completedAhead()));
+    }
+
+    // _id filter for [lowerBound, upperBound); empty when both are unbounded
+    public static Document idRange(String lowerBound, String upperBound) {
+        Document id = new Document();
+        if (lowerBound != null) id.append("$gte", BsonKeys.decode(lowerBound));
+        if (upperBound != null) id.append("$lt", BsonKeys.decode(upperBound));
+        return id.isEmpty() ? new Document() : new Document("_id", id);
+    }
+
+    public int getPartitionId() {
+        return partitionId;
+    }
+
+    public ReentrantLock readLock() {
+        return readLock;
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * $match for the next page: inside the partition, after the cursor, and
+     * outside every range written ahead in a previous run. Caller holds the
+     * read lock.
+     */
+    public Document nextPageFilter() {
+        if (mixedIds) return nextPageExpression();
+        Document filter = idRange(lowerBound, upperBound);
+        if (cursor != null) {
+            Document id = filter.get("_id", Document.class);
+            if (id == null) filter.append("_id", id = new Document());
+            id.append("$gt", cursor);
+        }
+        List<Document> skipped = new ArrayList<>();
+        for (KeyRange range : skipRanges) {
+            Object last = BsonKeys.decode(range.last());
+            // Ranges the cursor has passed no longer matter
+            if (cursor != null && compareIds(last, cursor) <= 0) continue;
+            Document skip = new Document("$lte", last);
+            if (range.after() != null) skip.append("$gt", BsonKeys.decode(range.after()));
+            skipped.add(new Document("_id", skip));
+        }
+        if (!skipped.isEmpty()) filter.append("$nor", skipped);
+        return filter;
+    }
+
+    // Same filter as $expr comparisons, which order values of different BSON types
+    private Document nextPageExpression() {
+        List<Document> conditions = new ArrayList<>();
+        if (lowerBound != null) conditions.add(compare("$gte", BsonKeys.decode(lowerBound)));
+        if (upperBound != null) conditions.add(compare("$lt", BsonKeys.decode(upperBound)));
+        if (cursor != null) conditions.add(compare("$gt", cursor));
+        for (KeyRange range : skipRanges) {
+            Document inRange = compare("$lte", BsonKeys.decode(range.last()));
+            if (range.after() != null) {
+                inRange = new Document("$and", List.of(compare("$gt", BsonKeys.decode(range.after())), inRange));
+            }
+            conditions.add(new Document("$not", List.of(inRange)));
+        }
+        if (conditions.isEmpty()) return new Document();
+        return new Document("$expr", new Document("$and", conditions));
+    }
+
+    private static Document compare(String operator, Object value) {
+        return new Document(operator, List.of("$_id", BsonKeys.literal(value)));
+    }
+
+    /**
+     * Moves the cursor past a page whose last document has lastId. Caller
+     * holds the read lock.
+     */
+    public Page advance(Object lastId) {
+        KeyRange range = new KeyRange(BsonKeys.encode(cursor), BsonKeys.encode(lastId));
+        cursor = lastId;
+        return new Page(this, nextReadSequence++, range);
+    }
+
+    public void markExhausted() {
+        exhausted = true;
+    }
+
+    // Records a written page and moves the watermark over every contiguous one
+    public synchronized void complete(Page page) {
+        completedAhead.put(page.sequence(), page.range());
+        while (completedAhead.containsKey(nextCompleteSequence)) {
+            watermark = completedAhead.remove(nextCompleteSequence++).last();
+        }
+    }
+
+    public synchronized PartitionState snapshot() {
+        List<KeyRange> ahead = new ArrayList<>(completedAhead.values());
+        Object low = BsonKeys.decode(watermark);
+        for (KeyRange range : skipRanges) {
+            // Ranges from the previous run stay recorded until the watermark passes them
+            if (low == null || compareIds(BsonKeys.decode(range.last()), low) > 0) ahead.add(range);
+        }
+        return new PartitionState(partitionId, lowerBound, upperBound, watermark, ahead);
+    }
+
+    // Only prunes skip ranges, so a wrong answer across _id types costs a re-read, never a gap
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareIds(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return String.valueOf(a).compareTo(String.valueOf(b));
+    }
+}
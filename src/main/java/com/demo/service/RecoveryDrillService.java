@@ -0,0 +1,303 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.demo.dto.RecoveryDrillRequest;
+import com.demo.util.CircuitBreaker;
+import com.demo.util.FaultSchedule;
+import com.demo.util.FaultSchedule.Fault;
+
+/**
+ * Measures how the transfer pipeline rides out source and target faults.
+ * A drill transfers synthetic documents from an in-process source to an
+ * in-process target through DataTransferService's staged pipeline, with
+ * faults injected on a schedule, so the retry, circuit breaker and
+ * connection-lost handling under test is the production code while nothing
+ * outside the JVM is touched. Drills get their own circuit breakers, so they
+ * never open the real Mongo or Couchbase circuit. The breaker, fault
+ * schedule and partition bookkeeping have unit tests of their own; a drill
+ * shows how they behave together under load.
+ *
+ * The report gives, per fault, time to detect (fault start until the
+ * endpoint's circuit leaves CLOSED), time to recover (fault end until the
+ * circuit is closed and documents flow again) and the throughput dip
+ * against the fault-free baseline; for the whole run, documents read or
+ * written more than once and documents lost to dead letters.
+ */
+@Service
+public class RecoveryDrillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecoveryDrillService.class);
+
+    private static final long TICK_MS = 10;
+
+    private final DataTransferService dataTransferService;
+    private final ConnectionCircuitBreakers circuitBreakers;
+    private final MigrationThreads migrationThreads;
+    private final int maxDocuments;
+    private final long maxDurationMs;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public RecoveryDrillService(DataTransferService dataTransferService,
+                                ConnectionCircuitBreakers circuitBreakers,
+                                MigrationThreads migrationThreads,
+                                @Value("${migration.drill.max-documents:1000000}") int maxDocuments,
+                                @Value("${migration.drill.max-duration-ms:600000}") long maxDurationMs) {
+        this.dataTransferService = dataTransferService;
+        this.circuitBreakers = circuitBreakers;
+        this.migrationThreads = migrationThreads;
+        this.maxDocuments = maxDocuments;
+        this.maxDurationMs = maxDurationMs;
+    }
+
+    // Runs one drill to completion or its time limit; one drill at a time
+    public Map<String, Object> run(RecoveryDrillRequest request) {
+        if (request.getDocuments() < 1 || request.getDocuments() > maxDocuments) {
+            throw new IllegalArgumentException("documents must be between 1 and " + maxDocuments);
+        }
+        if (request.getMaxDurationMs() < 1 || request.getMaxDurationMs() > maxDurationMs) {
+            throw new IllegalArgumentException("maxDurationMs must be between 1 and " + maxDurationMs);
+        }
+        if (request.getDocumentBytes() < 0 || request.getBatchSize() < 0
+                || request.getSourceLatencyMs() < 0 || request.getTargetLatencyMs() < 0) {
+            throw new IllegalArgumentException("documentBytes, batchSize and latencies must not be negative");
+        }
+        FaultSchedule schedule = FaultSchedule.of(request.getFaults(), request.getSeed());
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A recovery drill is already running");
+        }
+        try {
+            return execute(request, schedule);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> execute(RecoveryDrillRequest request, FaultSchedule schedule) {
+        String drillId = UUID.randomUUID().toString().substring(0, 8);
+        MigrationJobContext context = new MigrationJobContext("drill-" + drillId, "drill." + drillId);
+        if (request.getBatchSize() > 0) context.setBatchSize(request.getBatchSize());
+        InMemoryTransferSource source = new InMemoryTransferSource(request.getDocuments(), request.getDocumentBytes(),
+                request.getSourceLatencyMs());
+        InMemoryTransferTarget target = new InMemoryTransferTarget(request.getTargetLatencyMs());
+        CircuitBreaker sourceBreaker = circuitBreakers.create("drill-source");
+        CircuitBreaker targetBreaker = circuitBreakers.create("drill-target");
+        logger.info("[INFO] Recovery drill {} started: {}", drillId, request);
+
+        Monitor monitor = new Monitor(schedule, sourceBreaker, targetBreaker, target, context, request.getMaxDurationMs());
+        schedule.start();
+        Thread monitorThread = migrationThreads.start("RecoveryDrill-" + drillId, monitor);
+        String error = null;
+        try {
+            dataTransferService.runDrill(context, new FaultInjectingSource(source, schedule), sourceBreaker,
+                    new FaultInjectingTarget(target, schedule), targetBreaker, request.getDocuments());
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            logger.warn("[WARN] Recovery drill {} aborted: {}", drillId, e.getMessage());
+        } finally {
+            monitor.stop();
+            try {
+                monitorThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long durationMs = schedule.elapsedMs();
+
+        List<Tick> ticks = monitor.ticks();
+        Map<Fault, Long> recoveredAt = new LinkedHashMap<>();
+        for (Fault fault : schedule.getFaults()) {
+            recoveredAt.put(fault, recoveredAt(fault, ticks));
+        }
+        double baseline = baselineThroughput(ticks, recoveredAt);
+
+        List<Map<String, Object>> faults = new ArrayList<>();
+        for (Fault fault : schedule.getFaults()) {
+            faults.add(faultReport(fault, ticks, recoveredAt.get(fault), baseline));
+        }
+
+        long written = target.getUniqueWritten();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("drillId", drillId);
+        report.put("documents", request.getDocuments());
+        report.put("completed", error == null && !context.isCancelled() && written == request.getDocuments());
+        report.put("error", error);
+        report.put("timedOut", context.isCancelled());
+        report.put("durationMs", durationMs);
+        report.put("written", written);
+        report.put("lost", request.getDocuments() - written);
+        report.put("reReadDocuments", source.getServed() - source.getUniqueServed());
+        report.put("reWrittenDocuments", target.getApplied() - written);
+        report.put("failedWrites", context.getFailed());
+        report.put("deadLettered", context.getDeadLettered());
+        report.put("retryBudget", context.getRetryBudget().getStats());
+        report.put("hedging", context.hedgeStats());
+        report.put("averageThroughput", written * 1000 / Math.max(durationMs, 1));
+        report.put("baselineThroughput", Math.round(baseline));
+        report.put("faults", faults);
+        report.put("throughputPerSecond", throughputPerSecond(ticks));
+        Map<String, Object> circuits = new LinkedHashMap<>();
+        circuits.put("source", sourceBreaker.getStats());
+        circuits.put("target", targetBreaker.getStats());
+        report.put("circuits", circuits);
+        logger.info("[INFO] Recovery drill {} finished in {} ms: written={}, reRead={}, reWritten={}, lost={}", drillId,
+                durationMs, written, report.get("reReadDocuments"), report.get("reWrittenDocuments"), report.get("lost"));
+        return report;
+    }
+
+    // State sampled every TICK_MS while a drill runs
+    private record Tick(long atMs, long written, CircuitBreaker.State source, CircuitBreaker.State target) {
+        CircuitBreaker.State state(FaultSchedule.Endpoint endpoint) {
+            return endpoint == FaultSchedule.Endpoint.SOURCE ? source : target;
+        }
+    }
+
+    // Samples the drill and cancels it at its time limit
+    private static final class Monitor implements Runnable {
+        private final FaultSchedule schedule;
+        private final CircuitBreaker sourceBreaker;
+        private final CircuitBreaker targetBreaker;
+        private final InMemoryTransferTarget target;
+        private final MigrationJobContext context;
+        private final long limitMs;
+        private final List<Tick> ticks = new ArrayList<>();
+        private volatile boolean stopped;
+
+        Monitor(FaultSchedule schedule, CircuitBreaker sourceBreaker, CircuitBreaker targetBreaker,
+                InMemoryTransferTarget target, MigrationJobContext context, long limitMs) {
+            this.schedule = schedule;
+            this.sourceBreaker = sourceBreaker;
+            this.targetBreaker = targetBreaker;
+            this.target = target;
+            this.context = context;
+            this.limitMs = limitMs;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                sample();
+                if (stopped) return;
+                if (schedule.elapsedMs() >= limitMs) context.cancel();
+                try {
+                    Thread.sleep(TICK_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private synchronized void sample() {
+            ticks.add(new Tick(schedule.elapsedMs(), target.getUniqueWritten(), sourceBreaker.getState(), targetBreaker.getState()));
+        }
+
+        void stop() {
+            stopped = true;
+        }
+
+        synchronized List<Tick> ticks() {
+            return new ArrayList<>(ticks);
+        }
+    }
+
+    private static Map<String, Object> faultReport(Fault fault, List<Tick> ticks, Long recoveredAt, double baseline) {
+        Long detectedAt = null;
+        for (Tick tick : ticks) {
+            if (tick.atMs() < fault.getStartMs()) continue;
+            if (tick.atMs() > fault.getEndMs()) break;
+            if (tick.state(fault.getEndpoint()) != CircuitBreaker.State.CLOSED) {
+                detectedAt = tick.atMs();
+                break;
+            }
+        }
+        double during = throughput(ticks, fault.getStartMs(), fault.getEndMs());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("type", fault.getType().name());
+        report.put("endpoint", fault.getEndpoint().name());
+        report.put("startMs", fault.getStartMs());
+        report.put("endMs", fault.getEndMs());
+        report.put("injectedCalls", fault.getInjected());
+        report.put("firstInjectedMs", fault.getFirstInjectedMs() < 0 ? null : fault.getFirstInjectedMs());
+        // Null when the circuit never opened, e.g. a slow node the retries absorb
+        report.put("timeToDetectMs", detectedAt == null ? null : detectedAt - fault.getStartMs());
+        report.put("timeToRecoverMs", recoveredAt == null ? null : recoveredAt - fault.getEndMs());
+        report.put("throughputDuringFault", Math.round(during));
+        report.put("throughputDipPercent", baseline > 0 ? Math.round(Math.max(0, 100 * (1 - during / baseline))) : null);
+        return report;
+    }
+
+    // First sample after the fault ended with the endpoint's circuit closed and documents written since the sample before
+    private static Long recoveredAt(Fault fault, List<Tick> ticks) {
+        for (int i = 1; i < ticks.size(); i++) {
+            Tick tick = ticks.get(i);
+            if (tick.atMs() < fault.getEndMs()) continue;
+            if (tick.state(fault.getEndpoint()) == CircuitBreaker.State.CLOSED && tick.written() > ticks.get(i - 1).written()) {
+                return tick.atMs();
+            }
+        }
+        return null;
+    }
+
+    // Documents per second over the samples outside every fault and its recovery, up to the last document written
+    private static double baselineThroughput(List<Tick> ticks, Map<Fault, Long> recoveredAt) {
+        long documents = 0;
+        long millis = 0;
+        long finalWritten = ticks.isEmpty() ? 0 : ticks.get(ticks.size() - 1).written();
+        for (int i = 1; i < ticks.size(); i++) {
+            Tick previous = ticks.get(i - 1);
+            Tick tick = ticks.get(i);
+            if (previous.written() >= finalWritten) break;
+            boolean disturbed = false;
+            for (Map.Entry<Fault, Long> entry : recoveredAt.entrySet()) {
+                long end = entry.getValue() != null ? entry.getValue() : Long.MAX_VALUE;
+                if (tick.atMs() > entry.getKey().getStartMs() && previous.atMs() < end) {
+                    disturbed = true;
+                    break;
+                }
+            }
+            if (disturbed) continue;
+            documents += tick.written() - previous.written();
+            millis += tick.atMs() - previous.atMs();
+        }
+        return millis > 0 ? documents * 1000.0 / millis : 0;
+    }
+
+    private static double throughput(List<Tick> ticks, long fromMs, long toMs) {
+        Tick first = null;
+        Tick last = null;
+        for (Tick tick : ticks) {
+            if (tick.atMs() < fromMs) continue;
+            if (tick.atMs() > toMs) break;
+            if (first == null) first = tick;
+            last = tick;
+        }
+        if (first == null || last.atMs() == first.atMs()) return 0;
+        return (last.written() - first.written()) * 1000.0 / (last.atMs() - first.atMs());
+    }
+
+    private static List<Long> throughputPerSecond(List<Tick> ticks) {
+        List<Long> perSecond = new ArrayList<>();
+        long secondStartWritten = 0;
+        long second = 1;
+        for (Tick tick : ticks) {
+            if (tick.atMs() >= second * 1000) {
+                perSecond.add(tick.written() - secondStartWritten);
+                secondStartWritten = tick.written();
+                second++;
+            }
+        }
+        return perSecond;
+    }
+}
@@ -0,0 +1,294 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.demo.dto.ReferenceEmbedding;
+import com.demo.util.TransformationRuleApplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Lists;
+import com.mongodb.DBRef;
+
+/**
+ * Denormalizes references while a batch is in memory. All references of a
+ * batch are collected first, cache misses are fetched with one $in query per
+ * referenced collection and chunk, and the results are embedded into the
+ * parents. Resolved documents stay in a bounded LRU cache keyed by
+ * (namespace, id) for migration.references.cache-ttl-ms, so shared references
+ * are read about once per job and a referenced document changed since is
+ * picked up again. Missing references are never cached, and change events
+ * bypass the cache so they embed the referenced document as it is now.
+ * Numeric ids are keyed as Long where they are whole numbers, since Mongo
+ * matches 7 and NumberLong(7) as one _id.
+ */
+@Service
+public class ReferenceResolverService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceResolverService.class);
+
+    private record RefKey(String database, String collection, Object id) {
+        String namespace() {
+            return database + "." + collection;
+        }
+    }
+
+    private final MongoDataFetchService mongoDataFetchService;
+    private final int lookupBatchSize;
+    private final Cache<RefKey, Map<String, Object>> cache;
+
+    private final LongAdder lookupQueries = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+    private final AtomicLong maxLookupNanos = new AtomicLong();
+    private final LongAdder documentsFetched = new LongAdder();
+    private final LongAdder referencesEmbedded = new LongAdder();
+    private final LongAdder referencesUnresolved = new LongAdder();
+
+    public ReferenceResolverService(MongoDataFetchService mongoDataFetchService,
+                                    @Value("${migration.references.cache-size:100000}") long cacheSize,
+                                    @Value("${migration.references.cache-ttl-ms:60000}") long cacheTtlMs,
+                                    @Value("${migration.references.lookup-batch-size:500}") int lookupBatchSize) {
+        this.mongoDataFetchService = mongoDataFetchService;
+        this.lookupBatchSize = Math.max(1, lookupBatchSize);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtlMs, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public void validate(List<ReferenceEmbedding> rules) {
+        if (rules == null) return;
+        for (ReferenceEmbedding rule : rules) {
+            if (rule.getField() == null || rule.getField().isBlank() || "_id".equals(rule.getField())) {
+                throw new IllegalArgumentException("Invalid reference field: " + rule);
+            }
+            if ("_id".equals(rule.effectiveTargetField()) || rule.effectiveTargetField().startsWith("$")) {
+                throw new IllegalArgumentException("Invalid reference target field: " + rule);
+            }
+        }
+    }
+
+    /**
+     * Resolves every reference in the batch and embeds it into its parent in place.
+     * Unresolvable references are left as they were.
+     */
+    public void embed(String sourceDatabase, List<? extends Map<String, Object>> batch, List<ReferenceEmbedding> rules) {
+        embed(sourceDatabase, batch, rules, true);
+    }
+
+    // For change events: reads every reference from the source, so updates to referenced documents show up
+    public void embedLatest(String sourceDatabase, List<? extends Map<String, Object>> batch, List<ReferenceEmbedding> rules) {
+        embed(sourceDatabase, batch, rules, false);
+    }
+
+    private void embed(String sourceDatabase, List<? extends Map<String, Object>> batch, List<ReferenceEmbedding> rules,
+                       boolean useCache) {
+        if (batch == null || batch.isEmpty() || rules == null || rules.isEmpty()) return;
+
+        for (ReferenceEmbedding rule : rules) {
+            Map<RefKey, Optional<Map<String, Object>>> resolved = resolve(collectKeys(sourceDatabase, batch, rule), useCache);
+
+            for (Map<String, Object> document : batch) {
+                if (!TransformationRuleApplier.hasPath(document, rule.getField())) continue;
+                Object value = TransformationRuleApplier.getPath(document, rule.getField());
+                Object embedded;
+                if (value instanceof List) {
+                    List<Object> items = new ArrayList<>();
+                    for (Object item : (List<?>) value) {
+                        items.add(embedOne(sourceDatabase, rule, item, resolved));
+                    }
+                    embedded = items;
+                } else {
+                    embedded = embedOne(sourceDatabase, rule, value, resolved);
+                }
+                if (!rule.effectiveTargetField().equals(rule.getField()) || embedded != value) {
+                    TransformationRuleApplier.setPath(document, rule.effectiveTargetField(), embedded);
+                }
+            }
+        }
+    }
+
+    private Set<RefKey> collectKeys(String sourceDatabase, List<? extends Map<String, Object>> batch, ReferenceEmbedding rule) {
+        Set<RefKey> keys = new LinkedHashSet<>();
+        for (Map<String, Object> document : batch) {
+            Object value = TransformationRuleApplier.getPath(document, rule.getField());
+            if (value instanceof List) {
+                for (Object item : (List<?>) value) {
+                    RefKey key = toKey(sourceDatabase, rule, item);
+                    if (key != null) keys.add(key);
+                }
+            } else {
+                RefKey key = toKey(sourceDatabase, rule, value);
+                if (key != null) keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private Object embedOne(String sourceDatabase, ReferenceEmbedding rule, Object reference,
+                            Map<RefKey, Optional<Map<String, Object>>> resolved) {
+        RefKey key = toKey(sourceDatabase, rule, reference);
+        Optional<Map<String, Object>> target = key != null ? resolved.get(key) : null;
+        if (target == null || target.isEmpty()) {
+            referencesUnresolved.increment();
+            return reference;
+        }
+        referencesEmbedded.increment();
+        return project(target.get(), rule.getFields());
+    }
+
+    private RefKey toKey(String sourceDatabase, ReferenceEmbedding rule, Object reference) {
+        if (reference == null) return null;
+        String database = rule.getDatabase() != null ? rule.getDatabase() : sourceDatabase;
+
+        if (reference instanceof DBRef) {
+            DBRef ref = (DBRef) reference;
+            String refDatabase = ref.getDatabaseName() != null ? ref.getDatabaseName() : database;
+            return new RefKey(refDatabase, ref.getCollectionName(), normalizeId(ref.getId()));
+        }
+        if (reference instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) reference;
+            if (map.get("$ref") instanceof String && map.containsKey("$id")) {
+                Object refDatabase = map.get("$db");
+                return new RefKey(refDatabase instanceof String ? (String) refDatabase : database,
+                        (String) map.get("$ref"), normalizeId(map.get("$id")));
+            }
+            // Already an embedded document
+            return null;
+        }
+        if (rule.getCollection() == null) {
+            return null;
+        }
+        return new RefKey(database, rule.getCollection(), normalizeId(reference));
+    }
+
+    // Whole numbers of any numeric type as Long, so an int reference finds a long _id and back
+    private static Object normalizeId(Object id) {
+        if (id instanceof Integer || id instanceof Long || id instanceof Short || id instanceof Byte) {
+            return ((Number) id).longValue();
+        }
+        if (id instanceof Double || id instanceof Float) {
+            double value = ((Number) id).doubleValue();
+            if (value == Math.rint(value) && Math.abs(value) < 0x1p53) return (long) value;
+        }
+        return id;
+    }
+
+    private Map<RefKey, Optional<Map<String, Object>>> resolve(Set<RefKey> keys, boolean useCache) {
+        Map<RefKey, Optional<Map<String, Object>>> resolved = new HashMap<>();
+        Map<String, List<RefKey>> missesByNamespace = new LinkedHashMap<>();
+
+        for (RefKey key : keys) {
+            Map<String, Object> cached = useCache ? cache.getIfPresent(key) : null;
+            if (cached != null) {
+                resolved.put(key, Optional.of(cached));
+            } else {
+                missesByNamespace.computeIfAbsent(key.namespace(), ns -> new ArrayList<>()).add(key);
+            }
+        }
+
+        for (List<RefKey> misses : missesByNamespace.values()) {
+            RefKey first = misses.get(0);
+            for (List<RefKey> chunk : Lists.partition(misses, lookupBatchSize)) {
+                List<Object> ids = chunk.stream().map(RefKey::id).toList();
+                long start = System.nanoTime();
+                List<Document> found = mongoDataFetchService.fetchDocumentsByIds(first.database(), first.collection(), ids);
+                recordLookup(System.nanoTime() - start, found.size());
+
+                Map<Object, Map<String, Object>> byId = new HashMap<>();
+                for (Document document : found) {
+                    byId.put(normalizeId(document.get("_id")), document);
+                }
+                for (RefKey key : chunk) {
+                    Map<String, Object> value = byId.get(key.id());
+                    // A miss is looked up again next time; the document may be inserted later
+                    if (value != null) cache.put(key, value);
+                    resolved.put(key, Optional.ofNullable(value));
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private void recordLookup(long nanos, int found) {
+        lookupQueries.increment();
+        lookupNanos.add(nanos);
+        maxLookupNanos.accumulateAndGet(nanos, Math::max);
+        documentsFetched.add(found);
+    }
+
+    // Deep copy so conversion of one parent never touches the cached document shared with others
+    private Map<String, Object> project(Map<String, Object> source, List<String> fields) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        if (fields == null || fields.isEmpty()) {
+            for (Map.Entry<String, Object> entry : source.entrySet()) {
+                copy.put(entry.getKey(), deepCopy(entry.getValue()));
+            }
+        } else {
+            for (String field : fields) {
+                if (TransformationRuleApplier.hasPath(source, field)) {
+                    TransformationRuleApplier.setPath(copy, field, deepCopy(TransformationRuleApplier.getPath(source, field)));
+                }
+            }
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object deepCopy(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                copy.put(entry.getKey(), deepCopy(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                copy.add(deepCopy(item));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats cacheStats = cache.stats();
+        long queries = lookupQueries.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cacheSize", cache.size());
+        stats.put("cacheHits", cacheStats.hitCount());
+        stats.put("cacheMisses", cacheStats.missCount());
+        stats.put("cacheHitRatio", cacheStats.hitRate());
+        stats.put("cacheEvictions", cacheStats.evictionCount());
+        stats.put("lookupQueries", queries);
+        stats.put("documentsFetched", documentsFetched.sum());
+        stats.put("avgLookupMs", queries == 0 ? 0.0 : lookupNanos.sum() / 1_000_000.0 / queries);
+        stats.put("maxLookupMs", maxLookupNanos.get() / 1_000_000.0);
+        stats.put("referencesEmbedded", referencesEmbedded.sum());
+        stats.put("referencesUnresolved", referencesUnresolved.sum());
+        return stats;
+    }
+
+    public void logSummary(String migrationKey) {
+        logger.info("[INFO] Reference embedding for {}: {}", migrationKey, getStats());
+    }
+}
@@ -0,0 +1,79 @@
+package com.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+/**
+ * Graceful shutdown of running migrations. Stops in the first lifecycle
+ * phase, before the web server and well before any connection bean is
+ * destroyed, and within migration.shutdown.drain-timeout-ms:
+ *   1. refuses new jobs and closes queued ones,
+ *   2. suspends change streams at their resume tokens,
+ *   3. stops transfers from reading and lets batches already read be
+ *      written and checkpointed, cancelling whatever is left at the deadline,
+ *   4. forces the checkpoint log to disk.
+ * A transfer or stream started again afterwards resumes from exactly there.
+ */
+@Service
+public class ShutdownCoordinator implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShutdownCoordinator.class);
+
+    private final MigrationJobManager jobManager;
+    private final DataTransferService dataTransferService;
+    private final CheckpointService checkpointService;
+    private final long drainTimeoutMs;
+    private volatile boolean running;
+
+    public ShutdownCoordinator(MigrationJobManager jobManager,
+                               DataTransferService dataTransferService,
+                               CheckpointService checkpointService,
+                               @Value("${migration.shutdown.drain-timeout-ms:20000}") long drainTimeoutMs) {
+        this.jobManager = jobManager;
+        this.dataTransferService = dataTransferService;
+        this.checkpointService = checkpointService;
+        this.drainTimeoutMs = drainTimeoutMs;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        long startedAt = System.currentTimeMillis();
+        long deadline = startedAt + drainTimeoutMs;
+        logger.info("[INFO] Shutdown: draining migrations for up to {} ms", drainTimeoutMs);
+        try {
+            jobManager.beginShutdown();
+            dataTransferService.suspendChangeStreams(deadline);
+            boolean drained = dataTransferService.drainTransfers(deadline);
+            if (!drained) {
+                logger.warn("[WARN] Shutdown: not every transfer drained in time; they resume from their last checkpoint");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("[WARN] Shutdown drain interrupted");
+        } finally {
+            checkpointService.flush();
+            running = false;
+        }
+        logger.info("[INFO] Shutdown: migrations drained and checkpoints flushed in {} ms",
+                System.currentTimeMillis() - startedAt);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Highest phase stops first, while the API still answers status calls
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+}
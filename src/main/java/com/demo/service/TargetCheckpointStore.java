@@ -0,0 +1,145 @@
+package com.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.kv.RemoveOptions;
+import com.couchbase.client.java.kv.UpsertOptions;
+import com.demo.service.WatermarkCheckpoint.KeyRange;
+import com.demo.service.WatermarkCheckpoint.PartitionState;
+
+/**
+ * Watermark checkpoints kept as documents in the target bucket, next to the
+ * data they describe, when migration.checkpoint.store is couchbase. The SDK
+ * in use has no multi-document transactions, so data and checkpoint are
+ * ordered durable writes instead: every data upsert is acknowledged at the
+ * configured durability level before its batch reaches the checkpoint stage,
+ * and the checkpoint document is written at the same level. A checkpoint can
+ * therefore never be ahead of data that a failover could lose, and any host
+ * connected to the cluster resumes from it without local state.
+ *
+ * Documents live in a metadata collection of the target scope:
+ *   checkpoint::{checkpointId}
+ */
+@Service
+public class TargetCheckpointStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TargetCheckpointStore.class);
+
+    private final CouchbaseConnectionService couchbaseConnectionService;
+    private final boolean enabled;
+    private final String collectionName;
+    private final DurabilityLevel durability;
+    private final Map<String, Collection> collections = new ConcurrentHashMap<>();
+
+    public TargetCheckpointStore(CouchbaseConnectionService couchbaseConnectionService,
+                                 @Value("${migration.checkpoint.store:local}") String store,
+                                 @Value("${migration.checkpoint.couchbase-collection:migration_checkpoints}") String collectionName,
+                                 @Value("${migration.checkpoint.durability:MAJORITY}") String durability) {
+        if (!"local".equalsIgnoreCase(store) && !"couchbase".equalsIgnoreCase(store)) {
+            throw new IllegalArgumentException("migration.checkpoint.store must be local or couchbase, got " + store);
+        }
+        this.couchbaseConnectionService = couchbaseConnectionService;
+        this.enabled = "couchbase".equalsIgnoreCase(store);
+        this.collectionName = collectionName;
+        this.durability = DurabilityLevel.valueOf(durability.trim().toUpperCase());
+        if (enabled) {
+            logger.info("[INFO] Transfer checkpoints stored in the target bucket with durability {}", this.durability);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Level every data upsert must be acknowledged at for checkpoints to stay behind the data
+    public DurabilityLevel getDurability() {
+        return durability;
+    }
+
+    public void save(String bucketName, String scopeName, WatermarkCheckpoint checkpoint) {
+        collection(bucketName, scopeName).upsert(documentId(checkpoint.getCheckpointId()), toJson(checkpoint),
+                UpsertOptions.upsertOptions().durability(durability));
+    }
+
+    public WatermarkCheckpoint load(String bucketName, String scopeName, String checkpointId) {
+        try {
+            return fromJson(checkpointId, collection(bucketName, scopeName).get(documentId(checkpointId)).contentAsObject());
+        } catch (DocumentNotFoundException e) {
+            return null;
+        }
+    }
+
+    public void delete(String bucketName, String scopeName, String checkpointId) {
+        try {
+            collection(bucketName, scopeName).remove(documentId(checkpointId),
+                    RemoveOptions.removeOptions().durability(durability));
+            logger.info("Deleted target checkpoint: {}", checkpointId);
+        } catch (DocumentNotFoundException e) {
+            // Already gone
+        }
+    }
+
+    // Resolved per target scope on first use, creating the metadata collection if needed
+    private Collection collection(String bucketName, String scopeName) {
+        return collections.computeIfAbsent(bucketName + "." + scopeName, key -> {
+            couchbaseConnectionService.ensureCollections(bucketName, scopeName, List.of(collectionName));
+            return couchbaseConnectionService.getTargetCollection(bucketName, scopeName, collectionName);
+        });
+    }
+
+    private static String documentId(String checkpointId) {
+        return "checkpoint::" + checkpointId;
+    }
+
+    private static JsonObject toJson(WatermarkCheckpoint checkpoint) {
+        JsonArray partitions = JsonArray.create();
+        for (PartitionState partition : checkpoint.getPartitions()) {
+            JsonArray ahead = JsonArray.create();
+            for (KeyRange range : partition.completedAhead()) {
+                ahead.add(JsonObject.create().put("after", range.after()).put("last", range.last()));
+            }
+            partitions.add(JsonObject.create()
+                    .put("partitionId", partition.partitionId())
+                    .put("lowerBound", partition.lowerBound())
+                    .put("upperBound", partition.upperBound())
+                    .put("watermark", partition.watermark())
+                    .put("completedAhead", ahead));
+        }
+        return JsonObject.create()
+                .put("type", "transfer-checkpoint")
+                .put("checkpointId", checkpoint.getCheckpointId())
+                .put("transferred", checkpoint.getTransferred())
+                .put("updatedAt", System.currentTimeMillis())
+                .put("partitions", partitions);
+    }
+
+    private static WatermarkCheckpoint fromJson(String checkpointId, JsonObject json) {
+        List<PartitionState> partitions = new ArrayList<>();
+        JsonArray stored = json.getArray("partitions");
+        for (int i = 0; i < stored.size(); i++) {
+            JsonObject partition = stored.getObject(i);
+            List<KeyRange> ahead = new ArrayList<>();
+            JsonArray ranges = partition.getArray("completedAhead");
+            for (int r = 0; r < ranges.size(); r++) {
+                JsonObject range = ranges.getObject(r);
+                ahead.add(new KeyRange(range.getString("after"), range.getString("last")));
+            }
+            partitions.add(new PartitionState(partition.getInt("partitionId"), partition.getString("lowerBound"),
+                    partition.getString("upperBound"), partition.getString("watermark"), ahead));
+        }
+        return new WatermarkCheckpoint(checkpointId, json.getLong("transferred"), partitions);
+    }
+}
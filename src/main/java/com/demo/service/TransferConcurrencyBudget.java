@@ -0,0 +1,121 @@
+package com.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Read and write concurrency shared by every running transfer. A read permit
+ * covers one Mongo batch fetch; a write permit covers one upsert in flight.
+ * Without it each job sized its own parallelism, so several jobs together
+ * could overload either cluster. The semaphores are fair, so a large write
+ * request is not starved by a stream of smaller ones.
+ *
+ * Maintenance windows scale both limits by a percentage. Shrinking takes
+ * effect as in-flight permits are returned.
+ */
+@Service
+public class TransferConcurrencyBudget {
+
+    private final int baseReadLimit;
+    private final int baseWriteLimit;
+    private final ResizableSemaphore readPermits;
+    private final ResizableSemaphore writePermits;
+    private volatile int readLimit;
+    private volatile int writeLimit;
+    private volatile int scalePercent = 100;
+
+    private final LongAdder readWaitNanos = new LongAdder();
+    private final LongAdder writeWaitNanos = new LongAdder();
+
+    public TransferConcurrencyBudget(@Value("${migration.budget.read-permits:8}") int readLimit,
+                                     @Value("${migration.budget.write-permits:3000}") int writeLimit) {
+        this.baseReadLimit = Math.max(1, readLimit);
+        this.baseWriteLimit = Math.max(1, writeLimit);
+        this.readLimit = baseReadLimit;
+        this.writeLimit = baseWriteLimit;
+        this.readPermits = new ResizableSemaphore(baseReadLimit);
+        this.writePermits = new ResizableSemaphore(baseWriteLimit);
+    }
+
+    // Sets both limits to the given percentage of the configured budget, at least one permit each
+    public synchronized void scale(int percent) {
+        int bounded = Math.max(1, Math.min(100, percent));
+        int newReadLimit = Math.max(1, baseReadLimit * bounded / 100);
+        int newWriteLimit = Math.max(1, baseWriteLimit * bounded / 100);
+        readPermits.resize(newReadLimit - readLimit);
+        writePermits.resize(newWriteLimit - writeLimit);
+        readLimit = newReadLimit;
+        writeLimit = newWriteLimit;
+        scalePercent = bounded;
+    }
+
+    public int getScalePercent() {
+        return scalePercent;
+    }
+
+    public void acquireRead() throws InterruptedException {
+        long start = System.nanoTime();
+        readPermits.acquire();
+        readWaitNanos.add(System.nanoTime() - start);
+    }
+
+    public void releaseRead() {
+        readPermits.release();
+    }
+
+    /**
+     * Blocks until the permits are free and returns how many were granted,
+     * which is the request capped at the whole budget. Release exactly that many.
+     */
+    public int acquireWrite(int requested) throws InterruptedException {
+        long start = System.nanoTime();
+        while (true) {
+            // Re-capped on every attempt so a request never waits for more than a shrunk budget holds
+            int permits = Math.max(1, Math.min(requested, writeLimit));
+            if (writePermits.tryAcquire(permits, 1, TimeUnit.SECONDS)) {
+                writeWaitNanos.add(System.nanoTime() - start);
+                return permits;
+            }
+        }
+    }
+
+    public void releaseWrite(int permits) {
+        writePermits.release(permits);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("scalePercent", scalePercent);
+        stats.put("readLimit", readLimit);
+        stats.put("readInUse", readLimit - readPermits.availablePermits());
+        stats.put("readWaiting", readPermits.getQueueLength());
+        stats.put("readWaitMs", readWaitNanos.sum() / 1_000_000);
+        stats.put("writeLimit", writeLimit);
+        stats.put("writeInUse", writeLimit - writePermits.availablePermits());
+        stats.put("writeWaiting", writePermits.getQueueLength());
+        stats.put("writeWaitMs", writeWaitNanos.sum() / 1_000_000);
+        return stats;
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        private ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        private void resize(int delta) {
+            if (delta > 0) {
+                release(delta);
+            } else if (delta < 0) {
+                reducePermits(-delta);
+            }
+        }
+    }
+}
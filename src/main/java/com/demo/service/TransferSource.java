@@ -0,0 +1,24 @@
+package com.demo.service;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+
+/**
+ * What the staged pipeline reads from. MongoDataFetchService in a real
+ * transfer; recovery drills put in-process stand-ins and fault injection
+ * behind the same calls, so the retry and circuit breaker handling around
+ * them is the production code.
+ */
+public interface TransferSource {
+
+    // First limit documents matching idFilter in _id order, through the pushed-down pipeline
+    List<Map<String, Object>> fetchBatchMatching(String dbName, String collectionName,
+                                                 Document idFilter, List<Document> pipeline, int limit);
+
+    // _id values splitting the documents matching idFilter into roughly equal ranges
+    List<Object> idBoundaries(String dbName, String collectionName, Document idFilter, int partitions);
+
+    boolean hasMixedIdTypes(String dbName, String collectionName);
+}
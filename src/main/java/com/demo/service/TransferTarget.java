@@ -0,0 +1,15 @@
+package com.demo.service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * What the staged pipeline writes to: the target Couchbase collection in a
+ * real transfer, an in-process stand-in in recovery drills. Upserts must be
+ * idempotent, since a retry after an ambiguous failure writes again.
+ */
+@FunctionalInterface
+public interface TransferTarget {
+
+    // Emits the CAS of the mutation
+    Mono<Long> upsert(String id, byte[] content);
+}
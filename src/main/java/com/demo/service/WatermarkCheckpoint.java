@@ -0,0 +1,45 @@
+package com.demo.service;
+
+import java.util.List;
+
+/**
+ * Resume point of a parallel transfer. Batches of one read partition (an _id
+ * range read in _id order) finish out of order, so each partition keeps a low
+ * watermark, the _id up to which every document is written, plus the key
+ * ranges of batches already written beyond it. Resume restarts each
+ * partition after its watermark and skips those ranges: nothing is missed and
+ * only batches that were in flight are read again.
+ *
+ * Keys are extended JSON of the raw _id.
+ */
+public class WatermarkCheckpoint {
+
+    // Source keys covered by one batch: after (exclusive, null for the partition start) up to last (inclusive)
+    public record KeyRange(String after, String last) {}
+
+    public record PartitionState(int partitionId, String lowerBound, String upperBound,
+                                 String watermark, List<KeyRange> completedAhead) {}
+
+    private final String checkpointId;
+    private final long transferred;
+    private final List<PartitionState> partitions;
+
+    public WatermarkCheckpoint(String checkpointId, long transferred, List<PartitionState> partitions) {
+        this.checkpointId = checkpointId;
+        this.transferred = transferred;
+        this.partitions = partitions;
+    }
+
+    public String getCheckpointId() { return checkpointId; }
+    public long getTransferred() { return transferred; }
+    public List<PartitionState> getPartitions() { return partitions; }
+
+    @Override
+    public String toString() {
+        return "WatermarkCheckpoint{" +
+                "checkpointId='" + checkpointId + '\'' +
+                ", transferred=" + transferred +
+                ", partitions=" + partitions +
+                '}';
+    }
+}
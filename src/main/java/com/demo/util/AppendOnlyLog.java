@@ -0,0 +1,368 @@
+package com.demo.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Key/value log in a memory-mapped file. A put or delete is one record copied
+ * into the mapping, so it costs a memcpy and survives a JVM crash as soon as
+ * it returns (the page cache holds it). A background thread forces the
+ * mapping to disk every flush interval, covering all records appended since
+ * the last flush with one fsync; callers that need power-loss durability
+ * wait for that with awaitDurable.
+ *
+ * Records are [payload length][CRC32][op][key][value]. Recovery replays the
+ * file up to the first zero length or CRC mismatch, so a record torn by a
+ * crash is dropped rather than misread. When the file fills up, or is mostly
+ * superseded records, the live entries are rewritten to a new file that
+ * atomically replaces the old one.
+ */
+public class AppendOnlyLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppendOnlyLog.class);
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int HEADER_BYTES = 8;
+
+    private final Path file;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final Map<String, byte[]> live = new HashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int position;
+    private long liveBytes;
+    private long appendedSeq;
+    private volatile long durableSeq;
+    private volatile boolean closed;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private volatile long recoveredRecords;
+    private volatile long recoveryMillis;
+
+    /**
+     * Opens (or creates) the log and replays it. capacity is the initial file
+     * size; the file grows when live entries alone would fill it.
+     */
+    public AppendOnlyLog(Path file, int capacity, long flushIntervalMs, long compactIntervalMs) throws IOException {
+        this.file = file;
+        this.capacity = Math.max(4096, capacity);
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        if (Files.exists(file) && Files.size(file) > this.capacity) {
+            this.capacity = (int) Math.min(Integer.MAX_VALUE, Files.size(file));
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.capacity);
+        recover();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-flush-" + file.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushInterval = Math.max(1, flushIntervalMs);
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        if (compactIntervalMs > 0) {
+            flusher.scheduleWithFixedDelay(this::compactIfSparse, compactIntervalMs, compactIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void recover() {
+        long start = System.nanoTime();
+        int offset = 0;
+        long records = 0;
+        CRC32 crc = new CRC32();
+        while (offset + HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(offset);
+            if (length == 0) break;
+            boolean torn = length < 0 || offset + HEADER_BYTES + length > capacity;
+            byte[] payload = null;
+            if (!torn) {
+                payload = new byte[length];
+                buffer.get(offset + HEADER_BYTES, payload);
+                crc.reset();
+                crc.update(payload);
+                torn = (int) crc.getValue() != buffer.getInt(offset + 4);
+            }
+            if (torn) {
+                logger.warn("[WARN] Checkpoint log {} has a torn record at offset {}; later bytes are discarded", file, offset);
+                // Zero everything after the last good record, so records appended here are never followed by stale bytes
+                zero(offset, capacity);
+                break;
+            }
+            apply(payload);
+            offset += HEADER_BYTES + length;
+            records++;
+        }
+        position = offset;
+        recoveredRecords = records;
+        recoveryMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("[INFO] Replayed {} records ({} live) from {} in {} ms", records, live.size(), file, recoveryMillis);
+    }
+
+    private void zero(int from, int to) {
+        byte[] zeros = new byte[Math.min(64 * 1024, Math.max(0, to - from))];
+        for (int at = from; at < to; at += zeros.length) {
+            buffer.put(at, zeros, 0, Math.min(zeros.length, to - at));
+        }
+    }
+
+    private void apply(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        byte op = in.get();
+        byte[] key = new byte[in.getInt()];
+        in.get(key);
+        String name = new String(key, StandardCharsets.UTF_8);
+        byte[] previous;
+        if (op == PUT) {
+            byte[] value = new byte[in.remaining()];
+            in.get(value);
+            previous = live.put(name, value);
+            liveBytes += HEADER_BYTES + payload.length;
+        } else {
+            previous = live.remove(name);
+        }
+        if (previous != null) {
+            liveBytes -= HEADER_BYTES + 5 + key.length + previous.length;
+        }
+    }
+
+    // Live entries as of now; values are not copied and must not be modified
+    public Map<String, byte[]> snapshot() {
+        lock.lock();
+        try {
+            return new HashMap<>(live);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns the record's sequence number for awaitDurable
+    public long put(String key, byte[] value) throws IOException {
+        return append(PUT, key, value);
+    }
+
+    public long delete(String key) throws IOException {
+        return append(DELETE, key, new byte[0]);
+    }
+
+    private long append(byte op, String key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = ByteBuffer.allocate(5 + keyBytes.length + value.length)
+                .put(op).putInt(keyBytes.length).put(keyBytes).put(value).array();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        lock.lock();
+        try {
+            if (closed) throw new IOException("Log " + file + " is closed");
+            if (op == DELETE && !live.containsKey(key)) return appendedSeq;
+            int recordBytes = HEADER_BYTES + payload.length;
+            if (position + recordBytes > capacity) {
+                compact(recordBytes);
+            }
+            // Payload before the length, so a reader never sees a length without its bytes
+            buffer.put(position + HEADER_BYTES, payload);
+            buffer.putInt(position + 4, (int) crc.getValue());
+            buffer.putInt(position, payload.length);
+            position += recordBytes;
+            apply(payload);
+            appends.increment();
+            return ++appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence number has been forced
+     * to disk by a group commit.
+     */
+    public void awaitDurable(long seq) throws InterruptedException {
+        if (durableSeq >= seq) return;
+        lock.lock();
+        try {
+            while (durableSeq < seq && !closed) {
+                flushed.await(100, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Forces everything appended so far now instead of at the next group commit
+    public void force() {
+        flush();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("[ERROR] Failed to flush {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void flush() {
+        MappedByteBuffer current;
+        long seq;
+        lock.lock();
+        try {
+            if (durableSeq >= appendedSeq || closed) return;
+            current = buffer;
+            seq = appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+        // Outside the lock so appends continue during the fsync
+        current.force();
+        flushes.increment();
+        lock.lock();
+        try {
+            // A compaction in the meantime forced everything itself
+            if (seq > durableSeq) durableSeq = seq;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void compactIfSparse() {
+        lock.lock();
+        try {
+            if (!closed && position > capacity / 2 && position > 2 * liveBytes) {
+                compact(0);
+            }
+        } catch (IOException e) {
+            logger.error("[ERROR] Failed to compact {}: {}", file, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock. Rewrites live entries into a new file, growing it so room remains for the next record.
+    private void compact(int reserve) throws IOException {
+        long start = System.nanoTime();
+        long needed = liveBytes + reserve;
+        int newCapacity = capacity;
+        while (needed * 2 > newCapacity && newCapacity < Integer.MAX_VALUE / 2) {
+            newCapacity *= 2;
+        }
+        // A single mapping cannot grow further; nothing has been changed yet
+        if (needed > newCapacity) {
+            throw new IOException("Log " + file + " needs " + needed + " bytes, more than its largest capacity of "
+                    + newCapacity);
+        }
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        FileChannel newChannel = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer newBuffer = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, newCapacity);
+        int offset = 0;
+        CRC32 crc = new CRC32();
+        for (Map.Entry<String, byte[]> entry : live.entrySet()) {
+            byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] payload = ByteBuffer.allocate(5 + keyBytes.length + entry.getValue().length)
+                    .put(PUT).putInt(keyBytes.length).put(keyBytes).put(entry.getValue()).array();
+            crc.reset();
+            crc.update(payload);
+            newBuffer.put(offset + HEADER_BYTES, payload);
+            newBuffer.putInt(offset + 4, (int) crc.getValue());
+            newBuffer.putInt(offset, payload.length);
+            offset += HEADER_BYTES + payload.length;
+        }
+        newBuffer.force();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+
+        FileChannel oldChannel = channel;
+        channel = newChannel;
+        buffer = newBuffer;
+        int before = position;
+        position = offset;
+        capacity = newCapacity;
+        liveBytes = offset;
+        // Everything appended so far is in the forced file
+        durableSeq = appendedSeq;
+        flushed.signalAll();
+        oldChannel.close();
+        compactions.increment();
+        logger.info("[INFO] Compacted {} from {} to {} bytes ({} live entries, capacity {}) in {} ms",
+                file, before, offset, live.size(), newCapacity, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Makes the rename itself durable; not every platform allows opening a directory
+    private void syncDirectory() {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir == null) return;
+        try (FileChannel dirChannel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            dirChannel.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("file", file.toString());
+            stats.put("capacityBytes", capacity);
+            stats.put("usedBytes", position);
+            stats.put("liveBytes", liveBytes);
+            stats.put("liveEntries", live.size());
+            stats.put("appends", appends.sum());
+            stats.put("pendingFlush", appendedSeq - durableSeq);
+            stats.put("flushes", flushes.sum());
+            stats.put("compactions", compactions.sum());
+            stats.put("recoveredRecords", recoveredRecords);
+            stats.put("recoveryMs", recoveryMillis);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdownNow();
+        lock.lock();
+        try {
+            if (closed) return;
+            buffer.force();
+            durableSeq = appendedSeq;
+            closed = true;
+            flushed.signalAll();
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.demo.util;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+/**
+ * _id values as strings that keep their BSON type, for checkpoints and
+ * partition bounds that must be turned back into range queries. Extended
+ * JSON round-trips ObjectId, dates, numbers and strings.
+ */
+public final class BsonKeys {
+
+    private BsonKeys() {
+    }
+
+    public static String encode(Object id) {
+        return id == null ? null : new Document("v", id).toJson();
+    }
+
+    public static Object decode(String encoded) {
+        return encoded == null ? null : Document.parse(encoded).get("v");
+    }
+
+    /**
+     * Filter for _id greater than afterId (everything when null). A plain $gt
+     * only matches values of afterId's BSON type, so collections mixing _id
+     * types compare with $expr, which follows the BSON order of all types.
+     */
+    public static Document after(Object afterId, boolean mixedTypes) {
+        if (afterId == null) return new Document();
+        if (mixedTypes) {
+            return new Document("$expr", new Document("$gt", List.of("$_id", literal(afterId))));
+        }
+        return new Document("_id", new Document("$gt", afterId));
+    }
+
+    // Keeps an _id value from being read as an expression, e.g. a string starting with $
+    public static Document literal(Object value) {
+        return new Document("$literal", value);
+    }
+
+    /**
+     * Best guess at the raw _id behind a normalized id string, for checkpoints
+     * written before the typed key was recorded: 24 hex digits are taken as
+     * an ObjectId, anything else as a string.
+     */
+    public static Object fromNormalizedId(String id) {
+        if (id == null) return null;
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
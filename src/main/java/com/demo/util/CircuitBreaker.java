@@ -0,0 +1,204 @@
+package com.demo.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Closed/open/half-open breaker for one endpoint. It opens when the failure
+ * rate over the last calls crosses the threshold, or at once when a driver or
+ * SDK listener reports the endpoint down. While open, callers block in
+ * awaitPermission instead of sleeping and pinging. After the open interval,
+ * or as soon as a listener reports recovery, a single probe call is let
+ * through; its success closes the breaker and wakes every waiter immediately.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+
+    // Ring buffer of recent outcomes, true = failure
+    private final boolean[] outcomes;
+    private int outcomeIndex;
+    private int recordedCalls;
+    private int failuresInWindow;
+
+    private volatile State state = State.CLOSED;
+    private long openUntil;
+    private long probeStartedAt;
+    private boolean probeInFlight;
+    private String lastReason;
+
+    private final LongAdder timesOpened = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold, long openMillis) {
+        this.name = name;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = Math.max(1, openMillis);
+        this.outcomes = new boolean[this.windowSize];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void recordSuccess() {
+        lock.lock();
+        try {
+            record(false);
+            if (state == State.HALF_OPEN) {
+                transitionTo(State.CLOSED, "probe succeeded");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordFailure() {
+        lock.lock();
+        try {
+            record(true);
+            if (state == State.HALF_OPEN) {
+                open("probe failed");
+            } else if (state == State.CLOSED && recordedCalls >= minimumCalls
+                    && failuresInWindow * 100.0 / recordedCalls >= failureRateThreshold) {
+                open(String.format("failure rate %.0f%% over %d calls", failuresInWindow * 100.0 / recordedCalls, recordedCalls));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Listener reported the endpoint unreachable
+    public void forceOpen(String reason) {
+        lock.lock();
+        try {
+            if (state != State.OPEN) {
+                open(reason);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Listener reported the endpoint reachable again: probe right away instead of waiting out the interval
+    public void signalRecovery(String reason) {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                transitionTo(State.HALF_OPEN, reason);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until a call may proceed. Returns false when stopRequested turns
+     * true while waiting. A caller admitted in half-open state is the probe and
+     * must report its outcome.
+     */
+    public boolean awaitPermission(BooleanSupplier stopRequested) throws InterruptedException {
+        if (state == State.CLOSED) return true;
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.currentTimeMillis();
+                if (state == State.OPEN && now >= openUntil) {
+                    transitionTo(State.HALF_OPEN, "open interval elapsed");
+                }
+                if (state == State.CLOSED) return true;
+                // A probe that never reported back (e.g. its job stopped) is replaced
+                if (state == State.HALF_OPEN && (!probeInFlight || now - probeStartedAt > openMillis)) {
+                    probeInFlight = true;
+                    probeStartedAt = now;
+                    return true;
+                }
+                if (stopRequested.getAsBoolean()) return false;
+                long waitMs = state == State.OPEN ? Math.min(openUntil - now, 250) : 250;
+                stateChanged.await(Math.max(1, waitMs), TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+            blockedNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == windowSize) {
+            if (outcomes[outcomeIndex]) failuresInWindow--;
+        } else {
+            recordedCalls++;
+        }
+        outcomes[outcomeIndex] = failure;
+        if (failure) failuresInWindow++;
+        outcomeIndex = (outcomeIndex + 1) % windowSize;
+    }
+
+    private void open(String reason) {
+        openUntil = System.currentTimeMillis() + openMillis;
+        timesOpened.increment();
+        transitionTo(State.OPEN, reason);
+    }
+
+    private void transitionTo(State next, String reason) {
+        State previous = state;
+        state = next;
+        lastReason = reason;
+        probeInFlight = false;
+        if (next == State.CLOSED) {
+            // Start a fresh window so old failures do not reopen it at once
+            recordedCalls = 0;
+            failuresInWindow = 0;
+            outcomeIndex = 0;
+        }
+        if (next == State.OPEN) {
+            logger.warn("[WARN] Circuit {} {} -> {}: {}", name, previous, next, reason);
+        } else {
+            logger.info("[INFO] Circuit {} {} -> {}: {}", name, previous, next, reason);
+        }
+        stateChanged.signalAll();
+    }
+
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("name", name);
+            stats.put("state", state.name());
+            stats.put("failureRate", recordedCalls == 0 ? 0.0 : failuresInWindow * 100.0 / recordedCalls);
+            stats.put("recordedCalls", recordedCalls);
+            stats.put("timesOpened", timesOpened.sum());
+            stats.put("blockedMs", blockedNanos.sum() / 1_000_000);
+            stats.put("lastTransition", lastReason);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
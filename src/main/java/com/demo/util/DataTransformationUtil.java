@@ -9,6 +9,7 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 @Component
 
@@ -18,11 +19,19 @@ public class DataTransformationUtil {
         DateTimeFormatter.ISO_INSTANT.withZone(ZoneId.systemDefault());
 
     public static void convertMongoTypes(Map<String, Object> document) {
+        convertMongoTypes(document, null);
+    }
+
+    /**
+     * Same conversion, but Binary values are first offered to binaryHandler;
+     * a non-null result replaces the inline base64 encoding.
+     */
+    public static void convertMongoTypes(Map<String, Object> document, Function<Binary, Object> binaryHandler) {
         if (document == null) return;
         
         for (Map.Entry<String, Object> entry : document.entrySet()) {
             Object value = entry.getValue();
-            Object convertedValue = convertValue(value);
+            Object convertedValue = convertValue(value, binaryHandler);
             
             if (convertedValue != value) {
                 document.put(entry.getKey(), convertedValue);
@@ -30,7 +39,7 @@ public class DataTransformationUtil {
         }
     }
 
-    private static Object convertValue(Object value) {
+    private static Object convertValue(Object value, Function<Binary, Object> binaryHandler) {
         if (value == null) {
             return null;
         }
@@ -44,6 +53,12 @@ public class DataTransformationUtil {
             return value.toString();
         }
         else if (value instanceof Binary) {
+            if (binaryHandler != null) {
+                Object replacement = binaryHandler.apply((Binary) value);
+                if (replacement != null) {
+                    return replacement;
+                }
+            }
             // Convert Binary to Base64 string
             return Base64.getEncoder().encodeToString(((Binary) value).getData());
         }
@@ -59,14 +74,14 @@ public class DataTransformationUtil {
             // Recursively process nested maps
             @SuppressWarnings("unchecked")
             Map<String, Object> mapValue = (Map<String, Object>) value;
-            convertMongoTypes(mapValue);
+            convertMongoTypes(mapValue, binaryHandler);
             return mapValue;
         }
         else if (value instanceof List) {
             // Process lists that might contain convertible types
             List<Object> newList = new ArrayList<>();
             for (Object item : (List<?>) value) {
-                newList.add(convertValue(item));
+                newList.add(convertValue(item, binaryHandler));
             }
             return newList;
         }
@@ -74,7 +89,7 @@ public class DataTransformationUtil {
             // Handle other iterable types
             List<Object> newList = new ArrayList<>();
             for (Object item : (Iterable<?>) value) {
-                newList.add(convertValue(item));
+                newList.add(convertValue(item, binaryHandler));
             }
             return newList;
         }
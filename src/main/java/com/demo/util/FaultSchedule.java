@@ -0,0 +1,128 @@
+package com.demo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.demo.dto.FaultSpec;
+
+/**
+ * Faults of a recovery drill on a timeline starting at start(). Each call to
+ * an injecting endpoint asks next() which fault, if any, hits it; PARTIAL
+ * faults hit a random share of calls, drawn from a seeded generator so a
+ * drill with the same seed injects the same way. Overlapping faults on one
+ * endpoint resolve to the first listed.
+ */
+public class FaultSchedule {
+
+    public enum Type { TIMEOUT, DISCONNECT, SLOW, PARTIAL }
+
+    public enum Endpoint { SOURCE, TARGET }
+
+    // One scheduled fault and the calls it has hit so far
+    public static final class Fault {
+        private final int index;
+        private final Type type;
+        private final Endpoint endpoint;
+        private final long startMs;
+        private final long endMs;
+        private final long latencyMs;
+        private final double failureRate;
+        private final LongAdder injected = new LongAdder();
+        private volatile long firstInjectedMs = -1;
+
+        private Fault(int index, FaultSpec spec) {
+            this.index = index;
+            this.type = parse(Type.class, spec.getType(), "type");
+            this.endpoint = parse(Endpoint.class, spec.getEndpoint(), "endpoint");
+            this.startMs = spec.getStartMs();
+            this.endMs = spec.getEndMs();
+            this.latencyMs = spec.getLatencyMs();
+            this.failureRate = spec.getFailureRate();
+        }
+
+        public int getIndex() { return index; }
+        public Type getType() { return type; }
+        public Endpoint getEndpoint() { return endpoint; }
+        public long getStartMs() { return startMs; }
+        public long getEndMs() { return endMs; }
+        public long getLatencyMs() { return latencyMs; }
+        public double getFailureRate() { return failureRate; }
+        public long getInjected() { return injected.sum(); }
+
+        // -1 when no call was hit
+        public long getFirstInjectedMs() { return firstInjectedMs; }
+
+        private void record(long atMs) {
+            if (firstInjectedMs < 0) firstInjectedMs = atMs;
+            injected.increment();
+        }
+    }
+
+    private final List<Fault> faults;
+    private final Random random;
+    private volatile long startedAt;
+
+    private FaultSchedule(List<Fault> faults, long seed) {
+        this.faults = faults;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Validates every spec before any is scheduled; throws
+     * IllegalArgumentException naming the first bad one.
+     */
+    public static FaultSchedule of(List<FaultSpec> specs, long seed) {
+        List<Fault> faults = new ArrayList<>();
+        if (specs != null) {
+            for (FaultSpec spec : specs) {
+                if (spec == null) throw new IllegalArgumentException("Fault " + faults.size() + " is empty");
+                if (spec.getStartMs() < 0 || spec.getDurationMs() <= 0) {
+                    throw new IllegalArgumentException("Fault " + faults.size() + " needs startMs >= 0 and durationMs > 0");
+                }
+                if (spec.getLatencyMs() < 0) {
+                    throw new IllegalArgumentException("Fault " + faults.size() + " has a negative latencyMs");
+                }
+                if (spec.getFailureRate() < 0 || spec.getFailureRate() > 1) {
+                    throw new IllegalArgumentException("Fault " + faults.size() + " failureRate must be between 0 and 1");
+                }
+                faults.add(new Fault(faults.size(), spec));
+            }
+        }
+        return new FaultSchedule(List.copyOf(faults), seed);
+    }
+
+    public void start() {
+        startedAt = System.nanoTime();
+    }
+
+    public long elapsedMs() {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+
+    // The fault hitting this call to endpoint, or null when it goes through untouched
+    public Fault next(Endpoint endpoint) {
+        long now = elapsedMs();
+        for (Fault fault : faults) {
+            if (fault.endpoint != endpoint || now < fault.startMs || now >= fault.endMs) continue;
+            if (fault.type == Type.PARTIAL && random.nextDouble() >= fault.failureRate) continue;
+            fault.record(now);
+            return fault;
+        }
+        return null;
+    }
+
+    public List<Fault> getFaults() {
+        return faults;
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String field) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Unknown fault " + field + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.demo.util;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streams documents as JSON straight into one exact-size byte array instead
+ * of building a JsonObject tree first. The SDK's KV encoder only accepts
+ * byte arrays, so that array is what the upsert sends; Jackson recycles its
+ * scratch segments per thread, so nothing else is allocated per document.
+ * Each {@link EncodedDocument} counts as outstanding until it is closed,
+ * which callers do once the KV write has completed.
+ */
+@Component
+public class JsonDocumentWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonDocumentWriter.class);
+
+    private final ObjectMapper objectMapper;
+
+    private final LongAdder encoded = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+    private final LongAdder encodeFailures = new LongAdder();
+    private final AtomicLong outstandingDocuments = new AtomicLong();
+    private final AtomicLong outstandingBytes = new AtomicLong();
+    private final AtomicLong largestDocument = new AtomicLong();
+
+    public JsonDocumentWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        logger.info("[INFO] JSON document writer ready");
+    }
+
+    /**
+     * Encodes an already converted document (see DataTransformationUtil).
+     * The caller owns the returned handle and must close it.
+     */
+    public EncodedDocument encode(Map<String, Object> document) throws IOException {
+        byte[] content;
+        try {
+            content = objectMapper.writeValueAsBytes(document);
+        } catch (IOException | RuntimeException e) {
+            encodeFailures.increment();
+            throw e;
+        }
+        encoded.increment();
+        encodedBytes.add(content.length);
+        outstandingDocuments.incrementAndGet();
+        outstandingBytes.addAndGet(content.length);
+        largestDocument.accumulateAndGet(content.length, Math::max);
+        return new EncodedDocument(content);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long count = encoded.sum();
+        stats.put("encoded", count);
+        stats.put("released", released.sum());
+        stats.put("outstandingDocuments", outstandingDocuments.get());
+        stats.put("outstandingBytes", outstandingBytes.get());
+        stats.put("encodedBytes", encodedBytes.sum());
+        stats.put("averageDocumentBytes", count == 0 ? 0 : encodedBytes.sum() / count);
+        stats.put("largestDocumentBytes", largestDocument.get());
+        stats.put("encodeFailures", encodeFailures.sum());
+        return stats;
+    }
+
+    /**
+     * One encoded document, held until its write completes.
+     */
+    public final class EncodedDocument implements AutoCloseable {
+        private final byte[] content;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private EncodedDocument(byte[] content) {
+            this.content = content;
+        }
+
+        public int size() {
+            return content.length;
+        }
+
+        // The same array is sent on every retry of the write
+        public byte[] content() {
+            return content;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                released.increment();
+                outstandingDocuments.decrementAndGet();
+                outstandingBytes.addAndGet(-content.length);
+            }
+        }
+    }
+}
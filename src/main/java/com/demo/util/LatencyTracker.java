@@ -0,0 +1,50 @@
+package com.demo.util;
+
+import java.util.Arrays;
+
+/**
+ * Percentiles of the most recent latencies, kept in a fixed ring. Writers
+ * only store into the ring; the percentile is recomputed from a copy once an
+ * eighth of the ring has been replaced, so asking for it on every call stays
+ * cheap. Concurrent writers may overwrite each other's slot, which only
+ * drops a sample.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private final int minSamples;
+    private long recorded; // racy on purpose, see above
+    private volatile double cachedPercentile = -1;
+    private volatile long cachedNanos = -1;
+    private volatile long cachedAt = -1;
+
+    public LatencyTracker(int window, int minSamples) {
+        this.samples = new long[Math.max(window, 8)];
+        this.minSamples = Math.max(minSamples, 1);
+    }
+
+    public void record(long nanos) {
+        long index = recorded++;
+        samples[(int) (index % samples.length)] = nanos;
+    }
+
+    public long getRecorded() {
+        return recorded;
+    }
+
+    // Nanoseconds at or below which percentile % of recent samples fall; -1 until minSamples were recorded
+    public long percentileNanos(double percentile) {
+        long count = recorded;
+        if (count < minSamples) return -1;
+        if (percentile == cachedPercentile && count - cachedAt < samples.length / 8) return cachedNanos;
+        int size = (int) Math.min(count, samples.length);
+        long[] copy = Arrays.copyOf(samples, size);
+        Arrays.sort(copy);
+        int rank = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        long nanos = copy[Math.min(Math.max(rank, 0), size - 1)];
+        cachedNanos = nanos;
+        cachedPercentile = percentile;
+        cachedAt = count;
+        return nanos;
+    }
+}
@@ -0,0 +1,71 @@
+package com.demo.util;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counting semaphore whose limit can change while it is held. Lowering the
+ * limit never interrupts current holders; it only makes new acquirers wait
+ * until enough of them have released.
+ */
+public class ResizableLimit {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private int limit;
+    private int inUse;
+
+    public ResizableLimit(int limit) {
+        this.limit = Math.max(1, limit);
+    }
+
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inUse >= limit) {
+                available.await();
+            }
+            inUse++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            inUse--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setLimit(int limit) {
+        lock.lock();
+        try {
+            this.limit = Math.max(1, limit);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInUse() {
+        lock.lock();
+        try {
+            return inUse;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
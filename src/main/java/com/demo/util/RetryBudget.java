@@ -0,0 +1,95 @@
+package com.demo.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps one job's retries at a fraction of its requests. Every first attempt
+ * deposits ratio tokens, every retry (or hedge) spends a whole one, and the
+ * balance never exceeds reserve. While writes succeed the balance sits at
+ * reserve; once the target starts failing everything, retries get the
+ * reserve and then ratio per request, instead of multiplying the load by the
+ * retry count. A retry refused here fails the write at once. A ratio at
+ * or above the per-write retry limit never refuses once the reserve is full.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000; // balance is kept in thousandths of a token
+
+    private final AtomicLong balance;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder spent = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private volatile long deposit;
+    private volatile long capacity;
+    private volatile double ratio;
+
+    public RetryBudget(double ratio, int reserve) {
+        update(ratio, reserve);
+        this.balance = new AtomicLong(capacity);
+    }
+
+    public static void validate(double ratio, int reserve) {
+        if (ratio < 0) {
+            throw new IllegalArgumentException("Retry budget ratio must not be negative, got " + ratio);
+        }
+        if (reserve < 0) {
+            throw new IllegalArgumentException("Retry budget reserve must not be negative, got " + reserve);
+        }
+    }
+
+    public void update(double ratio, int reserve) {
+        validate(ratio, reserve);
+        this.ratio = ratio;
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = reserve * SCALE;
+    }
+
+    public void recordRequest() {
+        requests.increment();
+        long cap = capacity;
+        long current;
+        do {
+            current = balance.get();
+            if (current >= cap) return;
+        } while (!balance.compareAndSet(current, Math.min(cap, current + deposit)));
+    }
+
+    // Takes one token for a retry or hedge; false when the budget is spent
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                refused.increment();
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        spent.increment();
+        return true;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getRefused() {
+        return refused.sum();
+    }
+
+    public Map<String, Object> getStats() {
+        long requestCount = requests.sum();
+        long spentCount = spent.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ratio", ratio);
+        stats.put("reserve", capacity / SCALE);
+        stats.put("available", balance.get() / SCALE);
+        stats.put("requests", requestCount);
+        stats.put("retries", spentCount);
+        stats.put("refused", refused.sum());
+        stats.put("retryRate", requestCount > 0 ? (double) spentCount / requestCount : 0.0);
+        return stats;
+    }
+}
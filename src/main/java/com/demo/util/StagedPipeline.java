@@ -0,0 +1,314 @@
+package com.demo.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SEDA-style pipeline: each stage owns a bounded input queue and a fixed pool
+ * of worker threads, so a slow stage fills its queue and back-pressures the
+ * ones before it. Per-stage queue depth, busy time and throughput show where
+ * a running migration spends its time.
+ *
+ * Callers submit source items, then always call finish() and await(). A stage
+ * function returning null drops the item. After a failure or cancel() the
+ * remaining items are discarded (AutoCloseable items are closed) while the end
+ * marker still flows through every stage, so await() always returns.
+ */
+public class StagedPipeline<I> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagedPipeline.class);
+
+    private static final Object END = new Object();
+
+    @FunctionalInterface
+    public interface StageFunction<T, R> {
+        R apply(T item) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface StageConsumer<T> {
+        void accept(T item) throws Exception;
+    }
+
+    // Items carrying several documents report their size so stages can show documents/s
+    public interface Sized {
+        int size();
+    }
+
+    public enum State { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final String name;
+    private final Function<String, ThreadFactory> threadFactories;
+    private final List<Stage> stages = new ArrayList<>();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final long startedNanos = System.nanoTime();
+    private volatile long finishedNanos;
+    private volatile State state = State.RUNNING;
+
+    private StagedPipeline(String name, Function<String, ThreadFactory> threadFactories) {
+        this.name = name;
+        this.threadFactories = threadFactories;
+    }
+
+    public static <I> Builder<I, I> builder(String name, int queueCapacity) {
+        return builder(name, queueCapacity, ThreadFactories::platform);
+    }
+
+    /**
+     * Stage workers come from threadFactories, called once per stage with the
+     * thread name prefix.
+     */
+    public static <I> Builder<I, I> builder(String name, int queueCapacity, Function<String, ThreadFactory> threadFactories) {
+        return new Builder<>(name, Math.max(1, queueCapacity), threadFactories, new ArrayList<>());
+    }
+
+    private record StageSpec(String name, int parallelism, StageFunction<Object, Object> function) {}
+
+    public static final class Builder<I, T> {
+        private final String name;
+        private final int queueCapacity;
+        private final Function<String, ThreadFactory> threadFactories;
+        private final List<StageSpec> specs;
+
+        private Builder(String name, int queueCapacity, Function<String, ThreadFactory> threadFactories, List<StageSpec> specs) {
+            this.name = name;
+            this.queueCapacity = queueCapacity;
+            this.threadFactories = threadFactories;
+            this.specs = specs;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <R> Builder<I, R> stage(String stageName, int parallelism, StageFunction<? super T, ? extends R> function) {
+            specs.add(new StageSpec(stageName, Math.max(1, parallelism), (StageFunction<Object, Object>) function));
+            return new Builder<>(name, queueCapacity, threadFactories, specs);
+        }
+
+        /**
+         * Adds the last stage and starts every worker thread.
+         */
+        @SuppressWarnings("unchecked")
+        public StagedPipeline<I> sink(String stageName, int parallelism, StageConsumer<? super T> consumer) {
+            StageConsumer<Object> sink = (StageConsumer<Object>) consumer;
+            specs.add(new StageSpec(stageName, Math.max(1, parallelism), item -> {
+                sink.accept(item);
+                return null;
+            }));
+
+            StagedPipeline<I> pipeline = new StagedPipeline<>(name, threadFactories);
+            for (StageSpec spec : specs) {
+                pipeline.stages.add(pipeline.new Stage(spec, queueCapacity));
+            }
+            for (int i = 0; i < pipeline.stages.size() - 1; i++) {
+                pipeline.stages.get(i).next = pipeline.stages.get(i + 1);
+            }
+            pipeline.stages.forEach(stage -> stage.start());
+            return pipeline;
+        }
+    }
+
+    /**
+     * Blocks while the first stage's queue is full. Returns false once the
+     * pipeline has failed or was cancelled; the item is then discarded.
+     */
+    public boolean submit(I item) throws InterruptedException {
+        if (state != State.RUNNING) {
+            discard(item);
+            return false;
+        }
+        stages.get(0).input.put(item);
+        return true;
+    }
+
+    public void finish() throws InterruptedException {
+        stages.get(0).input.put(END);
+    }
+
+    /**
+     * Waits for the last stage to drain. Rethrows the first stage failure.
+     */
+    public void await() throws InterruptedException {
+        finished.await();
+        Throwable error = failure.get();
+        if (error != null) {
+            throw new IllegalStateException("Pipeline " + name + " failed: " + error.getMessage(), error);
+        }
+    }
+
+    public void cancel() {
+        if (state == State.RUNNING) {
+            state = State.CANCELLED;
+            logger.info("[INFO] Pipeline {} cancelled", name);
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private void fail(String stageName, Throwable error) {
+        if (failure.compareAndSet(null, error)) {
+            state = State.FAILED;
+            logger.error("[ERROR] Pipeline {} failed in stage {}: {}", name, stageName, error.getMessage());
+        }
+    }
+
+    private void complete() {
+        if (state == State.RUNNING) {
+            state = State.COMPLETED;
+        }
+        finishedNanos = System.nanoTime();
+        finished.countDown();
+    }
+
+    private static void discard(Object item) {
+        if (item instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) item).close();
+            } catch (Exception e) {
+                logger.warn("[WARN] Failed to release discarded pipeline item: {}", e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        long elapsedNanos = (finishedNanos != 0 ? finishedNanos : System.nanoTime()) - startedNanos;
+        double elapsedSeconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pipeline", name);
+        metrics.put("state", state.name());
+        metrics.put("elapsedMs", elapsedNanos / 1_000_000);
+
+        List<Map<String, Object>> stageMetrics = new ArrayList<>();
+        String bottleneck = null;
+        double highestUtilization = -1;
+        for (Stage stage : stages) {
+            double utilization = (double) stage.busyNanos.sum() / ((double) stage.parallelism * Math.max(elapsedNanos, 1));
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("stage", stage.name);
+            m.put("parallelism", stage.parallelism);
+            m.put("queueDepth", stage.input.size());
+            m.put("queueCapacity", stage.capacity);
+            m.put("processed", stage.processed.sum());
+            m.put("documents", stage.documents.sum());
+            m.put("busyMs", stage.busyNanos.sum() / 1_000_000);
+            m.put("utilization", utilization);
+            m.put("itemsPerSec", stage.processed.sum() / elapsedSeconds);
+            m.put("documentsPerSec", stage.documents.sum() / elapsedSeconds);
+            stageMetrics.add(m);
+            if (utilization > highestUtilization) {
+                highestUtilization = utilization;
+                bottleneck = stage.name;
+            }
+        }
+        metrics.put("stages", stageMetrics);
+        // The stage whose workers are busiest relative to their count limits throughput
+        metrics.put("bottleneck", bottleneck);
+        return metrics;
+    }
+
+    private final class Stage {
+        private final String name;
+        private final int parallelism;
+        private final int capacity;
+        private final StageFunction<Object, Object> function;
+        private final BlockingQueue<Object> input;
+        private final ExecutorService workers;
+        private final AtomicInteger liveWorkers;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder documents = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private Stage next;
+
+        private Stage(StageSpec spec, int capacity) {
+            this.name = spec.name();
+            this.parallelism = spec.parallelism();
+            this.capacity = capacity;
+            this.function = spec.function();
+            this.input = new ArrayBlockingQueue<>(capacity);
+            this.liveWorkers = new AtomicInteger(parallelism);
+            String threadPrefix = StagedPipeline.this.name + "-" + name + "-";
+            this.workers = Executors.newFixedThreadPool(parallelism, threadFactories.apply(threadPrefix));
+        }
+
+        private void start() {
+            for (int i = 0; i < parallelism; i++) {
+                workers.execute(this::run);
+            }
+        }
+
+        private void run() {
+            try {
+                while (true) {
+                    Object item = input.take();
+                    if (item == END) {
+                        // Upstream is done, so the slot just freed is always available for the siblings' copy
+                        input.put(END);
+                        break;
+                    }
+                    if (state != State.RUNNING) {
+                        discard(item);
+                        continue;
+                    }
+
+                    Object result;
+                    long start = System.nanoTime();
+                    try {
+                        result = function.apply(item);
+                    } catch (Throwable t) {
+                        fail(name, t);
+                        discard(item);
+                        continue;
+                    } finally {
+                        busyNanos.add(System.nanoTime() - start);
+                    }
+                    processed.increment();
+                    documents.add(item instanceof Sized ? ((Sized) item).size() : 1);
+
+                    if (result != null && next != null) {
+                        next.input.put(result);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(name, e);
+            } finally {
+                // The last worker out passes the end marker on
+                if (liveWorkers.decrementAndGet() == 0) {
+                    // Left behind by an interrupt; release them like any other discarded item
+                    List<Object> leftover = new ArrayList<>();
+                    input.drainTo(leftover);
+                    for (Object item : leftover) {
+                        if (item != END) discard(item);
+                    }
+                    if (next != null) {
+                        try {
+                            next.input.put(END);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    } else {
+                        complete();
+                    }
+                    workers.shutdown();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.demo.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.demo.dto.ThrottleSettings;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.TokensInheritanceStrategy;
+
+/**
+ * Token-bucket throttle of one job's reader and writer, in documents and
+ * bytes per second. Buckets refill continuously and hold at most a tenth of a
+ * second of tokens, so a limited job runs at an even rate instead of in
+ * bursts. Settings can be replaced while the job runs.
+ *
+ * In finish-by pacing mode the document rate is recomputed every few seconds
+ * as remaining documents / time left.
+ */
+public class TransferThrottle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferThrottle.class);
+
+    private static final long REPACE_INTERVAL_MS = 5000;
+
+    private final LongSupplier remainingDocuments;
+    private final Limit readDocs = new Limit();
+    private final Limit readBytes = new Limit();
+    private final Limit writeDocs = new Limit();
+    private final Limit writeBytes = new Limit();
+
+    private volatile ThrottleSettings settings = new ThrottleSettings();
+    private volatile Instant finishBy;
+    private volatile long pacedDocsPerSecond;
+    private volatile long lastPacedAt;
+    private volatile boolean deadlineWarned;
+
+    public TransferThrottle(LongSupplier remainingDocuments) {
+        this.remainingDocuments = remainingDocuments;
+    }
+
+    public static void validate(ThrottleSettings settings) {
+        if (settings == null) return;
+        if (settings.getReadDocsPerSecond() < 0 || settings.getReadBytesPerSecond() < 0
+                || settings.getWriteDocsPerSecond() < 0 || settings.getWriteBytesPerSecond() < 0) {
+            throw new IllegalArgumentException("Throttle rates must not be negative: " + settings);
+        }
+        parseFinishBy(settings.getFinishBy());
+    }
+
+    private static Instant parseFinishBy(String finishBy) {
+        if (finishBy == null || finishBy.isBlank()) return null;
+        try {
+            return Instant.parse(finishBy);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("finishBy must be an ISO-8601 instant: " + finishBy);
+        }
+    }
+
+    public synchronized void update(ThrottleSettings newSettings) {
+        validate(newSettings);
+        this.settings = newSettings != null ? newSettings : new ThrottleSettings();
+        this.finishBy = parseFinishBy(settings.getFinishBy());
+        this.deadlineWarned = false;
+        this.pacedDocsPerSecond = 0;
+        this.lastPacedAt = 0;
+        applyRates();
+        logger.info("[INFO] Throttle set to {}", settings);
+    }
+
+    public ThrottleSettings getSettings() {
+        return settings;
+    }
+
+    public boolean limitsReadBytes() {
+        return readBytes.rate > 0;
+    }
+
+    /**
+     * Blocks until the reader may fetch the given number of documents and
+     * (estimated) bytes. Unused tokens can be handed back with refundRead.
+     */
+    public void acquireRead(long documents, long bytes) throws InterruptedException {
+        repaceIfDue();
+        readDocs.consume(documents);
+        readBytes.consume(bytes);
+    }
+
+    public void refundRead(long documents, long bytes) {
+        readDocs.refund(documents);
+        readBytes.refund(bytes);
+    }
+
+    public void acquireWrite(long documents, long bytes) throws InterruptedException {
+        repaceIfDue();
+        writeDocs.consume(documents);
+        writeBytes.consume(bytes);
+    }
+
+    private void repaceIfDue() {
+        if (finishBy == null || System.currentTimeMillis() - lastPacedAt < REPACE_INTERVAL_MS) return;
+        synchronized (this) {
+            if (finishBy == null || System.currentTimeMillis() - lastPacedAt < REPACE_INTERVAL_MS) return;
+            lastPacedAt = System.currentTimeMillis();
+            long secondsLeft = Duration.between(Instant.now(), finishBy).toSeconds();
+            long remaining = Math.max(0, remainingDocuments.getAsLong());
+            if (secondsLeft <= 0) {
+                // Past the deadline pacing no longer limits; explicit limits still apply
+                if (!deadlineWarned) {
+                    logger.warn("[WARN] Finish-by deadline {} passed with {} documents remaining", finishBy, remaining);
+                    deadlineWarned = true;
+                }
+                pacedDocsPerSecond = 0;
+            } else {
+                pacedDocsPerSecond = Math.max(1, (remaining + secondsLeft - 1) / secondsLeft);
+            }
+            applyRates();
+        }
+    }
+
+    private void applyRates() {
+        readDocs.setRate(effective(settings.getReadDocsPerSecond(), pacedDocsPerSecond));
+        readBytes.setRate(settings.getReadBytesPerSecond());
+        writeDocs.setRate(effective(settings.getWriteDocsPerSecond(), pacedDocsPerSecond));
+        writeBytes.setRate(settings.getWriteBytesPerSecond());
+    }
+
+    // The lower of two limits, where zero is unlimited
+    private static long effective(long configured, long paced) {
+        if (configured <= 0) return paced;
+        if (paced <= 0) return configured;
+        if (paced > configured) {
+            logger.warn("[WARN] Pacing needs {} docs/s but the limit is {} docs/s; the deadline will be missed", paced, configured);
+        }
+        return Math.min(configured, paced);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("readDocsPerSecond", readDocs.rate);
+        stats.put("readBytesPerSecond", readBytes.rate);
+        stats.put("writeDocsPerSecond", writeDocs.rate);
+        stats.put("writeBytesPerSecond", writeBytes.rate);
+        stats.put("finishBy", finishBy != null ? finishBy.toString() : null);
+        stats.put("pacedDocsPerSecond", pacedDocsPerSecond);
+        stats.put("readThrottledMs", (readDocs.waitNanos.sum() + readBytes.waitNanos.sum()) / 1_000_000);
+        stats.put("writeThrottledMs", (writeDocs.waitNanos.sum() + writeBytes.waitNanos.sum()) / 1_000_000);
+        return stats;
+    }
+
+    private static final class Limit {
+        private volatile long rate;
+        private volatile long capacity;
+        private volatile Bucket bucket;
+        private final LongAdder waitNanos = new LongAdder();
+
+        private synchronized void setRate(long newRate) {
+            if (newRate == rate) return;
+            rate = newRate;
+            if (newRate <= 0) {
+                bucket = null;
+                return;
+            }
+            capacity = Math.max(1, newRate / 10);
+            Bandwidth bandwidth = Bandwidth.classic(capacity, Refill.greedy(newRate, Duration.ofSeconds(1)));
+            if (bucket == null) {
+                bucket = Bucket.builder().addLimit(bandwidth).build();
+            } else {
+                bucket.replaceConfiguration(BucketConfiguration.builder().addLimit(bandwidth).build(),
+                        TokensInheritanceStrategy.PROPORTIONALLY);
+            }
+        }
+
+        // Takes the tokens in capacity-sized chunks so requests larger than the bucket still pass
+        private void consume(long tokens) throws InterruptedException {
+            Bucket current = bucket;
+            if (current == null || tokens <= 0) return;
+            long start = System.nanoTime();
+            long remaining = tokens;
+            while (remaining > 0) {
+                long chunk = Math.min(remaining, capacity);
+                current.asBlocking().consume(chunk);
+                remaining -= chunk;
+            }
+            waitNanos.add(System.nanoTime() - start);
+        }
+
+        private void refund(long tokens) {
+            Bucket current = bucket;
+            if (current != null && tokens > 0) {
+                current.addTokens(tokens);
+            }
+        }
+    }
+}
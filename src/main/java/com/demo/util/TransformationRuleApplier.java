@@ -0,0 +1,139 @@
+package com.demo.util;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import com.demo.dto.TransformationRule;
+
+/**
+ * Applies the transformation rules that were not pushed down into the Mongo
+ * aggregation pipeline. Runs on the raw document, before DataTransformationUtil.
+ * Casts that fail leave the value untouched, matching $convert with onError.
+ */
+public class TransformationRuleApplier {
+
+    private static final Set<String> JAVA_CAST_TYPES =
+            Set.of("string", "int", "long", "double", "decimal", "bool", "date", "objectId");
+
+    public static boolean supportsCast(String targetType) {
+        return JAVA_CAST_TYPES.contains(targetType);
+    }
+
+    public static void apply(Map<String, Object> document, List<TransformationRule> rules) {
+        if (document == null || rules == null || rules.isEmpty()) return;
+
+        for (TransformationRule rule : rules) {
+            switch (rule.getType().toUpperCase(Locale.ROOT)) {
+                case "SET" -> setPath(document, rule.getField(), rule.getValue());
+                case "UNSET" -> removePath(document, rule.getField());
+                case "RENAME" -> {
+                    if (hasPath(document, rule.getField())) {
+                        setPath(document, rule.getTarget(), removePath(document, rule.getField()));
+                    }
+                }
+                case "CAST" -> {
+                    if (hasPath(document, rule.getField())) {
+                        Object value = getPath(document, rule.getField());
+                        setPath(document, rule.getField(), cast(value, rule.getTargetType()));
+                    }
+                }
+                default -> throw new IllegalArgumentException("Rule cannot run in Java: " + rule.describe());
+            }
+        }
+    }
+
+    private static Object cast(Object value, String targetType) {
+        if (value == null) return null;
+        try {
+            switch (targetType) {
+                case "string":
+                    return value instanceof Date ? ((Date) value).toInstant().toString() : value.toString();
+                case "int":
+                    return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString().trim());
+                case "long":
+                    if (value instanceof Date) return ((Date) value).getTime();
+                    return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString().trim());
+                case "double":
+                    return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString().trim());
+                case "decimal":
+                    if (value instanceof Decimal128) return value;
+                    return new Decimal128(new BigDecimal(value.toString().trim()));
+                case "bool":
+                    if (value instanceof Boolean) return value;
+                    if (value instanceof Number) return ((Number) value).doubleValue() != 0;
+                    return Boolean.parseBoolean(value.toString().trim());
+                case "date":
+                    if (value instanceof Date) return value;
+                    if (value instanceof Number) return new Date(((Number) value).longValue());
+                    return Date.from(Instant.parse(value.toString().trim()));
+                case "objectId":
+                    if (value instanceof ObjectId) return value;
+                    return new ObjectId(value.toString().trim());
+                default:
+                    return value;
+            }
+        } catch (RuntimeException e) {
+            return value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static boolean hasPath(Map<String, Object> document, String path) {
+        String[] parts = path.split("\\.");
+        Map<String, Object> current = document;
+        for (int i = 0; i < parts.length - 1; i++) {
+            Object next = current.get(parts[i]);
+            if (!(next instanceof Map)) return false;
+            current = (Map<String, Object>) next;
+        }
+        return current.containsKey(parts[parts.length - 1]);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Object getPath(Map<String, Object> document, String path) {
+        String[] parts = path.split("\\.");
+        Map<String, Object> current = document;
+        for (int i = 0; i < parts.length - 1; i++) {
+            Object next = current.get(parts[i]);
+            if (!(next instanceof Map)) return null;
+            current = (Map<String, Object>) next;
+        }
+        return current.get(parts[parts.length - 1]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object removePath(Map<String, Object> document, String path) {
+        String[] parts = path.split("\\.");
+        Map<String, Object> current = document;
+        for (int i = 0; i < parts.length - 1; i++) {
+            Object next = current.get(parts[i]);
+            if (!(next instanceof Map)) return null;
+            current = (Map<String, Object>) next;
+        }
+        return current.remove(parts[parts.length - 1]);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static void setPath(Map<String, Object> document, String path, Object value) {
+        String[] parts = path.split("\\.");
+        Map<String, Object> current = document;
+        for (int i = 0; i < parts.length - 1; i++) {
+            Object next = current.get(parts[i]);
+            if (!(next instanceof Map)) {
+                next = new HashMap<String, Object>();
+                current.put(parts[i], next);
+            }
+            current = (Map<String, Object>) next;
+        }
+        current.put(parts[parts.length - 1], value);
+    }
+}
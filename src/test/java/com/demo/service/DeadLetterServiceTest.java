@@ -0,0 +1,74 @@
+package com.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.demo.dto.DeadLetter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class DeadLetterServiceTest {
+
+    @Test
+    void keepsAtMostTheEntryCapPerMigration() throws IOException {
+        DeadLetterService service = service(3, 1_000_000);
+        for (int i = 0; i < 10; i++) {
+            service.record(null, letter("db.a", "doc-" + i, "x"));
+        }
+        service.record(null, letter("db.b", "doc-0", "x"));
+        assertEquals(3, service.count("db.a"));
+        assertEquals(1, service.count("db.b"));
+        assertEquals(7L, overflow(service, "db.a").get("dropped"));
+    }
+
+    @Test
+    void failingAgainReplacesTheEntryEvenAtTheCap() throws IOException {
+        DeadLetterService service = service(1, 1_000_000);
+        service.record(null, letter("db.a", "doc-0", "x"));
+        service.record(null, letter("db.a", "doc-0", "x"));
+        List<DeadLetter> letters = service.list("db.a");
+        assertEquals(1, letters.size());
+        assertEquals(2, letters.get(0).getAttempts());
+    }
+
+    @Test
+    void removingAnEntryFreesRoom() throws IOException {
+        DeadLetterService service = service(1, 1_000_000);
+        service.record(null, letter("db.a", "doc-0", "x"));
+        service.remove("db.a", "doc-0");
+        service.record(null, letter("db.a", "doc-1", "x"));
+        assertEquals("doc-1", service.list("db.a").get(0).getDocumentId());
+    }
+
+    @Test
+    void payloadsBeyondTheByteCapAreNotKept() throws IOException {
+        DeadLetterService service = service(100, 10);
+        service.record(null, letter("db.a", "doc-0", "123456"));
+        service.record(null, letter("db.a", "doc-1", "123456"));
+        List<DeadLetter> letters = service.list("db.a");
+        assertEquals(2, letters.size());
+        assertNotNull(letters.stream().filter(l -> l.getDocumentId().equals("doc-0")).findFirst().get().getPayload());
+        assertNull(letters.stream().filter(l -> l.getDocumentId().equals("doc-1")).findFirst().get().getPayload());
+        assertEquals(1L, overflow(service, "db.a").get("payloadsDropped"));
+    }
+
+    private static DeadLetterService service(int maxEntries, long maxPayloadBytes) throws IOException {
+        // A blank directory keeps the queue in memory
+        return new DeadLetterService(new ObjectMapper(), "", 4096, 100, 60_000, true, 65536, maxEntries, maxPayloadBytes);
+    }
+
+    private static DeadLetter letter(String migrationKey, String documentId, String payload) {
+        return new DeadLetter(migrationKey, documentId, null, "write", "RuntimeException", "failed", 1, payload);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> overflow(DeadLetterService service, String migrationKey) {
+        return ((Map<String, Map<String, Object>>) service.getStats().get("overflowByMigration")).get(migrationKey);
+    }
+}
@@ -0,0 +1,150 @@
+package com.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.demo.dto.PartitionLease;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class PartitionLeaseServiceTest {
+
+    private static final String JOB = "db.orders";
+    private static final long LEASE_MS = 1000; // the shortest lease the service allows
+
+    private final InMemoryPartitionLeaseStore store = new InMemoryPartitionLeaseStore();
+    private final List<PartitionLeaseService> workers = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        workers.forEach(PartitionLeaseService::shutdown);
+    }
+
+    @Test
+    void firstPublisherCoordinates() {
+        PartitionLeaseService first = worker("a");
+        PartitionLeaseService second = worker("b");
+        assertTrue(first.publish(JOB, request(), List.of(100, 200)));
+        assertFalse(second.publish(JOB, request(), List.of(100, 200)));
+        assertEquals(3, first.getPartitions(JOB).size());
+        assertEquals("db", second.readRequest(store.getManifest(JOB)).mongoDatabase());
+    }
+
+    @Test
+    void claimsEveryPartitionOnceThenNothing() {
+        PartitionLeaseService worker = worker("a");
+        worker.publish(JOB, request(), List.of(100));
+        PartitionLeaseService.Lease first = worker.claim(JOB);
+        PartitionLeaseService.Lease second = worker.claim(JOB);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertTrue(first.getPartition().getPartitionId() != second.getPartition().getPartitionId());
+        assertNull(worker.claim(JOB));
+    }
+
+    @Test
+    void renewalKeepsTheLeaseBeyondItsTerm() throws InterruptedException {
+        PartitionLeaseService owner = worker("a");
+        PartitionLeaseService other = worker("b");
+        owner.publish(JOB, request(), List.of());
+        PartitionLeaseService.Lease lease = owner.claim(JOB);
+        Thread.sleep(LEASE_MS * 2);
+        assertNull(other.claim(JOB));
+        assertFalse(lease.isLost());
+        assertTrue(lease.complete(10));
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndTheOldOwnerCannotComplete() throws InterruptedException {
+        PartitionLeaseService crashed = worker("a");
+        PartitionLeaseService survivor = worker("b");
+        crashed.publish(JOB, request(), List.of());
+        PartitionLeaseService.Lease stale = crashed.claim(JOB);
+        // A crashed instance stops renewing
+        crashed.shutdown();
+        assertNull(survivor.claim(JOB));
+        Thread.sleep(LEASE_MS + 200);
+
+        PartitionLeaseService.Lease taken = survivor.claim(JOB);
+        assertNotNull(taken);
+        assertEquals("b", taken.getPartition().getOwner());
+        assertEquals(2, taken.getPartition().getAttempts());
+        assertFalse(stale.complete(5));
+        assertTrue(taken.complete(7));
+        assertEquals(7, survivor.getPartitions(JOB).get(0).getTransferred());
+    }
+
+    @Test
+    void releasedPartitionIsClaimableAtOnce() {
+        PartitionLeaseService first = worker("a");
+        PartitionLeaseService second = worker("b");
+        first.publish(JOB, request(), List.of());
+        first.claim(JOB).release();
+        PartitionLeaseService.Lease lease = second.claim(JOB);
+        assertNotNull(lease);
+        assertEquals("b", lease.getPartition().getOwner());
+    }
+
+    @Test
+    void finishedOnlyWhenEveryPartitionIsDone() {
+        PartitionLeaseService worker = worker("a");
+        worker.publish(JOB, request(), List.of(100));
+        assertTrue(worker.isActive(JOB));
+        worker.claim(JOB).complete(1);
+        assertFalse(worker.isFinished(JOB));
+        worker.claim(JOB).complete(1);
+        assertTrue(worker.isFinished(JOB));
+
+        worker.markComplete(JOB);
+        assertFalse(worker.isActive(JOB));
+        // A completed job can be published again
+        assertTrue(worker.publish(JOB, request(), List.of()));
+    }
+
+    @Test
+    void twoWorkersRacingForOnePartitionGetItOnce() throws Exception {
+        PartitionLeaseService first = worker("a");
+        PartitionLeaseService second = worker("b");
+        first.publish(JOB, request(), List.of());
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 50; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                Future<PartitionLeaseService.Lease> a = pool.submit(() -> { start.await(); return first.claim(JOB); });
+                Future<PartitionLeaseService.Lease> b = pool.submit(() -> { start.await(); return second.claim(JOB); });
+                start.countDown();
+                PartitionLeaseService.Lease leaseA = a.get(5, TimeUnit.SECONDS);
+                PartitionLeaseService.Lease leaseB = b.get(5, TimeUnit.SECONDS);
+                assertTrue((leaseA == null) != (leaseB == null), "exactly one worker must win round " + round);
+                PartitionLeaseService.Lease winner = leaseA != null ? leaseA : leaseB;
+                assertEquals(PartitionLease.State.LEASED, store.getPartitions(JOB).get(0).getState());
+                winner.release();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private PartitionLeaseService worker(String workerId) {
+        PartitionLeaseService worker = new PartitionLeaseService(store, new ObjectMapper(), true, workerId, 4, LEASE_MS, 100);
+        workers.add(worker);
+        return worker;
+    }
+
+    private static DataTransferService.TransferRequest request() {
+        return new DataTransferService.TransferRequest("db", "orders", "bucket", "scope", "orders", List.of(), null);
+    }
+}
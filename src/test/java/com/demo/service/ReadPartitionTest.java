@@ -0,0 +1,101 @@
+package com.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import com.demo.service.ReadPartition.Page;
+import com.demo.service.WatermarkCheckpoint.KeyRange;
+import com.demo.service.WatermarkCheckpoint.PartitionState;
+import com.demo.util.BsonKeys;
+
+class ReadPartitionTest {
+
+    @Test
+    void splitsAtBoundaries() {
+        List<ReadPartition> partitions = ReadPartition.split(null, null, List.of(100, 200), false);
+        assertEquals(3, partitions.size());
+        assertEquals(Document.parse("{_id: {$lt: 100}}"), partitions.get(0).nextPageFilter());
+        assertEquals(Document.parse("{_id: {$gte: 100, $lt: 200}}"), partitions.get(1).nextPageFilter());
+        assertEquals(Document.parse("{_id: {$gte: 200}}"), partitions.get(2).nextPageFilter());
+    }
+
+    @Test
+    void unboundedPartitionReadsEverything() {
+        ReadPartition partition = ReadPartition.split(null, null, List.of(), false).get(0);
+        assertEquals(new Document(), partition.nextPageFilter());
+    }
+
+    @Test
+    void cursorMovesPastEachPage() {
+        ReadPartition partition = ReadPartition.split(null, null, List.of(100), false).get(0);
+        partition.advance(10);
+        assertEquals(Document.parse("{_id: {$lt: 100, $gt: 10}}"), partition.nextPageFilter());
+    }
+
+    @Test
+    void watermarkOnlyMovesOverContiguousPages() {
+        ReadPartition partition = ReadPartition.split(null, null, List.of(), false).get(0);
+        Page first = partition.advance(10);
+        Page second = partition.advance(20);
+        Page third = partition.advance(30);
+
+        partition.complete(second);
+        PartitionState state = partition.snapshot();
+        assertNull(state.watermark());
+        assertEquals(List.of(new KeyRange(BsonKeys.encode(10), BsonKeys.encode(20))), state.completedAhead());
+
+        partition.complete(first);
+        state = partition.snapshot();
+        assertEquals(BsonKeys.encode(20), state.watermark());
+        assertTrue(state.completedAhead().isEmpty());
+
+        partition.complete(third);
+        assertEquals(BsonKeys.encode(30), partition.snapshot().watermark());
+    }
+
+    @Test
+    void resumeSkipsRangesWrittenAhead() {
+        KeyRange ahead = new KeyRange(BsonKeys.encode(40), BsonKeys.encode(60));
+        PartitionState saved = new PartitionState(0, null, BsonKeys.encode(100), BsonKeys.encode(20), List.of(ahead));
+        ReadPartition partition = ReadPartition.resume(saved, false);
+
+        assertEquals(Document.parse("{_id: {$lt: 100, $gt: 20}, $nor: [{_id: {$lte: 60, $gt: 40}}]}"),
+                partition.nextPageFilter());
+        // Still recorded until the watermark passes it
+        assertEquals(List.of(ahead), partition.snapshot().completedAhead());
+    }
+
+    @Test
+    void skipRangesArePrunedOnceCursorPassesThem() {
+        KeyRange ahead = new KeyRange(BsonKeys.encode(40), BsonKeys.encode(60));
+        PartitionState saved = new PartitionState(0, null, null, BsonKeys.encode(20), List.of(ahead));
+        ReadPartition partition = ReadPartition.resume(saved, false);
+
+        Page page = partition.advance(70);
+        assertEquals(Document.parse("{_id: {$gt: 70}}"), partition.nextPageFilter());
+        partition.complete(page);
+        PartitionState state = partition.snapshot();
+        assertEquals(BsonKeys.encode(70), state.watermark());
+        assertTrue(state.completedAhead().isEmpty());
+    }
+
+    @Test
+    void mixedIdTypesCompareWithExpressions() {
+        ReadPartition partition = ReadPartition.split(null, null, List.of(), true).get(0);
+        partition.advance("a");
+        Document filter = partition.nextPageFilter();
+        assertEquals(Document.parse("{$expr: {$and: [{$gt: ['$_id', {$literal: 'a'}]}]}}"), filter);
+    }
+
+    @Test
+    void idRangeOfUnboundedRangeIsEmpty() {
+        assertEquals(new Document(), ReadPartition.idRange(null, null));
+        assertEquals(Document.parse("{_id: {$gte: 'k'}}"), ReadPartition.idRange(BsonKeys.encode("k"), null));
+    }
+}
@@ -0,0 +1,126 @@
+package com.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AppendOnlyLogTest {
+
+    private static final int HEADER_BYTES = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysPutsAndDeletesAfterReopen() throws IOException {
+        Path file = dir.resolve("test.log");
+        try (AppendOnlyLog log = open(file)) {
+            log.put("a", bytes("1"));
+            log.put("b", bytes("2"));
+            log.put("a", bytes("3"));
+            log.delete("b");
+        }
+        try (AppendOnlyLog log = open(file)) {
+            Map<String, byte[]> snapshot = log.snapshot();
+            assertEquals(1, snapshot.size());
+            assertArrayEquals(bytes("3"), snapshot.get("a"));
+            assertEquals(4L, log.getStats().get("recoveredRecords"));
+        }
+    }
+
+    @Test
+    void compactsWhenFullAndKeepsOnlyLiveEntries() throws IOException {
+        Path file = dir.resolve("compact.log");
+        byte[] value = new byte[200];
+        try (AppendOnlyLog log = open(file)) {
+            // Far more than the 4 KB initial capacity, all over the same ten keys
+            for (int i = 0; i < 500; i++) {
+                log.put("key-" + (i % 10), value);
+            }
+            assertTrue((Long) log.getStats().get("compactions") > 0);
+            assertTrue((Integer) log.getStats().get("capacityBytes") < 500 * 200);
+        }
+        try (AppendOnlyLog log = open(file)) {
+            assertEquals(10, log.snapshot().size());
+            // Only what was appended since the last compaction is replayed
+            assertTrue((Long) log.getStats().get("recoveredRecords") < 500);
+        }
+    }
+
+    @Test
+    void growsWhenLiveEntriesDoNotFit() throws IOException {
+        Path file = dir.resolve("grow.log");
+        try (AppendOnlyLog log = open(file)) {
+            for (int i = 0; i < 100; i++) {
+                log.put("key-" + i, new byte[100]);
+            }
+            assertEquals(100, log.snapshot().size());
+        }
+        try (AppendOnlyLog log = open(file)) {
+            assertEquals(100, log.snapshot().size());
+        }
+    }
+
+    @Test
+    void dropsTornRecordAndZeroesTheRestOfTheFile() throws IOException {
+        Path file = dir.resolve("torn.log");
+        int firstRecord;
+        try (AppendOnlyLog log = open(file)) {
+            log.put("kept", bytes("value"));
+            firstRecord = (Integer) log.getStats().get("usedBytes");
+            log.put("torn", new byte[300]);
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            // Break the second record's CRC, as a crash in the middle of writing it would
+            raw.seek(firstRecord + 4);
+            raw.writeInt(raw.readInt() ^ 1);
+        }
+        try (AppendOnlyLog log = open(file)) {
+            assertEquals(Map.of("kept", "value"), strings(log.snapshot()));
+            // A shorter record appended over the torn one
+            log.put("next", bytes("x"));
+        }
+        try (AppendOnlyLog log = open(file);
+             RandomAccessFile raw = new RandomAccessFile(file.toFile(), "r")) {
+            assertEquals(Map.of("kept", "value", "next", "x"), strings(log.snapshot()));
+            int end = (Integer) log.getStats().get("usedBytes");
+            assertEquals(firstRecord + HEADER_BYTES + 5 + "next".length() + 1, end);
+            raw.seek(end);
+            for (int i = end; i < raw.length(); i++) {
+                assertEquals(0, raw.read(), "stale byte at offset " + i);
+            }
+        }
+    }
+
+    @Test
+    void rejectsWritesAfterClose() throws IOException {
+        AppendOnlyLog log = open(dir.resolve("closed.log"));
+        log.close();
+        assertThrows(IOException.class, () -> log.put("a", bytes("1")));
+    }
+
+    private static AppendOnlyLog open(Path file) throws IOException {
+        return new AppendOnlyLog(file, 4096, 60_000, 0);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> strings(Map<String, byte[]> snapshot) {
+        Map<String, String> result = new HashMap<>();
+        snapshot.forEach((key, value) -> result.put(key, new String(value, StandardCharsets.UTF_8)));
+        return result;
+    }
+}
@@ -0,0 +1,81 @@
+package com.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    // Window of 10 calls, judged after 4, opening at 50% failures for 50 ms
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 50, 50);
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        for (int i = 0; i < 3; i++) breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void opensAtFailureRateThreshold() {
+        breaker.recordSuccess();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1L, breaker.getStats().get("timesOpened"));
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        breaker.recordFailure();
+        for (int i = 0; i < 9; i++) breaker.recordSuccess();
+        assertEquals(10.0, breaker.getStats().get("failureRate"));
+        breaker.recordSuccess();
+        assertEquals(0.0, breaker.getStats().get("failureRate"));
+    }
+
+    @Test
+    void probeSuccessStartsAFreshWindow() {
+        for (int i = 0; i < 4; i++) breaker.recordFailure();
+        breaker.signalRecovery("test");
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        // Four failures among ten calls stay under 50%
+        for (int i = 0; i < 6; i++) breaker.recordSuccess();
+        for (int i = 0; i < 4; i++) breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void admitsOneProbeAfterOpenIntervalAndClosesOnSuccess() throws InterruptedException {
+        breaker.forceOpen("down");
+        assertFalse(breaker.awaitPermission(() -> true), "open breaker must not admit a stopping caller");
+        assertTrue(breaker.awaitPermission(() -> false));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // The probe is in flight, so a second caller waits
+        assertFalse(breaker.awaitPermission(() -> true));
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.awaitPermission(() -> true));
+    }
+
+    @Test
+    void failedProbeReopens() throws InterruptedException {
+        breaker.forceOpen("down");
+        breaker.signalRecovery("listener says up");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.awaitPermission(() -> true));
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2L, breaker.getStats().get("timesOpened"));
+    }
+
+    @Test
+    void recoverySignalIgnoredWhileClosed() {
+        breaker.signalRecovery("spurious");
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,98 @@
+package com.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.demo.dto.FaultSpec;
+import com.demo.util.FaultSchedule.Endpoint;
+import com.demo.util.FaultSchedule.Fault;
+import com.demo.util.FaultSchedule.Type;
+
+class FaultScheduleTest {
+
+    @Test
+    void parsesTypesAndEndpointsCaseInsensitively() {
+        FaultSchedule schedule = FaultSchedule.of(List.of(new FaultSpec(" disconnect ", "source", 0, 100, 0, 0)), 1);
+        Fault fault = schedule.getFaults().get(0);
+        assertEquals(Type.DISCONNECT, fault.getType());
+        assertEquals(Endpoint.SOURCE, fault.getEndpoint());
+        assertEquals(100, fault.getEndMs());
+    }
+
+    @Test
+    void hitsOnlyItsEndpointWhileActive() throws InterruptedException {
+        FaultSchedule schedule = FaultSchedule.of(List.of(new FaultSpec("TIMEOUT", "TARGET", 0, 60_000, 10, 0)), 1);
+        schedule.start();
+        Fault fault = schedule.getFaults().get(0);
+        assertNull(schedule.next(Endpoint.SOURCE));
+        assertSame(fault, schedule.next(Endpoint.TARGET));
+        assertSame(fault, schedule.next(Endpoint.TARGET));
+        assertEquals(2, fault.getInjected());
+        assertTrue(fault.getFirstInjectedMs() >= 0);
+    }
+
+    @Test
+    void inactiveBeforeStartMs() {
+        FaultSchedule schedule = FaultSchedule.of(List.of(new FaultSpec("SLOW", "TARGET", 60_000, 1000, 10, 0)), 1);
+        schedule.start();
+        assertNull(schedule.next(Endpoint.TARGET));
+        assertEquals(-1, schedule.getFaults().get(0).getFirstInjectedMs());
+    }
+
+    @Test
+    void partialFaultsHitTheirShareReproducibly() {
+        List<Boolean> first = partialHits(7);
+        assertEquals(first, partialHits(7));
+        long hits = first.stream().filter(hit -> hit).count();
+        assertTrue(hits > 150 && hits < 250, "hits " + hits);
+    }
+
+    @Test
+    void firstListedFaultWinsWhenFaultsOverlap() {
+        FaultSchedule schedule = FaultSchedule.of(List.of(
+                new FaultSpec("DISCONNECT", "TARGET", 0, 60_000, 0, 0),
+                new FaultSpec("SLOW", "TARGET", 0, 60_000, 10, 0)), 1);
+        schedule.start();
+        assertEquals(Type.DISCONNECT, schedule.next(Endpoint.TARGET).getType());
+        assertEquals(0, schedule.getFaults().get(1).getInjected());
+    }
+
+    @Test
+    void rejectsInvalidSpecs() {
+        assertThrows(IllegalArgumentException.class,
+                () -> FaultSchedule.of(List.of(new FaultSpec("TIMEOUT", "TARGET", 0, 0, 10, 0)), 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> FaultSchedule.of(List.of(new FaultSpec("TIMEOUT", "TARGET", -1, 10, 10, 0)), 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> FaultSchedule.of(List.of(new FaultSpec("PARTIAL", "TARGET", 0, 10, 10, 1.5)), 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> FaultSchedule.of(List.of(new FaultSpec("EXPLODE", "TARGET", 0, 10, 10, 0)), 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> FaultSchedule.of(List.of(new FaultSpec("SLOW", "NOWHERE", 0, 10, 10, 0)), 1));
+    }
+
+    @Test
+    void noSpecsMeansNoFaults() {
+        FaultSchedule schedule = FaultSchedule.of(null, 1);
+        schedule.start();
+        assertNull(schedule.next(Endpoint.TARGET));
+    }
+
+    private static List<Boolean> partialHits(long seed) {
+        FaultSchedule schedule = FaultSchedule.of(List.of(new FaultSpec("PARTIAL", "TARGET", 0, 60_000, 0, 0.2)), seed);
+        schedule.start();
+        List<Boolean> hits = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            hits.add(schedule.next(Endpoint.TARGET) != null);
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,67 @@
+package com.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertEquals(0, new HyperLogLog(12).estimate());
+    }
+
+    @Test
+    void repeatedValuesCountOnce() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int round = 0; round < 10; round++) {
+            for (long value = 0; value < 1000; value++) {
+                sketch.addHash(HyperLogLog.hash(value));
+            }
+        }
+        assertWithin(1000, sketch.estimate(), 0.05);
+    }
+
+    @Test
+    void largeCardinalityWithinStandardError() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int i = 0; i < 200_000; i++) {
+            sketch.addHash(HyperLogLog.hash("doc-" + i));
+        }
+        // Standard error is about 1.6% at precision 12; allow four of them
+        assertWithin(200_000, sketch.estimate(), 0.065);
+    }
+
+    @Test
+    void mergeCountsTheUnion() {
+        HyperLogLog left = new HyperLogLog(12);
+        HyperLogLog right = new HyperLogLog(12);
+        for (int i = 0; i < 60_000; i++) {
+            left.addHash(HyperLogLog.hash("doc-" + i));
+        }
+        // Overlaps the left sketch by 20k values
+        for (int i = 40_000; i < 100_000; i++) {
+            right.addHash(HyperLogLog.hash("doc-" + i));
+        }
+        left.merge(right);
+        assertWithin(100_000, left.estimate(), 0.065);
+    }
+
+    @Test
+    void mergeRejectsAnotherPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void rejectsPrecisionOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(17));
+    }
+
+    private static void assertWithin(long expected, long actual, double tolerance) {
+        assertTrue(Math.abs(actual - expected) <= expected * tolerance,
+                "estimate " + actual + " not within " + tolerance + " of " + expected);
+    }
+}
@@ -0,0 +1,45 @@
+package com.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyTrackerTest {
+
+    @Test
+    void unknownUntilMinimumSamples() {
+        LatencyTracker tracker = new LatencyTracker(100, 10);
+        for (int i = 0; i < 9; i++) tracker.record(1_000);
+        assertEquals(-1, tracker.percentileNanos(95));
+        tracker.record(1_000);
+        assertEquals(1_000, tracker.percentileNanos(95));
+    }
+
+    @Test
+    void percentileByNearestRank() {
+        LatencyTracker tracker = new LatencyTracker(100, 1);
+        for (int i = 1; i <= 100; i++) tracker.record(i);
+        assertEquals(50, tracker.percentileNanos(50));
+        assertEquals(95, tracker.percentileNanos(95));
+        assertEquals(100, tracker.percentileNanos(100));
+    }
+
+    @Test
+    void onlyRecentSamplesCount() {
+        LatencyTracker tracker = new LatencyTracker(64, 1);
+        for (int i = 0; i < 64; i++) tracker.record(1_000_000);
+        for (int i = 0; i < 64; i++) tracker.record(10);
+        assertEquals(10, tracker.percentileNanos(99));
+    }
+
+    @Test
+    void cachedPercentileRefreshesAfterAnEighthOfTheWindow() {
+        LatencyTracker tracker = new LatencyTracker(64, 1);
+        for (int i = 0; i < 64; i++) tracker.record(10);
+        assertEquals(10, tracker.percentileNanos(50));
+        for (int i = 0; i < 7; i++) tracker.record(500);
+        assertEquals(10, tracker.percentileNanos(50));
+        for (int i = 0; i < 64; i++) tracker.record(500);
+        assertEquals(500, tracker.percentileNanos(50));
+    }
+}
@@ -0,0 +1,76 @@
+package com.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class RetryBudgetTest {
+
+    @Test
+    void startsWithTheReserve() {
+        RetryBudget budget = new RetryBudget(0.1, 3);
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+        assertEquals(1, budget.getRefused());
+    }
+
+    @Test
+    void requestsEarnRetriesAtTheRatio() {
+        RetryBudget budget = new RetryBudget(0.1, 5);
+        while (budget.tryAcquire()) { }
+        for (int i = 0; i < 9; i++) budget.recordRequest();
+        assertFalse(budget.tryAcquire());
+        budget.recordRequest();
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    void balanceNeverExceedsTheReserve() {
+        RetryBudget budget = new RetryBudget(1, 2);
+        for (int i = 0; i < 100; i++) budget.recordRequest();
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+        assertEquals(100L, budget.getStats().get("requests"));
+        assertEquals(2L, budget.getStats().get("retries"));
+    }
+
+    @Test
+    void retriesUnderSustainedFailureStayNearTheRatio() {
+        RetryBudget budget = new RetryBudget(0.1, 10);
+        long retries = 0;
+        for (int i = 0; i < 10_000; i++) {
+            budget.recordRequest();
+            // Every write fails and wants three retries
+            for (int attempt = 0; attempt < 3; attempt++) {
+                if (budget.tryAcquire()) retries++;
+            }
+        }
+        assertTrue(retries <= 10 + 1000, "retries " + retries);
+        assertTrue(retries >= 1000, "retries " + retries);
+    }
+
+    @Test
+    void updateChangesTheRatio() {
+        RetryBudget budget = new RetryBudget(0.1, 1);
+        assertTrue(budget.tryAcquire());
+        budget.update(0.5, 1);
+        budget.recordRequest();
+        assertFalse(budget.tryAcquire());
+        budget.recordRequest();
+        assertTrue(budget.tryAcquire());
+        assertEquals(0.5, budget.getStats().get("ratio"));
+    }
+
+    @Test
+    void rejectsNegativeSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new RetryBudget(-0.1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new RetryBudget(0.1, -1));
+    }
+}